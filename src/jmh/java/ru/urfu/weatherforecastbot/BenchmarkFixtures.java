@@ -0,0 +1,62 @@
+package ru.urfu.weatherforecastbot;
+
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+import ru.urfu.weatherforecastbot.service.WeatherForecastsDeserializer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Данные для бенчмарков: ответы сервера прогнозов погоды в формате Open-Meteo, хранящиеся в ресурсах
+ * {@code fixtures/}
+ */
+public final class BenchmarkFixtures {
+
+    /**
+     * Место, для которого записаны ответы сервера
+     */
+    public static final Place PLACE = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+    /**
+     * Ответ сервера с прогнозом на один день
+     */
+    public static final String FORECAST_DAY = "forecast-day.json";
+    /**
+     * Ответ сервера с прогнозом на неделю
+     */
+    public static final String FORECAST_WEEK = "forecast-week.json";
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * Читает ответ сервера из ресурсов
+     *
+     * @param name имя файла ответа
+     * @return тело ответа
+     * @throws UncheckedIOException если ресурс не удалось прочитать
+     */
+    public static byte[] read(String name) throws UncheckedIOException {
+        try (InputStream input = BenchmarkFixtures.class.getResourceAsStream("/fixtures/" + name)) {
+            if (input == null) {
+                throw new UncheckedIOException(new IOException("Fixture not found: " + name));
+            }
+            return input.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Читает ответ сервера из ресурсов и преобразует его в ряд прогнозов погоды
+     *
+     * @param name имя файла ответа
+     * @return ряд прогнозов погоды
+     * @throws UncheckedIOException если ресурс не удалось прочитать
+     */
+    public static ForecastSeries readForecastSeries(String name) throws UncheckedIOException {
+        return new WeatherForecastsDeserializer().parseJsonResponseToForecastSeries(PLACE, read(name));
+    }
+
+}
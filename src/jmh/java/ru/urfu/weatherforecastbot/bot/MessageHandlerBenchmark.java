@@ -0,0 +1,60 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.urfu.weatherforecastbot.database.InMemoryChatContextRepository;
+import ru.urfu.weatherforecastbot.database.InMemoryChatStateRepository;
+import ru.urfu.weatherforecastbot.service.StubReminderService;
+import ru.urfu.weatherforecastbot.service.StubWeatherForecastService;
+import ru.urfu.weatherforecastbot.util.CachingWeatherForecastFormatter;
+import ru.urfu.weatherforecastbot.util.ReminderFormatterImpl;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк обработки сообщения пользователя от разбора команды до готового ответа. Прогнозы берутся из
+ * записанных ответов сервера, а репозитории хранят данные в памяти, поэтому измеряется только логика бота
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MessageHandlerBenchmark {
+
+    /**
+     * Сообщение пользователя: прогноз на сегодня, прогноз на неделю, список подписок, справка и обычный текст
+     */
+    @Param({"/info Екатеринбург", "/info_week Екатеринбург", "/show_subscriptions", "/help", "Привет"})
+    private String message;
+    /**
+     * Обработчик сообщений
+     */
+    private MessageHandler messageHandler;
+
+    /**
+     * Создает обработчик сообщений с сервисами и репозиториями в памяти
+     */
+    @Setup
+    public void setUp() {
+        messageHandler = new MessageHandlerImpl(new StubWeatherForecastService(),
+                new CachingWeatherForecastFormatter(10_000, Duration.ofHours(1), ObservationRegistry.NOOP,
+                        new SimpleMeterRegistry()),
+                new InMemoryChatContextRepository(), new InMemoryChatStateRepository(), new StubReminderService(5),
+                new ReminderFormatterImpl());
+    }
+
+    /**
+     * Обработка сообщения
+     *
+     * @return ответное сообщение
+     */
+    @Benchmark
+    public BotMessage handle() {
+        return messageHandler.handle(1, message).block();
+    }
+
+}
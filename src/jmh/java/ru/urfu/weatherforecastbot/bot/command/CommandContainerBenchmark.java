@@ -0,0 +1,63 @@
+package ru.urfu.weatherforecastbot.bot.command;
+
+import org.openjdk.jmh.annotations.*;
+import ru.urfu.weatherforecastbot.bot.state.BotStateManager;
+import ru.urfu.weatherforecastbot.database.InMemoryChatContextRepository;
+import ru.urfu.weatherforecastbot.database.InMemoryChatStateRepository;
+import ru.urfu.weatherforecastbot.service.ReminderService;
+import ru.urfu.weatherforecastbot.service.StubReminderService;
+import ru.urfu.weatherforecastbot.service.StubWeatherForecastService;
+import ru.urfu.weatherforecastbot.service.WeatherForecastRequestHandler;
+import ru.urfu.weatherforecastbot.service.WeatherForecastRequestHandlerImpl;
+import ru.urfu.weatherforecastbot.util.ReminderFormatterImpl;
+import ru.urfu.weatherforecastbot.util.WeatherForecastFormatterImpl;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк проверки, является ли сообщение пользователя командой: выполняется для каждого входящего сообщения
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CommandContainerBenchmark {
+
+    /**
+     * Сообщение пользователя: команда с аргументами, команда без обязательного аргумента и обычный текст
+     */
+    @Param({"/info Екатеринбург", "/subscribe Екатеринбург", "Екатеринбург"})
+    private String message;
+    /**
+     * Контейнер обработчиков команд
+     */
+    private CommandContainer commandContainer;
+
+    /**
+     * Создает контейнер обработчиков команд с репозиториями в памяти
+     */
+    @Setup
+    public void setUp() {
+        WeatherForecastRequestHandler weatherForecastRequestHandler = new WeatherForecastRequestHandlerImpl(
+                new StubWeatherForecastService(), new WeatherForecastFormatterImpl());
+        InMemoryChatContextRepository chatContextRepository = new InMemoryChatContextRepository();
+        ReminderService reminderService = new StubReminderService(3);
+        BotStateManager botStateManager = new BotStateManager(weatherForecastRequestHandler,
+                new InMemoryChatStateRepository(), chatContextRepository, reminderService);
+        commandContainer = new CommandContainer(weatherForecastRequestHandler, chatContextRepository,
+                botStateManager, reminderService, new ReminderFormatterImpl());
+    }
+
+    /**
+     * Проверка сообщения
+     *
+     * @return true, если сообщение является командой
+     */
+    @Benchmark
+    public boolean canHandle() {
+        return commandContainer.canHandle(message);
+    }
+
+}
@@ -0,0 +1,17 @@
+package ru.urfu.weatherforecastbot.database;
+
+import ru.urfu.weatherforecastbot.model.ChatContext;
+
+/**
+ * Репозиторий контекстов чатов, хранящий их в памяти
+ */
+public class InMemoryChatContextRepository extends InMemoryRepository<ChatContext> implements ChatContextRepository {
+
+    /**
+     * Создает пустой репозиторий контекстов чатов
+     */
+    public InMemoryChatContextRepository() {
+        super(ChatContext::getChatId);
+    }
+
+}
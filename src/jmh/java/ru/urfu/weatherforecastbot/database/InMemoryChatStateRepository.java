@@ -0,0 +1,17 @@
+package ru.urfu.weatherforecastbot.database;
+
+import ru.urfu.weatherforecastbot.model.ChatState;
+
+/**
+ * Репозиторий состояний чатов, хранящий их в памяти
+ */
+public class InMemoryChatStateRepository extends InMemoryRepository<ChatState> implements ChatStateRepository {
+
+    /**
+     * Создает пустой репозиторий состояний чатов
+     */
+    public InMemoryChatStateRepository() {
+        super(ChatState::getChatId);
+    }
+
+}
@@ -0,0 +1,98 @@
+package ru.urfu.weatherforecastbot.database;
+
+import org.springframework.data.repository.CrudRepository;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Репозиторий, хранящий сущности в памяти. Заменяет базу данных в бенчмарках, чтобы измерялась только
+ * логика бота
+ *
+ * @param <T> тип сущности
+ */
+public abstract class InMemoryRepository<T> implements CrudRepository<T, Long> {
+
+    /**
+     * Сущности по ID
+     */
+    private final Map<Long, T> entities = new HashMap<>();
+    /**
+     * Функция получения ID сущности
+     */
+    private final Function<T, Long> idGetter;
+
+    /**
+     * Создает пустой репозиторий
+     *
+     * @param idGetter функция получения ID сущности
+     */
+    protected InMemoryRepository(Function<T, Long> idGetter) {
+        this.idGetter = idGetter;
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        entities.put(idGetter.apply(entity), entity);
+        return entity;
+    }
+
+    @Override
+    public <S extends T> Iterable<S> saveAll(Iterable<S> entities) {
+        entities.forEach(this::save);
+        return entities;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        return Optional.ofNullable(entities.get(id));
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return entities.containsKey(id);
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        return List.copyOf(entities.values());
+    }
+
+    @Override
+    public Iterable<T> findAllById(Iterable<Long> ids) {
+        List<T> found = new ArrayList<>();
+        ids.forEach(id -> findById(id).ifPresent(found::add));
+        return found;
+    }
+
+    @Override
+    public long count() {
+        return entities.size();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        entities.remove(id);
+    }
+
+    @Override
+    public void delete(T entity) {
+        entities.remove(idGetter.apply(entity));
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        ids.forEach(entities::remove);
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        entities.forEach(this::delete);
+    }
+
+    @Override
+    public void deleteAll() {
+        entities.clear();
+    }
+
+}
@@ -0,0 +1,66 @@
+package ru.urfu.weatherforecastbot.service;
+
+import ru.urfu.weatherforecastbot.model.Reminder;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Сервис напоминаний для бенчмарков: у каждого чата один и тот же набор напоминаний, а изменения не
+ * сохраняются, чтобы состояние не менялось от итерации к итерации
+ */
+public class StubReminderService implements ReminderService {
+
+    /**
+     * Напоминания каждого чата
+     */
+    private final List<Reminder> reminders;
+
+    /**
+     * Создает сервис с указанным количеством напоминаний у каждого чата
+     *
+     * @param remindersCount количество напоминаний
+     */
+    public StubReminderService(int remindersCount) {
+        reminders = createReminders(remindersCount);
+    }
+
+    /**
+     * Создает напоминания на разные места и время
+     *
+     * @param count количество напоминаний
+     * @return напоминания
+     */
+    public static List<Reminder> createReminders(int count) {
+        String[] placeNames = {"Екатеринбург", "Москва", "Санкт-Петербург", "Новосибирск", "Казань"};
+        List<Reminder> reminders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Reminder reminder = new Reminder();
+            reminder.setId((long) i);
+            reminder.setChatId(1);
+            reminder.setPlaceName(placeNames[i % placeNames.length]);
+            reminder.setTime(LocalTime.of(i % 24, (i * 15) % 60));
+            reminders.add(reminder);
+        }
+        return reminders;
+    }
+
+    @Override
+    public List<Reminder> findAllForChatId(long chatId) {
+        return reminders;
+    }
+
+    @Override
+    public void addReminder(long chatId, String placeName, String time) {
+    }
+
+    @Override
+    public void editReminderByRelativePosition(long chatId, int position, String newPlaceName, String newTime) {
+    }
+
+    @Override
+    public void deleteReminderByRelativePosition(long chatId, int position) {
+    }
+
+}
@@ -0,0 +1,26 @@
+package ru.urfu.weatherforecastbot.service;
+
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.BenchmarkFixtures;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+
+/**
+ * Сервис прогнозов погоды для бенчмарков: возвращает прогнозы из записанных ответов сервера без обращения к сети
+ */
+public class StubWeatherForecastService implements WeatherForecastService {
+
+    /**
+     * Прогноз на один день
+     */
+    private final ForecastSeries daySeries = BenchmarkFixtures.readForecastSeries(BenchmarkFixtures.FORECAST_DAY);
+    /**
+     * Прогноз на неделю
+     */
+    private final ForecastSeries weekSeries = BenchmarkFixtures.readForecastSeries(BenchmarkFixtures.FORECAST_WEEK);
+
+    @Override
+    public Mono<ForecastSeries> getForecastAsync(String placeName, int daysCount) {
+        return Mono.just(daysCount == 1 ? daySeries : weekSeries);
+    }
+
+}
@@ -0,0 +1,133 @@
+package ru.urfu.weatherforecastbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import ru.urfu.weatherforecastbot.BenchmarkFixtures;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк десериализации ответа сервера прогнозов погоды: потоковый разбор против разбора через дерево JSON.
+ * <p>Для сравнения аллокаций запускать с профилировщиком {@code -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherForecastsDeserializerBenchmark {
+
+    /**
+     * Место прогноза
+     */
+    private final Place place = BenchmarkFixtures.PLACE;
+    /**
+     * Потоковый десериализатор
+     */
+    private final WeatherForecastsDeserializer streamingDeserializer = new WeatherForecastsDeserializer();
+    /**
+     * Десериализатор через дерево JSON
+     */
+    private final TreeWeatherForecastsDeserializer treeDeserializer = new TreeWeatherForecastsDeserializer();
+    /**
+     * Маппер для построения дерева JSON
+     */
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    /**
+     * Файл записанного ответа сервера
+     */
+    @Param({BenchmarkFixtures.FORECAST_DAY, BenchmarkFixtures.FORECAST_WEEK})
+    private String fixture;
+    /**
+     * Тело ответа сервера
+     */
+    private byte[] response;
+
+    /**
+     * Читает записанный ответ сервера
+     */
+    @Setup
+    public void setUp() {
+        response = BenchmarkFixtures.read(fixture);
+    }
+
+    /**
+     * Потоковый разбор ответа в ряд прогнозов
+     *
+     * @return ряд прогнозов погоды
+     */
+    @Benchmark
+    public ForecastSeries streaming() {
+        return streamingDeserializer.parseJsonResponseToForecastSeries(place, response);
+    }
+
+    /**
+     * Разбор ответа через дерево JSON в список прогнозов
+     *
+     * @return прогнозы погоды
+     * @throws IOException если JSON некорректен
+     */
+    @Benchmark
+    public List<HourlyForecast> tree() throws IOException {
+        return treeDeserializer.parseJsonResponseToWeatherForecasts(place, objectMapper.readTree(response));
+    }
+
+    /**
+     * Прежний десериализатор, строящий дерево JSON, разбирающий время через {@link DateTimeFormatter} и создающий
+     * объект на каждый час прогноза
+     */
+    private static class TreeWeatherForecastsDeserializer {
+
+        /**
+         * Форматировщик даты и времени для парсинга
+         */
+        private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+
+        /**
+         * Преобразует ответ сервера в список прогнозов погоды
+         *
+         * @param place    место прогноза
+         * @param response дерево ответа сервера
+         * @return список прогнозов погоды
+         */
+        private List<HourlyForecast> parseJsonResponseToWeatherForecasts(Place place, JsonNode response) {
+            JsonNode hourlyData = response.get("hourly");
+            JsonNode times = hourlyData.get("time");
+            JsonNode temperatures = hourlyData.get("temperature_2m");
+            JsonNode feelsLikeTemperatures = hourlyData.get("apparent_temperature");
+            List<HourlyForecast> forecasts = new ArrayList<>(times.size());
+            for (int i = 0; i < times.size(); i++) {
+                forecasts.add(new HourlyForecast(
+                        place,
+                        LocalDateTime.parse(times.get(i).asText(), dateTimeFormatter),
+                        temperatures.get(i).asDouble(),
+                        feelsLikeTemperatures.get(i).asDouble()
+                ));
+            }
+            return forecasts;
+        }
+
+    }
+
+    /**
+     * Прогноз погоды на один час в прежнем представлении
+     *
+     * @param place                место прогноза
+     * @param dateTime             дата и время прогноза
+     * @param temperature          температура
+     * @param feelsLikeTemperature температура по ощущению
+     */
+    public record HourlyForecast(Place place, LocalDateTime dateTime, double temperature,
+                                 double feelsLikeTemperature) {
+    }
+
+}
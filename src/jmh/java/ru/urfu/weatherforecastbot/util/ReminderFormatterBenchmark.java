@@ -0,0 +1,53 @@
+package ru.urfu.weatherforecastbot.util;
+
+import org.openjdk.jmh.annotations.*;
+import ru.urfu.weatherforecastbot.model.Reminder;
+import ru.urfu.weatherforecastbot.service.StubReminderService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк форматирования списка напоминаний для команды показа подписок
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReminderFormatterBenchmark {
+
+    /**
+     * Форматировщик напоминаний
+     */
+    private final ReminderFormatter formatter = new ReminderFormatterImpl();
+    /**
+     * Количество напоминаний
+     */
+    @Param({"1", "10", "50"})
+    private int remindersCount;
+    /**
+     * Напоминания
+     */
+    private List<Reminder> reminders;
+
+    /**
+     * Создает напоминания
+     */
+    @Setup
+    public void setUp() {
+        reminders = StubReminderService.createReminders(remindersCount);
+    }
+
+    /**
+     * Форматирование напоминаний
+     *
+     * @return напоминания в виде строки
+     */
+    @Benchmark
+    public String formatReminders() {
+        return formatter.formatReminders(reminders);
+    }
+
+}
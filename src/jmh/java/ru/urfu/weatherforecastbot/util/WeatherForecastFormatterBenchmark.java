@@ -0,0 +1,174 @@
+package ru.urfu.weatherforecastbot.util;
+
+import org.openjdk.jmh.annotations.*;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Бенчмарк форматирования прогнозов погоды для каждого временного периода: однопроходный рендерер против
+ * форматирования через {@link DateTimeFormatter} и {@link Double#toString(double)}.
+ * <p>Для сравнения аллокаций запускать с профилировщиком {@code -prof gc}</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WeatherForecastFormatterBenchmark {
+
+    /**
+     * Однопроходный форматировщик
+     */
+    private final WeatherForecastFormatter formatter = new WeatherForecastFormatterImpl();
+    /**
+     * Форматировщик через {@link DateTimeFormatter}
+     */
+    private final WeatherForecastFormatter baselineFormatter = new DateTimeWeatherForecastFormatter();
+    /**
+     * Временной период прогноза
+     */
+    @Param({"TODAY", "TOMORROW", "WEEK"})
+    private ForecastTimePeriod timePeriod;
+    /**
+     * Ряд прогнозов для периода
+     */
+    private ForecastSeries series;
+
+    /**
+     * Формирует почасовой ряд прогнозов нужной длины
+     */
+    @Setup
+    public void setUp() {
+        int hours = timePeriod == ForecastTimePeriod.WEEK ? 7 * 24 : 24;
+        double[] temperatures = new double[hours];
+        double[] feelsLikeTemperatures = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            temperatures[i] = Math.round((-10 + (i % 24) * 0.7) * 10) / 10.0;
+            feelsLikeTemperatures[i] = Math.round((-14 + (i % 24) * 0.6) * 10) / 10.0;
+        }
+        series = new ForecastSeries(new Place("Екатеринбург", 56.8519, 60.6122, "Asia/Yekaterinburg"),
+                LocalDateTime.of(2024, 1, 1, 0, 0), Duration.ofHours(1), temperatures, feelsLikeTemperatures);
+    }
+
+    /**
+     * Однопроходное форматирование
+     *
+     * @return прогноз погоды в виде строки
+     */
+    @Benchmark
+    public String singlePass() {
+        return formatter.formatForecasts(timePeriod, series);
+    }
+
+    /**
+     * Форматирование через {@link DateTimeFormatter}
+     *
+     * @return прогноз погоды в виде строки
+     */
+    @Benchmark
+    public String dateTimeFormatter() {
+        return baselineFormatter.formatForecasts(timePeriod, series);
+    }
+
+    /**
+     * Прежний форматировщик: создает дату и время для каждого прогноза, форматирует их через
+     * {@link DateTimeFormatter}, а температуру - через {@link Double#toString(double)}
+     */
+    private static class DateTimeWeatherForecastFormatter implements WeatherForecastFormatter {
+
+        /**
+         * Форматировщик времени для форматирования по часам
+         */
+        private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH-mm");
+        /**
+         * Форматировщик даты для форматирования на неделю
+         */
+        private final DateTimeFormatter weekDateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+
+        @Override
+        public String formatForecasts(ForecastTimePeriod timePeriod, ForecastSeries series) {
+            String period = switch (timePeriod) {
+                case WEEK -> "на неделю";
+                case TODAY -> "на сегодня";
+                case TOMORROW -> "на завтра";
+            };
+            String formattedForecasts = timePeriod == ForecastTimePeriod.WEEK
+                    ? formatSeveralDaysForecast(series)
+                    : formatWeatherForecasts(series);
+            String header = "🌡️ Прогноз погоды %s (%s):".formatted(period, series.place().name());
+            return header + "\n\n" + formattedForecasts;
+        }
+
+        /**
+         * Форматирует прогнозы на несколько дней
+         *
+         * @param series ряд прогнозов погоды
+         * @return прогнозы погоды в виде строки
+         */
+        private String formatSeveralDaysForecast(ForecastSeries series) {
+            StringBuilder sb = new StringBuilder();
+            LocalDate currentDate = null;
+            boolean firstInDate = true;
+            for (int i = 0; i < series.size(); i++) {
+                LocalDateTime dateTime = series.getDateTime(i);
+                LocalDate date = dateTime.toLocalDate();
+                if (!date.equals(currentDate)) {
+                    if (currentDate != null) {
+                        sb.append("\n\n");
+                    }
+                    sb.append(weekDateFormatter.format(date)).append(":\n");
+                    currentDate = date;
+                    firstInDate = true;
+                }
+                if (dateTime.getHour() % 4 == 0) {
+                    if (!firstInDate) {
+                        sb.append('\n');
+                    }
+                    sb.append(formatWeatherForecast(series, i, dateTime));
+                    firstInDate = false;
+                }
+            }
+            return sb.toString();
+        }
+
+        /**
+         * Форматирует один прогноз погоды
+         *
+         * @param series   ряд прогнозов погоды
+         * @param index    индекс прогноза
+         * @param dateTime дата и время прогноза
+         * @return прогноз погоды в виде строки
+         */
+        private String formatWeatherForecast(ForecastSeries series, int index, LocalDateTime dateTime) {
+            return timeFormatter.format(dateTime) + ": " +
+                    series.getTemperature(index) + "°C" +
+                    " (по ощущению " + series.getFeelsLikeTemperature(index) + "°C" + ")";
+        }
+
+        /**
+         * Форматирует все прогнозы ряда
+         *
+         * @param series ряд прогнозов погоды
+         * @return прогнозы погоды в виде строки
+         */
+        private String formatWeatherForecasts(ForecastSeries series) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < series.size(); i++) {
+                if (i > 0) {
+                    sb.append('\n');
+                }
+                sb.append(formatWeatherForecast(series, i, series.getDateTime(i)));
+            }
+            return sb.toString();
+        }
+
+    }
+
+}
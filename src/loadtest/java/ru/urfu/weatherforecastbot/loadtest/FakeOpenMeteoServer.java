@@ -0,0 +1,234 @@
+package ru.urfu.weatherforecastbot.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Локальная заглушка API Open-Meteo для поиска мест ({@code /v1/search}) и получения прогнозов погоды
+ * ({@code /v1/forecast}).
+ * <p>Любое название находится, а координаты места вычисляются по названию, поэтому одно и то же название всегда
+ * дает одно и то же место. Прогноз строится от местной полуночи текущего дня, в том числе для нескольких мест в одном
+ * запросе. Все ответы задерживаются на указанное время</p>
+ */
+public class FakeOpenMeteoServer implements AutoCloseable {
+
+    /**
+     * Часовой пояс найденных мест
+     */
+    private static final String TIMEZONE = "Asia/Yekaterinburg";
+    /**
+     * JSON маппер
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * HTTP сервер
+     */
+    private final HttpServer server;
+    /**
+     * Задержка ответа
+     */
+    private final Duration latency;
+    /**
+     * Количество запросов поиска мест
+     */
+    private final LongAdder geocodingRequestsCount = new LongAdder();
+    /**
+     * Количество запросов прогнозов погоды
+     */
+    private final LongAdder forecastRequestsCount = new LongAdder();
+
+    /**
+     * Создает заглушку API Open-Meteo на свободном порту
+     *
+     * @param latency задержка ответа
+     * @throws IOException если не удалось открыть порт
+     */
+    public FakeOpenMeteoServer(Duration latency) throws IOException {
+        this.latency = latency;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/v1/search", exchange -> respond(exchange, search(parseQuery(exchange))));
+        server.createContext("/v1/forecast", exchange -> respond(exchange, forecast(parseQuery(exchange))));
+        server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    /**
+     * Запускает сервер
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Возвращает URL API поиска мест в формате настройки {@code geocoding.api-url}
+     *
+     * @return URL API поиска мест
+     */
+    public String getGeocodingApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/search";
+    }
+
+    /**
+     * Возвращает URL API прогнозов погоды в формате настройки {@code forecast.api-url}
+     *
+     * @return URL API прогнозов погоды
+     */
+    public String getForecastApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1/forecast";
+    }
+
+    /**
+     * Возвращает количество запросов поиска мест
+     *
+     * @return количество запросов
+     */
+    public long getGeocodingRequestsCount() {
+        return geocodingRequestsCount.sum();
+    }
+
+    /**
+     * Возвращает количество запросов прогнозов погоды
+     *
+     * @return количество запросов
+     */
+    public long getForecastRequestsCount() {
+        return forecastRequestsCount.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+    }
+
+    /**
+     * Формирует ответ на запрос поиска места
+     *
+     * @param query параметры запроса
+     * @return ответ сервера
+     */
+    private ObjectNode search(Map<String, String> query) {
+        geocodingRequestsCount.increment();
+        String name = query.getOrDefault("name", "");
+        int hash = name.hashCode();
+        ObjectNode response = mapper.createObjectNode();
+        response.putArray("results").addObject()
+                .put("name", name)
+                .put("latitude", Math.floorMod(hash, 1400) / 10.0 - 70)
+                .put("longitude", Math.floorMod(hash >>> 11, 3600) / 10.0 - 180)
+                .put("timezone", TIMEZONE);
+        return response;
+    }
+
+    /**
+     * Формирует ответ на запрос прогноза погоды для одного или нескольких мест
+     *
+     * @param query параметры запроса
+     * @return прогноз для одного места или массив прогнозов
+     */
+    private Object forecast(Map<String, String> query) {
+        forecastRequestsCount.increment();
+        String[] latitudes = query.getOrDefault("latitude", "0").split(",");
+        String[] longitudes = query.getOrDefault("longitude", "0").split(",");
+        String[] timezones = query.getOrDefault("timezone", TIMEZONE).split(",");
+        int days = Integer.parseInt(query.getOrDefault("forecast_days", "7"));
+        if (latitudes.length == 1) {
+            return createForecast(latitudes[0], longitudes[0], timezones[0], days);
+        }
+        ArrayNode forecasts = mapper.createArrayNode();
+        for (int i = 0; i < latitudes.length; i++) {
+            forecasts.add(createForecast(latitudes[i], longitudes[i], timezones[i], days));
+        }
+        return forecasts;
+    }
+
+    /**
+     * Формирует почасовой прогноз для места
+     *
+     * @param latitude  широта
+     * @param longitude долгота
+     * @param timezone  часовой пояс
+     * @param days      количество дней
+     * @return прогноз
+     */
+    private ObjectNode createForecast(String latitude, String longitude, String timezone, int days) {
+        ObjectNode forecast = mapper.createObjectNode();
+        forecast.put("latitude", Double.parseDouble(latitude));
+        forecast.put("longitude", Double.parseDouble(longitude));
+        forecast.put("timezone", timezone);
+        ObjectNode hourly = forecast.putObject("hourly");
+        ArrayNode times = hourly.putArray("time");
+        ArrayNode temperatures = hourly.putArray("temperature_2m");
+        ArrayNode feelsLikeTemperatures = hourly.putArray("apparent_temperature");
+        LocalDate today = LocalDate.now(ZoneId.of(timezone));
+        for (int hour = 0; hour < days * 24; hour++) {
+            times.add(today.atStartOfDay().plusHours(hour).toString());
+            double temperature = Math.round((-5 + 6 * Math.sin(hour * Math.PI / 12)) * 10) / 10.0;
+            temperatures.add(temperature);
+            feelsLikeTemperatures.add(Math.round((temperature - 3.5) * 10) / 10.0);
+        }
+        return forecast;
+    }
+
+    /**
+     * Разбирает параметры запроса
+     *
+     * @param exchange запрос и ответ
+     * @return параметры запроса
+     */
+    private static Map<String, String> parseQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String rawQuery = exchange.getRequestURI().getRawQuery();
+        if (rawQuery == null) {
+            return query;
+        }
+        for (String parameter : rawQuery.split("&")) {
+            int separator = parameter.indexOf('=');
+            if (separator > 0) {
+                query.put(URLDecoder.decode(parameter.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(separator + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return query;
+    }
+
+    /**
+     * Отправляет ответ после настроенной задержки
+     *
+     * @param exchange запрос и ответ
+     * @param body     тело ответа
+     * @throws IOException если не удалось записать ответ
+     */
+    private void respond(HttpExchange exchange, Object body) throws IOException {
+        try (exchange) {
+            if (!latency.isZero()) {
+                Thread.sleep(latency.toMillis());
+            }
+            byte[] responseBody = mapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, responseBody.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(responseBody);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
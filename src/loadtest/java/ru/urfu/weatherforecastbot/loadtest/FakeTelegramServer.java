@@ -0,0 +1,325 @@
+package ru.urfu.weatherforecastbot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Локальная заглушка Telegram Bot API.
+ * <p>Отдает боту события из очереди через метод getUpdates (с долгим опросом, как настоящий сервер) и принимает
+ * ответы бота через метод sendMessage, завершая ими ожидающие ответа запросы
+ * {@link FakeTelegramServer#sendUpdate(long, String)}. После вызова setWebhook события, как и у настоящего
+ * сервера, доставляются POST-запросами на URL webhook не более чем в max_connections запросов одновременно, а
+ * неуспешно доставленные события доставляются повторно. На остальные методы отвечает успехом. Ответы на все
+ * методы, кроме getUpdates, задерживаются на указанное время</p>
+ */
+public class FakeTelegramServer implements AutoCloseable {
+
+    /**
+     * Токен бота, под которым заглушка принимает запросы
+     */
+    public static final String TOKEN = "loadtest";
+    /**
+     * Максимальное количество событий в одном ответе getUpdates по умолчанию
+     */
+    private static final int DEFAULT_UPDATES_LIMIT = 100;
+    /**
+     * JSON маппер
+     */
+    private final ObjectMapper mapper = new ObjectMapper();
+    /**
+     * HTTP сервер
+     */
+    private final HttpServer server;
+    /**
+     * Задержка ответа на запросы бота
+     */
+    private final Duration latency;
+    /**
+     * События, еще не полученные ботом
+     */
+    private final BlockingQueue<ObjectNode> updates = new LinkedBlockingQueue<>();
+    /**
+     * Запросы, ожидающие ответа бота, по ID чата
+     */
+    private final Map<Long, CompletableFuture<String>> pendingReplies = new ConcurrentHashMap<>();
+    /**
+     * Номер последнего события
+     */
+    private final AtomicInteger lastUpdateId = new AtomicInteger();
+    /**
+     * Номер последнего сообщения
+     */
+    private final AtomicInteger lastMessageId = new AtomicInteger();
+    /**
+     * Количество ответов бота, которых не ожидал ни один запрос
+     */
+    private final LongAdder unexpectedRepliesCount = new LongAdder();
+    /**
+     * Количество повторных доставок событий через webhook
+     */
+    private final LongAdder redeliveredUpdatesCount = new LongAdder();
+    /**
+     * HTTP клиент для доставки событий через webhook
+     */
+    private final HttpClient webhookClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    /**
+     * Потоки, доставляющие события через webhook (создаются при вызове setWebhook)
+     */
+    private volatile ExecutorService webhookDeliverers;
+
+    /**
+     * Создает заглушку Telegram Bot API на свободном порту
+     *
+     * @param latency задержка ответа на запросы бота
+     * @throws IOException если не удалось открыть порт
+     */
+    public FakeTelegramServer(Duration latency) throws IOException {
+        this.latency = latency;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/bot" + TOKEN + "/", this::handle);
+        server.setExecutor(Executors.newCachedThreadPool());
+    }
+
+    /**
+     * Запускает сервер
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Возвращает URL API в формате настройки {@code bot.api-url}
+     *
+     * @return URL API без токена
+     */
+    public String getApiUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/bot";
+    }
+
+    /**
+     * Отправляет боту текстовое сообщение от пользователя
+     *
+     * @param chatId ID чата
+     * @param text   текст сообщения
+     * @return текст следующего ответа бота в этот чат (если ожидание ответа будет прервано, например, по тайм-ауту,
+     * поздний ответ будет учтен как неожиданный)
+     */
+    public CompletableFuture<String> sendUpdate(long chatId, String text) {
+        CompletableFuture<String> reply = new CompletableFuture<>();
+        pendingReplies.put(chatId, reply);
+        reply.whenComplete((result, throwable) -> pendingReplies.remove(chatId, reply));
+        ObjectNode update = mapper.createObjectNode();
+        ObjectNode message = update.putObject("message");
+        message.put("message_id", lastMessageId.incrementAndGet());
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("text", text);
+        message.putObject("chat").put("id", chatId).put("type", "private");
+        message.putObject("from").put("id", chatId).put("is_bot", false).put("first_name", "User" + chatId);
+        // Бот при долгом опросе пропускает события с номером меньше уже полученного, поэтому номера должны
+        // попадать в очередь по возрастанию
+        synchronized (updates) {
+            update.put("update_id", lastUpdateId.incrementAndGet());
+            updates.add(update);
+        }
+        return reply;
+    }
+
+    /**
+     * Возвращает количество ответов бота, которых не ожидал ни один запрос
+     *
+     * @return количество неожиданных ответов
+     */
+    public long getUnexpectedRepliesCount() {
+        return unexpectedRepliesCount.sum();
+    }
+
+    /**
+     * Возвращает количество повторных доставок событий через webhook
+     *
+     * @return количество повторных доставок
+     */
+    public long getRedeliveredUpdatesCount() {
+        return redeliveredUpdatesCount.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        ((ExecutorService) server.getExecutor()).shutdownNow();
+        if (webhookDeliverers != null) {
+            webhookDeliverers.shutdownNow();
+        }
+    }
+
+    /**
+     * Обрабатывает запрос к методу API
+     *
+     * @param exchange запрос и ответ
+     * @throws IOException если не удалось прочитать запрос или записать ответ
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            String method = path.substring(path.lastIndexOf('/') + 1).toLowerCase(Locale.ROOT);
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            JsonNode request = body.length == 0 ? mapper.createObjectNode() : mapper.readTree(body);
+            JsonNode result = switch (method) {
+                case "getupdates" -> getUpdates(request);
+                case "setwebhook" -> setWebhook(request);
+                case "sendmessage" -> {
+                    delay();
+                    yield sendMessage(request);
+                }
+                default -> {
+                    delay();
+                    yield mapper.getNodeFactory().booleanNode(true);
+                }
+            };
+            ObjectNode response = mapper.createObjectNode();
+            response.put("ok", true);
+            response.set("result", result);
+            byte[] responseBody = mapper.writeValueAsBytes(response);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, responseBody.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(responseBody);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Отдает накопившиеся события, ожидая первого из них не дольше запрошенного боту времени
+     *
+     * @param request запрос getUpdates
+     * @return массив событий
+     * @throws InterruptedException если ожидание было прервано
+     */
+    private ArrayNode getUpdates(JsonNode request) throws InterruptedException {
+        int limit = request.path("limit").asInt(DEFAULT_UPDATES_LIMIT);
+        ArrayNode result = mapper.createArrayNode();
+        ObjectNode first = updates.poll(request.path("timeout").asInt(0), TimeUnit.SECONDS);
+        if (first != null) {
+            List<ObjectNode> batch = new ArrayList<>();
+            batch.add(first);
+            updates.drainTo(batch, Math.max(limit, 1) - 1);
+            result.addAll(batch);
+        }
+        return result;
+    }
+
+    /**
+     * Запускает доставку событий через webhook
+     *
+     * @param request запрос setWebhook
+     * @return true
+     */
+    private JsonNode setWebhook(JsonNode request) {
+        URI url = URI.create(request.path("url").asText());
+        String secretToken = request.path("secret_token").asText();
+        int maxConnections = request.path("max_connections").asInt(40);
+        synchronized (this) {
+            if (webhookDeliverers == null) {
+                webhookDeliverers = Executors.newFixedThreadPool(maxConnections, task -> {
+                    Thread thread = new Thread(task, "fake-telegram-webhook");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+                for (int i = 0; i < maxConnections; i++) {
+                    webhookDeliverers.execute(() -> deliverUpdates(url, secretToken));
+                }
+            }
+        }
+        return mapper.getNodeFactory().booleanNode(true);
+    }
+
+    /**
+     * Доставляет события через webhook по одному, пока поток не будет прерван. Событие, на которое бот не ответил
+     * успехом, возвращается в очередь
+     *
+     * @param url         URL webhook
+     * @param secretToken секретный токен
+     */
+    private void deliverUpdates(URI url, String secretToken) {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                ObjectNode update = updates.take();
+                HttpRequest request = HttpRequest.newBuilder(url)
+                        .header("Content-Type", "application/json")
+                        .header("X-Telegram-Bot-Api-Secret-Token", secretToken)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(update)))
+                        .build();
+                int status;
+                try {
+                    status = webhookClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                } catch (IOException e) {
+                    status = -1;
+                }
+                if (status != 200) {
+                    redeliveredUpdatesCount.increment();
+                    updates.add(update);
+                    Thread.sleep(100);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Принимает сообщение бота и завершает им ожидающий ответа запрос
+     *
+     * @param request запрос sendMessage
+     * @return отправленное сообщение
+     */
+    private ObjectNode sendMessage(JsonNode request) {
+        long chatId = request.path("chat_id").asLong();
+        String text = request.path("text").asText();
+        CompletableFuture<String> reply = pendingReplies.remove(chatId);
+        if (reply == null || !reply.complete(text)) {
+            unexpectedRepliesCount.increment();
+        }
+        ObjectNode message = mapper.createObjectNode();
+        message.put("message_id", lastMessageId.incrementAndGet());
+        message.put("date", System.currentTimeMillis() / 1000);
+        message.put("text", text);
+        message.putObject("chat").put("id", chatId).put("type", "private");
+        return message;
+    }
+
+    /**
+     * Задерживает ответ на настроенное время
+     *
+     * @throws InterruptedException если ожидание было прервано
+     */
+    private void delay() throws InterruptedException {
+        if (!latency.isZero()) {
+            Thread.sleep(latency.toMillis());
+        }
+    }
+
+}
@@ -0,0 +1,92 @@
+package ru.urfu.weatherforecastbot.loadtest;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Статистика нагрузочного теста: задержки ответов бота и ошибки по видам
+ */
+public class LoadStatistics {
+
+    /**
+     * Задержки ответов в наносекундах
+     */
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+    /**
+     * Количество ошибок по видам
+     */
+    private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+    /**
+     * Учитываются ли результаты (выключено во время прогрева)
+     */
+    private volatile boolean recording;
+
+    /**
+     * Начинает учет результатов
+     */
+    public void startRecording() {
+        recording = true;
+    }
+
+    /**
+     * Учитывает полученный ответ
+     *
+     * @param latencyNanos задержка ответа в наносекундах
+     */
+    public void recordReply(long latencyNanos) {
+        if (recording) {
+            latencies.add(latencyNanos);
+        }
+    }
+
+    /**
+     * Учитывает ошибку
+     *
+     * @param kind вид ошибки
+     */
+    public void recordError(String kind) {
+        if (recording) {
+            errors.computeIfAbsent(kind, key -> new LongAdder()).increment();
+        }
+    }
+
+    /**
+     * Формирует отчет
+     *
+     * @param elapsedNanos время учета результатов в наносекундах
+     * @return отчет
+     */
+    public String report(long elapsedNanos) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        long errorsCount = errors.values().stream().mapToLong(LongAdder::sum).sum();
+        long updatesCount = sorted.length + errorsCount;
+        StringBuilder report = new StringBuilder();
+        report.append("Updates: %d (%.1f updates/s)%n".formatted(updatesCount, updatesCount * 1e9 / elapsedNanos));
+        report.append("Reply latency: p50 %.1f ms, p90 %.1f ms, p99 %.1f ms, max %.1f ms%n".formatted(
+                percentile(sorted, 0.5), percentile(sorted, 0.9), percentile(sorted, 0.99), percentile(sorted, 1)));
+        report.append("Errors: %d (%.2f%%)".formatted(errorsCount,
+                updatesCount == 0 ? 0.0 : errorsCount * 100.0 / updatesCount));
+        errors.forEach((kind, count) -> report.append(", %s %d".formatted(kind, count.sum())));
+        return report.toString();
+    }
+
+    /**
+     * Вычисляет процентиль задержки
+     *
+     * @param sorted   отсортированные задержки в наносекундах
+     * @param quantile квантиль от 0 до 1
+     * @return задержка в миллисекундах
+     */
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1e6;
+    }
+
+}
@@ -0,0 +1,151 @@
+package ru.urfu.weatherforecastbot.loadtest;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+import ru.urfu.weatherforecastbot.WeatherForecastBotApplication;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Нагрузочный тест бота.
+ * <p>Запускает заглушки Telegram Bot API и Open-Meteo, запускает приложение, направив к ним запросы бота, и
+ * прогоняет {@link UserSession сценарии пользователей} в заданном количестве чатов одновременно. По окончании
+ * печатает количество обработанных событий в секунду, процентили задержки ответов и долю ошибок.</p>
+ * <p>Параметры (указаны значения по умолчанию):</p>
+ * <pre>
+ * --chats=100              количество одновременных чатов
+ * --duration=60s           продолжительность измерения
+ * --warmup=10s             продолжительность прогрева (результаты не учитываются)
+ * --think-time=0ms         пауза пользователя между ответом бота и следующим сообщением
+ * --reply-timeout=10s      максимальное время ожидания ответа бота
+ * --telegram-latency=0ms   задержка ответов заглушки Telegram Bot API
+ * --api-latency=0ms        задержка ответов заглушки Open-Meteo
+ * --mode=polling           способ получения событий ботом: polling (долгий опрос) или webhook
+ * --property.&lt;name&gt;=&lt;value&gt; дополнительная настройка приложения, например, --property.bot.outbound.chat-rate=1
+ * </pre>
+ * <p>Ограничения скорости отправки сообщений Telegram по умолчанию сняты, чтобы измерялась обработка событий, а не
+ * {@link ru.urfu.weatherforecastbot.bot.OutboundMessageQueue очередь исходящих сообщений}</p>
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    /**
+     * Запускает нагрузочный тест
+     *
+     * @param args параметры теста
+     * @throws Exception если тест не удалось запустить
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        Map<String, Object> properties = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (!arg.startsWith("--") || separator < 0) {
+                throw new IllegalArgumentException("Wrong argument provided: " + arg);
+            }
+            String name = arg.substring(2, separator);
+            String value = arg.substring(separator + 1);
+            if (name.startsWith("property.")) {
+                properties.put(name.substring("property.".length()), value);
+            } else {
+                options.put(name, value);
+            }
+        }
+        int chatsCount = Integer.parseInt(options.getOrDefault("chats", "100"));
+        Duration duration = parseDuration(options, "duration", "60s");
+        Duration warmup = parseDuration(options, "warmup", "10s");
+        Duration thinkTime = parseDuration(options, "think-time", "0ms");
+        Duration replyTimeout = parseDuration(options, "reply-timeout", "10s");
+        // Без TCP_NODELAY заголовки и тело ответа заглушек уходят разными пакетами, и каждый ответ ждет
+        // отложенного подтверждения TCP (~40 мс), что скрывает задержки самого бота
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        try (FakeTelegramServer telegram = new FakeTelegramServer(parseDuration(options, "telegram-latency", "0ms"));
+             FakeOpenMeteoServer openMeteo = new FakeOpenMeteoServer(parseDuration(options, "api-latency", "0ms"))) {
+            telegram.start();
+            openMeteo.start();
+            Map<String, Object> applicationProperties = new HashMap<>();
+            applicationProperties.put("bot.name", "loadtest");
+            applicationProperties.put("bot.token", FakeTelegramServer.TOKEN);
+            applicationProperties.put("bot.api-url", telegram.getApiUrl());
+            applicationProperties.put("geocoding.api-url", openMeteo.getGeocodingApiUrl());
+            applicationProperties.put("forecast.api-url", openMeteo.getForecastApiUrl());
+            applicationProperties.put("bot.outbound.global-rate", Double.MAX_VALUE);
+            applicationProperties.put("bot.outbound.chat-rate", Double.MAX_VALUE);
+            applicationProperties.put("spring.main.banner-mode", "off");
+            applicationProperties.put("logging.level.root", "WARN");
+            String mode = options.getOrDefault("mode", "polling");
+            if (mode.equals("webhook")) {
+                int port = findFreePort();
+                applicationProperties.put("server.port", port);
+                applicationProperties.put("bot.mode", "webhook");
+                applicationProperties.put("bot.webhook.url", "http://127.0.0.1:%d/telegram/webhook".formatted(port));
+                applicationProperties.put("bot.webhook.secret-token", "loadtest-secret");
+            }
+            applicationProperties.putAll(properties);
+
+            try (ConfigurableApplicationContext ignored = new SpringApplicationBuilder(
+                    WeatherForecastBotApplication.class).properties(applicationProperties).run()) {
+                LoadStatistics statistics = new LoadStatistics();
+                long deadlineNanos = System.nanoTime() + warmup.toNanos() + duration.toNanos();
+                List<CompletableFuture<Void>> sessions = new ArrayList<>(chatsCount);
+                for (int chatId = 1; chatId <= chatsCount; chatId++) {
+                    sessions.add(new UserSession(telegram, statistics, chatId, replyTimeout, thinkTime,
+                            deadlineNanos).run());
+                }
+                Thread.sleep(warmup.toMillis());
+                statistics.startRecording();
+                long start = System.nanoTime();
+                CompletableFuture.allOf(sessions.toArray(CompletableFuture[]::new)).join();
+                long elapsedNanos = System.nanoTime() - start;
+
+                System.out.printf("Chats: %d, duration: %s, mode: %s, telegram latency: %s, api latency: %s%n",
+                        chatsCount, duration, mode, options.getOrDefault("telegram-latency", "0ms"),
+                        options.getOrDefault("api-latency", "0ms"));
+                System.out.println(statistics.report(elapsedNanos));
+                System.out.printf("Unexpected replies: %d%n", telegram.getUnexpectedRepliesCount());
+                System.out.printf("Upstream requests: geocoding %d, forecast %d%n",
+                        openMeteo.getGeocodingRequestsCount(), openMeteo.getForecastRequestsCount());
+                if (mode.equals("webhook")) {
+                    System.out.printf("Webhook redeliveries: %d%n", telegram.getRedeliveredUpdatesCount());
+                }
+            }
+        }
+        System.exit(0);
+    }
+
+    /**
+     * Находит свободный порт для HTTP сервера приложения
+     *
+     * @return номер порта
+     * @throws IOException если не удалось открыть порт
+     */
+    private static int findFreePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /**
+     * Разбирает продолжительность в формате настроек Spring (например, 500ms или 10s)
+     *
+     * @param options      параметры теста
+     * @param name         имя параметра
+     * @param defaultValue значение по умолчанию
+     * @return продолжительность
+     */
+    private static Duration parseDuration(Map<String, String> options, String name, String defaultValue) {
+        return DurationStyle.detectAndParse(options.getOrDefault(name, defaultValue));
+    }
+
+}
@@ -0,0 +1,127 @@
+package ru.urfu.weatherforecastbot.loadtest;
+
+import ru.urfu.weatherforecastbot.bot.BotConstants;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Сценарий пользователя: по кругу запрашивает прогнозы, добавляет, просматривает, изменяет и удаляет
+ * напоминания, каждый раз дожидаясь ответа бота перед следующим сообщением
+ */
+public class UserSession {
+
+    /**
+     * Названия мест, которые запрашивают пользователи
+     */
+    private static final List<String> PLACE_NAMES = List.of("Екатеринбург", "Москва", "Казань", "Омск", "Тюмень",
+            "Пермь", "Сочи", "Самара");
+    /**
+     * Заглушка Telegram Bot API
+     */
+    private final FakeTelegramServer telegram;
+    /**
+     * Статистика теста
+     */
+    private final LoadStatistics statistics;
+    /**
+     * ID чата пользователя
+     */
+    private final long chatId;
+    /**
+     * Максимальное время ожидания ответа бота
+     */
+    private final Duration replyTimeout;
+    /**
+     * Исполнитель, откладывающий следующее сообщение на время обдумывания
+     */
+    private final Executor thinkTimeExecutor;
+    /**
+     * Момент окончания сценария (по {@link System#nanoTime()})
+     */
+    private final long deadlineNanos;
+    /**
+     * Номер круга сценария
+     */
+    private int round;
+
+    /**
+     * Создает сценарий пользователя
+     *
+     * @param telegram      заглушка Telegram Bot API
+     * @param statistics    статистика теста
+     * @param chatId        ID чата пользователя
+     * @param replyTimeout  максимальное время ожидания ответа бота
+     * @param thinkTime     пауза между ответом бота и следующим сообщением
+     * @param deadlineNanos момент окончания сценария (по {@link System#nanoTime()})
+     */
+    public UserSession(FakeTelegramServer telegram, LoadStatistics statistics, long chatId, Duration replyTimeout,
+                       Duration thinkTime, long deadlineNanos) {
+        this.telegram = telegram;
+        this.statistics = statistics;
+        this.chatId = chatId;
+        this.replyTimeout = replyTimeout;
+        this.thinkTimeExecutor = CompletableFuture.delayedExecutor(thinkTime.toNanos(), TimeUnit.NANOSECONDS);
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * Запускает сценарий
+     *
+     * @return завершается по окончании сценария
+     */
+    public CompletableFuture<Void> run() {
+        if (System.nanoTime() >= deadlineNanos) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String place = PLACE_NAMES.get((int) ((chatId + round) % PLACE_NAMES.size()));
+        String nextPlace = PLACE_NAMES.get((int) ((chatId + round + 1) % PLACE_NAMES.size()));
+        round++;
+        List<String> messages = List.of(
+                BotConstants.COMMAND_START,
+                BotConstants.COMMAND_FORECAST_TODAY + " " + place,
+                BotConstants.COMMAND_FORECAST_WEEK + " " + place,
+                BotConstants.COMMAND_SUBSCRIBE, place, "08:30",
+                BotConstants.COMMAND_SHOW_SUBSCRIPTIONS,
+                BotConstants.COMMAND_EDIT_SUBSCRIPTION, "1", nextPlace, "09:00",
+                BotConstants.COMMAND_DEL_SUBSCRIPTION, "1"
+        );
+        return send(messages, 0).thenCompose(ignored -> run());
+    }
+
+    /**
+     * Отправляет сообщения круга сценария по одному
+     *
+     * @param messages сообщения
+     * @param index    индекс следующего сообщения
+     * @return завершается после ответа на последнее сообщение
+     */
+    private CompletableFuture<Void> send(List<String> messages, int index) {
+        if (index == messages.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        long start = System.nanoTime();
+        return telegram.sendUpdate(chatId, messages.get(index))
+                .orTimeout(replyTimeout.toNanos(), TimeUnit.NANOSECONDS)
+                .handle((reply, throwable) -> {
+                    if (throwable instanceof TimeoutException) {
+                        statistics.recordError("timeout");
+                    } else if (throwable != null) {
+                        statistics.recordError(throwable.getClass().getSimpleName());
+                    } else if (BotConstants.FORECAST_UNAVAILABLE.equals(reply)) {
+                        statistics.recordError("forecast unavailable");
+                    } else if (BotConstants.UNKNOWN_COMMAND.equals(reply)) {
+                        statistics.recordError("unknown command");
+                    } else {
+                        statistics.recordReply(System.nanoTime() - start);
+                    }
+                    return null;
+                })
+                .thenComposeAsync(ignored -> send(messages, index + 1), thinkTimeExecutor);
+    }
+
+}
@@ -3,19 +3,34 @@ package ru.urfu.weatherforecastbot;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Map;
+
 /**
  * Класс для точки входа в приложение
  */
 @SpringBootApplication
 public class WeatherForecastBotApplication {
 
+    /**
+     * Настройки по умолчанию, которые можно переопределить в конфигурации приложения. По HTTP публикуются только
+     * проверка состояния и метрики в формате Prometheus, трассируется каждое событие, а для времени отправки
+     * сообщений публикуется гистограмма
+     */
+    private static final Map<String, Object> DEFAULT_PROPERTIES = Map.of(
+            "management.endpoints.web.exposure.include", "health,prometheus",
+            "management.tracing.sampling.probability", "1.0",
+            "management.metrics.distribution.percentiles-histogram.telegram.send", "true"
+    );
+
     /**
      * Точка входа, запускающая приложение Spring
      *
      * @param args аргументы командной строки
      */
     public static void main(String[] args) {
-        SpringApplication.run(WeatherForecastBotApplication.class, args);
+        SpringApplication application = new SpringApplication(WeatherForecastBotApplication.class);
+        application.setDefaultProperties(DEFAULT_PROPERTIES);
+        application.run(args);
     }
 
 }
@@ -6,11 +6,22 @@ package ru.urfu.weatherforecastbot.bot;
 public interface Bot {
 
     /**
-     * Отправляет сообщение в чат с указанным ID
+     * Отправляет сообщение в чат с указанным ID как {@link MessagePriority#INTERACTIVE ответ пользователю}
      *
      * @param chatId  ID чата
      * @param message сообщение
      */
-    void sendMessage(long chatId, BotMessage message);
+    default void sendMessage(long chatId, BotMessage message) {
+        sendMessage(chatId, message, MessagePriority.INTERACTIVE);
+    }
+
+    /**
+     * Отправляет сообщение в чат с указанным ID с указанным приоритетом
+     *
+     * @param chatId   ID чата
+     * @param message  сообщение
+     * @param priority приоритет сообщения
+     */
+    void sendMessage(long chatId, BotMessage message, MessagePriority priority);
 
 }
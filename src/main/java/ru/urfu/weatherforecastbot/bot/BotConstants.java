@@ -53,6 +53,11 @@ public class BotConstants {
      * Ненайденное место
      */
     public static final String NOT_FOUND_PLACE = "Извините, данное место не найдено.";
+    /**
+     * Прогноз недоступен
+     */
+    public static final String FORECAST_UNAVAILABLE =
+            "Извините, сервис прогнозов погоды сейчас недоступен. Попробуйте позже.";
     /**
      * Меню помощи
      */
@@ -1,17 +1,20 @@
 package ru.urfu.weatherforecastbot.bot;
 
+import reactor.core.publisher.Mono;
+
 /**
  * Обработчик сообщений
  */
 public interface MessageHandler {
 
     /**
-     * Обрабатывает сообщение и возвращает ответное сообщение
+     * Обрабатывает сообщение и возвращает ответное сообщение, не блокируя вызывающий поток в ожидании внешних
+     * сервисов
      *
      * @param chatId  ID чата
      * @param message сообщение
-     * @return ответное сообщение
+     * @return Mono с ответным сообщением
      */
-    BotMessage handle(long chatId, String message);
+    Mono<BotMessage> handle(long chatId, String message);
 
 }
@@ -1,7 +1,9 @@
 package ru.urfu.weatherforecastbot.bot;
 
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.command.CommandContainer;
 import ru.urfu.weatherforecastbot.bot.state.BotStateManager;
 import ru.urfu.weatherforecastbot.database.ChatContextRepository;
@@ -24,25 +26,25 @@ public class MessageHandlerImpl implements MessageHandler {
      * Создает экземпляр MessageHandlerImpl
      *
      * @param weatherService        сервис для получения прогнозов погоды
+     * @param forecastFormatter     форматировщик прогноза погоды в удобочитаемый вид
      * @param chatContextRepository репозиторий контекстов чатов
      * @param chatStateRepository   репозиторий состояний чатов
      * @param reminderService       сервис для управления напоминаниями
+     * @param observationRegistry   реестр наблюдений
      */
     @Autowired
     public MessageHandlerImpl(WeatherForecastService weatherService,
+                              WeatherForecastFormatter forecastFormatter,
                               ChatContextRepository chatContextRepository,
                               ChatStateRepository chatStateRepository,
-                              ReminderService reminderService) {
-        WeatherForecastRequestHandler weatherForecastRequestHandler =
-                new WeatherForecastRequestHandlerImpl(weatherService);
-        botStateManager = new BotStateManager(weatherForecastRequestHandler,
-                chatStateRepository, chatContextRepository, reminderService);
-        commandContainer = new CommandContainer(weatherForecastRequestHandler, chatContextRepository,
-                botStateManager, reminderService, new ReminderFormatterImpl());
+                              ReminderService reminderService,
+                              ObservationRegistry observationRegistry) {
+        this(weatherService, forecastFormatter, chatContextRepository, chatStateRepository, reminderService,
+                new ReminderFormatterImpl(), observationRegistry);
     }
 
     /**
-     * Создает экземпляр MessageHandlerImpl, используя переданные аргументы
+     * Создает экземпляр MessageHandlerImpl, используя переданные аргументы, без метрик и трассировки
      *
      * @param weatherService        сервис для получения прогнозов погоды
      * @param forecastFormatter     форматировщик прогноза погоды в удобочитаемый вид
@@ -57,18 +59,40 @@ public class MessageHandlerImpl implements MessageHandler {
                               ChatStateRepository chatStateRepository,
                               ReminderService reminderService,
                               ReminderFormatter reminderFormatter) {
+        this(weatherService, forecastFormatter, chatContextRepository, chatStateRepository, reminderService,
+                reminderFormatter, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Создает экземпляр MessageHandlerImpl, используя переданные аргументы
+     *
+     * @param weatherService        сервис для получения прогнозов погоды
+     * @param forecastFormatter     форматировщик прогноза погоды в удобочитаемый вид
+     * @param chatContextRepository репозиторий контекстов чатов
+     * @param chatStateRepository   репозиторий состояний чатов
+     * @param reminderService       сервис для управления напоминаниями
+     * @param reminderFormatter     форматировщик напоминаний
+     * @param observationRegistry   реестр наблюдений
+     */
+    public MessageHandlerImpl(WeatherForecastService weatherService,
+                              WeatherForecastFormatter forecastFormatter,
+                              ChatContextRepository chatContextRepository,
+                              ChatStateRepository chatStateRepository,
+                              ReminderService reminderService,
+                              ReminderFormatter reminderFormatter,
+                              ObservationRegistry observationRegistry) {
         WeatherForecastRequestHandler weatherForecastRequestHandler =
                 new WeatherForecastRequestHandlerImpl(weatherService, forecastFormatter);
         botStateManager = new BotStateManager(weatherForecastRequestHandler, chatStateRepository,
-                chatContextRepository, reminderService);
+                chatContextRepository, reminderService, observationRegistry);
         commandContainer = new CommandContainer(weatherForecastRequestHandler, chatContextRepository,
-                botStateManager, reminderService, reminderFormatter);
+                botStateManager, reminderService, reminderFormatter, observationRegistry);
     }
 
     @Override
-    public BotMessage handle(long chatId, String message) {
+    public Mono<BotMessage> handle(long chatId, String message) {
         if (commandContainer.canHandle(message)) {
-            return commandContainer.findCommandHandler(message).handle(chatId, message);
+            return commandContainer.handle(chatId, message);
         } else {
             return botStateManager.handle(chatId, message);
         }
@@ -0,0 +1,17 @@
+package ru.urfu.weatherforecastbot.bot;
+
+/**
+ * Приоритет исходящего сообщения
+ */
+public enum MessagePriority {
+
+    /**
+     * Ответ пользователю, ожидающему его в диалоге. Отправляется раньше рассылок
+     */
+    INTERACTIVE,
+    /**
+     * Рассылка (например, напоминания). Отправляется, когда нет ответов пользователям
+     */
+    BROADCAST
+
+}
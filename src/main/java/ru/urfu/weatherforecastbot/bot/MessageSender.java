@@ -0,0 +1,20 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+
+/**
+ * Отправитель сообщений, непосредственно вызывающий Telegram API
+ */
+@FunctionalInterface
+public interface MessageSender {
+
+    /**
+     * Отправляет сообщение в чат с указанным ID
+     *
+     * @param chatId  ID чата
+     * @param message сообщение
+     * @throws TelegramApiException если Telegram API вернул ошибку
+     */
+    void send(long chatId, BotMessage message) throws TelegramApiException;
+
+}
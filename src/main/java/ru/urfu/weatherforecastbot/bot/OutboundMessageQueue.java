@@ -0,0 +1,665 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Очередь исходящих сообщений.
+ * <p>Отправляет сообщения с учетом ограничений Telegram: общего количества сообщений в секунду и количества
+ * сообщений в секунду в один чат. Каждое ограничение реализовано корзиной маркеров единичной емкости, поэтому
+ * сообщения уходят равномерно. Сообщения одного чата отправляются по порядку (в пределах приоритета), при этом чат,
+ * исчерпавший свое ограничение, не задерживает другие чаты. Ответы пользователям
+ * ({@link MessagePriority#INTERACTIVE}) отправляются раньше рассылок ({@link MessagePriority#BROADCAST}).
+ * Следующее сообщение выбирается только при наличии свободного потока отправки, чтобы приоритет и приостановка
+ * отправки действовали на все еще не отправленные сообщения. Если Telegram отвечает ошибкой 429, отправка
+ * приостанавливается на указанное в ответе время, а сообщение отправляется повторно</p>
+ */
+@Component
+public class OutboundMessageQueue {
+
+    /**
+     * Код ответа Telegram API о превышении ограничения
+     */
+    private static final int TOO_MANY_REQUESTS = 429;
+    /**
+     * Максимальное количество попыток отправки сообщения при ошибках, не связанных с ограничениями
+     */
+    private static final int MAX_ATTEMPTS = 3;
+    /**
+     * Отправитель сообщений
+     */
+    private final MessageSender sender;
+    /**
+     * Потоки, отправляющие сообщения
+     */
+    private final ExecutorService senders;
+    /**
+     * Количество потоков, отправляющих сообщения
+     */
+    private final int sendersCount;
+    /**
+     * Поток, выбирающий следующее сообщение для отправки
+     */
+    private final Thread scheduler;
+    /**
+     * Блокировка состояния очереди
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    /**
+     * Условие изменения состояния очереди
+     */
+    private final Condition changed = lock.newCondition();
+    /**
+     * Общее ограничение отправки
+     */
+    private final TokenBucket globalBucket;
+    /**
+     * Минимальный интервал между сообщениями в один чат в наносекундах
+     */
+    private final long chatIntervalNanos;
+    /**
+     * Очереди чатов, в которых есть неотправленные сообщения или не истекло ограничение
+     */
+    private final Map<Long, ChatQueue> chatQueues = new HashMap<>();
+    /**
+     * Чаты, которым можно отправить сообщение, по приоритету их сообщений. Могут содержать устаревшие записи
+     */
+    private final Map<MessagePriority, Deque<ChatQueue>> readyChatQueues = new EnumMap<>(MessagePriority.class);
+    /**
+     * Чаты, ожидающие истечения своего ограничения, по времени истечения
+     */
+    private final PriorityQueue<ChatQueue> coolingChatQueues =
+            new PriorityQueue<>(Comparator.comparingLong(chatQueue -> chatQueue.readyAtNanos));
+    /**
+     * Момент, до которого отправка приостановлена по ответу Telegram
+     */
+    private long pausedUntilNanos = System.nanoTime();
+    /**
+     * Количество сообщений, ожидающих отправки или отправляемых в данный момент
+     */
+    private int pendingMessagesCount;
+    /**
+     * Количество сообщений, отправляемых в данный момент
+     */
+    private int inFlightMessagesCount;
+    /**
+     * Принимает ли очередь новые сообщения
+     */
+    private boolean running = true;
+    /**
+     * Количество отправленных сообщений
+     */
+    private final LongAdder sentMessagesCount = new LongAdder();
+    /**
+     * Количество повторных отправок
+     */
+    private final LongAdder retriedMessagesCount = new LongAdder();
+    /**
+     * Количество сообщений, которые не удалось отправить
+     */
+    private final LongAdder failedMessagesCount = new LongAdder();
+    /**
+     * Наибольшее время ожидания сообщения в очереди в наносекундах
+     */
+    private final AtomicLong maxQueueLatencyNanos = new AtomicLong();
+    /**
+     * Реестр наблюдений, в котором регистрируются запросы отправки
+     */
+    private final ObservationRegistry observationRegistry;
+    /**
+     * Таймер ожидания сообщений в очереди
+     */
+    private final Timer queueLatencyTimer;
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(OutboundMessageQueue.class);
+
+    /**
+     * Создает экземпляр OutboundMessageQueue, используя в качестве отправителя бота
+     *
+     * @param sender              отправитель сообщений
+     * @param globalRate          максимальное количество сообщений в секунду
+     * @param chatRate            максимальное количество сообщений в секунду в один чат
+     * @param sendersCount        количество потоков, отправляющих сообщения
+     * @param meterRegistry       реестр метрик
+     * @param observationRegistry реестр наблюдений
+     */
+    @Autowired
+    public OutboundMessageQueue(@Lazy MessageSender sender,
+                                @Value("${bot.outbound.global-rate:30}") double globalRate,
+                                @Value("${bot.outbound.chat-rate:1}") double chatRate,
+                                @Value("${bot.outbound.senders:8}") int sendersCount,
+                                MeterRegistry meterRegistry,
+                                ObservationRegistry observationRegistry) {
+        this.sender = sender;
+        this.observationRegistry = observationRegistry;
+        queueLatencyTimer = Timer.builder("telegram.queue.latency")
+                .description("Time from enqueueing a message to sending it to Telegram")
+                .register(meterRegistry);
+        FunctionCounter.builder("telegram.messages.failed", failedMessagesCount, LongAdder::sum)
+                .description("Messages dropped after all send attempts failed")
+                .register(meterRegistry);
+        Gauge.builder("telegram.queue.pending", this, OutboundMessageQueue::getPendingMessagesCount)
+                .description("Messages waiting to be sent or being sent")
+                .register(meterRegistry);
+        globalBucket = new TokenBucket(toIntervalNanos(globalRate), System.nanoTime());
+        chatIntervalNanos = toIntervalNanos(chatRate);
+        for (MessagePriority priority : MessagePriority.values()) {
+            readyChatQueues.put(priority, new ArrayDeque<>());
+        }
+        this.sendersCount = sendersCount;
+        AtomicInteger senderNumber = new AtomicInteger();
+        senders = Executors.newFixedThreadPool(sendersCount, task -> {
+            Thread thread = new Thread(task, "outbound-sender-" + senderNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler = new Thread(this::schedule, "outbound-scheduler");
+        scheduler.setDaemon(true);
+        scheduler.start();
+    }
+
+    /**
+     * Создает экземпляр OutboundMessageQueue, используя глобальный реестр метрик, без трассировки
+     *
+     * @param sender       отправитель сообщений
+     * @param globalRate   максимальное количество сообщений в секунду
+     * @param chatRate     максимальное количество сообщений в секунду в один чат
+     * @param sendersCount количество потоков, отправляющих сообщения
+     */
+    public OutboundMessageQueue(MessageSender sender, double globalRate, double chatRate, int sendersCount) {
+        this(sender, globalRate, chatRate, sendersCount, Metrics.globalRegistry, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Добавляет сообщение в очередь. Текущее наблюдение (например, обработка события, на которое отвечает
+     * сообщение) становится родительским для наблюдения отправки сообщения
+     *
+     * @param chatId   ID чата
+     * @param message  сообщение
+     * @param priority приоритет сообщения
+     */
+    public void enqueue(long chatId, BotMessage message, MessagePriority priority) {
+        lock.lock();
+        try {
+            if (!running) {
+                logger.warn("Outbound queue is shut down, message to chat %d dropped".formatted(chatId));
+                return;
+            }
+            ChatQueue chatQueue = chatQueues.computeIfAbsent(chatId, ChatQueue::new);
+            chatQueue.messages.get(priority).addLast(new Outbound(message, priority, System.nanoTime(),
+                    observationRegistry.getCurrentObservation()));
+            pendingMessagesCount++;
+            if (chatQueue.state == ChatQueueState.IDLE) {
+                updateReadiness(chatQueue, System.nanoTime());
+            } else if (chatQueue.state == ChatQueueState.READY && priority == MessagePriority.INTERACTIVE) {
+                readyChatQueues.get(priority).addLast(chatQueue);
+            }
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество сообщений, ожидающих отправки или отправляемых в данный момент
+     *
+     * @return количество неотправленных сообщений
+     */
+    public int getPendingMessagesCount() {
+        lock.lock();
+        try {
+            return pendingMessagesCount;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Возвращает количество отправленных сообщений
+     *
+     * @return количество отправленных сообщений
+     */
+    public long getSentMessagesCount() {
+        return sentMessagesCount.sum();
+    }
+
+    /**
+     * Возвращает количество повторных отправок (в том числе из-за превышения ограничений Telegram)
+     *
+     * @return количество повторных отправок
+     */
+    public long getRetriedMessagesCount() {
+        return retriedMessagesCount.sum();
+    }
+
+    /**
+     * Возвращает количество сообщений, которые не удалось отправить
+     *
+     * @return количество неотправленных сообщений
+     */
+    public long getFailedMessagesCount() {
+        return failedMessagesCount.sum();
+    }
+
+    /**
+     * Возвращает наибольшее время от добавления сообщения в очередь до его отправки
+     *
+     * @return наибольшее время ожидания в очереди
+     */
+    public Duration getMaxQueueLatency() {
+        return Duration.ofNanos(maxQueueLatencyNanos.get());
+    }
+
+    /**
+     * Прекращает прием сообщений и дожидается отправки уже принятых
+     *
+     * @throws InterruptedException если ожидание было прервано
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        lock.lock();
+        try {
+            running = false;
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+        scheduler.join(TimeUnit.SECONDS.toMillis(10));
+        if (scheduler.isAlive()) {
+            logger.warn("Outbound queue did not drain in time, %d messages dropped"
+                    .formatted(getPendingMessagesCount()));
+            scheduler.interrupt();
+        }
+        senders.shutdown();
+    }
+
+    /**
+     * Цикл выбора сообщений: передает отправителям сообщения, как только это позволяют ограничения
+     */
+    private void schedule() {
+        lock.lock();
+        try {
+            while (running || pendingMessagesCount > 0) {
+                long now = System.nanoTime();
+                while (!coolingChatQueues.isEmpty() && coolingChatQueues.peek().readyAtNanos <= now) {
+                    updateReadiness(coolingChatQueues.poll(), now);
+                }
+                long waitNanos = Long.MAX_VALUE;
+                if (pausedUntilNanos - now > 0) {
+                    waitNanos = pausedUntilNanos - now;
+                } else if (inFlightMessagesCount >= sendersCount) {
+                    waitNanos = Long.MAX_VALUE;
+                } else if (globalBucket.getDelayNanos(now) > 0) {
+                    waitNanos = globalBucket.getDelayNanos(now);
+                } else {
+                    ChatQueue chatQueue = pollReadyChatQueue();
+                    if (chatQueue != null) {
+                        Outbound outbound = chatQueue.poll();
+                        globalBucket.consume(now);
+                        chatQueue.bucket.consume(now);
+                        chatQueue.state = ChatQueueState.IN_FLIGHT;
+                        inFlightMessagesCount++;
+                        senders.execute(() -> send(chatQueue, outbound));
+                        continue;
+                    }
+                }
+                if (!coolingChatQueues.isEmpty()) {
+                    waitNanos = Math.min(waitNanos, coolingChatQueues.peek().readyAtNanos - now);
+                }
+                if (waitNanos == Long.MAX_VALUE) {
+                    changed.await();
+                } else {
+                    changed.awaitNanos(waitNanos);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Отправляет сообщение и возвращает чат в очередь. Запрос отправки регистрируется как наблюдение
+     * {@code telegram.send} с тегом {@code outcome} (результат запроса)
+     *
+     * @param chatQueue очередь чата
+     * @param outbound  сообщение
+     */
+    private void send(ChatQueue chatQueue, Outbound outbound) {
+        long retryAfterNanos = -1;
+        String outcome = "error";
+        Observation observation = Observation.createNotStarted("telegram.send", observationRegistry)
+                .contextualName("execute sendMessage")
+                .parentObservation(outbound.parentObservation)
+                .highCardinalityKeyValue("chat.id", String.valueOf(chatQueue.chatId))
+                .start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            sender.send(chatQueue.chatId, outbound.message);
+            outcome = "success";
+            long queueLatencyNanos = System.nanoTime() - outbound.enqueuedAtNanos;
+            queueLatencyTimer.record(queueLatencyNanos, TimeUnit.NANOSECONDS);
+            sentMessagesCount.increment();
+            maxQueueLatencyNanos.accumulateAndGet(queueLatencyNanos, Math::max);
+        } catch (TelegramApiRequestException e) {
+            observation.error(e);
+            ResponseParameters parameters = e.getParameters();
+            if (Objects.equals(e.getErrorCode(), TOO_MANY_REQUESTS)
+                    && parameters != null && parameters.getRetryAfter() != null) {
+                outcome = "rate_limited";
+                retryAfterNanos = TimeUnit.SECONDS.toNanos(parameters.getRetryAfter());
+                logger.warn("Telegram rate limit hit, pausing for %d s".formatted(parameters.getRetryAfter()));
+            } else {
+                fail(chatQueue.chatId, outbound, e);
+            }
+        } catch (TelegramApiException e) {
+            observation.error(e);
+            if (++outbound.attempts < MAX_ATTEMPTS) {
+                retryAfterNanos = 0;
+            } else {
+                fail(chatQueue.chatId, outbound, e);
+            }
+        } catch (RuntimeException e) {
+            observation.error(e);
+            fail(chatQueue.chatId, outbound, e);
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome).stop();
+        }
+
+        lock.lock();
+        try {
+            long now = System.nanoTime();
+            inFlightMessagesCount--;
+            if (retryAfterNanos >= 0) {
+                retriedMessagesCount.increment();
+                chatQueue.messages.get(outbound.priority).addFirst(outbound);
+                pausedUntilNanos = Math.max(pausedUntilNanos - now, retryAfterNanos) + now;
+            } else {
+                pendingMessagesCount--;
+            }
+            updateReadiness(chatQueue, now);
+            changed.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Логирует ошибку отправки сообщения
+     *
+     * @param chatId   ID чата
+     * @param outbound сообщение
+     * @param e        ошибка
+     */
+    private void fail(long chatId, Outbound outbound, Exception e) {
+        failedMessagesCount.increment();
+        logger.error("Failed to send message to chat %d after %d attempts"
+                .formatted(chatId, outbound.attempts + 1), e);
+    }
+
+    /**
+     * Помещает очередь чата в список готовых или ожидающих чатов, либо удаляет ее, если сообщений нет и
+     * ограничение чата истекло
+     *
+     * @param chatQueue очередь чата
+     * @param now       текущий момент в наносекундах
+     */
+    private void updateReadiness(ChatQueue chatQueue, long now) {
+        long delayNanos = chatQueue.bucket.getDelayNanos(now);
+        if (delayNanos > 0) {
+            chatQueue.state = ChatQueueState.COOLING;
+            chatQueue.readyAtNanos = now + delayNanos;
+            coolingChatQueues.add(chatQueue);
+        } else if (chatQueue.isEmpty()) {
+            chatQueue.state = ChatQueueState.IDLE;
+            chatQueues.remove(chatQueue.chatId);
+        } else {
+            chatQueue.state = ChatQueueState.READY;
+            readyChatQueues.get(chatQueue.getPriority()).addLast(chatQueue);
+        }
+    }
+
+    /**
+     * Извлекает готовый чат с наибольшим приоритетом, пропуская устаревшие записи
+     *
+     * @return готовый чат или null, если готовых чатов нет
+     */
+    private ChatQueue pollReadyChatQueue() {
+        for (MessagePriority priority : MessagePriority.values()) {
+            Deque<ChatQueue> ready = readyChatQueues.get(priority);
+            ChatQueue chatQueue;
+            while ((chatQueue = ready.pollFirst()) != null) {
+                if (chatQueue.state == ChatQueueState.READY && !chatQueue.isEmpty()) {
+                    return chatQueue;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Переводит количество сообщений в секунду в интервал между сообщениями
+     *
+     * @param messagesPerSecond количество сообщений в секунду
+     * @return интервал между сообщениями в наносекундах
+     */
+    private static long toIntervalNanos(double messagesPerSecond) {
+        return (long) (TimeUnit.SECONDS.toNanos(1) / messagesPerSecond);
+    }
+
+    /**
+     * Состояние очереди чата
+     */
+    private enum ChatQueueState {
+
+        /**
+         * Не находится ни в одном списке
+         */
+        IDLE,
+        /**
+         * Находится в списке готовых чатов
+         */
+        READY,
+        /**
+         * Ожидает истечения ограничения чата
+         */
+        COOLING,
+        /**
+         * Сообщение чата отправляется
+         */
+        IN_FLIGHT
+
+    }
+
+    /**
+     * Корзина маркеров единичной емкости, пополняемая с постоянной скоростью
+     */
+    private static class TokenBucket {
+
+        /**
+         * Интервал пополнения в наносекундах
+         */
+        private final long intervalNanos;
+        /**
+         * Момент, когда в корзине появится маркер
+         */
+        private long nextTokenNanos;
+
+        /**
+         * Создает полную корзину
+         *
+         * @param intervalNanos интервал пополнения в наносекундах
+         * @param now           текущий момент в наносекундах
+         */
+        private TokenBucket(long intervalNanos, long now) {
+            this.intervalNanos = intervalNanos;
+            this.nextTokenNanos = now;
+        }
+
+        /**
+         * Возвращает время до появления маркера
+         *
+         * @param now текущий момент в наносекундах
+         * @return время ожидания в наносекундах (0, если маркер есть)
+         */
+        private long getDelayNanos(long now) {
+            return Math.max(0, nextTokenNanos - now);
+        }
+
+        /**
+         * Забирает маркер
+         *
+         * @param now текущий момент в наносекундах
+         */
+        private void consume(long now) {
+            nextTokenNanos = Math.max(nextTokenNanos - now, 0) + now + intervalNanos;
+        }
+
+    }
+
+    /**
+     * Исходящее сообщение
+     */
+    private static class Outbound {
+
+        /**
+         * Сообщение
+         */
+        private final BotMessage message;
+        /**
+         * Приоритет
+         */
+        private final MessagePriority priority;
+        /**
+         * Момент добавления в очередь в наносекундах
+         */
+        private final long enqueuedAtNanos;
+        /**
+         * Наблюдение, в ходе которого сообщение добавлено в очередь (null, если его нет)
+         */
+        private final Observation parentObservation;
+        /**
+         * Количество неудачных попыток отправки
+         */
+        private int attempts;
+
+        /**
+         * Создает исходящее сообщение
+         *
+         * @param message           сообщение
+         * @param priority          приоритет
+         * @param enqueuedAtNanos   момент добавления в очередь в наносекундах
+         * @param parentObservation наблюдение, в ходе которого сообщение добавлено в очередь
+         */
+        private Outbound(BotMessage message, MessagePriority priority, long enqueuedAtNanos,
+                         Observation parentObservation) {
+            this.message = message;
+            this.priority = priority;
+            this.enqueuedAtNanos = enqueuedAtNanos;
+            this.parentObservation = parentObservation;
+        }
+
+    }
+
+    /**
+     * Очередь сообщений одного чата
+     */
+    private class ChatQueue {
+
+        /**
+         * ID чата
+         */
+        private final long chatId;
+        /**
+         * Сообщения по приоритету
+         */
+        private final Map<MessagePriority, Deque<Outbound>> messages = new EnumMap<>(MessagePriority.class);
+        /**
+         * Ограничение отправки в чат
+         */
+        private final TokenBucket bucket;
+        /**
+         * Состояние очереди
+         */
+        private ChatQueueState state = ChatQueueState.IDLE;
+        /**
+         * Момент истечения ограничения чата (для ожидающих чатов)
+         */
+        private long readyAtNanos;
+
+        /**
+         * Создает пустую очередь чата
+         *
+         * @param chatId ID чата
+         */
+        private ChatQueue(long chatId) {
+            this.chatId = chatId;
+            this.bucket = new TokenBucket(chatIntervalNanos, System.nanoTime());
+            for (MessagePriority priority : MessagePriority.values()) {
+                messages.put(priority, new ArrayDeque<>());
+            }
+        }
+
+        /**
+         * Проверяет, есть ли в очереди сообщения
+         *
+         * @return true, если сообщений нет
+         */
+        private boolean isEmpty() {
+            return messages.values().stream().allMatch(Deque::isEmpty);
+        }
+
+        /**
+         * Возвращает наибольший приоритет сообщений очереди
+         *
+         * @return приоритет
+         */
+        private MessagePriority getPriority() {
+            for (MessagePriority priority : MessagePriority.values()) {
+                if (!messages.get(priority).isEmpty()) {
+                    return priority;
+                }
+            }
+            throw new IllegalStateException("Chat queue is empty");
+        }
+
+        /**
+         * Извлекает сообщение с наибольшим приоритетом
+         *
+         * @return сообщение
+         */
+        private Outbound poll() {
+            return messages.get(getPriority()).pollFirst();
+        }
+
+    }
+
+}
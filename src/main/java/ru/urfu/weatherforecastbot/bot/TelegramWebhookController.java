@@ -0,0 +1,91 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+import org.telegram.telegrambots.meta.api.objects.Update;
+import ru.urfu.weatherforecastbot.config.BotConfig;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Конечная точка webhook, через которую Telegram доставляет события в режиме {@code bot.mode=webhook}.
+ * <p>Запрос принимается потоком обработки HTTP-запросов WebFlux, поэтому событие только передается
+ * {@link UpdateReceiver получателю} без ожидания обработки, и Telegram сразу получает ответ. Запросы без верного
+ * секретного токена отклоняются. Если очередь событий заполнена, Telegram получает ответ 503 и доставляет событие
+ * повторно позже</p>
+ */
+@RestController
+@ConditionalOnProperty(name = "bot.mode", havingValue = "webhook")
+public class TelegramWebhookController {
+
+    /**
+     * Заголовок, в котором Telegram передает секретный токен
+     */
+    static final String SECRET_TOKEN_HEADER = "X-Telegram-Bot-Api-Secret-Token";
+    /**
+     * Получатель событий
+     */
+    private final UpdateReceiver updateReceiver;
+    /**
+     * Секретный токен webhook в кодировке UTF-8
+     */
+    private final byte[] secretToken;
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(TelegramWebhookController.class);
+
+    /**
+     * Создает экземпляр TelegramWebhookController, используя в качестве получателя событий бота
+     *
+     * @param bot       бот
+     * @param botConfig конфигурация бота
+     */
+    @Autowired
+    public TelegramWebhookController(WeatherForecastBot bot, BotConfig botConfig) {
+        this((UpdateReceiver) bot, botConfig.getWebhookSecretToken());
+    }
+
+    /**
+     * Создает экземпляр TelegramWebhookController, используя переданные аргументы
+     *
+     * @param updateReceiver получатель событий
+     * @param secretToken    секретный токен webhook
+     */
+    public TelegramWebhookController(UpdateReceiver updateReceiver, String secretToken) {
+        this.updateReceiver = updateReceiver;
+        this.secretToken = secretToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Принимает событие от Telegram
+     *
+     * @param secretToken секретный токен из заголовка запроса
+     * @param update      событие
+     * @return 200, если событие принято, 401, если токен неверный, и 503, если очередь событий заполнена
+     */
+    @PostMapping("${bot.webhook.path:/telegram/webhook}")
+    public ResponseEntity<Void> receiveUpdate(
+            @RequestHeader(name = SECRET_TOKEN_HEADER, required = false) String secretToken,
+            @RequestBody Update update) {
+        if (secretToken == null
+                || !MessageDigest.isEqual(this.secretToken, secretToken.getBytes(StandardCharsets.UTF_8))) {
+            logger.warn("Rejected webhook request with invalid secret token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!updateReceiver.offerUpdate(update)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok().build();
+    }
+
+}
@@ -0,0 +1,260 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.urfu.weatherforecastbot.bot.state.ChatMailboxExecutor;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Диспетчер событий Telegram.
+ * <p>Передает обработку событий пулу рабочих потоков, чтобы медленный запрос одного пользователя не задерживал
+ * остальных. События одного чата проходят через его {@link ChatMailboxExecutor почтовый ящик} и обрабатываются
+ * строго по одному в порядке поступления. Обработка события асинхронна: рабочий поток не ожидает ответа внешних
+ * сервисов, а событие считается обработанным, когда завершится возвращенный обработкой {@link CompletionStage}.
+ * Количество принятых, но еще не обработанных событий ограничено: при
+ * достижении предела поток, передающий событие, ожидает завершения обработки уже принятых событий, либо, если он
+ * не может ожидать (например, поток обработки HTTP-запросов), событие отклоняется</p>
+ */
+@Component
+public class UpdateDispatcher {
+
+    /**
+     * Пул рабочих потоков
+     */
+    private final ExecutorService workers;
+    /**
+     * Исполнитель задач чатов
+     */
+    private final ChatMailboxExecutor chatMailboxExecutor;
+    /**
+     * Свободные места для принятых, но еще не обработанных событий
+     */
+    private final Semaphore queueSpace;
+    /**
+     * Размер очереди событий
+     */
+    private final int queueCapacity;
+    /**
+     * Количество обработанных событий
+     */
+    private final LongAdder processedUpdatesCount = new LongAdder();
+    /**
+     * Количество передач события, которым пришлось ожидать места в очереди
+     */
+    private final LongAdder blockedDispatchesCount = new LongAdder();
+    /**
+     * Количество событий, отклоненных из-за заполненной очереди
+     */
+    private final LongAdder rejectedDispatchesCount = new LongAdder();
+    /**
+     * Остановлен ли прием событий
+     */
+    private volatile boolean shutdown;
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(UpdateDispatcher.class);
+
+    /**
+     * Создает экземпляр UpdateDispatcher с количеством рабочих потоков по умолчанию, равным удвоенному количеству
+     * процессоров
+     *
+     * @param workersCount  количество рабочих потоков (0 - по умолчанию)
+     * @param queueCapacity максимальное количество принятых, но еще не обработанных событий
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public UpdateDispatcher(@Value("${bot.dispatcher.workers:0}") int workersCount,
+                            @Value("${bot.dispatcher.queue-capacity:10000}") int queueCapacity,
+                            MeterRegistry meterRegistry) {
+        this(workersCount > 0 ? workersCount : 2 * Runtime.getRuntime().availableProcessors(), queueCapacity,
+                Executors.defaultThreadFactory(), meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр UpdateDispatcher, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param workersCount  количество рабочих потоков
+     * @param queueCapacity максимальное количество принятых, но еще не обработанных событий
+     * @param threadFactory фабрика рабочих потоков
+     */
+    public UpdateDispatcher(int workersCount, int queueCapacity, ThreadFactory threadFactory) {
+        this(workersCount, queueCapacity, threadFactory, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр UpdateDispatcher, используя переданные аргументы
+     *
+     * @param workersCount  количество рабочих потоков
+     * @param queueCapacity максимальное количество принятых, но еще не обработанных событий
+     * @param threadFactory фабрика рабочих потоков
+     * @param meterRegistry реестр метрик
+     */
+    public UpdateDispatcher(int workersCount, int queueCapacity, ThreadFactory threadFactory,
+                            MeterRegistry meterRegistry) {
+        AtomicInteger workerNumber = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workersCount, task -> {
+            Thread thread = threadFactory.newThread(task);
+            thread.setName("update-worker-" + workerNumber.incrementAndGet());
+            return thread;
+        });
+        chatMailboxExecutor = new ChatMailboxExecutor(workers);
+        this.queueCapacity = queueCapacity;
+        queueSpace = new Semaphore(queueCapacity);
+        Gauge.builder("bot.dispatcher.queued", this, UpdateDispatcher::getQueuedUpdatesCount)
+                .description("Updates waiting to be processed or being processed")
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.dispatcher.blocked", blockedDispatchesCount, LongAdder::sum)
+                .description("Dispatches that had to wait for queue space")
+                .register(meterRegistry);
+        FunctionCounter.builder("bot.dispatcher.rejected", rejectedDispatchesCount, LongAdder::sum)
+                .description("Updates rejected because the queue was full")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Передает обработку события в почтовый ящик чата. Если очередь событий заполнена, ожидает освобождения места
+     *
+     * @param chatId идентификатор чата
+     * @param task   обработка события, возвращающая ее завершение
+     * @throws RejectedExecutionException если диспетчер остановлен или ожидание было прервано
+     */
+    public void dispatch(long chatId, Supplier<? extends CompletionStage<?>> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Update dispatcher is shut down");
+        }
+        waitForQueueSpace();
+        submit(chatId, task);
+    }
+
+    /**
+     * Передает обработку события в почтовый ящик чата, не ожидая места в очереди
+     *
+     * @param chatId идентификатор чата
+     * @param task   обработка события, возвращающая ее завершение
+     * @return true, если событие принято, и false, если очередь событий заполнена
+     * @throws RejectedExecutionException если диспетчер остановлен
+     */
+    public boolean tryDispatch(long chatId, Supplier<? extends CompletionStage<?>> task) {
+        if (shutdown) {
+            throw new RejectedExecutionException("Update dispatcher is shut down");
+        }
+        if (!queueSpace.tryAcquire()) {
+            rejectedDispatchesCount.increment();
+            return false;
+        }
+        submit(chatId, task);
+        return true;
+    }
+
+    /**
+     * Возвращает количество событий, ожидающих обработки или обрабатываемых в данный момент
+     *
+     * @return количество событий в очереди
+     */
+    public int getQueuedUpdatesCount() {
+        return queueCapacity - queueSpace.availablePermits();
+    }
+
+    /**
+     * Возвращает количество чатов, события которых ожидают обработки
+     *
+     * @return количество активных чатов
+     */
+    public int getActiveChatsCount() {
+        return chatMailboxExecutor.getActiveChatsCount();
+    }
+
+    /**
+     * Возвращает количество обработанных событий
+     *
+     * @return количество обработанных событий
+     */
+    public long getProcessedUpdatesCount() {
+        return processedUpdatesCount.sum();
+    }
+
+    /**
+     * Возвращает количество передач события, которым пришлось ожидать места в очереди
+     *
+     * @return количество заблокированных передач
+     */
+    public long getBlockedDispatchesCount() {
+        return blockedDispatchesCount.sum();
+    }
+
+    /**
+     * Возвращает количество событий, отклоненных из-за заполненной очереди
+     *
+     * @return количество отклоненных событий
+     */
+    public long getRejectedDispatchesCount() {
+        return rejectedDispatchesCount.sum();
+    }
+
+    /**
+     * Прекращает прием событий и останавливает рабочие потоки, дожидаясь обработки уже принятых событий. Рабочие
+     * потоки останавливаются только после этого, так как продолжения асинхронных обработок выполняются на них
+     *
+     * @throws InterruptedException если ожидание было прервано
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        shutdown = true;
+        if (!queueSpace.tryAcquire(queueCapacity, 10, TimeUnit.SECONDS)) {
+            logger.warn("Update workers did not terminate in time, %d updates dropped"
+                    .formatted(getQueuedUpdatesCount()));
+        }
+        workers.shutdownNow();
+    }
+
+    /**
+     * Передает обработку события, для которого уже занято место в очереди, в почтовый ящик чата
+     *
+     * @param chatId идентификатор чата
+     * @param task   обработка события
+     */
+    private void submit(long chatId, Supplier<? extends CompletionStage<?>> task) {
+        chatMailboxExecutor.executeAsync(chatId, () -> {
+            CompletionStage<?> completion;
+            try {
+                completion = task.get();
+            } catch (RuntimeException e) {
+                completion = CompletableFuture.failedFuture(e);
+            }
+            return completion.whenComplete((result, e) -> {
+                queueSpace.release();
+                processedUpdatesCount.increment();
+            });
+        });
+    }
+
+    /**
+     * Занимает место в очереди событий, при необходимости ожидая его освобождения
+     */
+    private void waitForQueueSpace() {
+        if (queueSpace.tryAcquire()) {
+            return;
+        }
+        blockedDispatchesCount.increment();
+        try {
+            queueSpace.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException(e);
+        }
+    }
+
+}
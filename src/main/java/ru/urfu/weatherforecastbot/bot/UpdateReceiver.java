@@ -0,0 +1,19 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+/**
+ * Получатель событий Telegram, доставленных через webhook
+ */
+@FunctionalInterface
+public interface UpdateReceiver {
+
+    /**
+     * Принимает событие в обработку, не ожидая ее завершения и освобождения места в очереди событий
+     *
+     * @param update событие
+     * @return true, если событие принято, и false, если очередь событий заполнена
+     */
+    boolean offerUpdate(Update update);
+
+}
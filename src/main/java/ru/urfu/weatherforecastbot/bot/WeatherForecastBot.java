@@ -1,31 +1,44 @@
 package ru.urfu.weatherforecastbot.bot;
 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import org.telegram.telegrambots.bots.DefaultBotOptions;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.TelegramBotsApi;
-import org.telegram.telegrambots.meta.api.methods.BotApiMethod;
 import org.telegram.telegrambots.meta.api.methods.send.SendMessage;
+import org.telegram.telegrambots.meta.api.methods.updates.SetWebhook;
 import org.telegram.telegrambots.meta.api.objects.Message;
 import org.telegram.telegrambots.meta.api.objects.Update;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.InlineKeyboardMarkup;
 import org.telegram.telegrambots.meta.api.objects.replykeyboard.buttons.InlineKeyboardButton;
 import org.telegram.telegrambots.meta.exceptions.TelegramApiException;
 import org.telegram.telegrambots.updatesreceivers.DefaultBotSession;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.config.BotConfig;
+import ru.urfu.weatherforecastbot.database.StatementCounter;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 /**
- * Бот для получения прогноза погоды
+ * Бот для получения прогноза погоды.
+ * <p>В зависимости от {@link BotConfig#isWebhookMode() конфигурации} получает события долгим опросом или
+ * регистрирует webhook, запросы к которому принимает {@link TelegramWebhookController}</p>
  */
 @Component
-public class WeatherForecastBot extends TelegramLongPollingBot implements Bot {
+public class WeatherForecastBot extends TelegramLongPollingBot implements Bot, MessageSender, UpdateReceiver {
 
     /**
      * Конфигурация бота
@@ -35,6 +48,26 @@ public class WeatherForecastBot extends TelegramLongPollingBot implements Bot {
      * Обработчик сообщений
      */
     private final MessageHandler messageHandler;
+    /**
+     * Диспетчер событий
+     */
+    private final UpdateDispatcher updateDispatcher;
+    /**
+     * Очередь исходящих сообщений
+     */
+    private final OutboundMessageQueue outboundMessageQueue;
+    /**
+     * Счетчик SQL-запросов
+     */
+    private final StatementCounter statementCounter;
+    /**
+     * Реестр наблюдений, в котором регистрируется обработка событий
+     */
+    private final ObservationRegistry observationRegistry;
+    /**
+     * Распределение количества SQL-запросов при обработке одного события
+     */
+    private final DistributionSummary updateStatementsSummary;
     /**
      * Логгер
      */
@@ -43,34 +76,144 @@ public class WeatherForecastBot extends TelegramLongPollingBot implements Bot {
     /**
      * Создает экземпляр WeatherForecastBot, используя переданные аргументы
      *
-     * @param botConfig      конфигурация бота
-     * @param messageHandler обработчик сообщений
+     * @param botConfig            конфигурация бота
+     * @param messageHandler       обработчик сообщений
+     * @param updateDispatcher     диспетчер событий
+     * @param outboundMessageQueue очередь исходящих сообщений
+     * @param statementCounter     счетчик SQL-запросов
+     * @param meterRegistry        реестр метрик
+     * @param observationRegistry  реестр наблюдений
      */
     @Autowired
-    public WeatherForecastBot(BotConfig botConfig, @Lazy MessageHandler messageHandler) {
-        super(botConfig.getToken());
+    public WeatherForecastBot(BotConfig botConfig, @Lazy MessageHandler messageHandler,
+                              UpdateDispatcher updateDispatcher, OutboundMessageQueue outboundMessageQueue,
+                              StatementCounter statementCounter, MeterRegistry meterRegistry,
+                              ObservationRegistry observationRegistry) {
+        super(createBotOptions(botConfig), botConfig.getToken());
         this.botConfig = botConfig;
         this.messageHandler = messageHandler;
+        this.updateDispatcher = updateDispatcher;
+        this.outboundMessageQueue = outboundMessageQueue;
+        this.statementCounter = statementCounter;
+        this.observationRegistry = observationRegistry;
+        updateStatementsSummary = DistributionSummary.builder("bot.update.db.statements")
+                .description("SQL statements executed while handling one Telegram update")
+                .register(meterRegistry);
     }
 
     /**
-     * Обработчик событий Telegram
+     * Создает настройки бота с URL Telegram Bot API из конфигурации
+     *
+     * @param botConfig конфигурация бота
+     * @return настройки бота
+     */
+    private static DefaultBotOptions createBotOptions(BotConfig botConfig) {
+        DefaultBotOptions botOptions = new DefaultBotOptions();
+        botOptions.setBaseUrl(botConfig.getApiUrl());
+        return botOptions;
+    }
+
+    /**
+     * Обработчик событий Telegram. Обработка события передается {@link UpdateDispatcher диспетчеру}, чтобы поток
+     * получения событий не ожидал ответа пользователю
      *
      * @param update событие
      */
     @Override
     public void onUpdateReceived(Update update) {
+        dispatchUpdate(update, true);
+    }
+
+    /**
+     * Принимает событие, доставленное через webhook. Если очередь событий заполнена, событие не ожидает места в
+     * ней, а отклоняется, чтобы Telegram доставил его повторно
+     *
+     * @param update событие
+     * @return true, если событие принято, и false, если очередь событий заполнена
+     */
+    @Override
+    public boolean offerUpdate(Update update) {
+        return dispatchUpdate(update, false);
+    }
+
+    /**
+     * Передает обработку события диспетчеру. События без текста от пользователя пропускаются
+     *
+     * @param update событие
+     * @param wait   ожидать ли места в очереди событий
+     * @return true, если событие принято или пропущено, и false, если очередь событий заполнена
+     */
+    private boolean dispatchUpdate(Update update, boolean wait) {
         if (update.hasMessage()) {
             Message message = update.getMessage();
-            long chatId = message.getChatId();
-            BotMessage responseMessage = messageHandler.handle(chatId, message.getText());
-            sendMessage(chatId, responseMessage);
+            return dispatchText(update, message.getChatId(), message.getText(), wait);
         } else if (update.hasCallbackQuery()) {
             long chatId = update.getCallbackQuery().getMessage().getChatId();
-            String text = update.getCallbackQuery().getData();
-            BotMessage responseMessage = messageHandler.handle(chatId, text);
-            sendMessage(chatId, responseMessage);
+            return dispatchText(update, chatId, update.getCallbackQuery().getData(), wait);
         }
+        return true;
+    }
+
+    /**
+     * Передает обработку текста от пользователя диспетчеру. Обработка регистрируется как наблюдение
+     * {@code bot.updates}, которое начинается при получении события и завершается после постановки ответа в очередь
+     * отправки. Его span включает ожидание в очереди диспетчера и является родительским для всех span обработки
+     * события
+     *
+     * @param update событие
+     * @param chatId идентификатор чата
+     * @param text   текст
+     * @param wait   ожидать ли места в очереди событий
+     * @return true, если событие принято, и false, если очередь событий заполнена
+     */
+    private boolean dispatchText(Update update, long chatId, String text, boolean wait) {
+        Observation observation = Observation.createNotStarted("bot.updates", observationRegistry)
+                .contextualName("update")
+                .highCardinalityKeyValue("update.id", String.valueOf(update.getUpdateId()))
+                .highCardinalityKeyValue("chat.id", String.valueOf(chatId))
+                .start();
+        Supplier<CompletableFuture<Void>> task = () -> {
+            try (Observation.Scope ignored = observation.openScope()) {
+                return handleText(chatId, text)
+                        .doOnError(observation::error)
+                        .doFinally(signal -> observation.stop())
+                        .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation))
+                        .toFuture();
+            } catch (RuntimeException e) {
+                observation.error(e);
+                observation.stop();
+                throw e;
+            }
+        };
+        if (wait) {
+            updateDispatcher.dispatch(chatId, task);
+            return true;
+        }
+        if (!updateDispatcher.tryDispatch(chatId, task)) {
+            observation.error(new RejectedExecutionException("Update queue is full"));
+            observation.stop();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Обрабатывает текст от пользователя и отправляет ответ, когда он будет готов. Записывает количество
+     * SQL-запросов, выполненных обработчиком: все они выполняются в вызывающем потоке до возврата Mono
+     *
+     * @param chatId идентификатор чата
+     * @param text   текст
+     * @return Mono, завершающийся после постановки ответа в очередь отправки
+     */
+    private Mono<Void> handleText(long chatId, String text) {
+        long statementsCountBefore = statementCounter.getThreadStatementsCount();
+        Mono<BotMessage> responseMessage;
+        try {
+            responseMessage = messageHandler.handle(chatId, text);
+        } finally {
+            updateStatementsSummary.record(statementCounter.getThreadStatementsCount() - statementsCountBefore);
+        }
+        return responseMessage.doOnNext(message -> sendMessage(chatId, message)).then();
     }
 
     /**
@@ -83,39 +226,68 @@ public class WeatherForecastBot extends TelegramLongPollingBot implements Bot {
         return botConfig.getName();
     }
 
+    /**
+     * Добавляет сообщение в {@link OutboundMessageQueue очередь исходящих сообщений}
+     *
+     * @param chatId   ID чата
+     * @param message  сообщение
+     * @param priority приоритет сообщения
+     */
+    @Override
+    public void sendMessage(long chatId, BotMessage message, MessagePriority priority) {
+        outboundMessageQueue.enqueue(chatId, message, priority);
+    }
+
+    /**
+     * Отправляет сообщение через Telegram API. Вызывается {@link OutboundMessageQueue очередью исходящих сообщений}
+     *
+     * @param chatId  ID чата
+     * @param message сообщение
+     * @throws TelegramApiException если Telegram API вернул ошибку
+     */
     @Override
-    public void sendMessage(long chatId, BotMessage message) {
+    public void send(long chatId, BotMessage message) throws TelegramApiException {
         SendMessage sendMessage = new SendMessage();
         sendMessage.setChatId(chatId);
         sendMessage.setText(message.getText());
         sendMessage.setReplyMarkup(convertToTelegramButtons(message.getButtons()));
-        executeMessageWithLogging(sendMessage);
+        execute(sendMessage);
     }
 
     /**
-     * Выполняет сообщение Telegram с логированием
+     * Инициализирует бота при запуске приложения: регистрирует webhook или запускает долгий опрос
      *
-     * @param message сообщение
+     * @throws IllegalStateException если для режима webhook не задан URL или секретный токен
      */
-    private void executeMessageWithLogging(BotApiMethod<?> message) {
+    @EventListener({ContextRefreshedEvent.class})
+    private void init() throws IllegalStateException {
         try {
-            execute(message);
+            if (botConfig.isWebhookMode()) {
+                registerWebhook();
+            } else {
+                TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
+                telegramBotsApi.registerBot(this);
+            }
         } catch (TelegramApiException e) {
-            logger.error(e.getMessage(), e);
+            throw new RuntimeException(e.getMessage(), e);
         }
     }
 
     /**
-     * Инициализирует бота при запуске приложения
+     * Регистрирует webhook, по которому Telegram будет отправлять события вместо ответов на долгий опрос
+     *
+     * @throws IllegalStateException если не задан URL или секретный токен webhook
+     * @throws TelegramApiException  если Telegram API вернул ошибку
      */
-    @EventListener({ContextRefreshedEvent.class})
-    private void init() {
-        try {
-            TelegramBotsApi telegramBotsApi = new TelegramBotsApi(DefaultBotSession.class);
-            telegramBotsApi.registerBot(this);
-        } catch (TelegramApiException e) {
-            throw new RuntimeException(e.getMessage(), e);
+    private void registerWebhook() throws IllegalStateException, TelegramApiException {
+        if (botConfig.getWebhookUrl().isBlank() || botConfig.getWebhookSecretToken().isBlank()) {
+            throw new IllegalStateException("bot.webhook.url and bot.webhook.secret-token must be set in webhook mode");
         }
+        SetWebhook setWebhook = new SetWebhook(botConfig.getWebhookUrl());
+        setWebhook.setSecretToken(botConfig.getWebhookSecretToken());
+        setWebhook.setMaxConnections(botConfig.getWebhookMaxConnections());
+        execute(setWebhook);
+        logger.info("Webhook registered at " + botConfig.getWebhookUrl());
     }
 
     /**
@@ -1,11 +1,16 @@
 package ru.urfu.weatherforecastbot.bot.command;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
+import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.command.handler.*;
 import ru.urfu.weatherforecastbot.bot.state.BotStateManager;
 import ru.urfu.weatherforecastbot.database.ChatContextRepository;
 import ru.urfu.weatherforecastbot.service.ReminderService;
 import ru.urfu.weatherforecastbot.service.WeatherForecastRequestHandler;
+import ru.urfu.weatherforecastbot.util.ReactiveObservations;
 import ru.urfu.weatherforecastbot.util.ReminderFormatter;
 
 import java.util.HashMap;
@@ -24,9 +29,13 @@ public class CommandContainer {
      * Словарь, хранящий требуемое количество аргументов для команд
      */
     private final Map<String, Integer> commandRequiredArgsCount = new HashMap<>();
+    /**
+     * Реестр наблюдений, в котором регистрируется обработка команд
+     */
+    private final ObservationRegistry observationRegistry;
 
     /**
-     * Создает экземпляр {@link CommandContainer}, используя переданные аргументы
+     * Создает экземпляр {@link CommandContainer}, используя переданные аргументы, без метрик и трассировки
      *
      * @param weatherForecastRequestHandler обработчик запросов прогнозов погоды
      * @param chatContextRepository         репозиторий контекстов чатов
@@ -39,6 +48,27 @@ public class CommandContainer {
                             BotStateManager botStateManager,
                             ReminderService reminderService,
                             ReminderFormatter reminderFormatter) {
+        this(weatherForecastRequestHandler, chatContextRepository, botStateManager, reminderService,
+                reminderFormatter, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Создает экземпляр {@link CommandContainer}, используя переданные аргументы
+     *
+     * @param weatherForecastRequestHandler обработчик запросов прогнозов погоды
+     * @param chatContextRepository         репозиторий контекстов чатов
+     * @param botStateManager               менеджер состояний бота
+     * @param reminderService               сервис для управления напоминаниями
+     * @param reminderFormatter             форматировщик напоминаний
+     * @param observationRegistry           реестр наблюдений
+     */
+    public CommandContainer(WeatherForecastRequestHandler weatherForecastRequestHandler,
+                            ChatContextRepository chatContextRepository,
+                            BotStateManager botStateManager,
+                            ReminderService reminderService,
+                            ReminderFormatter reminderFormatter,
+                            ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
         addCommandHandler(BotConstants.COMMAND_START,
                 new StartCommandHandler(chatContextRepository, botStateManager), 0);
         addCommandHandler(BotConstants.COMMAND_HELP, new HelpCommandHandler(), 0);
@@ -72,6 +102,23 @@ public class CommandContainer {
                 && argsCount >= commandRequiredArgsCount.getOrDefault(command, 0);
     }
 
+    /**
+     * Обрабатывает команду пользователя обработчиком, соответствующим команде. Обработка регистрируется как
+     * наблюдение {@code bot.commands} с тегом {@code command}: время обработки до получения ответного сообщения
+     * записывается в таймер, а в трассировке события создается дочерний span
+     *
+     * @param chatId  ID чата
+     * @param message сообщение пользователя
+     * @return Mono с ответным сообщением
+     */
+    public Mono<BotMessage> handle(long chatId, String message) {
+        String command = message.split(" ")[0];
+        Observation observation = Observation.createNotStarted("bot.commands", observationRegistry)
+                .contextualName("command " + command)
+                .lowCardinalityKeyValue("command", command);
+        return ReactiveObservations.observe(observation, () -> commandHandlers.get(command).handle(chatId, message));
+    }
+
     /**
      * Возвращает обработчик, соответствующий команде пользователя
      *
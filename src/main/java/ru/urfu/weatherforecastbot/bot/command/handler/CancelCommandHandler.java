@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -37,7 +38,7 @@ public class CancelCommandHandler implements CommandHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         BotMessage message = new BotMessage();
         message.setText("Вы вернулись в основное меню");
         message.setButtons(getMainMenuButtons());
@@ -48,7 +49,7 @@ public class CancelCommandHandler implements CommandHandler {
             chatContextRepository.save(newChatContext);
         }
         botStateManager.nextState(chatId, BotState.INITIAL);
-        return message;
+        return Mono.just(message);
     }
 
     /**
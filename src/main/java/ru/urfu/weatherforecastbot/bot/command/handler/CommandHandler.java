@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 
 /**
@@ -8,12 +9,13 @@ import ru.urfu.weatherforecastbot.bot.BotMessage;
 public interface CommandHandler {
 
     /**
-     * Обрабатывает команду чата с указанным ID и возвращает ответное сообщение
+     * Обрабатывает команду чата с указанным ID и возвращает ответное сообщение. Запросы к базе
+     * данных выполняются при вызове, а запросы к внешним сервисам - при подписке на возвращаемый Mono
      *
      * @param chatId      ID чата
      * @param userMessage текст сообщения пользователя
-     * @return ответное сообщение
+     * @return Mono с ответным сообщением
      */
-    BotMessage handle(long chatId, String userMessage);
+    Mono<BotMessage> handle(long chatId, String userMessage);
 
 }
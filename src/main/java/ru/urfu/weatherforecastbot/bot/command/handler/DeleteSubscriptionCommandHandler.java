@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.service.ReminderService;
@@ -24,12 +25,12 @@ public class DeleteSubscriptionCommandHandler implements CommandHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         BotMessage message = new BotMessage();
         String[] splittedMessage = userMessage.split(" ");
         String position = splittedMessage[1];
         message.setText(handleDeleteSubscription(chatId, position));
-        return message;
+        return Mono.just(message);
     }
 
     /**
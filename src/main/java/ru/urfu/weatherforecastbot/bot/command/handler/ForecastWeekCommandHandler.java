@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.service.WeatherForecastRequestHandler;
 import ru.urfu.weatherforecastbot.util.ForecastTimePeriod;
@@ -24,11 +25,14 @@ public class ForecastWeekCommandHandler implements CommandHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
-        BotMessage message = new BotMessage();
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         String placeName = userMessage.substring(userMessage.indexOf(" ") + 1);
-        message.setText(weatherForecastRequestHandler.handleForecasts(placeName, ForecastTimePeriod.WEEK));
-        return message;
+        return weatherForecastRequestHandler.handleForecastsAsync(placeName, ForecastTimePeriod.WEEK)
+                .map(forecasts -> {
+                    BotMessage message = new BotMessage();
+                    message.setText(forecasts);
+                    return message;
+                });
     }
 
 }
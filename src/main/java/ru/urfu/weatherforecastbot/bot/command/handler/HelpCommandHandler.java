@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 
@@ -9,10 +10,10 @@ import ru.urfu.weatherforecastbot.bot.BotMessage;
 public class HelpCommandHandler implements CommandHandler {
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         BotMessage message = new BotMessage();
         message.setText(BotConstants.HELP_TEXT);
-        return message;
+        return Mono.just(message);
     }
 
 }
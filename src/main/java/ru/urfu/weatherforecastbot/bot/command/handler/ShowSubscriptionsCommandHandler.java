@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.model.Reminder;
@@ -34,10 +35,10 @@ public class ShowSubscriptionsCommandHandler implements CommandHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         BotMessage message = new BotMessage();
         message.setText(handleShowSubscriptions(chatId));
-        return message;
+        return Mono.just(message);
     }
 
     /**
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -38,7 +39,7 @@ public class StartCommandHandler implements CommandHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         BotMessage message = new BotMessage();
         message.setText(BotConstants.START_TEXT);
         message.setButtons(getStartMenuButtons());
@@ -49,7 +50,7 @@ public class StartCommandHandler implements CommandHandler {
             chatContextRepository.save(newChatContext);
         }
         botStateManager.nextState(chatId, BotState.INITIAL);
-        return message;
+        return Mono.just(message);
     }
 
     /**
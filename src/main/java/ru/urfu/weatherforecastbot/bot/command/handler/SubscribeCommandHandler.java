@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.command.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.service.ReminderService;
@@ -27,7 +28,7 @@ public class SubscribeCommandHandler implements CommandHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         BotMessage message = new BotMessage();
         String[] splittedMessage = userMessage.split(" ");
         String place;
@@ -39,7 +40,7 @@ public class SubscribeCommandHandler implements CommandHandler {
         }
         String time = splittedMessage[splittedMessage.length - 1];
         message.setText(handleNewSubscription(chatId, place, time));
-        return message;
+        return Mono.just(message);
     }
 
     /**
@@ -1,5 +1,7 @@
 package ru.urfu.weatherforecastbot.bot.state;
 
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.database.ChatContextRepository;
 import ru.urfu.weatherforecastbot.database.ChatStateRepository;
@@ -29,7 +31,7 @@ public class BotStateManager {
     private final StateHandlerContainer stateHandlerContainer;
 
     /**
-     * Создает экземпляр {@link BotStateManager}, используя переданные аргументы
+     * Создает экземпляр {@link BotStateManager}, используя переданные аргументы, без метрик и трассировки
      *
      * @param weatherForecastRequestHandler обработчик запросов прогнозов погоды
      * @param chatStateRepository           репозиторий состояний чатов
@@ -40,9 +42,27 @@ public class BotStateManager {
                            ChatStateRepository chatStateRepository,
                            ChatContextRepository chatContextRepository,
                            ReminderService reminderService) {
+        this(weatherForecastRequestHandler, chatStateRepository, chatContextRepository, reminderService,
+                ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Создает экземпляр {@link BotStateManager}, используя переданные аргументы
+     *
+     * @param weatherForecastRequestHandler обработчик запросов прогнозов погоды
+     * @param chatStateRepository           репозиторий состояний чатов
+     * @param chatContextRepository         репозиторий контекстов чатов
+     * @param reminderService               сервис для управления напоминаниями
+     * @param observationRegistry           реестр наблюдений
+     */
+    public BotStateManager(WeatherForecastRequestHandler weatherForecastRequestHandler,
+                           ChatStateRepository chatStateRepository,
+                           ChatContextRepository chatContextRepository,
+                           ReminderService reminderService,
+                           ObservationRegistry observationRegistry) {
         this.chatStateRepository = chatStateRepository;
         stateHandlerContainer = new StateHandlerContainer(weatherForecastRequestHandler, this,
-                chatContextRepository, reminderService);
+                chatContextRepository, reminderService, observationRegistry);
         initTransitions();
     }
 
@@ -51,9 +71,9 @@ public class BotStateManager {
      *
      * @param chatId      ID чата
      * @param userMessage сообщение пользователя
-     * @return ответное сообщение
+     * @return Mono с ответным сообщением
      */
-    public BotMessage handle(long chatId, String userMessage) {
+    public Mono<BotMessage> handle(long chatId, String userMessage) {
         ChatState chatState = chatStateRepository.findById(chatId).orElseGet(() -> {
             ChatState newChatState = new ChatState();
             newChatState.setChatId(chatId);
@@ -61,8 +81,7 @@ public class BotStateManager {
             return chatStateRepository.save(newChatState);
         });
         BotState currentState = chatState.getBotState();
-        return stateHandlerContainer
-                .findStateHandler(currentState).handle(chatId, userMessage);
+        return stateHandlerContainer.handle(currentState, chatId, userMessage);
     }
 
     /**
@@ -0,0 +1,191 @@
+package ru.urfu.weatherforecastbot.bot.state;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Исполнитель задач чатов.
+ * <p>У каждого чата есть свой почтовый ящик - очередь задач, которые выполняются по одной в порядке поступления,
+ * поэтому обработка сообщений одного чата (в том числе переходы между {@link BotState состояниями}) никогда не
+ * выполняется параллельно. Асинхронная задача считается выполненной, когда завершится возвращенный ею
+ * {@link CompletionStage}: пока она ожидает ответа внешних сервисов, поток пула свободен, но следующая задача чата
+ * не начинается. Почтовые ящики разных чатов выполняются параллельно на общем пуле потоков. Почтовый
+ * ящик существует, только пока в нем есть задачи, поэтому память, занимаемая исполнителем, зависит от количества
+ * активных чатов, а не от общего количества чатов</p>
+ */
+public class ChatMailboxExecutor {
+
+    /**
+     * Количество задач, которые почтовый ящик выполняет подряд, прежде чем уступить поток другим чатам
+     */
+    private static final int BATCH_SIZE = 16;
+    /**
+     * Пул потоков, на котором выполняются почтовые ящики
+     */
+    private final Executor executor;
+    /**
+     * Почтовые ящики чатов, в которых есть задачи
+     */
+    private final Map<Long, Mailbox> mailboxes = new ConcurrentHashMap<>();
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(ChatMailboxExecutor.class);
+
+    /**
+     * Создает экземпляр ChatMailboxExecutor, используя переданный пул потоков
+     *
+     * @param executor пул потоков
+     */
+    public ChatMailboxExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Добавляет задачу в почтовый ящик чата. Задача будет выполнена после всех ранее добавленных задач этого чата
+     *
+     * @param chatId ID чата
+     * @param task   задача
+     */
+    public void execute(long chatId, Runnable task) {
+        executeAsync(chatId, () -> {
+            task.run();
+            return CompletableFuture.completedFuture(null);
+        });
+    }
+
+    /**
+     * Добавляет асинхронную задачу в почтовый ящик чата. Задача будет запущена после завершения всех ранее
+     * добавленных задач этого чата, а следующая задача - после завершения возвращенного ею {@link CompletionStage}
+     *
+     * @param chatId ID чата
+     * @param task   асинхронная задача
+     */
+    public void executeAsync(long chatId, Supplier<? extends CompletionStage<?>> task) {
+        Mailbox mailbox = mailboxes.compute(chatId, (id, current) -> {
+            Mailbox target = current != null ? current : new Mailbox(id);
+            target.tasks.add(task);
+            return target;
+        });
+        if (mailbox.scheduled.compareAndSet(false, true)) {
+            executor.execute(mailbox);
+        }
+    }
+
+    /**
+     * Возвращает количество чатов, в почтовых ящиках которых есть задачи
+     *
+     * @return количество активных чатов
+     */
+    public int getActiveChatsCount() {
+        return mailboxes.size();
+    }
+
+    /**
+     * Почтовый ящик чата
+     */
+    private class Mailbox implements Runnable {
+
+        /**
+         * ID чата
+         */
+        private final long chatId;
+        /**
+         * Задачи, ожидающие выполнения
+         */
+        private final Queue<Supplier<? extends CompletionStage<?>>> tasks = new ConcurrentLinkedQueue<>();
+        /**
+         * Запланировано ли (или уже идет) выполнение задач почтового ящика
+         */
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        /**
+         * Создает почтовый ящик чата
+         *
+         * @param chatId ID чата
+         */
+        private Mailbox(long chatId) {
+            this.chatId = chatId;
+        }
+
+        /**
+         * Выполняет задачи почтового ящика, пока они есть, но не более {@link ChatMailboxExecutor#BATCH_SIZE} подряд.
+         * Если задача еще не завершилась, поток освобождается, а выполнение продолжится после ее завершения.
+         * Опустевший почтовый ящик удаляется
+         */
+        @Override
+        public void run() {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                Supplier<? extends CompletionStage<?>> task = tasks.poll();
+                if (task == null) {
+                    release();
+                    return;
+                }
+                CompletableFuture<?> completion = start(task);
+                if (!completion.isDone()) {
+                    completion.whenComplete((result, e) -> {
+                        logFailure(e);
+                        executor.execute(this);
+                    });
+                    return;
+                }
+                if (completion.isCompletedExceptionally()) {
+                    completion.whenComplete((result, e) -> logFailure(e));
+                }
+            }
+            executor.execute(this);
+        }
+
+        /**
+         * Запускает задачу
+         *
+         * @param task задача
+         * @return завершение задачи
+         */
+        private CompletableFuture<?> start(Supplier<? extends CompletionStage<?>> task) {
+            try {
+                return task.get().toCompletableFuture();
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        /**
+         * Записывает в лог ошибку выполнения задачи
+         *
+         * @param e ошибка или null, если задача выполнена успешно
+         */
+        private void logFailure(Throwable e) {
+            if (e != null) {
+                logger.error("Failed to execute task of chat %d".formatted(chatId), e);
+            }
+        }
+
+        /**
+         * Снимает отметку о выполнении и удаляет почтовый ящик, если в него не успели добавить новые задачи
+         */
+        private void release() {
+            scheduled.set(false);
+            if (!tasks.isEmpty()) {
+                if (scheduled.compareAndSet(false, true)) {
+                    executor.execute(this);
+                }
+                return;
+            }
+            mailboxes.computeIfPresent(chatId, (id, current) ->
+                    current == this && tasks.isEmpty() && !scheduled.get() ? null : current);
+        }
+
+    }
+
+}
@@ -1,11 +1,17 @@
 package ru.urfu.weatherforecastbot.bot.state;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.state.handler.*;
 import ru.urfu.weatherforecastbot.database.ChatContextRepository;
 import ru.urfu.weatherforecastbot.service.ReminderService;
 import ru.urfu.weatherforecastbot.service.WeatherForecastRequestHandler;
+import ru.urfu.weatherforecastbot.util.ReactiveObservations;
 
 import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -17,6 +23,10 @@ public class StateHandlerContainer {
      * Обработчики команд
      */
     private final Map<BotState, StateHandler> stateHandlers = new HashMap<>();
+    /**
+     * Реестр наблюдений, в котором регистрируется обработка сообщений
+     */
+    private final ObservationRegistry observationRegistry;
 
     /**
      * Создает контейнер обработчиков команд, используя переданные аргументы
@@ -25,11 +35,14 @@ public class StateHandlerContainer {
      * @param botStateManager               менеджер состояний бота
      * @param chatContextRepository         репозиторий контекстов чатов
      * @param reminderService               сервис для управления напоминаниями
+     * @param observationRegistry           реестр наблюдений
      */
     public StateHandlerContainer(WeatherForecastRequestHandler weatherForecastRequestHandler,
                                  BotStateManager botStateManager,
                                  ChatContextRepository chatContextRepository,
-                                 ReminderService reminderService) {
+                                 ReminderService reminderService,
+                                 ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
         stateHandlers.put(BotState.INITIAL, new InitialStateHandler(botStateManager));
         stateHandlers.put(BotState.WAITING_FOR_PLACE_NAME,
                 new WaitingForPlaceNameStateHandler(botStateManager, chatContextRepository));
@@ -56,6 +69,23 @@ public class StateHandlerContainer {
                 new WaitingForEditReminderTimeStateHandler(reminderService, botStateManager, chatContextRepository));
     }
 
+    /**
+     * Обрабатывает сообщение пользователя обработчиком, соответствующим состоянию. Обработка регистрируется как
+     * наблюдение {@code bot.states} с тегом {@code state}: время обработки до получения ответного сообщения
+     * записывается в таймер, а в трассировке события создается дочерний span
+     *
+     * @param botState состояние бота
+     * @param chatId   ID чата
+     * @param text     сообщение пользователя
+     * @return Mono с ответным сообщением
+     */
+    public Mono<BotMessage> handle(BotState botState, long chatId, String text) {
+        Observation observation = Observation.createNotStarted("bot.states", observationRegistry)
+                .contextualName("state " + botState.name().toLowerCase(Locale.ROOT))
+                .lowCardinalityKeyValue("state", botState.name());
+        return ReactiveObservations.observe(observation, () -> stateHandlers.get(botState).handle(chatId, text));
+    }
+
     /**
      * Возвращает обработчик, соответствующий указанному состоянию
      *
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -28,22 +29,22 @@ public class InitialStateHandler implements StateHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
+    public Mono<BotMessage> handle(long chatId, String text) {
         BotMessage message = new BotMessage();
         String[] splittedText = text.split(" ");
         String command = splittedText[0];
         switch (command) {
             case BotConstants.COMMAND_FORECAST_TODAY -> {
                 botStateManager.nextState(chatId, BotState.WAITING_FOR_TODAY_FORECAST_PLACE_NAME);
-                return getForecastPlaceNameRequestMessage();
+                return Mono.just(getForecastPlaceNameRequestMessage());
             }
             case BotConstants.COMMAND_FORECAST_WEEK -> {
                 botStateManager.nextState(chatId, BotState.WAITING_FOR_WEEK_FORECAST_PLACE_NAME);
-                return getForecastPlaceNameRequestMessage();
+                return Mono.just(getForecastPlaceNameRequestMessage());
             }
             case BotConstants.CALLBACK_FORECAST -> {
                 botStateManager.nextState(chatId, BotState.WAITING_FOR_PLACE_NAME);
-                return getForecastPlaceNameRequestMessage();
+                return Mono.just(getForecastPlaceNameRequestMessage());
             }
             case BotConstants.COMMAND_SUBSCRIBE -> {
                 message.setText("Введите название места, для которого будут присылаться напоминания");
@@ -62,7 +63,7 @@ public class InitialStateHandler implements StateHandler {
             }
             default -> message.setText(BotConstants.UNKNOWN_COMMAND);
         }
-        return message;
+        return Mono.just(message);
     }
 
     /**
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 
 /**
@@ -8,12 +9,13 @@ import ru.urfu.weatherforecastbot.bot.BotMessage;
 public interface StateHandler {
 
     /**
-     * Обрабатывает состояние чата и возвращает ответное сообщение
+     * Обрабатывает состояние чата и возвращает ответное сообщение. Изменения состояния и контекста чата
+     * выполняются при вызове, а ожидание ответа внешних сервисов, если оно требуется, - в возвращаемом Mono
      *
      * @param chatId ID чата
      * @param text   текст сообщения пользователя
-     * @return ответное сообщение
+     * @return Mono с ответным сообщением
      */
-    BotMessage handle(long chatId, String text);
+    Mono<BotMessage> handle(long chatId, String text);
 
 }
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -37,7 +38,7 @@ public class WaitingForEditReminderPlaceNameStateHandler implements StateHandler
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
+    public Mono<BotMessage> handle(long chatId, String text) {
         BotMessage message = new BotMessage();
         ChatContext chatContext = chatContextRepository.findById(chatId).orElseGet(() -> {
             ChatContext newChatContext = new ChatContext();
@@ -49,7 +50,7 @@ public class WaitingForEditReminderPlaceNameStateHandler implements StateHandler
         message.setText("Введите новое время для напоминания (в UTC)");
         message.setButtons(List.of(new Button(BotConstants.CANCEL_BUTTON_TEXT, BotConstants.COMMAND_CANCEL)));
         botStateManager.nextState(chatId, BotState.WAITING_FOR_EDIT_REMINDER_TIME);
-        return message;
+        return Mono.just(message);
     }
 
 }
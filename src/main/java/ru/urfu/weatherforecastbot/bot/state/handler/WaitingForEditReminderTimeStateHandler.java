@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.state.BotState;
@@ -43,7 +44,7 @@ public class WaitingForEditReminderTimeStateHandler implements StateHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
+    public Mono<BotMessage> handle(long chatId, String text) {
         BotMessage message = new BotMessage();
         ChatContext chatContext = chatContextRepository.findById(chatId).orElseGet(() -> {
             ChatContext newChatContext = new ChatContext();
@@ -64,7 +65,7 @@ public class WaitingForEditReminderTimeStateHandler implements StateHandler {
             message.setText(BotConstants.NO_REMINDER_WITH_POSITION);
             botStateManager.nextState(chatId, BotState.INITIAL);
         }
-        return message;
+        return Mono.just(message);
     }
 
 }
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -38,7 +39,7 @@ public class WaitingForPlaceNameStateHandler implements StateHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
+    public Mono<BotMessage> handle(long chatId, String text) {
         BotMessage message = new BotMessage();
         ChatContext chatContext = chatContextRepository.findById(chatId).orElseGet(() -> {
             ChatContext newChatContext = new ChatContext();
@@ -50,7 +51,7 @@ public class WaitingForPlaceNameStateHandler implements StateHandler {
         message.setText("Выберите временной период для просмотра (сегодня, завтра, неделя)");
         message.setButtons(getTimePeriodMenuButtons());
         botStateManager.nextState(chatId, BotState.WAITING_FOR_TIME_PERIOD);
-        return message;
+        return Mono.just(message);
     }
 
     /**
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.state.BotState;
@@ -33,11 +34,11 @@ public class WaitingForReminderPositionToDeleteStateHandler implements StateHand
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
+    public Mono<BotMessage> handle(long chatId, String text) {
         BotMessage message = new BotMessage();
         message.setText(handleDeleteSubscription(chatId, text));
         botStateManager.nextState(chatId, BotState.INITIAL);
-        return message;
+        return Mono.just(message);
     }
 
     /**
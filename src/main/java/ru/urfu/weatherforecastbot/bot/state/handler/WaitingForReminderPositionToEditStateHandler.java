@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -37,7 +38,7 @@ public class WaitingForReminderPositionToEditStateHandler implements StateHandle
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
+    public Mono<BotMessage> handle(long chatId, String text) {
         BotMessage message = new BotMessage();
         ChatContext chatContext = chatContextRepository.findById(chatId).orElseGet(() -> {
             ChatContext newChatContext = new ChatContext();
@@ -54,7 +55,7 @@ public class WaitingForReminderPositionToEditStateHandler implements StateHandle
         } catch (NumberFormatException e) {
             message.setText(BotConstants.NOT_A_NUMBER_REMINDER_POSITION);
         }
-        return message;
+        return Mono.just(message);
     }
 
 }
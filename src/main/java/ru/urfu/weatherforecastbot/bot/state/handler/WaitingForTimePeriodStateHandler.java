@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.Button;
@@ -46,36 +47,44 @@ public class WaitingForTimePeriodStateHandler implements StateHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
-        BotMessage message = new BotMessage();
+    public Mono<BotMessage> handle(long chatId, String text) {
+        ForecastTimePeriod timePeriod = findTimePeriod(text);
+        if (timePeriod == null) {
+            BotMessage message = new BotMessage();
+            message.setText("Введите корректный временной период. Допустимые значения: сегодня, завтра, неделя");
+            message.setButtons(getTimePeriodMenuButtons());
+            return Mono.just(message);
+        }
         ChatContext chatContext = chatContextRepository.findById(chatId).orElseGet(() -> {
             ChatContext newChatContext = new ChatContext();
             newChatContext.setChatId(chatId);
             return newChatContext;
         });
-        if (text.equals(ForecastTimePeriod.TODAY.getText())) {
-            message.setText(
-                    weatherForecastRequestHandler.handleForecasts(
-                            chatContext.getPlaceName(), ForecastTimePeriod.TODAY));
-            botStateManager.nextState(chatId, BotState.INITIAL);
-        } else if (text.equals(ForecastTimePeriod.TOMORROW.getText())) {
-            message.setText(
-                    weatherForecastRequestHandler.handleForecasts(
-                            chatContext.getPlaceName(), ForecastTimePeriod.TOMORROW));
-            botStateManager.nextState(chatId, BotState.INITIAL);
-        } else if (text.equals(ForecastTimePeriod.WEEK.getText())) {
-            message.setText(
-                    weatherForecastRequestHandler.handleForecasts(
-                            chatContext.getPlaceName(), ForecastTimePeriod.WEEK));
-            botStateManager.nextState(chatId, BotState.INITIAL);
-        } else {
-            message.setText("Введите корректный временной период. Допустимые значения: сегодня, завтра, неделя");
-            message.setButtons(getTimePeriodMenuButtons());
-            return message;
-        }
+        String placeName = chatContext.getPlaceName();
+        botStateManager.nextState(chatId, BotState.INITIAL);
         chatContext.setPlaceName(null);
         chatContextRepository.save(chatContext);
-        return message;
+        return weatherForecastRequestHandler.handleForecastsAsync(placeName, timePeriod)
+                .map(forecasts -> {
+                    BotMessage message = new BotMessage();
+                    message.setText(forecasts);
+                    return message;
+                });
+    }
+
+    /**
+     * Находит временной период по тексту кнопки
+     *
+     * @param text текст сообщения пользователя
+     * @return временной период или null, если текст не соответствует ни одному периоду
+     */
+    private ForecastTimePeriod findTimePeriod(String text) {
+        for (ForecastTimePeriod timePeriod : ForecastTimePeriod.values()) {
+            if (text.equals(timePeriod.getText())) {
+                return timePeriod;
+            }
+        }
+        return null;
     }
 
     /**
@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.bot.state.handler;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.state.BotState;
 import ru.urfu.weatherforecastbot.bot.state.BotStateManager;
@@ -42,9 +43,7 @@ public class WaitingForTodayPlaceNameStateHandler implements StateHandler {
     }
 
     @Override
-    public BotMessage handle(long chatId, String text) {
-        BotMessage message = new BotMessage();
-        message.setText(weatherForecastRequestHandler.handleForecasts(text, ForecastTimePeriod.TODAY));
+    public Mono<BotMessage> handle(long chatId, String text) {
         ChatContext chatContext = chatContextRepository.findById(chatId).orElseGet(() -> {
             ChatContext newChatContext = new ChatContext();
             newChatContext.setChatId(chatId);
@@ -53,7 +52,12 @@ public class WaitingForTodayPlaceNameStateHandler implements StateHandler {
         chatContext.setPlaceName(null);
         chatContextRepository.save(chatContext);
         botStateManager.nextState(chatId, BotState.INITIAL);
-        return message;
+        return weatherForecastRequestHandler.handleForecastsAsync(text, ForecastTimePeriod.TODAY)
+                .map(forecasts -> {
+                    BotMessage message = new BotMessage();
+                    message.setText(forecasts);
+                    return message;
+                });
     }
 
 }
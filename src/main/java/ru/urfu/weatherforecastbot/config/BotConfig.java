@@ -17,10 +17,40 @@ public class BotConfig {
      * Токен бота
      */
     private final String token;
+    /**
+     * URL Telegram Bot API, к которому добавляется токен бота
+     */
+    private final String apiUrl;
+    /**
+     * Способ получения событий: {@code polling} (долгий опрос) или {@code webhook}
+     */
+    private final String mode;
+    /**
+     * Публичный URL, по которому Telegram отправляет события в режиме webhook
+     */
+    private final String webhookUrl;
+    /**
+     * Секретный токен, который Telegram передает в заголовке каждого запроса в режиме webhook
+     */
+    private final String webhookSecretToken;
+    /**
+     * Максимальное количество одновременных запросов Telegram в режиме webhook
+     */
+    private final int webhookMaxConnections;
 
-    public BotConfig(@Value("${bot.name}") String name, @Value("${bot.token}") String token) {
+    public BotConfig(@Value("${bot.name}") String name, @Value("${bot.token}") String token,
+                     @Value("${bot.api-url:https://api.telegram.org/bot}") String apiUrl,
+                     @Value("${bot.mode:polling}") String mode,
+                     @Value("${bot.webhook.url:}") String webhookUrl,
+                     @Value("${bot.webhook.secret-token:}") String webhookSecretToken,
+                     @Value("${bot.webhook.max-connections:40}") int webhookMaxConnections) {
         this.name = name;
         this.token = token;
+        this.apiUrl = apiUrl;
+        this.mode = mode;
+        this.webhookUrl = webhookUrl;
+        this.webhookSecretToken = webhookSecretToken;
+        this.webhookMaxConnections = webhookMaxConnections;
     }
 
     /**
@@ -41,4 +71,49 @@ public class BotConfig {
         return token;
     }
 
+    /**
+     * Возвращает URL Telegram Bot API
+     *
+     * @return URL Telegram Bot API
+     */
+    public String getApiUrl() {
+        return apiUrl;
+    }
+
+    /**
+     * Проверяет, получает ли бот события через webhook
+     *
+     * @return true, если бот получает события через webhook, и false, если через долгий опрос
+     */
+    public boolean isWebhookMode() {
+        return "webhook".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Возвращает публичный URL, по которому Telegram отправляет события
+     *
+     * @return URL webhook
+     */
+    public String getWebhookUrl() {
+        return webhookUrl;
+    }
+
+    /**
+     * Возвращает секретный токен webhook
+     *
+     * @return секретный токен
+     */
+    public String getWebhookSecretToken() {
+        return webhookSecretToken;
+    }
+
+    /**
+     * Возвращает максимальное количество одновременных запросов Telegram к webhook
+     *
+     * @return максимальное количество соединений
+     */
+    public int getWebhookMaxConnections() {
+        return webhookMaxConnections;
+    }
+
 }
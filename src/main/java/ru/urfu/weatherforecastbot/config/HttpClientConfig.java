@@ -0,0 +1,83 @@
+package ru.urfu.weatherforecastbot.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+/**
+ * Конфигурация HTTP клиента для запросов к серверам поиска мест и прогнозов погоды.
+ * <p>Все сервисы используют один пул соединений, поэтому соединения с серверами переиспользуются между запросами,
+ * а не устанавливаются заново (вместе с рукопожатием TLS) на каждый запрос. Простаивающие и слишком старые
+ * соединения закрываются в фоне. Метрики пула публикуются в глобальный реестр Micrometer</p>
+ */
+@Configuration
+public class HttpClientConfig {
+
+    /**
+     * Название пула соединений (используется в метриках)
+     */
+    private static final String CONNECTION_PROVIDER_NAME = "upstream";
+
+    /**
+     * Создает пул соединений
+     *
+     * @param maxConnections        максимальное количество соединений с одним сервером
+     * @param pendingAcquireTimeout максимальное время ожидания свободного соединения
+     * @param maxIdleTime           время, после которого простаивающее соединение закрывается
+     * @param maxLifeTime           время, после которого соединение закрывается независимо от использования
+     * @param evictionInterval      интервал фоновой проверки соединений
+     * @param metrics               публиковать ли метрики пула
+     * @return пул соединений
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider(
+            @Value("${http.client.max-connections:100}") int maxConnections,
+            @Value("${http.client.pending-acquire-timeout:10s}") Duration pendingAcquireTimeout,
+            @Value("${http.client.max-idle-time:30s}") Duration maxIdleTime,
+            @Value("${http.client.max-life-time:5m}") Duration maxLifeTime,
+            @Value("${http.client.eviction-interval:30s}") Duration evictionInterval,
+            @Value("${http.client.metrics:true}") boolean metrics) {
+        return ConnectionProvider.builder(CONNECTION_PROVIDER_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(evictionInterval)
+                .metrics(metrics)
+                .build();
+    }
+
+    /**
+     * Создает HTTP клиент, использующий общий пул соединений
+     *
+     * @param connectionProvider пул соединений
+     * @param connectTimeout     время ожидания установки соединения
+     * @param responseTimeout    время ожидания ответа сервера
+     * @param compress           запрашивать ли ответы в сжатом виде (gzip)
+     * @param http2              использовать ли HTTP/2, если сервер его поддерживает
+     * @return HTTP клиент
+     */
+    @Bean
+    public HttpClient upstreamHttpClient(ConnectionProvider connectionProvider,
+                                         @Value("${http.client.connect-timeout:5s}") Duration connectTimeout,
+                                         @Value("${http.client.response-timeout:10s}") Duration responseTimeout,
+                                         @Value("${http.client.compress:true}") boolean compress,
+                                         @Value("${http.client.http2:false}") boolean http2) {
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .responseTimeout(responseTimeout)
+                .compress(compress);
+        if (http2) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure();
+        }
+        return httpClient;
+    }
+
+}
@@ -0,0 +1,39 @@
+package ru.urfu.weatherforecastbot.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Конфигурация пакетной записи JPA.
+ * <p>Включает пакетную отправку JDBC-запросов, чтобы отложенная запись состояний и контекстов чатов выполнялась
+ * небольшим количеством обращений к базе данных. Значения, явно заданные в конфигурации приложения, не
+ * переопределяются</p>
+ */
+@Component
+public class JpaBatchingConfig implements HibernatePropertiesCustomizer {
+
+    /**
+     * Размер пакета JDBC-запросов
+     */
+    private final int batchSize;
+
+    /**
+     * Создает экземпляр JpaBatchingConfig
+     *
+     * @param batchSize размер пакета JDBC-запросов
+     */
+    public JpaBatchingConfig(@Value("${chat.cache.batch-size:100}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent("hibernate.jdbc.batch_size", batchSize);
+        hibernateProperties.putIfAbsent("hibernate.order_inserts", true);
+        hibernateProperties.putIfAbsent("hibernate.order_updates", true);
+    }
+
+}
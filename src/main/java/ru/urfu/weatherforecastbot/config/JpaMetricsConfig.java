@@ -0,0 +1,37 @@
+package ru.urfu.weatherforecastbot.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+import ru.urfu.weatherforecastbot.database.StatementCounter;
+
+import java.util.Map;
+
+/**
+ * Конфигурация метрик JPA.
+ * <p>Подключает к Hibernate {@link StatementCounter счетчик SQL-запросов}, если в конфигурации приложения не
+ * задан другой обработчик запросов</p>
+ */
+@Component
+public class JpaMetricsConfig implements HibernatePropertiesCustomizer {
+
+    /**
+     * Счетчик SQL-запросов
+     */
+    private final StatementCounter statementCounter;
+
+    /**
+     * Создает экземпляр JpaMetricsConfig
+     *
+     * @param statementCounter счетчик SQL-запросов
+     */
+    public JpaMetricsConfig(StatementCounter statementCounter) {
+        this.statementCounter = statementCounter;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+}
@@ -0,0 +1,31 @@
+package ru.urfu.weatherforecastbot.config;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Обработчик, записывающий завершенные span в лог. Позволяет просматривать трассировки без внешней системы:
+ * span одной обработки события имеют общий {@code traceId}, а вложенность восстанавливается по {@code parentId}
+ */
+public class LoggingSpanHandler extends SpanHandler {
+
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(LoggingSpanHandler.class);
+
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause == Cause.FINISHED && logger.isInfoEnabled()) {
+            logger.info("traceId=%s spanId=%s parentId=%s name=\"%s\" duration=%d us tags=%s%s".formatted(
+                    span.traceId(), span.id(), span.parentId(), span.name(),
+                    span.finishTimestamp() - span.startTimestamp(),
+                    span.tags(), span.error() != null ? " error=" + span.error() : ""));
+        }
+        return true;
+    }
+
+}
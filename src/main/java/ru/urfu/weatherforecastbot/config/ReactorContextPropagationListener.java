@@ -0,0 +1,29 @@
+package ru.urfu.weatherforecastbot.config;
+
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.context.ApplicationListener;
+import reactor.core.publisher.Hooks;
+
+/**
+ * Обработчик события подготовки окружения, включающий автоматический перенос контекста наблюдений между потоками
+ * Reactor, если {@code spring.reactor.context-propagation=auto} (по умолчанию).
+ * <p>Перенос включается глобальными для JVM хуками Reactor, поэтому включается один раз при запуске приложения, до
+ * создания бинов и приема событий от Telegram. Название и значения настройки совпадают с настройкой, которую
+ * Spring Boot поддерживает начиная с версии 3.2</p>
+ */
+public class ReactorContextPropagationListener implements ApplicationListener<ApplicationEnvironmentPreparedEvent> {
+
+    /**
+     * Настройка переноса контекста: {@code auto} - автоматический перенос, {@code limited} - без него
+     */
+    static final String CONTEXT_PROPAGATION_PROPERTY = "spring.reactor.context-propagation";
+
+    @Override
+    public void onApplicationEvent(ApplicationEnvironmentPreparedEvent event) {
+        String contextPropagation = event.getEnvironment().getProperty(CONTEXT_PROPAGATION_PROPERTY, "auto");
+        if (contextPropagation.equalsIgnoreCase("auto")) {
+            Hooks.enableAutomaticContextPropagation();
+        }
+    }
+
+}
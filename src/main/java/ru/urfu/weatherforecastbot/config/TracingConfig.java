@@ -0,0 +1,112 @@
+package ru.urfu.weatherforecastbot.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.Advised;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.Repository;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+/**
+ * Конфигурация трассировки.
+ * <p>Обработка события от Telegram регистрируется как наблюдение Micrometer, а вложенные в нее шаги (команда или
+ * состояние, запросы к репозиториям и серверам, форматирование, отправка ответа) - как дочерние наблюдения. Мост
+ * Micrometer Tracing превращает наблюдения в span, а обработчик метрик - в таймеры с теми же названиями.
+ * Текущее наблюдение переносится в цепочки Reactor автоматически (см. {@link ReactorContextPropagationListener}), а
+ * в потоки отправки сообщений - через {@link ru.urfu.weatherforecastbot.bot.OutboundMessageQueue очередь исходящих
+ * сообщений}</p>
+ * <p>Span экспортируются всеми бинами {@link brave.handler.SpanHandler}: по умолчанию, при
+ * {@code tracing.log.enabled=true}, - в лог, а при подключении репортера Zipkin или OTLP - во внешнюю систему</p>
+ */
+@Configuration
+public class TracingConfig {
+
+    /**
+     * Создает обработчик, регистрирующий каждый вызов репозитория как наблюдение {@code db.repository} с тегами
+     * {@code repository} (название бина) и {@code method} (вызванный метод). Наблюдаются только внешние репозитории:
+     * репозиторий, обернутый основным ({@link org.springframework.context.annotation.Primary @Primary}) репозиторием
+     * того же типа, например репозиторием с отложенной записью, не наблюдается, чтобы не создавать вложенные
+     * наблюдения одного вызова
+     *
+     * @param observationRegistry реестр наблюдений
+     * @param beanFactory         фабрика бинов
+     * @return обработчик бинов
+     */
+    @Bean
+    public static BeanPostProcessor repositoryObservationPostProcessor(
+            ObjectProvider<ObservationRegistry> observationRegistry, ConfigurableListableBeanFactory beanFactory) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof Repository<?, ?>) || isWrapped(bean, beanName, beanFactory)) {
+                    return bean;
+                }
+                MethodInterceptor interceptor = invocation -> {
+                    if (ReflectionUtils.isObjectMethod(invocation.getMethod())) {
+                        return invocation.proceed();
+                    }
+                    String method = invocation.getMethod().getName();
+                    return Observation.createNotStarted("db.repository",
+                                    observationRegistry.getIfAvailable(() -> ObservationRegistry.NOOP))
+                            .contextualName(beanName + "." + method)
+                            .lowCardinalityKeyValue("repository", beanName)
+                            .lowCardinalityKeyValue("method", method)
+                            .observeChecked(invocation::proceed);
+                };
+                if (bean instanceof Advised advised && !advised.isFrozen()) {
+                    advised.addAdvice(0, interceptor);
+                    return bean;
+                }
+                ProxyFactory proxyFactory = new ProxyFactory(bean);
+                proxyFactory.setProxyTargetClass(true);
+                proxyFactory.addAdvice(interceptor);
+                return proxyFactory.getProxy(bean.getClass().getClassLoader());
+            }
+        };
+    }
+
+    /**
+     * Проверяет, обернут ли репозиторий другим репозиторием: есть ли другой основной бин, реализующий один из
+     * интерфейсов репозитория приложения
+     *
+     * @param bean        репозиторий
+     * @param beanName    название бина репозитория
+     * @param beanFactory фабрика бинов
+     * @return true, если репозиторий обернут другим репозиторием
+     */
+    private static boolean isWrapped(Object bean, String beanName, ConfigurableListableBeanFactory beanFactory) {
+        for (Class<?> repositoryInterface : ClassUtils.getAllInterfacesForClassAsSet(bean.getClass())) {
+            if (!Repository.class.isAssignableFrom(repositoryInterface)
+                    || repositoryInterface.getName().startsWith("org.springframework.")) {
+                continue;
+            }
+            for (String candidateName : beanFactory.getBeanNamesForType(repositoryInterface, true, false)) {
+                if (!candidateName.equals(beanName) && beanFactory.containsBeanDefinition(candidateName)
+                        && beanFactory.getBeanDefinition(candidateName).isPrimary()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Создает обработчик, записывающий завершенные span в лог
+     *
+     * @return обработчик span
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.log.enabled", havingValue = "true")
+    public LoggingSpanHandler loggingSpanHandler() {
+        return new LoggingSpanHandler();
+    }
+
+}
@@ -0,0 +1,56 @@
+package ru.urfu.weatherforecastbot.database;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * Счетчик SQL-запросов к базе данных.
+ * <p>Hibernate передает счетчику каждый подготавливаемый запрос (пакет JDBC-запросов подготавливается один раз),
+ * поэтому количество запросов соответствует количеству обращений к базе данных. Запросы считаются в целом
+ * (счетчик {@code db.statements}) и отдельно в каждом потоке, чтобы можно было определить количество обращений
+ * к базе данных при обработке одного события</p>
+ */
+@Component
+public class StatementCounter implements StatementInspector {
+
+    /**
+     * Количество запросов, выполненных текущим потоком
+     */
+    private final ThreadLocal<long[]> threadStatementsCount = ThreadLocal.withInitial(() -> new long[1]);
+    /**
+     * Общее количество запросов
+     */
+    private final Counter statementsCounter;
+
+    /**
+     * Создает экземпляр StatementCounter
+     *
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public StatementCounter(MeterRegistry meterRegistry) {
+        statementsCounter = Counter.builder("db.statements")
+                .description("SQL statements prepared by Hibernate")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String inspect(String sql) {
+        threadStatementsCount.get()[0]++;
+        statementsCounter.increment();
+        return sql;
+    }
+
+    /**
+     * Возвращает количество запросов, выполненных текущим потоком с момента его запуска
+     *
+     * @return количество запросов
+     */
+    public long getThreadStatementsCount() {
+        return threadStatementsCount.get()[0];
+    }
+
+}
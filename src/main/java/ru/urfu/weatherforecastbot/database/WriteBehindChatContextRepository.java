@@ -0,0 +1,94 @@
+package ru.urfu.weatherforecastbot.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.urfu.weatherforecastbot.model.ChatContext;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Репозиторий контекстов чатов с отложенной записью в базу данных
+ */
+@Repository
+@Primary
+public class WriteBehindChatContextRepository extends WriteBehindRepository<ChatContext>
+        implements ChatContextRepository {
+
+    /**
+     * Создает экземпляр WriteBehindChatContextRepository, используя в качестве executorService
+     * {@code Executors.newSingleThreadScheduledExecutor()}
+     *
+     * @param delegate           репозиторий контекстов чатов в базе данных
+     * @param maximumSize        максимальное количество контекстов в памяти
+     * @param flushInterval      интервал записи изменений в базу данных
+     * @param transactionManager менеджер транзакций базы данных
+     * @param meterRegistry      реестр метрик
+     */
+    @Autowired
+    public WriteBehindChatContextRepository(@Qualifier("chatContextRepository") ChatContextRepository delegate,
+                                            @Value("${chat.cache.maximum-size:100000}") long maximumSize,
+                                            @Value("${chat.cache.flush-interval:1s}") Duration flushInterval,
+                                            PlatformTransactionManager transactionManager,
+                                            MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, flushInterval, new TransactionTemplate(transactionManager),
+                Executors.newSingleThreadScheduledExecutor(), meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр WriteBehindChatContextRepository, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param delegate              репозиторий контекстов чатов
+     * @param maximumSize           максимальное количество контекстов в памяти
+     * @param flushInterval         интервал записи изменений
+     * @param transactionOperations операции в транзакции, в которой записываются изменения
+     * @param executorService       ExecutorService для планирования записи изменений
+     */
+    public WriteBehindChatContextRepository(ChatContextRepository delegate, long maximumSize, Duration flushInterval,
+                                            TransactionOperations transactionOperations,
+                                            ScheduledExecutorService executorService) {
+        this(delegate, maximumSize, flushInterval, transactionOperations, executorService, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр WriteBehindChatContextRepository, используя переданные аргументы
+     *
+     * @param delegate              репозиторий контекстов чатов
+     * @param maximumSize           максимальное количество контекстов в памяти
+     * @param flushInterval         интервал записи изменений
+     * @param transactionOperations операции в транзакции, в которой записываются изменения
+     * @param executorService       ExecutorService для планирования записи изменений
+     * @param meterRegistry         реестр метрик
+     */
+    public WriteBehindChatContextRepository(ChatContextRepository delegate, long maximumSize, Duration flushInterval,
+                                            TransactionOperations transactionOperations,
+                                            ScheduledExecutorService executorService,
+                                            MeterRegistry meterRegistry) {
+        super(delegate, WriteBehindChatContextRepository::copy, ChatContext::markPersisted, maximumSize,
+                flushInterval, transactionOperations, executorService, "chat_context", meterRegistry);
+    }
+
+    /**
+     * Копирует контекст чата
+     *
+     * @param chatContext контекст чата
+     * @return копия контекста чата
+     */
+    private static ChatContext copy(ChatContext chatContext) {
+        ChatContext copy = new ChatContext();
+        copy.setChatId(chatContext.getChatId());
+        copy.setPlaceName(chatContext.getPlaceName());
+        copy.setReminderPosition(chatContext.getReminderPosition());
+        return copy;
+    }
+
+}
@@ -0,0 +1,92 @@
+package ru.urfu.weatherforecastbot.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.urfu.weatherforecastbot.model.ChatState;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Репозиторий состояний чатов с отложенной записью в базу данных
+ */
+@Repository
+@Primary
+public class WriteBehindChatStateRepository extends WriteBehindRepository<ChatState> implements ChatStateRepository {
+
+    /**
+     * Создает экземпляр WriteBehindChatStateRepository, используя в качестве executorService
+     * {@code Executors.newSingleThreadScheduledExecutor()}
+     *
+     * @param delegate           репозиторий состояний чатов в базе данных
+     * @param maximumSize        максимальное количество состояний в памяти
+     * @param flushInterval      интервал записи изменений в базу данных
+     * @param transactionManager менеджер транзакций базы данных
+     * @param meterRegistry      реестр метрик
+     */
+    @Autowired
+    public WriteBehindChatStateRepository(@Qualifier("chatStateRepository") ChatStateRepository delegate,
+                                          @Value("${chat.cache.maximum-size:100000}") long maximumSize,
+                                          @Value("${chat.cache.flush-interval:1s}") Duration flushInterval,
+                                          PlatformTransactionManager transactionManager,
+                                          MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, flushInterval, new TransactionTemplate(transactionManager),
+                Executors.newSingleThreadScheduledExecutor(), meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр WriteBehindChatStateRepository, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param delegate              репозиторий состояний чатов
+     * @param maximumSize           максимальное количество состояний в памяти
+     * @param flushInterval         интервал записи изменений
+     * @param transactionOperations операции в транзакции, в которой записываются изменения
+     * @param executorService       ExecutorService для планирования записи изменений
+     */
+    public WriteBehindChatStateRepository(ChatStateRepository delegate, long maximumSize, Duration flushInterval,
+                                          TransactionOperations transactionOperations,
+                                          ScheduledExecutorService executorService) {
+        this(delegate, maximumSize, flushInterval, transactionOperations, executorService, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр WriteBehindChatStateRepository, используя переданные аргументы
+     *
+     * @param delegate              репозиторий состояний чатов
+     * @param maximumSize           максимальное количество состояний в памяти
+     * @param flushInterval         интервал записи изменений
+     * @param transactionOperations операции в транзакции, в которой записываются изменения
+     * @param executorService       ExecutorService для планирования записи изменений
+     * @param meterRegistry         реестр метрик
+     */
+    public WriteBehindChatStateRepository(ChatStateRepository delegate, long maximumSize, Duration flushInterval,
+                                          TransactionOperations transactionOperations,
+                                          ScheduledExecutorService executorService,
+                                          MeterRegistry meterRegistry) {
+        super(delegate, WriteBehindChatStateRepository::copy, ChatState::markPersisted, maximumSize,
+                flushInterval, transactionOperations, executorService, "chat_state", meterRegistry);
+    }
+
+    /**
+     * Копирует состояние чата
+     *
+     * @param chatState состояние чата
+     * @return копия состояния чата
+     */
+    private static ChatState copy(ChatState chatState) {
+        ChatState copy = new ChatState();
+        copy.setChatId(chatState.getChatId());
+        copy.setBotState(chatState.getBotState());
+        return copy;
+    }
+
+}
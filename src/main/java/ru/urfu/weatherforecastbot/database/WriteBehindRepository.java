@@ -0,0 +1,354 @@
+package ru.urfu.weatherforecastbot.database;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Persistable;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * Репозиторий с отложенной записью.
+ * <p>Чтение выполняется из памяти, а сохраненные сущности накапливаются и записываются в
+ * {@link CrudRepository другой репозиторий} одним пакетом раз в интервал сброса и при остановке приложения. Таким
+ * образом, при аварийном завершении могут быть потеряны изменения не более чем за один интервал сброса. Удаление
+ * выполняется сразу. Репозиторий хранит копии сущностей, поэтому изменение полученной сущности без сохранения не
+ * влияет на хранимые данные</p>
+ * <p>Репозиторий отслеживает, записана ли сущность в базу данных: новые сущности записываются без предварительного
+ * чтения, а уже записанные загружаются перед записью одним запросом, поэтому сброс выполняет постоянное количество
+ * обращений к базе данных независимо от количества сущностей</p>
+ *
+ * @param <T> тип сущности
+ */
+public abstract class WriteBehindRepository<T extends Persistable<Long>> implements CrudRepository<T, Long> {
+
+    /**
+     * Репозиторий, в который записываются изменения
+     */
+    private final CrudRepository<T, Long> delegate;
+    /**
+     * Функция копирования сущности
+     */
+    private final UnaryOperator<T> copier;
+    /**
+     * Функция, отмечающая сущность как записанную в базу данных
+     */
+    private final Consumer<T> persistedMarker;
+    /**
+     * Операции в транзакции, в которой выполняется сброс
+     */
+    private final TransactionOperations transactionOperations;
+    /**
+     * ExecutorService, по расписанию выполняющий сброс
+     */
+    private final ScheduledExecutorService executorService;
+    /**
+     * Прочитанные и сохраненные сущности по ID (пустое значение - сущности нет в базе данных)
+     */
+    private final Cache<Long, Optional<T>> cache;
+    /**
+     * Сохраненные, но еще не записанные сущности по ID
+     */
+    private final Map<Long, T> dirtyEntities = new ConcurrentHashMap<>();
+    /**
+     * Блокировка, упорядочивающая сброс и удаление, чтобы сброс не восстановил удаленную сущность
+     */
+    private final Object flushLock = new Object();
+    /**
+     * Количество сбросов
+     */
+    private final LongAdder flushesCount = new LongAdder();
+    /**
+     * Количество записанных сущностей
+     */
+    private final LongAdder flushedEntitiesCount = new LongAdder();
+    /**
+     * Длительность последнего сброса в наносекундах
+     */
+    private final AtomicLong lastFlushDurationNanos = new AtomicLong();
+    /**
+     * Наибольшая длительность сброса в наносекундах
+     */
+    private final AtomicLong maxFlushDurationNanos = new AtomicLong();
+    /**
+     * Таймер сбросов
+     */
+    private final Timer flushTimer;
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(getClass());
+
+    /**
+     * Создает экземпляр WriteBehindRepository, используя переданные аргументы, и планирует периодический сброс
+     *
+     * @param delegate              репозиторий, в который записываются изменения
+     * @param copier                функция копирования сущности (копия считается новой сущностью)
+     * @param persistedMarker       функция, отмечающая сущность как записанную в базу данных
+     * @param maximumSize           максимальное количество сущностей в памяти (не считая еще не записанных)
+     * @param flushInterval         интервал сброса изменений
+     * @param transactionOperations операции в транзакции, в которой выполняется сброс
+     * @param executorService       ExecutorService для планирования сброса (завершается при остановке репозитория)
+     * @param name                  название репозитория в метриках
+     * @param meterRegistry         реестр метрик
+     */
+    protected WriteBehindRepository(CrudRepository<T, Long> delegate, UnaryOperator<T> copier,
+                                    Consumer<T> persistedMarker, long maximumSize, Duration flushInterval,
+                                    TransactionOperations transactionOperations,
+                                    ScheduledExecutorService executorService, String name,
+                                    MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.copier = copier;
+        this.persistedMarker = persistedMarker;
+        this.transactionOperations = transactionOperations;
+        this.executorService = executorService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+        flushTimer = Timer.builder("chat.cache.flush")
+                .description("Time to write accumulated changes to the database")
+                .tag("repository", name)
+                .register(meterRegistry);
+        FunctionCounter.builder("chat.cache.flushed", flushedEntitiesCount, LongAdder::sum)
+                .description("Entities written to the database")
+                .tag("repository", name)
+                .register(meterRegistry);
+        Gauge.builder("chat.cache.dirty", this, WriteBehindRepository::getDirtyEntitiesCount)
+                .description("Saved entities not yet written to the database")
+                .tag("repository", name)
+                .register(meterRegistry);
+        long flushIntervalNanos = flushInterval.toNanos();
+        executorService.scheduleWithFixedDelay(this::flushWithLogging, flushIntervalNanos, flushIntervalNanos,
+                TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <S extends T> S save(S entity) {
+        T copy = copier.apply(entity);
+        Long id = copy.getId();
+        dirtyEntities.compute(id, (key, dirtyEntity) -> {
+            if (isPersisted(id, dirtyEntity)) {
+                persistedMarker.accept(copy);
+            }
+            return copy;
+        });
+        cache.put(id, Optional.of(copy));
+        return entity;
+    }
+
+    @Override
+    public <S extends T> Iterable<S> saveAll(Iterable<S> entities) {
+        for (S entity : entities) {
+            save(entity);
+        }
+        return entities;
+    }
+
+    @Override
+    public Optional<T> findById(Long id) {
+        T dirtyEntity = dirtyEntities.get(id);
+        if (dirtyEntity != null) {
+            return Optional.of(copier.apply(dirtyEntity));
+        }
+        return cache.get(id, delegate::findById).map(copier);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return findById(id).isPresent();
+    }
+
+    @Override
+    public Iterable<T> findAll() {
+        flush();
+        return delegate.findAll();
+    }
+
+    @Override
+    public Iterable<T> findAllById(Iterable<Long> ids) {
+        List<T> entities = new ArrayList<>();
+        for (Long id : ids) {
+            findById(id).ifPresent(entities::add);
+        }
+        return entities;
+    }
+
+    @Override
+    public long count() {
+        flush();
+        return delegate.count();
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        synchronized (flushLock) {
+            dirtyEntities.remove(id);
+            cache.put(id, Optional.empty());
+            delegate.deleteById(id);
+        }
+    }
+
+    @Override
+    public void delete(T entity) {
+        deleteById(entity.getId());
+    }
+
+    @Override
+    public void deleteAllById(Iterable<? extends Long> ids) {
+        for (Long id : ids) {
+            deleteById(id);
+        }
+    }
+
+    @Override
+    public void deleteAll(Iterable<? extends T> entities) {
+        for (T entity : entities) {
+            delete(entity);
+        }
+    }
+
+    @Override
+    public void deleteAll() {
+        synchronized (flushLock) {
+            dirtyEntities.clear();
+            cache.invalidateAll();
+            delegate.deleteAll();
+        }
+    }
+
+    /**
+     * Останавливает периодический сброс и записывает оставшиеся изменения
+     */
+    @PreDestroy
+    public void shutdown() {
+        executorService.shutdown();
+        flush();
+    }
+
+    /**
+     * Записывает накопленные изменения одним пакетом
+     */
+    public void flush() {
+        synchronized (flushLock) {
+            if (dirtyEntities.isEmpty()) {
+                return;
+            }
+            long start = System.nanoTime();
+            Map<Long, T> snapshot = new HashMap<>(dirtyEntities);
+            List<Long> persistedIds = snapshot.values().stream()
+                    .filter(entity -> !entity.isNew())
+                    .map(Persistable::getId)
+                    .toList();
+            transactionOperations.executeWithoutResult(status -> {
+                if (!persistedIds.isEmpty()) {
+                    // Загруженные сущности обновляются без чтения каждой сущности отдельно
+                    delegate.findAllById(persistedIds);
+                }
+                delegate.saveAll(snapshot.values());
+            });
+            snapshot.forEach((id, entity) -> dirtyEntities.computeIfPresent(id, (key, current) -> {
+                if (current == entity) {
+                    return null;
+                }
+                // Сущность сохранена повторно во время сброса и уже есть в базе данных
+                persistedMarker.accept(current);
+                return current;
+            }));
+            long duration = System.nanoTime() - start;
+            flushTimer.record(duration, TimeUnit.NANOSECONDS);
+            flushesCount.increment();
+            flushedEntitiesCount.add(snapshot.size());
+            lastFlushDurationNanos.set(duration);
+            maxFlushDurationNanos.accumulateAndGet(duration, Math::max);
+        }
+    }
+
+    /**
+     * Возвращает количество сохраненных, но еще не записанных сущностей
+     *
+     * @return количество не записанных сущностей
+     */
+    public int getDirtyEntitiesCount() {
+        return dirtyEntities.size();
+    }
+
+    /**
+     * Возвращает количество сбросов
+     *
+     * @return количество сбросов
+     */
+    public long getFlushesCount() {
+        return flushesCount.sum();
+    }
+
+    /**
+     * Возвращает количество записанных сущностей
+     *
+     * @return количество записанных сущностей
+     */
+    public long getFlushedEntitiesCount() {
+        return flushedEntitiesCount.sum();
+    }
+
+    /**
+     * Возвращает длительность последнего сброса
+     *
+     * @return длительность последнего сброса
+     */
+    public Duration getLastFlushDuration() {
+        return Duration.ofNanos(lastFlushDurationNanos.get());
+    }
+
+    /**
+     * Возвращает наибольшую длительность сброса
+     *
+     * @return наибольшая длительность сброса
+     */
+    public Duration getMaxFlushDuration() {
+        return Duration.ofNanos(maxFlushDurationNanos.get());
+    }
+
+    /**
+     * Возвращает, записана ли сущность с указанным ID в базу данных. Если это неизвестно (сущность вытеснена из
+     * памяти), сущность считается записанной: такая сущность будет прочитана перед записью
+     *
+     * @param id          ID сущности
+     * @param dirtyEntity еще не записанная сущность с этим ID или {@code null}
+     * @return записана ли сущность в базу данных
+     */
+    private boolean isPersisted(Long id, T dirtyEntity) {
+        if (dirtyEntity != null) {
+            return !dirtyEntity.isNew();
+        }
+        Optional<T> cachedEntity = cache.getIfPresent(id);
+        return cachedEntity == null || cachedEntity.map(entity -> !entity.isNew()).orElse(false);
+    }
+
+    /**
+     * Записывает накопленные изменения, логируя ошибку. Не записанные сущности будут записаны при следующем сбросе
+     */
+    private void flushWithLogging() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.error("Failed to flush %d entities".formatted(dirtyEntities.size()), e);
+        }
+    }
+
+}
@@ -1,9 +1,7 @@
 package ru.urfu.weatherforecastbot.model;
 
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.Id;
-import jakarta.persistence.Table;
+import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 
 import java.util.Objects;
 
@@ -12,7 +10,7 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "chat_context")
-public class ChatContext {
+public class ChatContext implements Persistable<Long> {
 
     /**
      * ID чата
@@ -33,6 +31,12 @@ public class ChatContext {
     @Column(name = "reminder_position")
     private Integer reminderPosition;
 
+    /**
+     * Записан ли контекст в базу данных (не хранится)
+     */
+    @Transient
+    private boolean persisted;
+
     /**
      * Возвращает ID чата
      *
@@ -87,6 +91,31 @@ public class ChatContext {
         this.reminderPosition = reminderPosition;
     }
 
+    @Override
+    public Long getId() {
+        return chatId;
+    }
+
+    /**
+     * Возвращает, является ли контекст новым, т.е. еще не записанным в базу данных. Позволяет записывать новые
+     * сущности без предварительного чтения из базы данных
+     *
+     * @return является ли контекст новым
+     */
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    /**
+     * Отмечает контекст как записанный в базу данных. Вызывается после чтения и записи сущности
+     */
+    @PostLoad
+    @PostPersist
+    public void markPersisted() {
+        persisted = true;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
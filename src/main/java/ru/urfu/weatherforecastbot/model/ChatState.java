@@ -1,6 +1,7 @@
 package ru.urfu.weatherforecastbot.model;
 
 import jakarta.persistence.*;
+import org.springframework.data.domain.Persistable;
 import ru.urfu.weatherforecastbot.bot.state.BotState;
 
 import java.util.Objects;
@@ -10,7 +11,7 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "chat_state")
-public class ChatState {
+public class ChatState implements Persistable<Long> {
 
     /**
      * ID чата
@@ -25,6 +26,12 @@ public class ChatState {
     @Enumerated
     private BotState botState;
 
+    /**
+     * Записано ли состояние в базу данных (не хранится)
+     */
+    @Transient
+    private boolean persisted;
+
     /**
      * Возвращает ID чата
      *
@@ -61,6 +68,31 @@ public class ChatState {
         this.botState = botState;
     }
 
+    @Override
+    public Long getId() {
+        return chatId;
+    }
+
+    /**
+     * Возвращает, является ли состояние новым, т.е. еще не записанным в базу данных. Позволяет записывать новые
+     * сущности без предварительного чтения из базы данных
+     *
+     * @return является ли состояние новым
+     */
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    /**
+     * Отмечает состояние как записанное в базу данных. Вызывается после чтения и записи сущности
+     */
+    @PostLoad
+    @PostPersist
+    public void markPersisted() {
+        persisted = true;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
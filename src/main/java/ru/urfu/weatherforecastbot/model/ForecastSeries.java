@@ -0,0 +1,295 @@
+package ru.urfu.weatherforecastbot.model;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ряд прогнозов погоды для одного места с постоянным шагом по времени.
+ * <p>Значения хранятся по столбцам в массивах примитивов, а время каждого прогноза вычисляется из времени начала и
+ * шага, поэтому прогноз на неделю по часам занимает несколько массивов вместо сотен объектов. Срезы и замена места
+ * не копируют массивы, а ссылаются на массивы исходного ряда. Массивы, переданные в конструктор, не должны
+ * изменяться после создания ряда</p>
+ * <p>Каждый созданный конструктором ряд получает новую {@link ForecastSeries#version() версию данных}, которую
+ * сохраняют его срезы, поэтому по версии можно отличить обновленный прогноз от прежнего, не сравнивая значения</p>
+ */
+public final class ForecastSeries {
+
+    /**
+     * Пустой ряд (место не найдено)
+     */
+    private static final ForecastSeries EMPTY =
+            new ForecastSeries(null, null, Duration.ofHours(1), new double[0], new double[0], 0, 0, 0);
+    /**
+     * Счетчик версий данных
+     */
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    /**
+     * Версия данных
+     */
+    private final long version;
+    /**
+     * Место прогноза
+     */
+    private final Place place;
+    /**
+     * Дата и время первого прогноза (по местному часовому поясу)
+     */
+    private final LocalDateTime start;
+    /**
+     * Шаг между прогнозами
+     */
+    private final Duration step;
+    /**
+     * Температура (в градусах Цельсия)
+     */
+    private final double[] temperatures;
+    /**
+     * Температура по ощущению (в градусах Цельсия)
+     */
+    private final double[] feelsLikeTemperatures;
+    /**
+     * Индекс первого прогноза ряда в массивах значений
+     */
+    private final int offset;
+    /**
+     * Количество прогнозов в ряду
+     */
+    private final int size;
+
+    /**
+     * Создает ряд прогнозов погоды
+     *
+     * @param place                 место прогноза
+     * @param start                 дата и время первого прогноза (по местному часовому поясу)
+     * @param step                  шаг между прогнозами
+     * @param temperatures          температура (в градусах Цельсия)
+     * @param feelsLikeTemperatures температура по ощущению (в градусах Цельсия)
+     * @throws IllegalArgumentException если шаг не положителен или массивы значений разной длины
+     */
+    public ForecastSeries(Place place, LocalDateTime start, Duration step, double[] temperatures,
+                          double[] feelsLikeTemperatures) throws IllegalArgumentException {
+        this(Objects.requireNonNull(place), Objects.requireNonNull(start), step, temperatures, feelsLikeTemperatures,
+                0, temperatures.length, VERSIONS.incrementAndGet());
+        if (step.isNegative() || step.isZero()) {
+            throw new IllegalArgumentException("Step must be positive: " + step);
+        }
+        if (temperatures.length != feelsLikeTemperatures.length) {
+            throw new IllegalArgumentException("Series have different lengths!");
+        }
+    }
+
+    /**
+     * Создает ряд, ссылающийся на часть массивов значений
+     *
+     * @param place                 место прогноза
+     * @param start                 дата и время первого прогноза
+     * @param step                  шаг между прогнозами
+     * @param temperatures          температура
+     * @param feelsLikeTemperatures температура по ощущению
+     * @param offset                индекс первого прогноза в массивах значений
+     * @param size                  количество прогнозов
+     * @param version               версия данных
+     */
+    private ForecastSeries(Place place, LocalDateTime start, Duration step, double[] temperatures,
+                           double[] feelsLikeTemperatures, int offset, int size, long version) {
+        this.place = place;
+        this.start = start;
+        this.step = step;
+        this.temperatures = temperatures;
+        this.feelsLikeTemperatures = feelsLikeTemperatures;
+        this.offset = offset;
+        this.size = size;
+        this.version = version;
+    }
+
+    /**
+     * Возвращает пустой ряд, означающий, что место не найдено
+     *
+     * @return пустой ряд
+     */
+    public static ForecastSeries empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Возвращает место прогноза
+     *
+     * @return место прогноза или null для пустого ряда
+     */
+    public Place place() {
+        return place;
+    }
+
+    /**
+     * Возвращает дату и время первого прогноза (по местному часовому поясу)
+     *
+     * @return дата и время первого прогноза или null для пустого ряда
+     */
+    public LocalDateTime start() {
+        return start;
+    }
+
+    /**
+     * Возвращает шаг между прогнозами
+     *
+     * @return шаг между прогнозами
+     */
+    public Duration step() {
+        return step;
+    }
+
+    /**
+     * Возвращает версию данных ряда. Версия уникальна для каждого ряда, созданного конструктором, и сохраняется в
+     * его срезах и рядах с замененным местом
+     *
+     * @return версия данных (0 для пустого ряда)
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Возвращает количество прогнозов в ряду
+     *
+     * @return количество прогнозов
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Проверяет, пуст ли ряд
+     *
+     * @return true, если в ряду нет прогнозов
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Возвращает дату и время прогноза (по местному часовому поясу)
+     *
+     * @param index индекс прогноза
+     * @return дата и время прогноза
+     * @throws IndexOutOfBoundsException если индекс вне ряда
+     */
+    public LocalDateTime getDateTime(int index) throws IndexOutOfBoundsException {
+        Objects.checkIndex(index, size);
+        return start.plus(step.multipliedBy(index));
+    }
+
+    /**
+     * Возвращает температуру
+     *
+     * @param index индекс прогноза
+     * @return температура (в градусах Цельсия)
+     * @throws IndexOutOfBoundsException если индекс вне ряда
+     */
+    public double getTemperature(int index) throws IndexOutOfBoundsException {
+        return temperatures[offset + Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Возвращает температуру по ощущению
+     *
+     * @param index индекс прогноза
+     * @return температура по ощущению (в градусах Цельсия)
+     * @throws IndexOutOfBoundsException если индекс вне ряда
+     */
+    public double getFeelsLikeTemperature(int index) throws IndexOutOfBoundsException {
+        return feelsLikeTemperatures[offset + Objects.checkIndex(index, size)];
+    }
+
+    /**
+     * Возвращает индекс первого прогноза, отстоящего от начала ряда не меньше чем на указанное время. Удобен для
+     * получения границ срезов, например, прогноза на второй день ряда
+     *
+     * @param sinceStart время от начала ряда
+     * @return индекс прогноза или размер ряда, если такого прогноза в ряду нет
+     */
+    public int indexAt(Duration sinceStart) {
+        if (sinceStart.isNegative() || sinceStart.isZero()) {
+            return 0;
+        }
+        long stepNanos = step.toNanos();
+        long index = (sinceStart.toNanos() + stepNanos - 1) / stepNanos;
+        return (int) Math.min(index, size);
+    }
+
+    /**
+     * Возвращает срез ряда без копирования значений
+     *
+     * @param fromIndex индекс первого прогноза среза (включительно)
+     * @param toIndex   индекс конца среза (не включительно)
+     * @return срез ряда
+     * @throws IndexOutOfBoundsException если границы среза вне ряда
+     */
+    public ForecastSeries slice(int fromIndex, int toIndex) throws IndexOutOfBoundsException {
+        Objects.checkFromToIndex(fromIndex, toIndex, size);
+        if (fromIndex == 0 && toIndex == size) {
+            return this;
+        }
+        LocalDateTime sliceStart = start == null ? null : start.plus(step.multipliedBy(fromIndex));
+        return new ForecastSeries(place, sliceStart, step, temperatures, feelsLikeTemperatures, offset + fromIndex,
+                toIndex - fromIndex, version);
+    }
+
+    /**
+     * Возвращает тот же ряд для другого места без копирования значений
+     *
+     * @param place место прогноза
+     * @return ряд с указанным местом
+     */
+    public ForecastSeries withPlace(Place place) {
+        if (isEmpty() || Objects.equals(this.place, place)) {
+            return this;
+        }
+        return new ForecastSeries(place, start, step, temperatures, feelsLikeTemperatures, offset, size, version);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ForecastSeries other) || size != other.size || !Objects.equals(place, other.place)) {
+            return false;
+        }
+        if (size == 0) {
+            return true;
+        }
+        if (!start.equals(other.start) || !step.equals(other.step)) {
+            return false;
+        }
+        for (int i = 0; i < size; i++) {
+            if (Double.compare(getTemperature(i), other.getTemperature(i)) != 0
+                    || Double.compare(getFeelsLikeTemperature(i), other.getFeelsLikeTemperature(i)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(place, size);
+        if (size == 0) {
+            return result;
+        }
+        result = 31 * result + start.hashCode();
+        result = 31 * result + step.hashCode();
+        for (int i = 0; i < size; i++) {
+            result = 31 * result + Double.hashCode(getTemperature(i));
+            result = 31 * result + Double.hashCode(getFeelsLikeTemperature(i));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "ForecastSeries[place=%s, start=%s, step=%s, size=%d]".formatted(place, start, step, size);
+    }
+
+}
@@ -0,0 +1,144 @@
+package ru.urfu.weatherforecastbot.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.Place;
+import ru.urfu.weatherforecastbot.util.PlaceNameNormalizer;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Кэширующий сервис для поиска мест.
+ * <p>Хранит результаты поиска {@link GeocodingService другого сервиса} по нормализованному названию места.
+ * Одновременные запросы одного и того же места ожидают одну загрузку. Размер кэша ограничен, вытеснение
+ * происходит по алгоритму W-TinyLFU. Найденные места хранятся долго, так как координаты городов практически не
+ * меняются, а ненайденные - недолго, чтобы опечатки не занимали кэш</p>
+ */
+@Service
+@Primary
+public class CachingGeocodingService implements GeocodingService {
+
+    /**
+     * Сервис, к которому выполняются запросы при промахе кэша
+     */
+    private final GeocodingService delegate;
+    /**
+     * Кэш мест по нормализованному названию
+     */
+    private final AsyncCache<String, Optional<Place>> cache;
+
+    /**
+     * Создает экземпляр CachingGeocodingService, используя в качестве источника данных
+     * {@link GazetteerGeocodingService}
+     *
+     * @param delegate      сервис для поиска мест по локальному справочнику и через API
+     * @param maximumSize   максимальное количество мест в кэше
+     * @param ttl           время хранения найденного места
+     * @param negativeTtl   время хранения результата "место не найдено"
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public CachingGeocodingService(GazetteerGeocodingService delegate,
+                                   @Value("${geocoding.cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${geocoding.cache.ttl:7d}") Duration ttl,
+                                   @Value("${geocoding.cache.negative-ttl:10m}") Duration negativeTtl,
+                                   MeterRegistry meterRegistry) {
+        this(delegate, maximumSize, ttl, negativeTtl, Ticker.systemTicker(), meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр CachingGeocodingService, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param delegate    сервис для поиска мест
+     * @param maximumSize максимальное количество мест в кэше
+     * @param ttl         время хранения найденного места
+     * @param negativeTtl время хранения результата "место не найдено"
+     * @param ticker      источник времени для кэша
+     */
+    public CachingGeocodingService(GeocodingService delegate, long maximumSize, Duration ttl, Duration negativeTtl,
+                                   Ticker ticker) {
+        this(delegate, maximumSize, ttl, negativeTtl, ticker, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр CachingGeocodingService, используя переданные аргументы
+     *
+     * @param delegate      сервис для поиска мест
+     * @param maximumSize   максимальное количество мест в кэше
+     * @param ttl           время хранения найденного места
+     * @param negativeTtl   время хранения результата "место не найдено"
+     * @param ticker        источник времени для кэша
+     * @param meterRegistry реестр метрик
+     */
+    public CachingGeocodingService(GeocodingService delegate, long maximumSize, Duration ttl, Duration negativeTtl,
+                                   Ticker ticker, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new PlaceExpiry(ttl.toNanos(), negativeTtl.toNanos()))
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "geocoding");
+    }
+
+    @Override
+    public Mono<Place> findPlaceByNameAsync(String name) {
+        String key = PlaceNameNormalizer.normalize(name);
+        return Mono.deferContextual(contextView -> Mono.fromFuture(() -> cache.get(key,
+                        (placeKey, executor) -> delegate.findPlaceByNameAsync(name)
+                                .map(Optional::of)
+                                .defaultIfEmpty(Optional.empty())
+                                .contextWrite(contextView)
+                                .toFuture()), true))
+                .flatMap(Mono::justOrEmpty);
+    }
+
+    /**
+     * Возвращает статистику кэша (количество попаданий, промахов и вытеснений)
+     *
+     * @return статистика кэша
+     */
+    public CacheStats getStats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Политика времени жизни записей: отдельные сроки для найденных и ненайденных мест
+     *
+     * @param ttlNanos         время хранения найденного места в наносекундах
+     * @param negativeTtlNanos время хранения ненайденного места в наносекундах
+     */
+    private record PlaceExpiry(long ttlNanos, long negativeTtlNanos) implements Expiry<String, Optional<Place>> {
+
+        @Override
+        public long expireAfterCreate(String key, Optional<Place> value, long currentTime) {
+            return value.isPresent() ? ttlNanos : negativeTtlNanos;
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Optional<Place> value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Optional<Place> value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
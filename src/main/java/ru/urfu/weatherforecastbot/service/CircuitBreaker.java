@@ -0,0 +1,149 @@
+package ru.urfu.weatherforecastbot.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+
+import java.time.Duration;
+
+/**
+ * Автоматический выключатель для вызовов внешнего сервера.
+ * <p>Пока выключатель закрыт, вызовы разрешены. После заданного количества неудачных вызовов подряд выключатель
+ * размыкается, и вызовы отклоняются без обращения к серверу. По истечении времени размыкания выключатель переходит
+ * в полуоткрытое состояние и пропускает один пробный вызов: при его успехе выключатель замыкается, при неудаче -
+ * снова размыкается</p>
+ */
+public class CircuitBreaker {
+
+    /**
+     * Количество неудачных вызовов подряд, после которого выключатель размыкается
+     */
+    private final int failureThreshold;
+    /**
+     * Время, в течение которого разомкнутый выключатель отклоняет вызовы (в наносекундах)
+     */
+    private final long openDurationNanos;
+    /**
+     * Источник времени
+     */
+    private final Ticker ticker;
+    /**
+     * Состояние выключателя
+     */
+    private State state = State.CLOSED;
+    /**
+     * Количество неудачных вызовов подряд
+     */
+    private int consecutiveFailures;
+    /**
+     * Момент размыкания (в наносекундах по {@link CircuitBreaker#ticker})
+     */
+    private long openedAt;
+    /**
+     * Выполняется ли пробный вызов в полуоткрытом состоянии
+     */
+    private boolean trialCallInProgress;
+
+    /**
+     * Создает экземпляр CircuitBreaker, используя системный источник времени
+     *
+     * @param failureThreshold количество неудачных вызовов подряд, после которого выключатель размыкается
+     * @param openDuration     время, в течение которого разомкнутый выключатель отклоняет вызовы
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, Ticker.systemTicker());
+    }
+
+    /**
+     * Создает экземпляр CircuitBreaker, используя переданные аргументы
+     *
+     * @param failureThreshold количество неудачных вызовов подряд, после которого выключатель размыкается
+     * @param openDuration     время, в течение которого разомкнутый выключатель отклоняет вызовы
+     * @param ticker           источник времени
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Ticker ticker) {
+        this.failureThreshold = failureThreshold;
+        this.openDurationNanos = openDuration.toNanos();
+        this.ticker = ticker;
+    }
+
+    /**
+     * Запрашивает разрешение на вызов. Каждый разрешенный вызов должен завершиться вызовом
+     * {@link CircuitBreaker#onSuccess()}, {@link CircuitBreaker#onFailure()} или {@link CircuitBreaker#onIgnored()}
+     *
+     * @return true, если вызов разрешен
+     */
+    public synchronized boolean tryAcquirePermission() {
+        if (state == State.OPEN) {
+            if (ticker.read() - openedAt < openDurationNanos) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+            trialCallInProgress = false;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialCallInProgress) {
+                return false;
+            }
+            trialCallInProgress = true;
+        }
+        return true;
+    }
+
+    /**
+     * Регистрирует успешный вызов
+     */
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialCallInProgress = false;
+    }
+
+    /**
+     * Регистрирует неудачный вызов
+     */
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = ticker.read();
+            trialCallInProgress = false;
+        }
+    }
+
+    /**
+     * Регистрирует вызов, результат которого не учитывается (например, отмененный)
+     */
+    public synchronized void onIgnored() {
+        trialCallInProgress = false;
+    }
+
+    /**
+     * Возвращает состояние выключателя
+     *
+     * @return состояние выключателя
+     */
+    public synchronized State getState() {
+        if (state == State.OPEN && ticker.read() - openedAt >= openDurationNanos) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Состояние выключателя
+     */
+    public enum State {
+        /**
+         * Замкнут, вызовы разрешены
+         */
+        CLOSED,
+        /**
+         * Разомкнут, вызовы отклоняются
+         */
+        OPEN,
+        /**
+         * Полуоткрыт, разрешен один пробный вызов
+         */
+        HALF_OPEN
+    }
+
+}
@@ -0,0 +1,227 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.util.PlaceNameNormalizer;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сервис для получения прогнозов погоды, объединяющий одновременные одинаковые запросы.
+ * <p>Если несколько потоков одновременно запрашивают прогноз для одного и того же места (с точностью до
+ * нормализации названия) на одно и то же число дней, к {@link WeatherForecastService другому сервису} обращается
+ * только первый из них, а остальные подписываются на его результат. Запрос выполняется в контексте Reactor первого
+ * потока, поэтому его наблюдения попадают в трассировку этого потока. Отмена подписки одним из ожидающих не
+ * отменяет запрос для остальных</p>
+ * <p>Пакетный запрос объединяется с другими запросами по каждому месту отдельно: места, прогноз для которых уже
+ * запрашивается, ожидают этих запросов, а остальные запрашиваются одним пакетом и сами становятся выполняющимися
+ * запросами, к которым могут присоединиться одиночные и пакетные запросы</p>
+ */
+@Service
+@Primary
+public class CoalescingWeatherForecastService implements WeatherForecastService {
+
+    /**
+     * Сервис, к которому выполняются запросы
+     */
+    private final WeatherForecastService delegate;
+    /**
+     * Выполняющиеся в данный момент запросы
+     */
+    private final Map<RequestKey, CompletableFuture<ForecastSeries>> inFlightRequests =
+            new ConcurrentHashMap<>();
+    /**
+     * Общее количество запросов
+     */
+    private final LongAdder requestsCount = new LongAdder();
+    /**
+     * Количество запросов, присоединившихся к уже выполняющемуся запросу
+     */
+    private final LongAdder collapsedRequestsCount = new LongAdder();
+
+    /**
+     * Создает экземпляр CoalescingWeatherForecastService, используя в качестве источника данных
+     * {@link ResilientWeatherForecastService}
+     *
+     * @param delegate      сервис для получения прогнозов погоды через API с тайм-аутами и повторами
+     * @param meterRegistry реестр метрик
+     */
+    @Autowired
+    public CoalescingWeatherForecastService(ResilientWeatherForecastService delegate, MeterRegistry meterRegistry) {
+        this((WeatherForecastService) delegate, meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр CoalescingWeatherForecastService, используя переданный сервис и глобальный реестр метрик
+     *
+     * @param delegate сервис для получения прогнозов погоды
+     */
+    public CoalescingWeatherForecastService(WeatherForecastService delegate) {
+        this(delegate, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр CoalescingWeatherForecastService, используя переданные аргументы
+     *
+     * @param delegate      сервис для получения прогнозов погоды
+     * @param meterRegistry реестр метрик
+     */
+    public CoalescingWeatherForecastService(WeatherForecastService delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        FunctionCounter.builder("forecast.requests", requestsCount, LongAdder::sum)
+                .description("Forecast requests, including collapsed ones")
+                .register(meterRegistry);
+        FunctionCounter.builder("forecast.requests.collapsed", collapsedRequestsCount, LongAdder::sum)
+                .description("Forecast requests that joined an identical in-flight request")
+                .register(meterRegistry);
+        Gauge.builder("forecast.requests.inflight", this, CoalescingWeatherForecastService::getInFlightRequestsCount)
+                .description("Distinct forecast requests currently in flight")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<ForecastSeries> getForecastAsync(String placeName, int daysCount) {
+        return Mono.deferContextual(contextView -> {
+            requestsCount.increment();
+            RequestKey key = new RequestKey(PlaceNameNormalizer.normalize(placeName), daysCount);
+            CompletableFuture<ForecastSeries> request = new CompletableFuture<>();
+            CompletableFuture<ForecastSeries> inFlightRequest = inFlightRequests.putIfAbsent(key, request);
+            if (inFlightRequest != null) {
+                collapsedRequestsCount.increment();
+                return Mono.fromFuture(inFlightRequest, true);
+            }
+            Mono.defer(() -> delegate.getForecastAsync(placeName, daysCount))
+                    .doFinally(signal -> inFlightRequests.remove(key, request))
+                    .contextWrite(contextView)
+                    .subscribe(request::complete, request::completeExceptionally, () -> request.complete(null));
+            return Mono.fromFuture(request, true);
+        });
+    }
+
+    @Override
+    public Mono<Map<String, ForecastSeries>> getForecastsAsync(Collection<String> placeNames, int daysCount) {
+        return Mono.deferContextual(contextView -> {
+            Map<String, CompletableFuture<ForecastSeries>> requests = new LinkedHashMap<>();
+            Map<RequestKey, CompletableFuture<ForecastSeries>> requestsByKey = new HashMap<>();
+            Map<String, RequestKey> ownPlaceNames = new LinkedHashMap<>();
+            for (String placeName : placeNames) {
+                if (requests.containsKey(placeName)) {
+                    continue;
+                }
+                requestsCount.increment();
+                RequestKey key = new RequestKey(PlaceNameNormalizer.normalize(placeName), daysCount);
+                CompletableFuture<ForecastSeries> request = requestsByKey.get(key);
+                if (request == null) {
+                    CompletableFuture<ForecastSeries> ownRequest = new CompletableFuture<>();
+                    request = inFlightRequests.putIfAbsent(key, ownRequest);
+                    if (request == null) {
+                        request = ownRequest;
+                        ownPlaceNames.put(placeName, key);
+                    } else {
+                        collapsedRequestsCount.increment();
+                    }
+                    requestsByKey.put(key, request);
+                } else {
+                    collapsedRequestsCount.increment();
+                }
+                requests.put(placeName, request);
+            }
+            if (!ownPlaceNames.isEmpty()) {
+                Mono.defer(() -> delegate.getForecastsAsync(List.copyOf(ownPlaceNames.keySet()), daysCount))
+                        .contextWrite(contextView)
+                        .subscribe(forecasts -> ownPlaceNames.forEach((placeName, key) ->
+                                        complete(key, requestsByKey.get(key), forecasts.get(placeName), null)),
+                                e -> ownPlaceNames.forEach((placeName, key) ->
+                                        complete(key, requestsByKey.get(key), null, e)),
+                                () -> ownPlaceNames.forEach((placeName, key) ->
+                                        complete(key, requestsByKey.get(key), null, null)));
+            }
+            return Flux.fromIterable(requests.entrySet())
+                    .flatMapSequential(request -> Mono.fromFuture(request.getValue(), true)
+                            .map(series -> Map.entry(request.getKey(), series)))
+                    .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+        });
+    }
+
+    /**
+     * Прогнозы загружаются заранее без объединения: результата загрузки никто не ожидает, а повторная загрузка
+     * одного и того же места пропускается кэшем прогнозов
+     */
+    @Override
+    public Mono<Void> prefetchForecastsAsync(Collection<String> placeNames, Instant neededAt) {
+        return delegate.prefetchForecastsAsync(placeNames, neededAt);
+    }
+
+    /**
+     * Возвращает общее количество запросов
+     *
+     * @return общее количество запросов
+     */
+    public long getRequestsCount() {
+        return requestsCount.sum();
+    }
+
+    /**
+     * Возвращает количество запросов, которые не обращались к сервису, а получили результат уже выполнявшегося
+     * запроса
+     *
+     * @return количество объединенных запросов
+     */
+    public long getCollapsedRequestsCount() {
+        return collapsedRequestsCount.sum();
+    }
+
+    /**
+     * Возвращает количество выполняющихся в данный момент запросов
+     *
+     * @return количество выполняющихся запросов
+     */
+    public int getInFlightRequestsCount() {
+        return inFlightRequests.size();
+    }
+
+    /**
+     * Завершает выполняющийся запрос из пакета и удаляет его из выполняющихся. Если результат завершенного
+     * пакета не получен, запрос завершается пустым результатом или ошибкой пакета
+     *
+     * @param key     ключ запроса
+     * @param request запрос
+     * @param series  ряд прогнозов погоды или null, если он не получен
+     * @param error   ошибка пакета или null
+     */
+    private void complete(RequestKey key, CompletableFuture<ForecastSeries> request, ForecastSeries series,
+                          Throwable error) {
+        inFlightRequests.remove(key, request);
+        if (error != null) {
+            request.completeExceptionally(error);
+        } else {
+            request.complete(series);
+        }
+    }
+
+    /**
+     * Ключ запроса
+     *
+     * @param placeName нормализованное название места
+     * @param daysCount количество дней
+     */
+    private record RequestKey(String placeName, int daysCount) {
+    }
+
+}
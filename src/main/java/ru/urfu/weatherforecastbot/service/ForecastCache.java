@@ -0,0 +1,316 @@
+package ru.urfu.weatherforecastbot.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Кэш прогнозов погоды по координатам места.
+ * <p>Ключом служат округленные широта и долгота вместе с часовым поясом, поэтому разные названия одного и того же
+ * места используют одну запись. Запись живет до ближайшей границы обновления данных сервера прогнозов (начала
+ * интервала обновления, выровненного по эпохе) или до местной полуночи, если она наступает раньше: после полуночи
+ * прогноз "на сегодня" должен начинаться с нового дня</p>
+ */
+@Component
+public class ForecastCache {
+
+    /**
+     * Множитель для округления координат до сотых (примерно 1 км)
+     */
+    private static final double COORDINATE_SCALE = 100;
+    /**
+     * Часы
+     */
+    private final Clock clock;
+    /**
+     * Интервал обновления данных сервера прогнозов
+     */
+    private final Duration updateInterval;
+    /**
+     * Кэш прогнозов
+     */
+    private final AsyncCache<Key, Entry> cache;
+
+    /**
+     * Создает экземпляр ForecastCache, используя системные часы
+     *
+     * @param maximumSize    максимальное количество мест в кэше
+     * @param updateInterval интервал обновления данных сервера прогнозов
+     * @param meterRegistry  реестр метрик
+     */
+    @Autowired
+    public ForecastCache(@Value("${forecast.cache.maximum-size:10000}") long maximumSize,
+                         @Value("${forecast.cache.update-interval:1h}") Duration updateInterval,
+                         MeterRegistry meterRegistry) {
+        this(maximumSize, updateInterval, Clock.systemUTC(), Ticker.systemTicker(), meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр ForecastCache, используя системные часы и глобальный реестр метрик
+     *
+     * @param maximumSize    максимальное количество мест в кэше
+     * @param updateInterval интервал обновления данных сервера прогнозов
+     */
+    public ForecastCache(long maximumSize, Duration updateInterval) {
+        this(maximumSize, updateInterval, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр ForecastCache, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param maximumSize    максимальное количество мест в кэше
+     * @param updateInterval интервал обновления данных сервера прогнозов
+     * @param clock          часы для вычисления момента устаревания прогноза
+     * @param ticker         источник времени для кэша
+     */
+    public ForecastCache(long maximumSize, Duration updateInterval, Clock clock, Ticker ticker) {
+        this(maximumSize, updateInterval, clock, ticker, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр ForecastCache, используя переданные аргументы
+     *
+     * @param maximumSize    максимальное количество мест в кэше
+     * @param updateInterval интервал обновления данных сервера прогнозов
+     * @param clock          часы для вычисления момента устаревания прогноза
+     * @param ticker         источник времени для кэша
+     * @param meterRegistry  реестр метрик
+     */
+    public ForecastCache(long maximumSize, Duration updateInterval, Clock clock, Ticker ticker,
+                         MeterRegistry meterRegistry) {
+        this.clock = clock;
+        this.updateInterval = updateInterval;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry(clock))
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "forecast");
+    }
+
+    /**
+     * Возвращает прогнозы для места из кэша, а при их отсутствии загружает, используя переданную функцию.
+     * Одновременные запросы одного и того же места ожидают одну загрузку. Загрузка выполняется в контексте
+     * Reactor первого запроса, поэтому ее наблюдения становятся дочерними для его наблюдения
+     *
+     * @param place  место
+     * @param loader функция загрузки прогнозов для места
+     * @return Mono с рядом прогнозов погоды по часам
+     */
+    public Mono<ForecastSeries> get(Place place, Function<Place, Mono<ForecastSeries>> loader) {
+        return Mono.deferContextual(contextView -> Mono.fromFuture(() -> cache.get(Key.of(place),
+                        (key, executor) -> loader.apply(place)
+                                .map(series -> new Entry(series, expirationTime(place, clock.instant())))
+                                .contextWrite(contextView)
+                                .toFuture()), true))
+                .map(Entry::series);
+    }
+
+    /**
+     * Возвращает прогнозы для нескольких мест из кэша, а отсутствующие в кэше загружает одним вызовом переданной
+     * функции. Места, совпадающие по ключу кэша, загружаются один раз
+     *
+     * @param places места
+     * @param loader функция загрузки прогнозов, возвращающая ряды в порядке переданных ей мест
+     * @return Mono с рядами прогнозов погоды по местам
+     */
+    public Mono<Map<Place, ForecastSeries>> getAll(Collection<Place> places,
+                                                   Function<List<Place>, Mono<List<ForecastSeries>>> loader) {
+        return Mono.deferContextual(contextView -> Mono.fromFuture(() -> {
+            Map<Key, Place> placesByKey = new LinkedHashMap<>();
+            for (Place place : places) {
+                placesByKey.putIfAbsent(Key.of(place), place);
+            }
+            return cache.getAll(placesByKey.keySet(), (keys, executor) -> {
+                        List<Place> missingPlaces = keys.stream().map(placesByKey::get).toList();
+                        return loader.apply(missingPlaces)
+                                .map(seriesList -> {
+                                    Instant now = clock.instant();
+                                    Map<Key, Entry> entries = new HashMap<>();
+                                    for (int i = 0; i < missingPlaces.size(); i++) {
+                                        Place place = missingPlaces.get(i);
+                                        entries.put(Key.of(place),
+                                                new Entry(seriesList.get(i), expirationTime(place, now)));
+                                    }
+                                    return entries;
+                                })
+                                .contextWrite(contextView)
+                                .toFuture();
+                    })
+                    .thenApply(entries -> {
+                        Map<Place, ForecastSeries> forecasts = new LinkedHashMap<>();
+                        for (Place place : places) {
+                            forecasts.put(place, entries.get(Key.of(place)).series());
+                        }
+                        return forecasts;
+                    });
+        }, true));
+    }
+
+    /**
+     * Заранее загружает прогнозы для нескольких мест так, чтобы они были в кэше в указанный момент в будущем.
+     * Загруженная запись живет до ближайшей границы интервала обновления после этого момента, но не дольше местной
+     * полуночи, поэтому прогноз, загруженный незадолго до границы интервала, используется и после нее (отставание
+     * данных не превышает времени упреждения). Места, для которых в кэше уже есть запись, доживающая до этого
+     * момента, или для которых момент наступает после местной полуночи, не загружаются. Остальные места загружаются
+     * одним вызовом переданной функции
+     *
+     * @param places   места
+     * @param neededAt момент, в который прогнозы должны быть в кэше
+     * @param loader   функция загрузки прогнозов, возвращающая ряды в порядке переданных ей мест
+     * @return Mono, завершающийся после загрузки
+     */
+    public Mono<Void> prefetchAll(Collection<Place> places, Instant neededAt,
+                                  Function<List<Place>, Mono<List<ForecastSeries>>> loader) {
+        return Mono.deferContextual(contextView -> {
+            Instant now = clock.instant();
+            Map<Key, Place> missingPlaces = new LinkedHashMap<>();
+            Map<Key, Instant> expirationTimes = new HashMap<>();
+            for (Place place : places) {
+                Key key = Key.of(place);
+                if (missingPlaces.containsKey(key)) {
+                    continue;
+                }
+                Instant expiresAt = expirationTime(place, neededAt);
+                Instant nextMidnight = nextMidnight(place, now);
+                if (expiresAt.isAfter(nextMidnight)) {
+                    expiresAt = nextMidnight;
+                }
+                if (!expiresAt.isAfter(neededAt)) {
+                    continue;
+                }
+                CompletableFuture<Entry> cached = cache.getIfPresent(key);
+                if (cached != null && (!cached.isDone() || cached.isCompletedExceptionally()
+                        || cached.join().expiresAt().isAfter(neededAt))) {
+                    continue;
+                }
+                missingPlaces.put(key, place);
+                expirationTimes.put(key, expiresAt);
+            }
+            if (missingPlaces.isEmpty()) {
+                return Mono.empty();
+            }
+            CompletableFuture<List<ForecastSeries>> loading = loader.apply(List.copyOf(missingPlaces.values()))
+                    .contextWrite(contextView)
+                    .toFuture();
+            int index = 0;
+            for (Key key : missingPlaces.keySet()) {
+                int placeIndex = index++;
+                Instant expiresAt = expirationTimes.get(key);
+                cache.put(key, loading.thenApply(seriesList -> new Entry(seriesList.get(placeIndex), expiresAt)));
+            }
+            return Mono.fromFuture(loading, true).then();
+        });
+    }
+
+    /**
+     * Возвращает статистику кэша (количество попаданий, промахов и вытеснений)
+     *
+     * @return статистика кэша
+     */
+    public CacheStats getStats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Вычисляет момент устаревания прогноза для места: ближайшая граница интервала обновления данных или местная
+     * полночь, если она наступает раньше
+     *
+     * @param place место
+     * @param now   текущий момент
+     * @return момент устаревания прогноза
+     */
+    private Instant expirationTime(Place place, Instant now) {
+        long intervalMillis = updateInterval.toMillis();
+        Instant nextUpdate = Instant.ofEpochMilli((now.toEpochMilli() / intervalMillis + 1) * intervalMillis);
+        Instant nextMidnight = nextMidnight(place, now);
+        return nextUpdate.isBefore(nextMidnight) ? nextUpdate : nextMidnight;
+    }
+
+    /**
+     * Вычисляет ближайшую местную полночь для места
+     *
+     * @param place место
+     * @param now   текущий момент
+     * @return момент ближайшей местной полуночи
+     */
+    static Instant nextMidnight(Place place, Instant now) {
+        ZoneId zone = ZoneId.of(place.timezone());
+        return now.atZone(zone).toLocalDate().plusDays(1).atStartOfDay(zone).toInstant();
+    }
+
+    /**
+     * Ключ кэша
+     *
+     * @param latitude  округленная широта
+     * @param longitude округленная долгота
+     * @param timezone  часовой пояс
+     */
+    private record Key(double latitude, double longitude, String timezone) {
+
+        /**
+         * Создает ключ кэша для места
+         *
+         * @param place место
+         * @return ключ кэша
+         */
+        static Key of(Place place) {
+            return new Key(Math.round(place.latitude() * COORDINATE_SCALE) / COORDINATE_SCALE,
+                    Math.round(place.longitude() * COORDINATE_SCALE) / COORDINATE_SCALE,
+                    place.timezone());
+        }
+
+    }
+
+    /**
+     * Запись кэша
+     *
+     * @param series    ряд прогнозов погоды по часам
+     * @param expiresAt момент устаревания прогнозов
+     */
+    private record Entry(ForecastSeries series, Instant expiresAt) {
+    }
+
+    /**
+     * Политика времени жизни записей: запись живет до момента своего устаревания
+     *
+     * @param clock часы
+     */
+    private record EntryExpiry(Clock clock) implements Expiry<Key, Entry> {
+
+        @Override
+        public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+            return Math.max(0, Duration.between(clock.instant(), entry.expiresAt()).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+}
@@ -0,0 +1,186 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.Place;
+import ru.urfu.weatherforecastbot.service.gazetteer.Gazetteer;
+import ru.urfu.weatherforecastbot.service.gazetteer.GazetteerSnapshot;
+import ru.urfu.weatherforecastbot.service.gazetteer.InMemoryGazetteer;
+import ru.urfu.weatherforecastbot.service.gazetteer.MappedGazetteer;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Сервис для поиска мест по локальному справочнику.
+ * <p>Сначала ищет место в {@link Gazetteer справочнике} по точному названию, а если оно не найдено, обращается к
+ * {@link GeocodingService другому сервису}. Название с опечатками ищется в справочнике, только если другой сервис
+ * не нашел место или завершился с ошибкой: иначе похожее название из справочника (например, другой город)
+ * заменило бы место, которое другой сервис нашел бы точно. Если путь к справочнику не задан, все запросы
+ * передаются другому сервису</p>
+ */
+@Service
+public class GazetteerGeocodingService implements GeocodingService {
+
+    /**
+     * Сервис, к которому выполняются запросы при отсутствии места в справочнике
+     */
+    private final GeocodingService delegate;
+    /**
+     * Справочник мест
+     */
+    private final Gazetteer gazetteer;
+    /**
+     * Количество запросов, обслуженных справочником
+     */
+    private final LongAdder hitsCount = new LongAdder();
+    /**
+     * Количество запросов, переданных другому сервису
+     */
+    private final LongAdder missesCount = new LongAdder();
+    /**
+     * Количество запросов, которые не обслужил другой сервис, но обслужил справочник по похожему названию
+     */
+    private final LongAdder similarHitsCount = new LongAdder();
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(GazetteerGeocodingService.class);
+
+    /**
+     * Создает экземпляр GazetteerGeocodingService, используя в качестве другого сервиса {@link GeocodingServiceImpl}
+     * и загружая справочник из снимка справочника или выгрузки городов GeoNames
+     *
+     * @param delegate      сервис для поиска мест через API
+     * @param path          путь к снимку справочника или выгрузке GeoNames (пустой - справочник не используется)
+     * @param meterRegistry реестр метрик
+     * @throws UncheckedIOException если выгрузку не удалось прочитать
+     */
+    @Autowired
+    public GazetteerGeocodingService(GeocodingServiceImpl delegate,
+                                     @Value("${geocoding.gazetteer.path:}") String path,
+                                     MeterRegistry meterRegistry) throws UncheckedIOException {
+        this(delegate, loadGazetteer(path), meterRegistry);
+        if (!path.isBlank()) {
+            logger.info("Loaded %d place names from %s".formatted(gazetteer.size(), path));
+        }
+    }
+
+    /**
+     * Создает экземпляр GazetteerGeocodingService, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param delegate  сервис для поиска мест
+     * @param gazetteer справочник мест
+     */
+    public GazetteerGeocodingService(GeocodingService delegate, Gazetteer gazetteer) {
+        this(delegate, gazetteer, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр GazetteerGeocodingService, используя переданные аргументы
+     *
+     * @param delegate      сервис для поиска мест
+     * @param gazetteer     справочник мест
+     * @param meterRegistry реестр метрик
+     */
+    public GazetteerGeocodingService(GeocodingService delegate, Gazetteer gazetteer, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.gazetteer = gazetteer;
+        FunctionCounter.builder("geocoding.gazetteer.lookups", hitsCount, LongAdder::sum)
+                .description("Place lookups served by the local gazetteer or passed to the geocoding API")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("geocoding.gazetteer.lookups", missesCount, LongAdder::sum)
+                .description("Place lookups served by the local gazetteer or passed to the geocoding API")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        FunctionCounter.builder("geocoding.gazetteer.lookups", similarHitsCount, LongAdder::sum)
+                .description("Place lookups served by the local gazetteer or passed to the geocoding API")
+                .tag("result", "similar")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Place> findPlaceByNameAsync(String name) {
+        return Mono.defer(() -> {
+            Optional<Place> place = gazetteer.find(name);
+            if (place.isPresent()) {
+                hitsCount.increment();
+                return Mono.just(place.get());
+            }
+            missesCount.increment();
+            return delegate.findPlaceByNameAsync(name)
+                    .switchIfEmpty(Mono.defer(() -> findSimilarPlace(name)))
+                    .onErrorResume(e -> findSimilarPlace(name).switchIfEmpty(Mono.error(e)));
+        });
+    }
+
+    /**
+     * Возвращает количество запросов, обслуженных справочником
+     *
+     * @return количество попаданий
+     */
+    public long getHitsCount() {
+        return hitsCount.sum();
+    }
+
+    /**
+     * Возвращает количество запросов, переданных другому сервису
+     *
+     * @return количество промахов
+     */
+    public long getMissesCount() {
+        return missesCount.sum();
+    }
+
+    /**
+     * Возвращает количество запросов, обслуженных справочником по похожему названию после другого сервиса
+     *
+     * @return количество попаданий по похожему названию
+     */
+    public long getSimilarHitsCount() {
+        return similarHitsCount.sum();
+    }
+
+    /**
+     * Ищет в справочнике место с похожим названием
+     *
+     * @param name название места
+     * @return Mono с найденным местом или пустой Mono, если место не найдено
+     */
+    private Mono<Place> findSimilarPlace(String name) {
+        return Mono.justOrEmpty(gazetteer.findSimilar(name))
+                .doOnNext(place -> similarHitsCount.increment());
+    }
+
+    /**
+     * Загружает справочник мест. Снимок справочника отображается в память, а выгрузка GeoNames читается целиком
+     *
+     * @param path путь к снимку справочника или выгрузке GeoNames (пустой - пустой справочник)
+     * @return справочник мест
+     * @throws UncheckedIOException если выгрузку не удалось прочитать
+     */
+    private static Gazetteer loadGazetteer(String path) throws UncheckedIOException {
+        if (path.isBlank()) {
+            return InMemoryGazetteer.of(List.of());
+        }
+        try {
+            Path file = Path.of(path);
+            return GazetteerSnapshot.isSnapshot(file) ? MappedGazetteer.open(file) : InMemoryGazetteer.load(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
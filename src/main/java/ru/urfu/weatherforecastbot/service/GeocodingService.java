@@ -1,5 +1,6 @@
 package ru.urfu.weatherforecastbot.service;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.model.Place;
 
 import java.util.Optional;
@@ -10,11 +11,22 @@ import java.util.Optional;
 public interface GeocodingService {
 
     /**
-     * Находит место (и его координаты с часовым поясом) по названию
+     * Находит место (и его координаты с часовым поясом) по названию без блокировки вызывающего потока
+     *
+     * @param name название места
+     * @return Mono с местом, или пустой Mono, если место не найдено
+     */
+    Mono<Place> findPlaceByNameAsync(String name);
+
+    /**
+     * Находит место (и его координаты с часовым поясом) по названию, блокируя вызывающий поток до получения
+     * результата
      *
      * @param name название места
      * @return место с координатами и часовым поясом, или пустой Optional, если место не найдено
      */
-    Optional<Place> findPlaceByName(String name);
+    default Optional<Place> findPlaceByName(String name) {
+        return findPlaceByNameAsync(name).blockOptional();
+    }
 
 }
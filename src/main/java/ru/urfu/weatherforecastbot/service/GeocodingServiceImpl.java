@@ -3,23 +3,25 @@ package ru.urfu.weatherforecastbot.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
 import ru.urfu.weatherforecastbot.model.Place;
 
-import java.util.Optional;
-
 @Service
 public class GeocodingServiceImpl implements GeocodingService {
 
-    /**
-     * URL API для поиска мест
-     */
-    private static final String BASE_URL = "https://geocoding-api.open-meteo.com/v1/search";
     /**
      * JSON маппер
      */
@@ -32,31 +34,75 @@ public class GeocodingServiceImpl implements GeocodingService {
     /**
      * Клиент для запросов API
      */
-    private final WebClient webClient = WebClient.builder()
-            .baseUrl(BASE_URL)
-            .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-            .build();
+    private final WebClient webClient;
+    /**
+     * Метрики запросов к API
+     */
+    private final UpstreamMetrics upstreamMetrics;
+
+    /**
+     * Создает экземпляр GeocodingServiceImpl, используя в качестве {@link GeocodingServiceImpl#webClient}
+     * {@link WebClient}, работающий через общий HTTP клиент. Запросы клиента регистрируются как наблюдения
+     * {@code http.client.requests}
+     *
+     * @param httpClient          общий HTTP клиент для запросов к серверам
+     * @param apiUrl              URL API для поиска мест
+     * @param meterRegistry       реестр метрик
+     * @param observationRegistry реестр наблюдений
+     */
+    @Autowired
+    public GeocodingServiceImpl(HttpClient httpClient,
+                                @Value("${geocoding.api-url:https://geocoding-api.open-meteo.com/v1/search}")
+                                String apiUrl,
+                                MeterRegistry meterRegistry,
+                                ObservationRegistry observationRegistry) {
+        this(WebClient.builder()
+                .baseUrl(apiUrl)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .observationRegistry(observationRegistry)
+                .build(), meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр GeocodingServiceImpl, используя переданный клиент и глобальный реестр метрик
+     *
+     * @param webClient клиент для запросов API
+     */
+    public GeocodingServiceImpl(WebClient webClient) {
+        this(webClient, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр GeocodingServiceImpl, используя переданные аргументы
+     *
+     * @param webClient     клиент для запросов API
+     * @param meterRegistry реестр метрик
+     */
+    public GeocodingServiceImpl(WebClient webClient, MeterRegistry meterRegistry) {
+        this.webClient = webClient;
+        this.upstreamMetrics = new UpstreamMetrics(meterRegistry, "geocoding");
+    }
 
     @Override
-    public Optional<Place> findPlaceByName(String name) {
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .queryParam("name", name)
-                        .queryParam("count", 1)
-                        .queryParam("language", "ru")
-                        .build())
-                .retrieve()
-                .bodyToMono(JsonNode.class)
+    public Mono<Place> findPlaceByNameAsync(String name) {
+        return upstreamMetrics.timed(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .queryParam("name", name)
+                                .queryParam("count", 1)
+                                .queryParam("language", "ru")
+                                .build())
+                        .retrieve()
+                        .bodyToMono(JsonNode.class))
                 .map(node -> node.path("results").path(0))
-                .map(node -> {
+                .flatMap(node -> {
                     Place place = null;
                     try {
                         place = mapper.treeToValue(node, Place.class);
                     } catch (JsonProcessingException e) {
                         logger.error(e.getMessage(), e);
                     }
-                    return Optional.ofNullable(place);
-                })
-                .block();
+                    return Mono.justOrEmpty(place);
+                });
     }
 }
@@ -1,30 +1,35 @@
 package ru.urfu.weatherforecastbot.service;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import ru.urfu.weatherforecastbot.bot.Bot;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
+import ru.urfu.weatherforecastbot.bot.MessagePriority;
 import ru.urfu.weatherforecastbot.bot.WeatherForecastBot;
 import ru.urfu.weatherforecastbot.database.ReminderRepository;
 import ru.urfu.weatherforecastbot.model.Reminder;
 import ru.urfu.weatherforecastbot.util.ForecastTimePeriod;
+import ru.urfu.weatherforecastbot.util.PlaceNameNormalizer;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatter;
-import ru.urfu.weatherforecastbot.util.WeatherForecastFormatterImpl;
 
 import java.time.Duration;
-import java.time.LocalDateTime;
+import java.time.Instant;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.TimeUnit;
 
 @Service
 public class ReminderServiceImpl implements ReminderService {
@@ -41,6 +46,10 @@ public class ReminderServiceImpl implements ReminderService {
      * Бот
      */
     private final Bot bot;
+    /**
+     * Сервис для получения прогнозов погоды
+     */
+    private final WeatherForecastService weatherService;
     /**
      * Обработчик запросов на получение прогнозов погоды
      */
@@ -50,31 +59,41 @@ public class ReminderServiceImpl implements ReminderService {
      */
     private final ReminderRepository reminderRepository;
     /**
-     * ExecutorService для планирования отправления напоминаний
+     * Колесо времени, по которому отправляются напоминания
+     */
+    private final ReminderTimingWheel timingWheel;
+    /**
+     * Время, за которое до отправки напоминаний загружаются прогнозы для их мест
      */
-    private final ScheduledExecutorService executorService;
+    private final Duration prefetchLeadTime;
     /**
-     * Запланированные задачи на отправку напоминаний<br>
-     * В качестве ключа используется ID напоминания, в качестве значения - Future с задачей отправления напоминания
+     * Таймер отставания отправки напоминаний от их времени
      */
-    private final Map<Long, ScheduledFuture<?>> scheduledTasks = new HashMap<>();
+    private final Timer lagTimer;
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(ReminderServiceImpl.class);
 
     /**
      * Создает экземпляр ReminderServiceImpl, используя в качестве executorService
-     * {@code Executors.newSingleThreadScheduledExecutor()} и forecastFormatter {@link WeatherForecastServiceImpl}
+     * {@code Executors.newSingleThreadScheduledExecutor()}
      *
      * @param bot                бот
      * @param weatherService     сервис для получения прогнозов погоды
+     * @param forecastFormatter  форматировщик прогноза погоды
      * @param reminderRepository репозиторий напоминаний
+     * @param prefetchLeadTime   время, за которое до отправки напоминаний загружаются прогнозы (нулевое - не
+     *                           загружать заранее)
+     * @param meterRegistry      реестр метрик
      */
     @Autowired
     public ReminderServiceImpl(WeatherForecastBot bot, WeatherForecastService weatherService,
-                               ReminderRepository reminderRepository) {
-        this.bot = bot;
-        this.weatherForecastRequestHandler =
-                new WeatherForecastRequestHandlerImpl(weatherService, new WeatherForecastFormatterImpl());
-        this.reminderRepository = reminderRepository;
-        executorService = Executors.newSingleThreadScheduledExecutor();
+                               WeatherForecastFormatter forecastFormatter, ReminderRepository reminderRepository,
+                               @Value("${reminder.prefetch.lead-time:5m}") Duration prefetchLeadTime,
+                               MeterRegistry meterRegistry) {
+        this(bot, weatherService, forecastFormatter, reminderRepository,
+                Executors.newSingleThreadScheduledExecutor(), prefetchLeadTime, meterRegistry);
     }
 
     /**
@@ -90,10 +109,56 @@ public class ReminderServiceImpl implements ReminderService {
     public ReminderServiceImpl(WeatherForecastBot bot, WeatherForecastService weatherService,
                                WeatherForecastFormatter forecastFormatter, ReminderRepository reminderRepository,
                                ScheduledExecutorService executorService) {
+        this(bot, weatherService, forecastFormatter, reminderRepository, executorService, Duration.ZERO);
+    }
+
+    /**
+     * Создает экземпляр ReminderServiceImpl, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param bot                бот
+     * @param weatherService     сервис для получения прогнозов погоды
+     * @param forecastFormatter  форматировщик прогноза погоды
+     * @param reminderRepository репозиторий напоминаний
+     * @param executorService    executorService
+     * @param prefetchLeadTime   время, за которое до отправки напоминаний загружаются прогнозы (нулевое - не
+     *                           загружать заранее)
+     */
+    public ReminderServiceImpl(WeatherForecastBot bot, WeatherForecastService weatherService,
+                               WeatherForecastFormatter forecastFormatter, ReminderRepository reminderRepository,
+                               ScheduledExecutorService executorService, Duration prefetchLeadTime) {
+        this(bot, weatherService, forecastFormatter, reminderRepository, executorService, prefetchLeadTime,
+                Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр ReminderServiceImpl, используя переданные аргументы
+     *
+     * @param bot                бот
+     * @param weatherService     сервис для получения прогнозов погоды
+     * @param forecastFormatter  форматировщик прогноза погоды
+     * @param reminderRepository репозиторий напоминаний
+     * @param executorService    executorService
+     * @param prefetchLeadTime   время, за которое до отправки напоминаний загружаются прогнозы (нулевое - не
+     *                           загружать заранее)
+     * @param meterRegistry      реестр метрик
+     */
+    public ReminderServiceImpl(WeatherForecastBot bot, WeatherForecastService weatherService,
+                               WeatherForecastFormatter forecastFormatter, ReminderRepository reminderRepository,
+                               ScheduledExecutorService executorService, Duration prefetchLeadTime,
+                               MeterRegistry meterRegistry) {
         this.bot = bot;
+        this.weatherService = weatherService;
         this.weatherForecastRequestHandler = new WeatherForecastRequestHandlerImpl(weatherService, forecastFormatter);
         this.reminderRepository = reminderRepository;
-        this.executorService = executorService;
+        this.prefetchLeadTime = prefetchLeadTime;
+        timingWheel = new ReminderTimingWheel(executorService, this::sendReminders, prefetchLeadTime,
+                this::prefetchForecasts);
+        Gauge.builder("reminders.scheduled", timingWheel, ReminderTimingWheel::getRemindersCount)
+                .description("Reminders scheduled in the timing wheel")
+                .register(meterRegistry);
+        lagTimer = Timer.builder("reminders.lag")
+                .description("Delay between the reminder time and enqueueing the reminder message")
+                .register(meterRegistry);
     }
 
     @Override
@@ -145,40 +210,80 @@ public class ReminderServiceImpl implements ReminderService {
     }
 
     /**
-     * Создает задачу на отправку напоминания в {@link ReminderServiceImpl#executorService executorService}
-     * и помещает Future задачи в {@link ReminderServiceImpl#scheduledTasks scheduledTasks}
+     * Добавляет напоминание в {@link ReminderServiceImpl#timingWheel колесо времени}
      *
      * @param reminder напоминание
      */
     private void scheduleReminder(Reminder reminder) {
-        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
-        LocalDateTime nextRun = now
-                .withHour(reminder.getTime().getHour())
-                .withMinute(reminder.getTime().getMinute())
-                .withSecond(0);
-        if (now.isAfter(nextRun)) {
-            nextRun = nextRun.plusDays(1);
+        timingWheel.add(reminder);
+    }
+
+    /**
+     * Отправляет напоминания, время которых наступило, используя {@link ReminderServiceImpl#bot бота}. Прогнозы для
+     * всех мест запрашиваются одним пакетным запросом, а затем напоминания группируются по нормализованному
+     * названию места, чтобы прогноз для каждого места форматировался один раз и рассылался во все чаты как
+     * {@link MessagePriority#BROADCAST рассылка}. Не блокирует поток планировщика на время получения прогнозов
+     *
+     * @param reminders напоминания
+     */
+    private void sendReminders(Collection<Reminder> reminders) {
+        Map<String, List<Reminder>> remindersByPlace = groupByPlace(reminders);
+        List<String> placeNames = remindersByPlace.values().stream()
+                .map(placeReminders -> placeReminders.get(0).getPlaceName())
+                .toList();
+        weatherForecastRequestHandler.handleForecastsAsync(placeNames, ForecastTimePeriod.TODAY)
+                .subscribe(texts -> remindersByPlace.values().forEach(placeReminders -> {
+                    String text = texts.get(placeReminders.get(0).getPlaceName());
+                    for (Reminder reminder : placeReminders) {
+                        BotMessage message = new BotMessage();
+                        message.setText(text);
+                        bot.sendMessage(reminder.getChatId(), message, MessagePriority.BROADCAST);
+                        lagTimer.record(getLag(reminder));
+                    }
+                }), e -> logger.error(e.getMessage(), e));
+    }
+
+    /**
+     * Группирует напоминания по нормализованному названию места с сохранением порядка
+     *
+     * @param reminders напоминания
+     * @return напоминания по нормализованным названиям мест
+     */
+    private static Map<String, List<Reminder>> groupByPlace(Collection<Reminder> reminders) {
+        Map<String, List<Reminder>> remindersByPlace = new LinkedHashMap<>();
+        for (Reminder reminder : reminders) {
+            remindersByPlace
+                    .computeIfAbsent(PlaceNameNormalizer.normalize(reminder.getPlaceName()), key -> new ArrayList<>())
+                    .add(reminder);
         }
-        long delay = Duration.between(now, nextRun).getSeconds();
-        ScheduledFuture<?> future = executorService.scheduleAtFixedRate(
-                () -> sendReminder(reminder),
-                delay,
-                TimeUnit.DAYS.toSeconds(1),
-                TimeUnit.SECONDS
-        );
-        scheduledTasks.put(reminder.getId(), future);
+        return remindersByPlace;
     }
 
     /**
-     * Отправляет напоминание, используя {@link ReminderServiceImpl#bot бота}
+     * Возвращает отставание текущего момента от времени напоминания (с точностью до минуты, с которой срабатывает
+     * {@link ReminderServiceImpl#timingWheel колесо времени})
      *
      * @param reminder напоминание
+     * @return отставание
+     */
+    private static Duration getLag(Reminder reminder) {
+        LocalTime now = LocalTime.now(ZoneOffset.UTC);
+        Duration lag = Duration.between(reminder.getTime().truncatedTo(ChronoUnit.MINUTES), now);
+        return lag.isNegative() ? lag.plusDays(1) : lag;
+    }
+
+    /**
+     * Заранее загружает одним пакетным запросом прогнозы для мест напоминаний, которые будут отправлены через
+     * {@link ReminderServiceImpl#prefetchLeadTime время упреждения}
+     *
+     * @param reminders предстоящие напоминания
      */
-    private void sendReminder(Reminder reminder) {
-        BotMessage message = new BotMessage();
-        message.setText(
-                weatherForecastRequestHandler.handleForecasts(reminder.getPlaceName(), ForecastTimePeriod.TODAY));
-        bot.sendMessage(reminder.getChatId(), message);
+    private void prefetchForecasts(Collection<Reminder> reminders) {
+        List<String> placeNames = groupByPlace(reminders).values().stream()
+                .map(placeReminders -> placeReminders.get(0).getPlaceName())
+                .toList();
+        weatherService.prefetchForecastsAsync(placeNames, Instant.now().plus(prefetchLeadTime))
+                .subscribe(null, e -> logger.warn("Failed to prefetch forecasts for " + placeNames, e));
     }
 
     /**
@@ -205,7 +310,7 @@ public class ReminderServiceImpl implements ReminderService {
      * @param id ID напоминания
      */
     private void cancelReminderById(long id) {
-        scheduledTasks.get(id).cancel(false);
+        timingWheel.remove(id);
     }
 
 }
@@ -0,0 +1,239 @@
+package ru.urfu.weatherforecastbot.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import ru.urfu.weatherforecastbot.model.Reminder;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Колесо времени для напоминаний.
+ * <p>Сутки разбиты на слоты по минутам (время UTC), каждое напоминание помещается в слот своей минуты. Для слота, в
+ * котором есть хотя бы одно напоминание, в {@link ScheduledExecutorService планировщике} запланирована одна
+ * ежедневная задача, которая передает все напоминания слота обработчику одним пакетом. Таким образом, количество
+ * задач планировщика не превышает количества минут в сутках, а добавление и отмена напоминания выполняются за
+ * O(1)</p>
+ * <p>Если задано время упреждения, для каждого занятого слота дополнительно планируется ежедневная задача, которая
+ * за это время до срабатывания слота передает его напоминания обработчику предстоящих напоминаний (например, для
+ * предварительной загрузки прогнозов)</p>
+ */
+public class ReminderTimingWheel {
+
+    /**
+     * Количество слотов (минут в сутках)
+     */
+    private static final int SLOTS_COUNT = 24 * 60;
+    /**
+     * Количество секунд в сутках
+     */
+    private static final long SECONDS_IN_DAY = TimeUnit.DAYS.toSeconds(1);
+    /**
+     * Планировщик задач слотов
+     */
+    private final ScheduledExecutorService executorService;
+    /**
+     * Обработчик напоминаний, время которых наступило
+     */
+    private final Consumer<Collection<Reminder>> dueRemindersHandler;
+    /**
+     * Время упреждения для обработчика предстоящих напоминаний
+     */
+    private final Duration leadTime;
+    /**
+     * Обработчик напоминаний, время которых наступит через {@link ReminderTimingWheel#leadTime} (null - не задан)
+     */
+    private final Consumer<Collection<Reminder>> upcomingRemindersHandler;
+    /**
+     * Слоты колеса (null - в слоте нет напоминаний)
+     */
+    private final Slot[] slots = new Slot[SLOTS_COUNT];
+    /**
+     * Номера слотов напоминаний по ID напоминания
+     */
+    private final Map<Long, Integer> slotIndexes = new HashMap<>();
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(ReminderTimingWheel.class);
+
+    /**
+     * Создает экземпляр ReminderTimingWheel, используя переданные аргументы
+     *
+     * @param executorService     планировщик задач слотов
+     * @param dueRemindersHandler обработчик пакета напоминаний, время которых наступило
+     */
+    public ReminderTimingWheel(ScheduledExecutorService executorService,
+                               Consumer<Collection<Reminder>> dueRemindersHandler) {
+        this(executorService, dueRemindersHandler, Duration.ZERO, null);
+    }
+
+    /**
+     * Создает экземпляр ReminderTimingWheel, используя переданные аргументы
+     *
+     * @param executorService          планировщик задач слотов
+     * @param dueRemindersHandler      обработчик пакета напоминаний, время которых наступило
+     * @param leadTime                 время упреждения (меньше суток, нулевое - без обработки предстоящих
+     *                                 напоминаний)
+     * @param upcomingRemindersHandler обработчик пакета напоминаний, время которых наступит через время упреждения
+     */
+    public ReminderTimingWheel(ScheduledExecutorService executorService,
+                               Consumer<Collection<Reminder>> dueRemindersHandler,
+                               Duration leadTime,
+                               Consumer<Collection<Reminder>> upcomingRemindersHandler) {
+        this.executorService = executorService;
+        this.dueRemindersHandler = dueRemindersHandler;
+        this.leadTime = leadTime;
+        this.upcomingRemindersHandler = upcomingRemindersHandler;
+    }
+
+    /**
+     * Добавляет напоминание в слот его минуты. Если напоминание уже было добавлено, оно переносится
+     *
+     * @param reminder напоминание
+     */
+    public synchronized void add(Reminder reminder) {
+        remove(reminder.getId());
+        int slotIndex = getSlotIndex(reminder.getTime());
+        Slot slot = slots[slotIndex];
+        if (slot == null) {
+            slot = new Slot();
+            long delayInSeconds = getDelayInSeconds(slotIndex);
+            slot.task = executorService.scheduleAtFixedRate(() -> fire(slotIndex, dueRemindersHandler),
+                    delayInSeconds, SECONDS_IN_DAY, TimeUnit.SECONDS);
+            if (upcomingRemindersHandler != null && !leadTime.isZero()) {
+                long upcomingDelayInSeconds = Math.floorMod(delayInSeconds - leadTime.getSeconds(), SECONDS_IN_DAY);
+                slot.upcomingTask = executorService.scheduleAtFixedRate(
+                        () -> fire(slotIndex, upcomingRemindersHandler),
+                        upcomingDelayInSeconds, SECONDS_IN_DAY, TimeUnit.SECONDS);
+            }
+            slots[slotIndex] = slot;
+        }
+        slot.reminders.put(reminder.getId(), reminder);
+        slotIndexes.put(reminder.getId(), slotIndex);
+    }
+
+    /**
+     * Удаляет напоминание из колеса. Если слот напоминания опустел, его задача отменяется
+     *
+     * @param reminderId ID напоминания
+     */
+    public synchronized void remove(long reminderId) {
+        Integer slotIndex = slotIndexes.remove(reminderId);
+        if (slotIndex == null) {
+            return;
+        }
+        Slot slot = slots[slotIndex];
+        slot.reminders.remove(reminderId);
+        if (slot.reminders.isEmpty()) {
+            slot.task.cancel(false);
+            if (slot.upcomingTask != null) {
+                slot.upcomingTask.cancel(false);
+            }
+            slots[slotIndex] = null;
+        }
+    }
+
+    /**
+     * Возвращает количество напоминаний в колесе
+     *
+     * @return количество напоминаний
+     */
+    public synchronized int getRemindersCount() {
+        return slotIndexes.size();
+    }
+
+    /**
+     * Возвращает количество слотов, в которых есть напоминания (и, соответственно, запланированных задач)
+     *
+     * @return количество занятых слотов
+     */
+    public synchronized int getOccupiedSlotsCount() {
+        int occupiedSlotsCount = 0;
+        for (Slot slot : slots) {
+            if (slot != null) {
+                occupiedSlotsCount++;
+            }
+        }
+        return occupiedSlotsCount;
+    }
+
+    /**
+     * Передает обработчику все напоминания слота
+     *
+     * @param slotIndex номер слота
+     * @param handler   обработчик напоминаний
+     */
+    private void fire(int slotIndex, Consumer<Collection<Reminder>> handler) {
+        List<Reminder> dueReminders;
+        synchronized (this) {
+            Slot slot = slots[slotIndex];
+            if (slot == null) {
+                return;
+            }
+            dueReminders = new ArrayList<>(slot.reminders.values());
+        }
+        try {
+            handler.accept(dueReminders);
+        } catch (RuntimeException e) {
+            logger.error("Failed to handle %d reminders due at minute %d".formatted(dueReminders.size(), slotIndex),
+                    e);
+        }
+    }
+
+    /**
+     * Возвращает номер слота для времени напоминания
+     *
+     * @param time время напоминания (UTC)
+     * @return номер слота
+     */
+    private static int getSlotIndex(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+
+    /**
+     * Возвращает задержку до ближайшего срабатывания слота
+     *
+     * @param slotIndex номер слота
+     * @return задержка в секундах
+     */
+    private static long getDelayInSeconds(int slotIndex) {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        LocalDateTime nextRun = now
+                .withHour(slotIndex / 60)
+                .withMinute(slotIndex % 60)
+                .withSecond(0);
+        if (now.isAfter(nextRun)) {
+            nextRun = nextRun.plusDays(1);
+        }
+        return Duration.between(now, nextRun).getSeconds();
+    }
+
+    /**
+     * Слот колеса
+     */
+    private static class Slot {
+
+        /**
+         * Напоминания слота по ID в порядке добавления
+         */
+        private final Map<Long, Reminder> reminders = new LinkedHashMap<>();
+        /**
+         * Ежедневная задача слота
+         */
+        private ScheduledFuture<?> task;
+        /**
+         * Ежедневная задача обработки предстоящих напоминаний слота (null - не запланирована)
+         */
+        private ScheduledFuture<?> upcomingTask;
+
+    }
+
+}
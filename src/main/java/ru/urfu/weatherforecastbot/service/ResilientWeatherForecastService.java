@@ -0,0 +1,356 @@
+package ru.urfu.weatherforecastbot.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.util.PlaceNameNormalizer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Сервис для получения прогнозов погоды, защищающий вызывающих от деградации сервера прогнозов.
+ * <p>Каждая попытка запроса к {@link WeatherForecastService другому сервису} ограничена по времени, а временные
+ * ошибки (тайм-ауты, ошибки соединения, ответы 5xx и 429) повторяются с экспоненциальной задержкой со случайным
+ * разбросом. Неудачные запросы учитываются {@link CircuitBreaker автоматическим выключателем}: пока он разомкнут,
+ * к серверу не обращаются. Запрос, не уложившийся в срок вместе с повторами, тоже учитывается выключателем как
+ * неудачный</p>
+ * <p>Последний успешно полученный прогноз для каждого места хранится в течение заданного времени, но не дольше
+ * местной полуночи: после нее прогноз начинался бы со вчерашнего дня. Если
+ * выключатель разомкнут, запрос завершился ошибкой или не уложился в срок, возвращается этот прогноз. При этом
+ * запрос, не уложившийся в срок, не отменяется и по завершении обновляет сохраненный прогноз и кэш прогнозов
+ * (stale-while-revalidate). Если сохраненного прогноза нет, вызывающий получает ошибку не позже срока</p>
+ */
+@Service
+public class ResilientWeatherForecastService implements WeatherForecastService {
+
+    /**
+     * Сообщение исключения при разомкнутом выключателе
+     */
+    private static final String CIRCUIT_OPEN_EXCEPTION_MESSAGE = "Weather forecast service is unavailable";
+    /**
+     * Разброс задержки между повторами (доля от задержки)
+     */
+    private static final double RETRY_JITTER = 0.5;
+    /**
+     * Сервис, к которому выполняются запросы
+     */
+    private final WeatherForecastService delegate;
+    /**
+     * Автоматический выключатель
+     */
+    private final CircuitBreaker circuitBreaker;
+    /**
+     * Максимальное время одной попытки запроса
+     */
+    private final Duration attemptTimeout;
+    /**
+     * Максимальное время ожидания результата вызывающим
+     */
+    private final Duration deadline;
+    /**
+     * Стратегия повторов
+     */
+    private final Retry retry;
+    /**
+     * Последние успешно полученные прогнозы
+     */
+    private final Cache<StaleKey, ForecastSeries> staleForecasts;
+    /**
+     * Количество запросов, на которые был возвращен сохраненный прогноз
+     */
+    private final LongAdder staleResponsesCount = new LongAdder();
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(ResilientWeatherForecastService.class);
+
+    /**
+     * Создает экземпляр ResilientWeatherForecastService, используя в качестве источника данных
+     * {@link WeatherForecastServiceImpl}
+     *
+     * @param delegate         сервис для получения прогнозов погоды через API
+     * @param attemptTimeout   максимальное время одной попытки запроса
+     * @param maxRetries       максимальное количество повторов
+     * @param retryBackoff     задержка перед первым повтором (удваивается с каждым повтором)
+     * @param deadline         максимальное время ожидания результата вызывающим
+     * @param failureThreshold количество неудачных запросов подряд, после которого выключатель размыкается
+     * @param openDuration     время, в течение которого разомкнутый выключатель отклоняет запросы
+     * @param maximumSize      максимальное количество сохраненных прогнозов
+     * @param staleTtl         время хранения последнего успешно полученного прогноза
+     */
+    @Autowired
+    public ResilientWeatherForecastService(
+            WeatherForecastServiceImpl delegate,
+            @Value("${forecast.resilience.attempt-timeout:3s}") Duration attemptTimeout,
+            @Value("${forecast.resilience.max-retries:2}") int maxRetries,
+            @Value("${forecast.resilience.retry-backoff:200ms}") Duration retryBackoff,
+            @Value("${forecast.resilience.deadline:5s}") Duration deadline,
+            @Value("${forecast.resilience.failure-threshold:5}") int failureThreshold,
+            @Value("${forecast.resilience.open-duration:30s}") Duration openDuration,
+            @Value("${forecast.cache.maximum-size:10000}") long maximumSize,
+            @Value("${forecast.resilience.stale-ttl:6h}") Duration staleTtl) {
+        this(delegate, new CircuitBreaker(failureThreshold, openDuration), attemptTimeout, maxRetries, retryBackoff,
+                deadline, maximumSize, staleTtl, Clock.systemUTC(), Ticker.systemTicker());
+    }
+
+    /**
+     * Создает экземпляр ResilientWeatherForecastService, используя переданные аргументы
+     *
+     * @param delegate       сервис для получения прогнозов погоды
+     * @param circuitBreaker автоматический выключатель
+     * @param attemptTimeout максимальное время одной попытки запроса
+     * @param maxRetries     максимальное количество повторов
+     * @param retryBackoff   задержка перед первым повтором (удваивается с каждым повтором)
+     * @param deadline       максимальное время ожидания результата вызывающим
+     * @param maximumSize    максимальное количество сохраненных прогнозов
+     * @param staleTtl       время хранения последнего успешно полученного прогноза
+     * @param clock          часы для вычисления местной полуночи
+     * @param ticker         источник времени для хранилища прогнозов
+     */
+    public ResilientWeatherForecastService(WeatherForecastService delegate, CircuitBreaker circuitBreaker,
+                                           Duration attemptTimeout, int maxRetries, Duration retryBackoff,
+                                           Duration deadline, long maximumSize, Duration staleTtl, Clock clock,
+                                           Ticker ticker) {
+        this.delegate = delegate;
+        this.circuitBreaker = circuitBreaker;
+        this.attemptTimeout = attemptTimeout;
+        this.deadline = deadline;
+        this.retry = Retry.backoff(maxRetries, retryBackoff)
+                .jitter(RETRY_JITTER)
+                .filter(ResilientWeatherForecastService::isTransient)
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
+        this.staleForecasts = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new StaleExpiry(staleTtl.toNanos(), clock))
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .build();
+    }
+
+    @Override
+    public Mono<ForecastSeries> getForecastAsync(String placeName, int daysCount) {
+        return Mono.deferContextual(contextView -> {
+            StaleKey key = StaleKey.of(placeName, daysCount);
+            ForecastSeries staleSeries = staleForecasts.getIfPresent(key);
+            Mono<ForecastSeries> request = guarded(() -> delegate.getForecastAsync(placeName, daysCount),
+                    staleSeries == null)
+                    .doOnNext(series -> {
+                        if (!series.isEmpty()) {
+                            staleForecasts.put(key, series);
+                        }
+                    });
+            if (staleSeries == null) {
+                return request;
+            }
+            CompletableFuture<ForecastSeries> revalidation = request.contextWrite(contextView).toFuture();
+            return Mono.fromFuture(revalidation, true)
+                    .timeout(deadline, Mono.fromSupplier(() -> staleResponse(staleSeries)))
+                    .onErrorResume(e -> {
+                        logger.warn("Serving stale forecast for %s: %s".formatted(placeName, e.getMessage()));
+                        return Mono.just(staleResponse(staleSeries));
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Map<String, ForecastSeries>> getForecastsAsync(Collection<String> placeNames, int daysCount) {
+        return guarded(() -> delegate.getForecastsAsync(placeNames, daysCount))
+                .doOnNext(forecasts -> forecasts.forEach((placeName, series) -> {
+                    if (!series.isEmpty()) {
+                        staleForecasts.put(StaleKey.of(placeName, daysCount), series);
+                    }
+                }))
+                .onErrorResume(e -> {
+                    Map<String, ForecastSeries> staleSeries = new LinkedHashMap<>();
+                    for (String placeName : placeNames) {
+                        ForecastSeries series = staleForecasts.getIfPresent(StaleKey.of(placeName, daysCount));
+                        if (series == null) {
+                            return Mono.error(e);
+                        }
+                        staleSeries.put(placeName, staleResponse(series));
+                    }
+                    return Mono.just(staleSeries);
+                });
+    }
+
+    @Override
+    public Mono<Void> prefetchForecastsAsync(Collection<String> placeNames, Instant neededAt) {
+        return Mono.defer(() -> circuitBreaker.getState() == CircuitBreaker.State.OPEN
+                ? Mono.empty()
+                : guarded(() -> delegate.prefetchForecastsAsync(placeNames, neededAt)));
+    }
+
+    /**
+     * Возвращает состояние автоматического выключателя
+     *
+     * @return состояние выключателя
+     */
+    public CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Возвращает количество запросов, на которые был возвращен сохраненный прогноз
+     *
+     * @return количество ответов сохраненным прогнозом
+     */
+    public long getStaleResponsesCount() {
+        return staleResponsesCount.sum();
+    }
+
+    /**
+     * Выполняет запрос с ограничением времени попытки, повторами и сроком, учитывая результат в автоматическом
+     * выключателе. Если выключатель разомкнут, запрос не выполняется
+     *
+     * @param request запрос
+     * @param <T>     тип результата
+     * @return Mono с результатом запроса, с ошибкой {@link TimeoutException}, если запрос не уложился в срок, или с
+     * ошибкой {@link IllegalStateException}, если выключатель разомкнут
+     */
+    private <T> Mono<T> guarded(Supplier<Mono<T>> request) {
+        return guarded(request, true);
+    }
+
+    /**
+     * Выполняет запрос с ограничением времени попытки и повторами, учитывая результат в автоматическом
+     * выключателе. Если выключатель разомкнут, запрос не выполняется. Запрос без срока используется для обновления
+     * сохраненного прогноза, который вызывающий получает по истечении срока
+     *
+     * @param request      запрос
+     * @param withDeadline ограничивать ли запрос вместе с повторами {@link ResilientWeatherForecastService#deadline
+     *                     сроком}
+     * @param <T>          тип результата
+     * @return Mono с результатом запроса, с ошибкой {@link TimeoutException}, если запрос не уложился в срок, или с
+     * ошибкой {@link IllegalStateException}, если выключатель разомкнут
+     */
+    private <T> Mono<T> guarded(Supplier<Mono<T>> request, boolean withDeadline) {
+        return Mono.defer(() -> {
+            if (!circuitBreaker.tryAcquirePermission()) {
+                return Mono.error(new IllegalStateException(CIRCUIT_OPEN_EXCEPTION_MESSAGE));
+            }
+            Mono<T> attempts = Mono.defer(request)
+                    .timeout(attemptTimeout)
+                    .retryWhen(retry);
+            if (withDeadline) {
+                attempts = attempts.timeout(deadline);
+            }
+            return attempts
+                    .doOnSuccess(result -> circuitBreaker.onSuccess())
+                    .doOnError(e -> {
+                        if (isUpstreamFailure(e)) {
+                            circuitBreaker.onFailure();
+                        } else {
+                            circuitBreaker.onIgnored();
+                        }
+                    })
+                    .doOnCancel(circuitBreaker::onIgnored);
+        });
+    }
+
+    /**
+     * Учитывает ответ сохраненным прогнозом
+     *
+     * @param staleSeries сохраненный прогноз
+     * @return сохраненный прогноз
+     */
+    private ForecastSeries staleResponse(ForecastSeries staleSeries) {
+        staleResponsesCount.increment();
+        return staleSeries;
+    }
+
+    /**
+     * Проверяет, является ли ошибка временной, то есть имеет ли смысл повторить запрос
+     *
+     * @param e ошибка
+     * @return true, если запрос стоит повторить
+     */
+    private static boolean isTransient(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            return responseException.getStatusCode().is5xxServerError()
+                    || responseException.getStatusCode().value() == 429;
+        }
+        return e instanceof TimeoutException || e instanceof WebClientRequestException;
+    }
+
+    /**
+     * Проверяет, говорит ли ошибка о неработоспособности сервера (ошибки клиента, кроме превышения частоты
+     * запросов, ей не считаются)
+     *
+     * @param e ошибка
+     * @return true, если ошибку следует учесть в автоматическом выключателе
+     */
+    private static boolean isUpstreamFailure(Throwable e) {
+        if (e instanceof WebClientResponseException responseException) {
+            return !responseException.getStatusCode().is4xxClientError()
+                    || responseException.getStatusCode().value() == 429;
+        }
+        return true;
+    }
+
+    /**
+     * Политика времени жизни сохраненных прогнозов: заданное время, но не дольше местной полуночи места прогноза
+     *
+     * @param staleTtlNanos время хранения прогноза в наносекундах
+     * @param clock         часы для вычисления местной полуночи
+     */
+    private record StaleExpiry(long staleTtlNanos, Clock clock) implements Expiry<StaleKey, ForecastSeries> {
+
+        @Override
+        public long expireAfterCreate(StaleKey key, ForecastSeries series, long currentTime) {
+            Instant now = clock.instant();
+            long untilMidnightNanos = Duration.between(now, ForecastCache.nextMidnight(series.place(), now)).toNanos();
+            return Math.min(staleTtlNanos, untilMidnightNanos);
+        }
+
+        @Override
+        public long expireAfterUpdate(StaleKey key, ForecastSeries series, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, series, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(StaleKey key, ForecastSeries series, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+    }
+
+    /**
+     * Ключ сохраненного прогноза
+     *
+     * @param placeName нормализованное название места
+     * @param daysCount количество дней
+     */
+    private record StaleKey(String placeName, int daysCount) {
+
+        /**
+         * Создает ключ сохраненного прогноза
+         *
+         * @param placeName название места
+         * @param daysCount количество дней
+         * @return ключ сохраненного прогноза
+         */
+        static StaleKey of(String placeName, int daysCount) {
+            return new StaleKey(PlaceNameNormalizer.normalize(placeName), daysCount);
+        }
+
+    }
+
+}
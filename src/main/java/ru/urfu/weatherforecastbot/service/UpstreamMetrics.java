@@ -0,0 +1,151 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.handler.timeout.ReadTimeoutException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Метрики запросов к внешнему серверу.
+ * <p>Время каждого запроса записывается в таймер {@code upstream.requests} с тегами {@code endpoint} (вызываемый
+ * метод API) и {@code outcome} (результат запроса). Таймеры публикуют гистограмму, по которой в Prometheus
+ * вычисляются процентили задержки</p>
+ */
+public final class UpstreamMetrics {
+
+    /**
+     * Название таймера
+     */
+    private static final String TIMER_NAME = "upstream.requests";
+    /**
+     * Таймеры по результатам запроса
+     */
+    private final Map<Outcome, Timer> timers = new EnumMap<>(Outcome.class);
+
+    /**
+     * Создает метрики запросов к методу API
+     *
+     * @param meterRegistry реестр метрик
+     * @param endpoint      название метода API
+     */
+    public UpstreamMetrics(MeterRegistry meterRegistry, String endpoint) {
+        for (Outcome outcome : Outcome.values()) {
+            timers.put(outcome, Timer.builder(TIMER_NAME)
+                    .description("Latency of requests to upstream APIs")
+                    .tag("endpoint", endpoint)
+                    .tag("outcome", outcome.getTag())
+                    .publishPercentileHistogram()
+                    .minimumExpectedValue(Duration.ofMillis(1))
+                    .maximumExpectedValue(Duration.ofSeconds(30))
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Возвращает запрос, время выполнения которого записывается при каждой подписке. Отмененный запрос (например,
+     * по истечении времени ожидания у вызывающего) записывается с результатом {@code cancelled}
+     *
+     * @param request запрос
+     * @param <T>     тип ответа
+     * @return запрос с записью времени выполнения
+     */
+    public <T> Mono<T> timed(Mono<T> request) {
+        return Mono.defer(() -> {
+            long startNanos = System.nanoTime();
+            return request
+                    .doOnSuccess(response -> record(Outcome.SUCCESS, startNanos))
+                    .doOnError(e -> record(Outcome.of(e), startNanos))
+                    .doOnCancel(() -> record(Outcome.CANCELLED, startNanos));
+        });
+    }
+
+    /**
+     * Записывает время запроса
+     *
+     * @param outcome    результат запроса
+     * @param startNanos момент начала запроса в наносекундах
+     */
+    private void record(Outcome outcome, long startNanos) {
+        timers.get(outcome).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Результат запроса
+     */
+    private enum Outcome {
+
+        /**
+         * Сервер вернул ответ
+         */
+        SUCCESS("success"),
+        /**
+         * Сервер вернул ошибку 4xx
+         */
+        CLIENT_ERROR("client_error"),
+        /**
+         * Сервер вернул ошибку 5xx
+         */
+        SERVER_ERROR("server_error"),
+        /**
+         * Сервер не ответил в срок
+         */
+        TIMEOUT("timeout"),
+        /**
+         * Другая ошибка (соединения, разбора ответа)
+         */
+        ERROR("error"),
+        /**
+         * Запрос отменен вызывающим
+         */
+        CANCELLED("cancelled");
+
+        /**
+         * Значение тега
+         */
+        private final String tag;
+
+        /**
+         * Создает результат запроса
+         *
+         * @param tag значение тега
+         */
+        Outcome(String tag) {
+            this.tag = tag;
+        }
+
+        /**
+         * Возвращает значение тега
+         *
+         * @return значение тега
+         */
+        private String getTag() {
+            return tag;
+        }
+
+        /**
+         * Определяет результат запроса по ошибке
+         *
+         * @param e ошибка
+         * @return результат запроса
+         */
+        private static Outcome of(Throwable e) {
+            if (e instanceof WebClientResponseException responseException) {
+                return responseException.getStatusCode().is4xxClientError() ? CLIENT_ERROR : SERVER_ERROR;
+            }
+            if (e instanceof TimeoutException || e instanceof ReadTimeoutException
+                    || e.getCause() instanceof ReadTimeoutException) {
+                return TIMEOUT;
+            }
+            return ERROR;
+        }
+
+    }
+
+}
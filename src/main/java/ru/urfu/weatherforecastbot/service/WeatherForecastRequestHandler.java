@@ -1,20 +1,34 @@
 package ru.urfu.weatherforecastbot.service;
 
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.util.ForecastTimePeriod;
 
+import java.util.Collection;
+import java.util.Map;
+
 /**
  * Обработчик запросов на получение прогнозов погоды
  */
 public interface WeatherForecastRequestHandler {
 
     /**
-     * Обрабатывает запрос на получение прогноза погоды в указанном месте и временном периоде и возвращает прогнозы
-     * погоды в виде строки
+     * Обрабатывает без блокировки вызывающего потока запрос на получение прогноза погоды в указанном месте и
+     * временном периоде и возвращает прогнозы погоды в виде строки
      *
      * @param placeName  место прогноза
      * @param timePeriod временной период прогноза
-     * @return прогнозы погоды в виде строки
+     * @return Mono с прогнозами погоды в виде строки
+     */
+    Mono<String> handleForecastsAsync(String placeName, ForecastTimePeriod timePeriod);
+
+    /**
+     * Обрабатывает без блокировки вызывающего потока запрос на получение прогнозов погоды в нескольких местах на
+     * указанный временной период одним пакетным запросом и возвращает прогнозы погоды в виде строк
+     *
+     * @param placeNames места прогноза
+     * @param timePeriod временной период прогноза
+     * @return Mono с прогнозами погоды в виде строк по названиям мест
      */
-    String handleForecasts(String placeName, ForecastTimePeriod timePeriod);
+    Mono<Map<String, String>> handleForecastsAsync(Collection<String> placeNames, ForecastTimePeriod timePeriod);
 
 }
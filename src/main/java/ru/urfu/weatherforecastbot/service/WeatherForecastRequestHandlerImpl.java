@@ -1,12 +1,18 @@
 package ru.urfu.weatherforecastbot.service;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotConstants;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.util.ForecastTimePeriod;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatter;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatterImpl;
 
-import java.util.List;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 public class WeatherForecastRequestHandlerImpl implements WeatherForecastRequestHandler {
 
@@ -18,6 +24,10 @@ public class WeatherForecastRequestHandlerImpl implements WeatherForecastRequest
      * Форматировщик прогнозов погоды
      */
     private final WeatherForecastFormatter forecastFormatter;
+    /**
+     * Логгер
+     */
+    private final Logger logger = LoggerFactory.getLogger(WeatherForecastRequestHandlerImpl.class);
 
     /**
      * Создает экземпляр {@link WeatherForecastRequestHandlerImpl}, используя в качестве
@@ -43,21 +53,64 @@ public class WeatherForecastRequestHandlerImpl implements WeatherForecastRequest
     }
 
     @Override
-    public String handleForecasts(String placeName, ForecastTimePeriod timePeriod) {
-        List<WeatherForecast> forecasts;
-        switch (timePeriod) {
-            case TODAY -> forecasts = weatherService.getForecast(placeName, 1);
-            case TOMORROW -> forecasts = weatherService.getForecast(placeName, 2);
-            case WEEK -> forecasts = weatherService.getForecast(placeName, 7);
-            default -> forecasts = List.of();
-        }
-        if (forecasts.isEmpty()) {
+    public Mono<String> handleForecastsAsync(String placeName, ForecastTimePeriod timePeriod) {
+        return weatherService.getForecastAsync(placeName, getDaysCount(timePeriod))
+                .map(series -> formatForecasts(series, timePeriod))
+                .onErrorResume(e -> {
+                    logger.error("Failed to get forecast for %s: %s".formatted(placeName, e.getMessage()), e);
+                    return Mono.just(BotConstants.FORECAST_UNAVAILABLE);
+                });
+    }
+
+    @Override
+    public Mono<Map<String, String>> handleForecastsAsync(Collection<String> placeNames,
+                                                          ForecastTimePeriod timePeriod) {
+        return weatherService.getForecastsAsync(placeNames, getDaysCount(timePeriod))
+                .map(forecasts -> {
+                    Map<String, String> messages = new LinkedHashMap<>();
+                    for (String placeName : placeNames) {
+                        ForecastSeries series = forecasts.getOrDefault(placeName, ForecastSeries.empty());
+                        messages.put(placeName, formatForecasts(series, timePeriod));
+                    }
+                    return messages;
+                })
+                .onErrorResume(e -> {
+                    logger.error("Failed to get forecasts for %s: %s".formatted(placeNames, e.getMessage()), e);
+                    Map<String, String> messages = new LinkedHashMap<>();
+                    placeNames.forEach(placeName -> messages.put(placeName, BotConstants.FORECAST_UNAVAILABLE));
+                    return Mono.just(messages);
+                });
+    }
+
+    /**
+     * Возвращает количество дней, на которое запрашиваются прогнозы для указанного временного периода
+     *
+     * @param timePeriod временной период прогноза
+     * @return количество дней, включая сегодня
+     */
+    private int getDaysCount(ForecastTimePeriod timePeriod) {
+        return switch (timePeriod) {
+            case TODAY -> 1;
+            case TOMORROW -> 2;
+            case WEEK -> 7;
+        };
+    }
+
+    /**
+     * Форматирует прогнозы погоды на указанный временной период
+     *
+     * @param series     ряд прогнозов погоды
+     * @param timePeriod временной период прогноза
+     * @return прогнозы погоды в виде строки, или сообщение о том, что место не найдено
+     */
+    private String formatForecasts(ForecastSeries series, ForecastTimePeriod timePeriod) {
+        if (series.isEmpty()) {
             return BotConstants.NOT_FOUND_PLACE;
         }
         if (timePeriod == ForecastTimePeriod.TOMORROW) {
-            forecasts = forecasts.subList(24, 48);
+            series = series.slice(series.indexAt(Duration.ofDays(1)), series.indexAt(Duration.ofDays(2)));
         }
-        return forecastFormatter.formatForecasts(timePeriod, forecasts);
+        return forecastFormatter.formatForecasts(timePeriod, series);
     }
 
 }
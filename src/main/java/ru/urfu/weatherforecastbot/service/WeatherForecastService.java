@@ -1,23 +1,84 @@
 package ru.urfu.weatherforecastbot.service;
 
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 
-import java.util.List;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
 
 /**
  * Сервис для получения прогнозов погоды
  */
 public interface WeatherForecastService {
 
+    /**
+     * Возвращает без блокировки вызывающего потока ряд прогнозов погоды по часам для указанного числа дней,
+     * включая сегодня (при этом дата и время прогнозов указаны по часовому поясу данного места), или пустой ряд,
+     * если место не найдено
+     *
+     * @param placeName название места
+     * @param daysCount количество дней
+     * @return Mono с рядом прогнозов погоды по часам для указанного числа дней, или с пустым рядом, если место
+     * не найдено
+     */
+    Mono<ForecastSeries> getForecastAsync(String placeName, int daysCount);
 
     /**
-     * Возвращает список прогнозов погоды по часам для указанного числа дней, включая сегодня (при этом дата и время
-     * прогнозов указаны по часовому поясу данного места), или пустой список, если место не найдено
+     * Возвращает ряд прогнозов погоды по часам для указанного числа дней, включая сегодня (при этом дата и время
+     * прогнозов указаны по часовому поясу данного места), или пустой ряд, если место не найдено. Блокирует
+     * вызывающий поток до получения результата
      *
      * @param placeName название места
      * @param daysCount количество дней
-     * @return список прогнозов погоды по часам для указанного числа дней, или пустой список, если место не найдено
+     * @return ряд прогнозов погоды по часам для указанного числа дней, или пустой ряд, если место не найдено
+     */
+    default ForecastSeries getForecast(String placeName, int daysCount) {
+        return getForecastAsync(placeName, daysCount).block();
+    }
+
+    /**
+     * Возвращает без блокировки вызывающего потока ряды прогнозов погоды по часам для нескольких мест на указанное
+     * число дней, включая сегодня. Для ненайденных мест возвращаются пустые ряды. По умолчанию прогнозы
+     * запрашиваются для каждого места отдельно
+     *
+     * @param placeNames названия мест
+     * @param daysCount  количество дней
+     * @return Mono с рядами прогнозов погоды по названиям мест
+     */
+    default Mono<Map<String, ForecastSeries>> getForecastsAsync(Collection<String> placeNames, int daysCount) {
+        return Flux.fromIterable(new LinkedHashSet<>(placeNames))
+                .flatMapSequential(placeName -> getForecastAsync(placeName, daysCount)
+                        .map(series -> Map.entry(placeName, series)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue, LinkedHashMap::new);
+    }
+
+    /**
+     * Возвращает ряды прогнозов погоды по часам для нескольких мест на указанное число дней, включая сегодня. Для
+     * ненайденных мест возвращаются пустые ряды. Блокирует вызывающий поток до получения результата
+     *
+     * @param placeNames названия мест
+     * @param daysCount  количество дней
+     * @return ряды прогнозов погоды по названиям мест
+     */
+    default Map<String, ForecastSeries> getForecasts(Collection<String> placeNames, int daysCount) {
+        return getForecastsAsync(placeNames, daysCount).block();
+    }
+
+    /**
+     * Заранее загружает прогнозы погоды для нескольких мест, чтобы к указанному моменту они были доступны без
+     * обращения к серверу прогнозов. По умолчанию просто запрашивает прогнозы на сегодня через
+     * {@link WeatherForecastService#getForecastsAsync(Collection, int)}
+     *
+     * @param placeNames названия мест
+     * @param neededAt   момент, к которому прогнозы должны быть загружены
+     * @return Mono, завершающийся после загрузки
      */
-    List<WeatherForecast> getForecast(String placeName, int daysCount);
+    default Mono<Void> prefetchForecastsAsync(Collection<String> placeNames, Instant neededAt) {
+        return getForecastsAsync(placeNames, 1).then();
+    }
 
 }
@@ -1,24 +1,39 @@
 package ru.urfu.weatherforecastbot.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.ObservationRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class WeatherForecastServiceImpl implements WeatherForecastService {
 
     /**
-     * URL API для получения прогнозов погоды
+     * Количество дней, на которое запрашиваются и кэшируются прогнозы. Запросы на меньшее число дней обслуживаются
+     * срезом закэшированного прогноза
      */
-    private static final String BASE_URL = "https://api.open-meteo.com/v1/forecast";
+    private static final int CACHED_DAYS_COUNT = 7;
+    /**
+     * Максимальное количество мест в одном запросе к серверу по умолчанию
+     */
+    private static final int DEFAULT_BATCH_SIZE = 100;
     /**
      * Сервис для поиска мест
      */
@@ -31,50 +46,271 @@ public class WeatherForecastServiceImpl implements WeatherForecastService {
      * Клиент для запросов API
      */
     private final WebClient webClient;
+    /**
+     * Кэш прогнозов погоды по координатам места
+     */
+    private final ForecastCache forecastCache;
+    /**
+     * Максимальное количество мест в одном запросе к серверу
+     */
+    private final int batchSize;
+    /**
+     * Метрики запросов прогноза для одного места
+     */
+    private final UpstreamMetrics forecastMetrics;
+    /**
+     * Метрики запросов прогнозов для нескольких мест
+     */
+    private final UpstreamMetrics batchForecastMetrics;
 
     /**
      * Создает экземпляр WeatherForecastServiceImpl, используя в качестве {@link WeatherForecastServiceImpl#webClient}
-     * {@link WebClient}
+     * {@link WebClient}, работающий через общий HTTP клиент. Запросы клиента регистрируются как наблюдения
+     * {@code http.client.requests}
      *
-     * @param geocodingService сервис для поиска мест
+     * @param geocodingService    сервис для поиска мест
+     * @param httpClient          общий HTTP клиент для запросов к серверам
+     * @param forecastCache       кэш прогнозов погоды
+     * @param batchSize           максимальное количество мест в одном запросе к серверу
+     * @param apiUrl              URL API для получения прогнозов погоды
+     * @param meterRegistry       реестр метрик
+     * @param observationRegistry реестр наблюдений
      */
     @Autowired
-    public WeatherForecastServiceImpl(GeocodingService geocodingService) {
-        this.geocodingService = geocodingService;
-        webClient = WebClient.builder()
-                .baseUrl(BASE_URL)
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
+    public WeatherForecastServiceImpl(GeocodingService geocodingService, HttpClient httpClient,
+                                      ForecastCache forecastCache,
+                                      @Value("${forecast.batch-size:100}") int batchSize,
+                                      @Value("${forecast.api-url:https://api.open-meteo.com/v1/forecast}")
+                                      String apiUrl,
+                                      MeterRegistry meterRegistry,
+                                      ObservationRegistry observationRegistry) {
+        this(geocodingService,
+                WebClient.builder()
+                        .baseUrl(apiUrl)
+                        .clientConnector(new ReactorClientHttpConnector(httpClient))
+                        .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .observationRegistry(observationRegistry)
+                        .build(),
+                forecastCache, batchSize, meterRegistry);
     }
 
     /**
-     * Создает экземпляр WeatherForecastServiceImpl, используя переданные аргументы
+     * Создает экземпляр WeatherForecastServiceImpl, используя переданные аргументы и кэш прогнозов с настройками по
+     * умолчанию
      *
      * @param geocodingService сервис для поиска мест
+     * @param webClient        клиент для запросов API
      */
     public WeatherForecastServiceImpl(GeocodingService geocodingService, WebClient webClient) {
+        this(geocodingService, webClient, new ForecastCache(10000, Duration.ofHours(1)));
+    }
+
+    /**
+     * Создает экземпляр WeatherForecastServiceImpl, используя переданные аргументы
+     *
+     * @param geocodingService сервис для поиска мест
+     * @param webClient        клиент для запросов API
+     * @param forecastCache    кэш прогнозов погоды
+     */
+    public WeatherForecastServiceImpl(GeocodingService geocodingService, WebClient webClient,
+                                      ForecastCache forecastCache) {
+        this(geocodingService, webClient, forecastCache, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Создает экземпляр WeatherForecastServiceImpl, используя переданные аргументы и глобальный реестр метрик
+     *
+     * @param geocodingService сервис для поиска мест
+     * @param webClient        клиент для запросов API
+     * @param forecastCache    кэш прогнозов погоды
+     * @param batchSize        максимальное количество мест в одном запросе к серверу
+     */
+    public WeatherForecastServiceImpl(GeocodingService geocodingService, WebClient webClient,
+                                      ForecastCache forecastCache, int batchSize) {
+        this(geocodingService, webClient, forecastCache, batchSize, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр WeatherForecastServiceImpl, используя переданные аргументы
+     *
+     * @param geocodingService сервис для поиска мест
+     * @param webClient        клиент для запросов API
+     * @param forecastCache    кэш прогнозов погоды
+     * @param batchSize        максимальное количество мест в одном запросе к серверу
+     * @param meterRegistry    реестр метрик
+     */
+    public WeatherForecastServiceImpl(GeocodingService geocodingService, WebClient webClient,
+                                      ForecastCache forecastCache, int batchSize, MeterRegistry meterRegistry) {
         this.geocodingService = geocodingService;
         this.webClient = webClient;
+        this.forecastCache = forecastCache;
+        this.batchSize = batchSize;
+        forecastMetrics = new UpstreamMetrics(meterRegistry, "forecast");
+        batchForecastMetrics = new UpstreamMetrics(meterRegistry, "forecast_batch");
     }
 
     @Override
-    public List<WeatherForecast> getForecast(String placeName, int daysCount) {
-        Optional<Place> place = geocodingService.findPlaceByName(placeName);
-        if (place.isEmpty()) {
-            return List.of();
+    public Mono<ForecastSeries> getForecastAsync(String placeName, int daysCount) {
+        return geocodingService.findPlaceByNameAsync(placeName)
+                .flatMap(place -> getForecastForPlace(place, daysCount))
+                .defaultIfEmpty(ForecastSeries.empty());
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Прогнозы мест, отсутствующих в кэше, запрашиваются у сервера пакетами не более чем по
+     * {@link WeatherForecastServiceImpl#batchSize} мест в одном запросе</p>
+     */
+    @Override
+    public Mono<Map<String, ForecastSeries>> getForecastsAsync(Collection<String> placeNames, int daysCount) {
+        return Flux.fromIterable(new LinkedHashSet<>(placeNames))
+                .flatMapSequential(placeName -> geocodingService.findPlaceByNameAsync(placeName)
+                        .map(place -> Map.entry(placeName, place)))
+                .collectMap(Map.Entry::getKey, Map.Entry::getValue)
+                .flatMap(placesByName -> getForecastsForPlaces(placesByName.values(), daysCount)
+                        .map(forecastsByPlace -> {
+                            Map<String, ForecastSeries> forecasts = new LinkedHashMap<>();
+                            for (String placeName : placeNames) {
+                                Place place = placesByName.get(placeName);
+                                forecasts.put(placeName,
+                                        place == null ? ForecastSeries.empty() : forecastsByPlace.get(place));
+                            }
+                            return forecasts;
+                        }));
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>Прогнозы мест, которые не доживут в кэше до указанного момента, запрашиваются у сервера пакетами не более
+     * чем по {@link WeatherForecastServiceImpl#batchSize} мест в одном запросе</p>
+     */
+    @Override
+    public Mono<Void> prefetchForecastsAsync(Collection<String> placeNames, Instant neededAt) {
+        return Flux.fromIterable(new LinkedHashSet<>(placeNames))
+                .flatMapSequential(geocodingService::findPlaceByNameAsync)
+                .collectList()
+                .flatMap(places -> forecastCache.prefetchAll(places, neededAt,
+                        missingPlaces -> fetchForecasts(missingPlaces, CACHED_DAYS_COUNT)));
+    }
+
+    /**
+     * Возвращает прогнозы погоды для найденного места на указанное число дней, используя кэш прогнозов, если
+     * количество дней не превышает {@link WeatherForecastServiceImpl#CACHED_DAYS_COUNT}
+     *
+     * @param place     место
+     * @param daysCount количество дней
+     * @return Mono с рядом прогнозов погоды по часам
+     */
+    private Mono<ForecastSeries> getForecastForPlace(Place place, int daysCount) {
+        if (daysCount > CACHED_DAYS_COUNT) {
+            return fetchForecast(place, daysCount);
         }
-        return webClient.get()
-                .uri(uriBuilder -> uriBuilder
-                        .queryParam("latitude", place.get().latitude())
-                        .queryParam("longitude", place.get().longitude())
-                        .queryParam("hourly", "temperature_2m,apparent_temperature")
-                        .queryParam("timezone", place.get().timezone())
-                        .queryParam("forecast_days", daysCount)
-                        .build())
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .map(response -> weatherForecastsDeserializer.parseJsonResponseToWeatherForecasts(place.get(), response))
-                .block();
+        return forecastCache.get(place, cachedPlace -> fetchForecast(cachedPlace, CACHED_DAYS_COUNT))
+                .map(series -> series.slice(0, series.indexAt(Duration.ofDays(daysCount))).withPlace(place));
+    }
+
+    /**
+     * Возвращает прогнозы погоды для найденных мест на указанное число дней, используя кэш прогнозов, если
+     * количество дней не превышает {@link WeatherForecastServiceImpl#CACHED_DAYS_COUNT}
+     *
+     * @param places    места
+     * @param daysCount количество дней
+     * @return Mono с рядами прогнозов погоды по часам по местам
+     */
+    private Mono<Map<Place, ForecastSeries>> getForecastsForPlaces(Collection<Place> places, int daysCount) {
+        if (places.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        if (daysCount > CACHED_DAYS_COUNT) {
+            List<Place> distinctPlaces = List.copyOf(new LinkedHashSet<>(places));
+            return fetchForecasts(distinctPlaces, daysCount)
+                    .map(seriesList -> {
+                        Map<Place, ForecastSeries> forecasts = new HashMap<>();
+                        for (int i = 0; i < distinctPlaces.size(); i++) {
+                            forecasts.put(distinctPlaces.get(i), seriesList.get(i));
+                        }
+                        return forecasts;
+                    });
+        }
+        return forecastCache.getAll(places, missingPlaces -> fetchForecasts(missingPlaces, CACHED_DAYS_COUNT))
+                .map(forecasts -> {
+                    forecasts.replaceAll((place, series) ->
+                            series.slice(0, series.indexAt(Duration.ofDays(daysCount))).withPlace(place));
+                    return forecasts;
+                });
+    }
+
+    /**
+     * Запрашивает у сервера прогнозы погоды для мест на указанное число дней, разбивая места на пакеты не более
+     * чем по {@link WeatherForecastServiceImpl#batchSize} мест в одном запросе
+     *
+     * @param places    места
+     * @param daysCount количество дней
+     * @return Mono с рядами прогнозов погоды по часам в порядке мест
+     */
+    private Mono<List<ForecastSeries>> fetchForecasts(List<Place> places, int daysCount) {
+        return Flux.range(0, (places.size() + batchSize - 1) / batchSize)
+                .flatMapSequential(batch -> fetchForecastsBatch(
+                        places.subList(batch * batchSize, Math.min(places.size(), (batch + 1) * batchSize)),
+                        daysCount))
+                .flatMapIterable(seriesList -> seriesList)
+                .collectList();
+    }
+
+    /**
+     * Запрашивает у сервера прогнозы погоды для нескольких мест одним запросом, передавая координаты и часовые
+     * пояса мест списками через запятую
+     *
+     * @param places    места
+     * @param daysCount количество дней
+     * @return Mono с рядами прогнозов погоды по часам в порядке мест
+     */
+    private Mono<List<ForecastSeries>> fetchForecastsBatch(List<Place> places, int daysCount) {
+        return batchForecastMetrics.timed(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .queryParam("latitude", joinPlaces(places, place -> String.valueOf(place.latitude())))
+                                .queryParam("longitude",
+                                        joinPlaces(places, place -> String.valueOf(place.longitude())))
+                                .queryParam("hourly", "temperature_2m,apparent_temperature")
+                                .queryParam("timezone", joinPlaces(places, Place::timezone))
+                                .queryParam("forecast_days", daysCount)
+                                .build())
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .map(response -> weatherForecastsDeserializer.parseJsonResponseToForecastSeriesList(places,
+                        response));
+    }
+
+    /**
+     * Объединяет значения атрибута мест в список через запятую
+     *
+     * @param places    места
+     * @param attribute атрибут места
+     * @return значения через запятую
+     */
+    private static String joinPlaces(List<Place> places, Function<Place, String> attribute) {
+        return places.stream().map(attribute).collect(Collectors.joining(","));
+    }
+
+    /**
+     * Запрашивает у сервера прогнозы погоды для места на указанное число дней
+     *
+     * @param place     место
+     * @param daysCount количество дней
+     * @return Mono с рядом прогнозов погоды по часам
+     */
+    private Mono<ForecastSeries> fetchForecast(Place place, int daysCount) {
+        return forecastMetrics.timed(webClient.get()
+                        .uri(uriBuilder -> uriBuilder
+                                .queryParam("latitude", place.latitude())
+                                .queryParam("longitude", place.longitude())
+                                .queryParam("hourly", "temperature_2m,apparent_temperature")
+                                .queryParam("timezone", place.timezone())
+                                .queryParam("forecast_days", daysCount)
+                                .build())
+                        .retrieve()
+                        .bodyToMono(byte[].class))
+                .map(response -> weatherForecastsDeserializer.parseJsonResponseToForecastSeries(place, response));
     }
 
 }
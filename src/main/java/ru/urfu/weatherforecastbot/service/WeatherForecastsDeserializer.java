@@ -1,58 +1,315 @@
 package ru.urfu.weatherforecastbot.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 
-import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
- * Десериализатор ответа сервера в список прогнозов погоды
+ * Десериализатор ответа сервера в ряд прогнозов погоды.
+ * <p>Читает ответ потоково, без построения дерева JSON: значения почасовых рядов записываются сразу в массивы
+ * примитивов, а время разбирается из символов токена без создания промежуточных строк</p>
+ * <p>Ответ на запрос прогноза для нескольких мест (списки координат через запятую) является массивом объектов
+ * в порядке переданных координат и разбирается за один проход в список рядов</p>
  */
 public class WeatherForecastsDeserializer {
 
     /**
-     * Форматировщик даты и времени для парсинга
+     * Фабрика потоковых JSON парсеров
      */
-    private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm");
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    /**
+     * Начальная емкость массивов рядов (прогноз на неделю по часам)
+     */
+    private static final int INITIAL_CAPACITY = 7 * 24;
+    /**
+     * Длина времени в формате "yyyy-MM-ddTHH:mm"
+     */
+    private static final int DATE_TIME_LENGTH = 16;
+    /**
+     * Количество секунд в сутках
+     */
+    private static final int SECONDS_IN_DAY = 24 * 60 * 60;
+    /**
+     * Шаг ряда из одного прогноза (в секундах)
+     */
+    private static final long DEFAULT_STEP_SECONDS = 60 * 60;
     /**
      * Сообщение исключения
      */
     private final static String EXCEPTION_MESSAGE = "Wrong json provided: ";
 
     /**
-     * Преобразует ответ сервера в список прогнозов погоды
+     * Преобразует ответ сервера в ряд прогнозов погоды
+     *
+     * @param place    место прогноза
+     * @param response тело ответа сервера
+     * @return ряд прогнозов погоды
+     * @throws IllegalArgumentException если ответ не содержит почасовых рядов, ряды разной длины или время прогнозов
+     *                                  идет с непостоянным шагом
+     */
+    public ForecastSeries parseJsonResponseToForecastSeries(Place place, byte[] response)
+            throws IllegalArgumentException {
+        HourlySeries series;
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            series = parser.nextToken() == JsonToken.START_OBJECT ? parseResponse(parser) : null;
+        } catch (IOException e) {
+            throw new IllegalArgumentException(EXCEPTION_MESSAGE + new String(response, StandardCharsets.UTF_8), e);
+        }
+        return toForecastSeries(place, series, response);
+    }
+
+    /**
+     * Преобразует ответ сервера на запрос прогноза для нескольких мест в ряды прогнозов погоды. Ответ для одного
+     * места может быть как массивом из одного объекта, так и самим объектом
      *
-     * @param response ответ сервера
-     * @return список прогнозов погоды
+     * @param places   места прогноза в порядке координат запроса
+     * @param response тело ответа сервера
+     * @return ряды прогнозов погоды в порядке мест
+     * @throws IllegalArgumentException если количество рядов в ответе не совпадает с количеством мест, ответ не
+     *                                  содержит почасовых рядов, ряды разной длины или время прогнозов идет с
+     *                                  непостоянным шагом
      */
-    public List<WeatherForecast> parseJsonResponseToWeatherForecasts(Place place, JsonNode response)
+    public List<ForecastSeries> parseJsonResponseToForecastSeriesList(List<Place> places, byte[] response)
             throws IllegalArgumentException {
-        JsonNode hourlyData = response.get("hourly");
-        if (hourlyData == null) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE + response);
-        }
-        JsonNode times = hourlyData.get("time");
-        JsonNode temperatures = hourlyData.get("temperature_2m");
-        JsonNode feelsLikeTemperatures = hourlyData.get("apparent_temperature");
-        if (times == null || temperatures == null || feelsLikeTemperatures == null
-                || times.size() != temperatures.size()
-                || times.size() != feelsLikeTemperatures.size()) {
-            throw new IllegalArgumentException(EXCEPTION_MESSAGE + response);
-        }
-        List<WeatherForecast> forecasts = new ArrayList<>(times.size());
-        for (int i = 0; i < times.size(); i++) {
-            forecasts.add(new WeatherForecast(
-                    place,
-                    LocalDateTime.parse(times.get(i).asText(), dateTimeFormatter),
-                    temperatures.get(i).asDouble(),
-                    feelsLikeTemperatures.get(i).asDouble()
-            ));
+        List<HourlySeries> seriesList = new ArrayList<>(places.size());
+        try (JsonParser parser = JSON_FACTORY.createParser(response)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                seriesList.add(parseResponse(parser));
+            } else if (token == JsonToken.START_ARRAY) {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    seriesList.add(parseResponse(parser));
+                }
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException(EXCEPTION_MESSAGE + new String(response, StandardCharsets.UTF_8), e);
+        }
+        if (seriesList.size() != places.size()) {
+            throw new IllegalArgumentException(EXCEPTION_MESSAGE + new String(response, StandardCharsets.UTF_8));
+        }
+        List<ForecastSeries> forecasts = new ArrayList<>(places.size());
+        for (int i = 0; i < places.size(); i++) {
+            forecasts.add(toForecastSeries(places.get(i), seriesList.get(i), response));
         }
         return forecasts;
     }
 
+    /**
+     * Преобразует почасовые ряды ответа в ряд прогнозов погоды
+     *
+     * @param place    место прогноза
+     * @param series   почасовые ряды ответа
+     * @param response тело ответа сервера (для сообщения исключения)
+     * @return ряд прогнозов погоды
+     * @throws IllegalArgumentException если рядов нет, ряды разной длины или время прогнозов идет с непостоянным
+     *                                  шагом
+     */
+    private ForecastSeries toForecastSeries(Place place, HourlySeries series, byte[] response)
+            throws IllegalArgumentException {
+        if (series == null || !series.isComplete()) {
+            throw new IllegalArgumentException(EXCEPTION_MESSAGE + new String(response, StandardCharsets.UTF_8));
+        }
+        long[] times = series.times;
+        if (times.length == 0) {
+            return ForecastSeries.empty();
+        }
+        long stepSeconds = times.length > 1 ? times[1] - times[0] : DEFAULT_STEP_SECONDS;
+        for (int i = 1; i < times.length; i++) {
+            if (stepSeconds <= 0 || times[i] - times[i - 1] != stepSeconds) {
+                throw new IllegalArgumentException(EXCEPTION_MESSAGE + new String(response, StandardCharsets.UTF_8));
+            }
+        }
+        return new ForecastSeries(
+                place,
+                LocalDateTime.ofEpochSecond(times[0], 0, ZoneOffset.UTC),
+                Duration.ofSeconds(stepSeconds),
+                series.temperatures,
+                series.feelsLikeTemperatures
+        );
+    }
+
+    /**
+     * Читает объект ответа и извлекает из него почасовые ряды
+     *
+     * @param parser JSON парсер, стоящий на начале объекта
+     * @return почасовые ряды или null, если их нет в ответе
+     * @throws IOException если JSON некорректен
+     */
+    private HourlySeries parseResponse(JsonParser parser) throws IOException {
+        HourlySeries series = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("hourly".equals(fieldName) && value == JsonToken.START_OBJECT) {
+                series = parseHourly(parser);
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Читает объект почасовых рядов
+     *
+     * @param parser JSON парсер, стоящий на начале объекта
+     * @return почасовые ряды
+     * @throws IOException если JSON некорректен
+     */
+    private HourlySeries parseHourly(JsonParser parser) throws IOException {
+        HourlySeries series = new HourlySeries();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value != JsonToken.START_ARRAY) {
+                parser.skipChildren();
+                continue;
+            }
+            switch (fieldName) {
+                case "time" -> series.times = parseTimes(parser);
+                case "temperature_2m" -> series.temperatures = parseDoubles(parser);
+                case "apparent_temperature" -> series.feelsLikeTemperatures = parseDoubles(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Читает массив времени в формате "yyyy-MM-ddTHH:mm" в секунды эпохи (местное время как UTC)
+     *
+     * @param parser JSON парсер, стоящий на начале массива
+     * @return секунды эпохи
+     * @throws IOException если JSON некорректен или время в неверном формате
+     */
+    private long[] parseTimes(JsonParser parser) throws IOException {
+        long[] times = new long[INITIAL_CAPACITY];
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (token != JsonToken.VALUE_STRING) {
+                throw new IOException("Unexpected time value: " + parser.getText());
+            }
+            if (count == times.length) {
+                times = Arrays.copyOf(times, count * 2);
+            }
+            times[count++] = parseDateTime(parser.getTextCharacters(), parser.getTextOffset(),
+                    parser.getTextLength());
+        }
+        return Arrays.copyOf(times, count);
+    }
+
+    /**
+     * Читает массив чисел. Отсутствующие значения (null) записываются как NaN
+     *
+     * @param parser JSON парсер, стоящий на начале массива
+     * @return значения
+     * @throws IOException если JSON некорректен
+     */
+    private double[] parseDoubles(JsonParser parser) throws IOException {
+        double[] values = new double[INITIAL_CAPACITY];
+        int count = 0;
+        JsonToken token;
+        while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+            if (count == values.length) {
+                values = Arrays.copyOf(values, count * 2);
+            }
+            if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+                values[count++] = parser.getDoubleValue();
+            } else if (token == JsonToken.VALUE_NULL) {
+                values[count++] = Double.NaN;
+            } else {
+                throw new IOException("Unexpected numeric value: " + parser.getText());
+            }
+        }
+        return Arrays.copyOf(values, count);
+    }
+
+    /**
+     * Разбирает время в формате "yyyy-MM-ddTHH:mm" в секунды эпохи (местное время как UTC)
+     *
+     * @param chars  символы
+     * @param offset начало времени в массиве символов
+     * @param length длина времени
+     * @return секунды эпохи
+     * @throws IOException если время в неверном формате
+     */
+    private static long parseDateTime(char[] chars, int offset, int length) throws IOException {
+        if (length != DATE_TIME_LENGTH || chars[offset + 4] != '-' || chars[offset + 7] != '-'
+                || chars[offset + 10] != 'T' || chars[offset + 13] != ':') {
+            throw new IOException("Unexpected time value: " + new String(chars, offset, length));
+        }
+        int year = parseDigits(chars, offset, 4);
+        int month = parseDigits(chars, offset + 5, 2);
+        int day = parseDigits(chars, offset + 8, 2);
+        int hour = parseDigits(chars, offset + 11, 2);
+        int minute = parseDigits(chars, offset + 14, 2);
+        try {
+            return LocalDate.of(year, month, day).toEpochDay() * SECONDS_IN_DAY
+                    + LocalTime.of(hour, minute).toSecondOfDay();
+        } catch (DateTimeException e) {
+            throw new IOException(e);
+        }
+    }
+
+    /**
+     * Разбирает неотрицательное десятичное число фиксированной длины
+     *
+     * @param chars  символы
+     * @param offset начало числа
+     * @param length количество цифр
+     * @return число
+     * @throws IOException если встретился символ, не являющийся цифрой
+     */
+    private static int parseDigits(char[] chars, int offset, int length) throws IOException {
+        int value = 0;
+        for (int i = offset; i < offset + length; i++) {
+            int digit = chars[i] - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Unexpected digit: " + chars[i]);
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Почасовые ряды ответа сервера
+     */
+    private static class HourlySeries {
+
+        /**
+         * Время (секунды эпохи, местное время как UTC)
+         */
+        private long[] times;
+        /**
+         * Температура
+         */
+        private double[] temperatures;
+        /**
+         * Температура по ощущению
+         */
+        private double[] feelsLikeTemperatures;
+
+        /**
+         * Проверяет, что все ряды присутствуют и имеют одинаковую длину
+         *
+         * @return true, если ряды корректны
+         */
+        private boolean isComplete() {
+            return times != null && temperatures != null && feelsLikeTemperatures != null
+                    && times.length == temperatures.length && times.length == feelsLikeTemperatures.length;
+        }
+
+    }
+
 }
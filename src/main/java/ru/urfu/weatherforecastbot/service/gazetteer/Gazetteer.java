@@ -0,0 +1,236 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import ru.urfu.weatherforecastbot.model.Place;
+import ru.urfu.weatherforecastbot.util.PlaceNameNormalizer;
+
+import java.util.*;
+
+/**
+ * Справочник мест с поиском по названию.
+ * <p>Справочник хранит отсортированный список нормализованных названий, каждому из которых соответствует одно
+ * место (при совпадении названий разных мест остается место с наибольшим населением). Точный поиск и поиск по
+ * префиксу выполняются двоичным поиском, нечеткий поиск - перебором названий на ту же букву с подходящей длиной.
+ * Способ хранения названий и мест определяют наследники</p>
+ */
+public abstract class Gazetteer {
+
+    /**
+     * Минимальная длина названия, при которой нечеткий поиск допускает одну ошибку
+     */
+    private static final int ONE_TYPO_MIN_LENGTH = 4;
+    /**
+     * Минимальная длина названия, при которой нечеткий поиск допускает две ошибки
+     */
+    private static final int TWO_TYPOS_MIN_LENGTH = 8;
+
+    /**
+     * Возвращает количество названий в справочнике
+     *
+     * @return количество названий
+     */
+    public abstract int size();
+
+    /**
+     * Сравнивает нормализованное название с указанным индексом с ключом в порядке {@link String#compareTo(String)}
+     *
+     * @param index индекс названия
+     * @param key   ключ
+     * @return отрицательное число, ноль или положительное число, если название меньше ключа, равно ему или больше
+     */
+    protected abstract int compareName(int index, String key);
+
+    /**
+     * Возвращает нормализованное название
+     *
+     * @param index индекс названия
+     * @return нормализованное название
+     */
+    protected abstract String getName(int index);
+
+    /**
+     * Возвращает место, соответствующее названию
+     *
+     * @param index индекс названия
+     * @return место
+     */
+    protected abstract Place getPlace(int index);
+
+    /**
+     * Возвращает население места, соответствующего названию
+     *
+     * @param index индекс названия
+     * @return население
+     */
+    protected abstract long getPopulation(int index);
+
+    /**
+     * Находит место по точному (с точностью до нормализации) названию
+     *
+     * @param name название места
+     * @return место или пустой Optional, если его нет в справочнике
+     */
+    public Optional<Place> find(String name) {
+        String key = PlaceNameNormalizer.normalize(name);
+        int index = lowerBound(key);
+        if (index < size() && compareName(index, key) == 0) {
+            return Optional.of(getPlace(index));
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Находит места, названия которых начинаются с указанного префикса, в порядке убывания населения
+     *
+     * @param prefix префикс названия
+     * @param limit  максимальное количество мест
+     * @return места
+     */
+    public List<Place> findByPrefix(String prefix, int limit) {
+        String key = PlaceNameNormalizer.normalize(prefix);
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        int from = lowerBound(key);
+        int to = lowerBound(key + Character.MAX_VALUE);
+        Integer[] indexes = new Integer[to - from];
+        for (int i = from; i < to; i++) {
+            indexes[i - from] = i;
+        }
+        Arrays.sort(indexes, Comparator.comparingLong(this::getPopulation).reversed());
+        List<Place> places = new ArrayList<>(Math.min(limit, indexes.length));
+        for (int i = 0; i < indexes.length && i < limit; i++) {
+            places.add(getPlace(indexes[i]));
+        }
+        return places;
+    }
+
+    /**
+     * Находит место по названию с опечатками: ищется название на ту же букву с наименьшим расстоянием
+     * Дамерау-Левенштейна (не больше одной ошибки для названий от 4 символов и двух - от 8 символов), а среди
+     * равноудаленных - место с наибольшим населением
+     *
+     * @param name название места
+     * @return место или пустой Optional, если похожего названия нет в справочнике
+     */
+    public Optional<Place> findSimilar(String name) {
+        String key = PlaceNameNormalizer.normalize(name);
+        int maxDistance = key.length() >= TWO_TYPOS_MIN_LENGTH ? 2 : key.length() >= ONE_TYPO_MIN_LENGTH ? 1 : 0;
+        if (maxDistance == 0) {
+            return Optional.empty();
+        }
+        int from = lowerBound(key.substring(0, 1));
+        int to = lowerBound(String.valueOf((char) (key.charAt(0) + 1)));
+        int bestIndex = -1;
+        int bestDistance = maxDistance + 1;
+        for (int i = from; i < to; i++) {
+            String candidate = getName(i);
+            if (Math.abs(candidate.length() - key.length()) > maxDistance) {
+                continue;
+            }
+            int distance = distance(key, candidate, maxDistance);
+            if (distance < bestDistance
+                    || distance == bestDistance && bestIndex >= 0 && getPopulation(i) > getPopulation(bestIndex)) {
+                bestIndex = i;
+                bestDistance = distance;
+            }
+        }
+        return bestIndex >= 0 ? Optional.of(getPlace(bestIndex)) : Optional.empty();
+    }
+
+    /**
+     * Находит индекс первого названия, не меньшего ключа
+     *
+     * @param key ключ
+     * @return индекс названия или размер справочника, если все названия меньше ключа
+     */
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (compareName(middle, key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Вычисляет расстояние Дамерау-Левенштейна (с перестановками соседних символов) между строками, прекращая
+     * вычисление, как только оно превысит максимальное
+     *
+     * @param first       первая строка
+     * @param second      вторая строка
+     * @param maxDistance максимальное расстояние
+     * @return расстояние или число, большее максимального
+     */
+    static int distance(String first, String second, int maxDistance) {
+        int[] beforePreviousRow = new int[second.length() + 1];
+        int[] previousRow = new int[second.length() + 1];
+        int[] row = new int[second.length() + 1];
+        for (int j = 0; j <= second.length(); j++) {
+            row[j] = j;
+        }
+        int rowMinimum = 0;
+        for (int i = 1; i <= first.length(); i++) {
+            int[] reused = beforePreviousRow;
+            beforePreviousRow = previousRow;
+            previousRow = row;
+            row = reused;
+            row[0] = i;
+            int previousRowMinimum = rowMinimum;
+            rowMinimum = i;
+            for (int j = 1; j <= second.length(); j++) {
+                int cost = first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(row[j - 1] + 1, previousRow[j] + 1), previousRow[j - 1] + cost);
+                if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                        && first.charAt(i - 2) == second.charAt(j - 1)) {
+                    value = Math.min(value, beforePreviousRow[j - 2] + 1);
+                }
+                row[j] = value;
+                rowMinimum = Math.min(rowMinimum, value);
+            }
+            if (rowMinimum > maxDistance && previousRowMinimum > maxDistance) {
+                return maxDistance + 1;
+            }
+        }
+        return row[second.length()];
+    }
+
+    /**
+     * Составляет отсортированный список нормализованных названий мест справочника. Если одно название
+     * принадлежит нескольким местам, остается место с наибольшим населением
+     *
+     * @param records записи справочника
+     * @return названия, отсортированные в порядке {@link String#compareTo(String)}
+     */
+    static List<IndexedName> indexNames(List<GazetteerRecord> records) {
+        Map<String, IndexedName> names = new HashMap<>();
+        for (int recordIndex = 0; recordIndex < records.size(); recordIndex++) {
+            GazetteerRecord record = records.get(recordIndex);
+            for (String name : record.names()) {
+                IndexedName indexedName = new IndexedName(PlaceNameNormalizer.normalize(name), name, recordIndex);
+                names.merge(indexedName.key(), indexedName, (existing, added) -> {
+                    long existingPopulation = records.get(existing.recordIndex()).population();
+                    return records.get(added.recordIndex()).population() > existingPopulation ? added : existing;
+                });
+            }
+        }
+        List<IndexedName> sortedNames = new ArrayList<>(names.values());
+        sortedNames.sort(Comparator.comparing(IndexedName::key));
+        return sortedNames;
+    }
+
+    /**
+     * Название места в справочнике
+     *
+     * @param key         нормализованное название
+     * @param displayName название в исходном виде
+     * @param recordIndex индекс записи справочника
+     */
+    record IndexedName(String key, String displayName, int recordIndex) {
+    }
+
+}
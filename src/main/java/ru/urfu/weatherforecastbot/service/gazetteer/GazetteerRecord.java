@@ -0,0 +1,16 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import java.util.List;
+
+/**
+ * Запись справочника мест
+ *
+ * @param names      названия места (основное название и варианты на других языках)
+ * @param latitude   широта
+ * @param longitude  долгота
+ * @param timezone   часовой пояс
+ * @param population население (используется для выбора среди одноименных мест)
+ */
+public record GazetteerRecord(List<String> names, double latitude, double longitude, String timezone,
+                              long population) {
+}
@@ -0,0 +1,191 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Двоичный снимок справочника мест, открываемый {@link MappedGazetteer}.
+ * <p>Снимок состоит из заголовка, таблицы мест (записи фиксированной длины: широта, долгота, население и индекс
+ * часового пояса), таблицы названий (записи фиксированной длины: смещения нормализованного и исходного названий и
+ * индекс места) в порядке {@link String#compareTo(String)}, таблицы смещений часовых поясов и области строк.
+ * Строки хранятся в формате {@link DataOutput#writeUTF(String)}, поэтому посимвольное сравнение строк снимка с
+ * ключом не требует их декодирования в объекты. Все числа записываются в порядке big-endian</p>
+ * <p>Снимок строится заранее из выгрузки GeoNames:
+ * {@code mvn -P gazetteer compile exec:exec -Dgazetteer.source=cities15000.txt -Dgazetteer.snapshot=gazetteer.bin}</p>
+ */
+public final class GazetteerSnapshot {
+
+    /**
+     * Сигнатура файла снимка ("GZTR")
+     */
+    static final int MAGIC = 0x475A5452;
+    /**
+     * Версия формата снимка
+     */
+    static final int VERSION = 1;
+    /**
+     * Размер заголовка: сигнатура, версия, количество мест, названий и часовых поясов
+     */
+    static final int HEADER_SIZE = 5 * Integer.BYTES;
+    /**
+     * Размер записи места: широта, долгота, население, индекс часового пояса и выравнивание
+     */
+    static final int PLACE_RECORD_SIZE = 2 * Double.BYTES + Long.BYTES + 2 * Integer.BYTES;
+    /**
+     * Размер записи названия: смещение нормализованного названия, смещение исходного названия и индекс места
+     */
+    static final int NAME_RECORD_SIZE = 3 * Integer.BYTES;
+    /**
+     * Размер записи часового пояса: смещение названия часового пояса
+     */
+    static final int TIMEZONE_RECORD_SIZE = Integer.BYTES;
+
+    private GazetteerSnapshot() {
+    }
+
+    /**
+     * Строит снимок справочника из выгрузки городов GeoNames
+     *
+     * @param args путь к выгрузке GeoNames и путь к файлу снимка
+     * @throws IOException если выгрузку не удалось прочитать или снимок не удалось записать
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: GazetteerSnapshot <GeoNames dump> <snapshot file>");
+            System.exit(1);
+        }
+        List<GazetteerRecord> records = GeoNamesReader.read(Path.of(args[0]));
+        write(records, Path.of(args[1]));
+        System.out.printf("Written %d places to %s%n", records.size(), args[1]);
+    }
+
+    /**
+     * Проверяет, является ли файл снимком справочника
+     *
+     * @param path путь к файлу
+     * @return true, если файл начинается с сигнатуры снимка
+     * @throws IOException если файл не удалось прочитать
+     */
+    public static boolean isSnapshot(Path path) throws IOException {
+        try (DataInputStream input = new DataInputStream(Files.newInputStream(path))) {
+            return input.readInt() == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Записывает снимок справочника в файл
+     *
+     * @param records записи справочника мест
+     * @param path    путь к файлу снимка
+     * @throws IOException              если снимок не удалось записать
+     * @throws IllegalArgumentException если название не помещается в формат снимка
+     */
+    public static void write(List<GazetteerRecord> records, Path path) throws IOException, IllegalArgumentException {
+        List<Gazetteer.IndexedName> names = Gazetteer.indexNames(records);
+        StringArea strings = new StringArea();
+        int[] keyOffsets = new int[names.size()];
+        int[] displayNameOffsets = new int[names.size()];
+        for (int i = 0; i < names.size(); i++) {
+            keyOffsets[i] = strings.add(names.get(i).key());
+            displayNameOffsets[i] = strings.add(names.get(i).displayName());
+        }
+        Map<String, Integer> timezoneIndexes = new HashMap<>();
+        List<String> timezones = new ArrayList<>();
+        for (GazetteerRecord record : records) {
+            timezoneIndexes.computeIfAbsent(record.timezone(), timezone -> {
+                timezones.add(timezone);
+                return timezones.size() - 1;
+            });
+        }
+        int[] timezoneOffsets = new int[timezones.size()];
+        for (int i = 0; i < timezones.size(); i++) {
+            timezoneOffsets[i] = strings.add(timezones.get(i));
+        }
+
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)))) {
+            output.writeInt(MAGIC);
+            output.writeInt(VERSION);
+            output.writeInt(records.size());
+            output.writeInt(names.size());
+            output.writeInt(timezones.size());
+            for (GazetteerRecord record : records) {
+                output.writeDouble(record.latitude());
+                output.writeDouble(record.longitude());
+                output.writeLong(record.population());
+                output.writeInt(timezoneIndexes.get(record.timezone()));
+                output.writeInt(0);
+            }
+            for (int i = 0; i < names.size(); i++) {
+                output.writeInt(keyOffsets[i]);
+                output.writeInt(displayNameOffsets[i]);
+                output.writeInt(names.get(i).recordIndex());
+            }
+            for (int timezoneOffset : timezoneOffsets) {
+                output.writeInt(timezoneOffset);
+            }
+            strings.writeTo(output);
+        }
+    }
+
+    /**
+     * Область строк снимка. Одинаковые строки записываются один раз
+     */
+    private static final class StringArea {
+
+        /**
+         * Записанные строки
+         */
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        /**
+         * Поток для записи строк
+         */
+        private final DataOutputStream output = new DataOutputStream(bytes);
+        /**
+         * Смещения записанных строк
+         */
+        private final Map<String, Integer> offsets = new HashMap<>();
+
+        /**
+         * Добавляет строку в область
+         *
+         * @param string строка
+         * @return смещение строки от начала области
+         * @throws IllegalArgumentException если строка слишком длинная
+         */
+        int add(String string) throws IllegalArgumentException {
+            Integer offset = offsets.get(string);
+            if (offset != null) {
+                return offset;
+            }
+            int newOffset = bytes.size();
+            try {
+                output.writeUTF(string);
+            } catch (UTFDataFormatException e) {
+                throw new IllegalArgumentException("Too long name provided: " + string, e);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            offsets.put(string, newOffset);
+            return newOffset;
+        }
+
+        /**
+         * Записывает область строк в поток
+         *
+         * @param stream поток
+         * @throws IOException если область не удалось записать
+         */
+        void writeTo(OutputStream stream) throws IOException {
+            bytes.writeTo(stream);
+        }
+
+    }
+
+}
@@ -0,0 +1,182 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.Character.UnicodeScript;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Читатель выгрузки городов GeoNames (файлы вида cities15000.txt).
+ * <p>Каждая строка выгрузки содержит поля, разделенные табуляцией: идентификатор, название, название в ASCII,
+ * альтернативные названия через запятую, широту, долготу, ..., население (15-е поле), ..., часовой пояс
+ * (18-е поле). Из альтернативных названий сохраняются только записанные латиницей или кириллицей, так как бот
+ * принимает названия на русском и английском языках</p>
+ */
+public final class GeoNamesReader {
+
+    /**
+     * Разделитель полей
+     */
+    private static final char FIELD_SEPARATOR = '\t';
+    /**
+     * Разделитель альтернативных названий
+     */
+    private static final String ALTERNATE_NAMES_SEPARATOR = ",";
+    /**
+     * Номер поля названия
+     */
+    private static final int NAME_FIELD = 1;
+    /**
+     * Номер поля названия в ASCII
+     */
+    private static final int ASCII_NAME_FIELD = 2;
+    /**
+     * Номер поля альтернативных названий
+     */
+    private static final int ALTERNATE_NAMES_FIELD = 3;
+    /**
+     * Номер поля широты
+     */
+    private static final int LATITUDE_FIELD = 4;
+    /**
+     * Номер поля долготы
+     */
+    private static final int LONGITUDE_FIELD = 5;
+    /**
+     * Номер поля населения
+     */
+    private static final int POPULATION_FIELD = 14;
+    /**
+     * Номер поля часового пояса
+     */
+    private static final int TIMEZONE_FIELD = 17;
+    /**
+     * Количество полей, необходимых для чтения записи
+     */
+    private static final int REQUIRED_FIELDS_COUNT = TIMEZONE_FIELD + 1;
+
+    private GeoNamesReader() {
+    }
+
+    /**
+     * Читает выгрузку GeoNames из файла в кодировке UTF-8
+     *
+     * @param path путь к файлу выгрузки
+     * @return записи справочника мест
+     * @throws IOException              если файл не удалось прочитать
+     * @throws IllegalArgumentException если строка выгрузки имеет неверный формат
+     */
+    public static List<GazetteerRecord> read(Path path) throws IOException, IllegalArgumentException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return read(reader);
+        }
+    }
+
+    /**
+     * Читает выгрузку GeoNames
+     *
+     * @param reader источник строк выгрузки
+     * @return записи справочника мест
+     * @throws IOException              если выгрузку не удалось прочитать
+     * @throws IllegalArgumentException если строка выгрузки имеет неверный формат
+     */
+    public static List<GazetteerRecord> read(BufferedReader reader) throws IOException, IllegalArgumentException {
+        List<GazetteerRecord> records = new ArrayList<>();
+        String[] fields = new String[REQUIRED_FIELDS_COUNT];
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            if (splitFields(line, fields) < REQUIRED_FIELDS_COUNT || fields[TIMEZONE_FIELD].isEmpty()) {
+                throw new IllegalArgumentException("Wrong GeoNames line provided: " + line);
+            }
+            records.add(parseRecord(fields, line));
+        }
+        return records;
+    }
+
+    /**
+     * Преобразует поля строки выгрузки в запись справочника
+     *
+     * @param fields поля строки
+     * @param line   строка (для сообщения исключения)
+     * @return запись справочника мест
+     * @throws IllegalArgumentException если координаты или население имеют неверный формат
+     */
+    private static GazetteerRecord parseRecord(String[] fields, String line) throws IllegalArgumentException {
+        Set<String> names = new LinkedHashSet<>();
+        names.add(fields[NAME_FIELD]);
+        names.add(fields[ASCII_NAME_FIELD]);
+        for (String alternateName : fields[ALTERNATE_NAMES_FIELD].split(ALTERNATE_NAMES_SEPARATOR)) {
+            if (isLatinOrCyrillic(alternateName)) {
+                names.add(alternateName);
+            }
+        }
+        names.removeIf(String::isBlank);
+        try {
+            return new GazetteerRecord(
+                    List.copyOf(names),
+                    Double.parseDouble(fields[LATITUDE_FIELD]),
+                    Double.parseDouble(fields[LONGITUDE_FIELD]),
+                    fields[TIMEZONE_FIELD].intern(),
+                    fields[POPULATION_FIELD].isEmpty() ? 0 : Long.parseLong(fields[POPULATION_FIELD])
+            );
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Wrong GeoNames line provided: " + line, e);
+        }
+    }
+
+    /**
+     * Разбивает строку на поля, заполняя не больше полей, чем помещается в массив
+     *
+     * @param line   строка
+     * @param fields массив полей
+     * @return количество заполненных полей
+     */
+    private static int splitFields(String line, String[] fields) {
+        int count = 0;
+        int start = 0;
+        while (count < fields.length) {
+            int end = line.indexOf(FIELD_SEPARATOR, start);
+            fields[count++] = end < 0 ? line.substring(start) : line.substring(start, end);
+            if (end < 0) {
+                break;
+            }
+            start = end + 1;
+        }
+        return count;
+    }
+
+    /**
+     * Проверяет, что название записано латиницей или кириллицей (допускаются также пробелы, дефисы, точки и
+     * апострофы)
+     *
+     * @param name название
+     * @return true, если название записано латиницей или кириллицей
+     */
+    private static boolean isLatinOrCyrillic(String name) {
+        if (name.isBlank()) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (Character.isLetter(c)) {
+                UnicodeScript script = UnicodeScript.of(c);
+                if (script != UnicodeScript.LATIN && script != UnicodeScript.CYRILLIC) {
+                    return false;
+                }
+            } else if (c != ' ' && c != '-' && c != '.' && c != '\'') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
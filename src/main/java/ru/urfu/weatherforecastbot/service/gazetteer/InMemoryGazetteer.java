@@ -0,0 +1,122 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Справочник мест, хранящийся в памяти.
+ * <p>Названия хранятся в отсортированном массиве, а данные мест - по столбцам в массивах примитивов, поэтому
+ * справочник на сотни тысяч названий занимает несколько массивов, а не объект на каждое название</p>
+ */
+public final class InMemoryGazetteer extends Gazetteer {
+
+    /**
+     * Нормализованные названия в порядке {@link String#compareTo(String)}
+     */
+    private final String[] names;
+    /**
+     * Названия в исходном виде
+     */
+    private final String[] displayNames;
+    /**
+     * Индексы мест, соответствующих названиям
+     */
+    private final int[] placeIndexes;
+    /**
+     * Широты мест
+     */
+    private final double[] latitudes;
+    /**
+     * Долготы мест
+     */
+    private final double[] longitudes;
+    /**
+     * Часовые пояса мест
+     */
+    private final String[] timezones;
+    /**
+     * Население мест
+     */
+    private final long[] populations;
+
+    /**
+     * Создает справочник по записям
+     *
+     * @param records записи справочника мест
+     */
+    private InMemoryGazetteer(List<GazetteerRecord> records) {
+        List<IndexedName> indexedNames = indexNames(records);
+        names = new String[indexedNames.size()];
+        displayNames = new String[indexedNames.size()];
+        placeIndexes = new int[indexedNames.size()];
+        for (int i = 0; i < indexedNames.size(); i++) {
+            IndexedName indexedName = indexedNames.get(i);
+            names[i] = indexedName.key();
+            displayNames[i] = indexedName.displayName();
+            placeIndexes[i] = indexedName.recordIndex();
+        }
+        latitudes = new double[records.size()];
+        longitudes = new double[records.size()];
+        timezones = new String[records.size()];
+        populations = new long[records.size()];
+        for (int i = 0; i < records.size(); i++) {
+            GazetteerRecord record = records.get(i);
+            latitudes[i] = record.latitude();
+            longitudes[i] = record.longitude();
+            timezones[i] = record.timezone();
+            populations[i] = record.population();
+        }
+    }
+
+    /**
+     * Создает справочник по записям
+     *
+     * @param records записи справочника мест
+     * @return справочник мест
+     */
+    public static InMemoryGazetteer of(List<GazetteerRecord> records) {
+        return new InMemoryGazetteer(records);
+    }
+
+    /**
+     * Загружает справочник из выгрузки городов GeoNames
+     *
+     * @param path путь к файлу выгрузки
+     * @return справочник мест
+     * @throws IOException              если файл не удалось прочитать
+     * @throws IllegalArgumentException если выгрузка имеет неверный формат
+     */
+    public static InMemoryGazetteer load(Path path) throws IOException, IllegalArgumentException {
+        return new InMemoryGazetteer(GeoNamesReader.read(path));
+    }
+
+    @Override
+    public int size() {
+        return names.length;
+    }
+
+    @Override
+    protected int compareName(int index, String key) {
+        return names[index].compareTo(key);
+    }
+
+    @Override
+    protected String getName(int index) {
+        return names[index];
+    }
+
+    @Override
+    protected Place getPlace(int index) {
+        int placeIndex = placeIndexes[index];
+        return new Place(displayNames[index], latitudes[placeIndex], longitudes[placeIndex], timezones[placeIndex]);
+    }
+
+    @Override
+    protected long getPopulation(int index) {
+        return populations[placeIndexes[index]];
+    }
+
+}
@@ -0,0 +1,189 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static ru.urfu.weatherforecastbot.service.gazetteer.GazetteerSnapshot.*;
+
+/**
+ * Справочник мест, отображенный в память из {@link GazetteerSnapshot двоичного снимка}.
+ * <p>Файл снимка отображается через {@link FileChannel#map}, поэтому открытие справочника не зависит от его
+ * размера, а названия сравниваются с ключом прямо в отображенной памяти без создания объектов. Страницы файла
+ * загружаются операционной системой по мере обращения к ним и не занимают кучу</p>
+ */
+public final class MappedGazetteer extends Gazetteer {
+
+    /**
+     * Отображенный в память файл снимка
+     */
+    private final ByteBuffer buffer;
+    /**
+     * Количество названий
+     */
+    private final int namesCount;
+    /**
+     * Смещение таблицы мест
+     */
+    private final int placesOffset;
+    /**
+     * Смещение таблицы названий
+     */
+    private final int namesOffset;
+    /**
+     * Смещение таблицы часовых поясов
+     */
+    private final int timezonesOffset;
+    /**
+     * Смещение области строк
+     */
+    private final int stringsOffset;
+    /**
+     * Названия часовых поясов (их немного, поэтому они читаются при открытии)
+     */
+    private final String[] timezones;
+
+    /**
+     * Создает справочник по отображенному в память снимку
+     *
+     * @param buffer снимок справочника
+     * @throws IllegalArgumentException если снимок имеет неверный формат
+     */
+    private MappedGazetteer(ByteBuffer buffer) throws IllegalArgumentException {
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Wrong gazetteer snapshot provided");
+        }
+        if (buffer.getInt(Integer.BYTES) != VERSION) {
+            throw new IllegalArgumentException("Unsupported gazetteer snapshot version: "
+                    + buffer.getInt(Integer.BYTES));
+        }
+        this.buffer = buffer;
+        int placesCount = buffer.getInt(2 * Integer.BYTES);
+        namesCount = buffer.getInt(3 * Integer.BYTES);
+        int timezonesCount = buffer.getInt(4 * Integer.BYTES);
+        placesOffset = HEADER_SIZE;
+        namesOffset = placesOffset + placesCount * PLACE_RECORD_SIZE;
+        timezonesOffset = namesOffset + namesCount * NAME_RECORD_SIZE;
+        stringsOffset = timezonesOffset + timezonesCount * TIMEZONE_RECORD_SIZE;
+        if (stringsOffset > buffer.capacity()) {
+            throw new IllegalArgumentException("Truncated gazetteer snapshot provided");
+        }
+        timezones = new String[timezonesCount];
+        for (int i = 0; i < timezonesCount; i++) {
+            timezones[i] = readString(buffer.getInt(timezonesOffset + i * TIMEZONE_RECORD_SIZE));
+        }
+    }
+
+    /**
+     * Открывает снимок справочника. Файл остается отображенным в память, пока справочник используется
+     *
+     * @param path путь к файлу снимка
+     * @return справочник мест
+     * @throws IOException              если файл не удалось открыть
+     * @throws IllegalArgumentException если снимок имеет неверный формат
+     */
+    public static MappedGazetteer open(Path path) throws IOException, IllegalArgumentException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new MappedGazetteer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    @Override
+    public int size() {
+        return namesCount;
+    }
+
+    @Override
+    protected int compareName(int index, String key) {
+        int position = stringsOffset + buffer.getInt(namesOffset + index * NAME_RECORD_SIZE);
+        int end = position + Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+        position += Short.BYTES;
+        int keyIndex = 0;
+        while (position < end && keyIndex < key.length()) {
+            int result = Character.compare(charAt(position), key.charAt(keyIndex++));
+            if (result != 0) {
+                return result;
+            }
+            position += encodedLength(buffer.get(position));
+        }
+        if (position < end) {
+            return 1;
+        }
+        return keyIndex < key.length() ? -1 : 0;
+    }
+
+    @Override
+    protected String getName(int index) {
+        return readString(buffer.getInt(namesOffset + index * NAME_RECORD_SIZE));
+    }
+
+    @Override
+    protected Place getPlace(int index) {
+        int nameRecord = namesOffset + index * NAME_RECORD_SIZE;
+        int placeRecord = placesOffset + buffer.getInt(nameRecord + 2 * Integer.BYTES) * PLACE_RECORD_SIZE;
+        return new Place(
+                readString(buffer.getInt(nameRecord + Integer.BYTES)),
+                buffer.getDouble(placeRecord),
+                buffer.getDouble(placeRecord + Double.BYTES),
+                timezones[buffer.getInt(placeRecord + 2 * Double.BYTES + Long.BYTES)]
+        );
+    }
+
+    @Override
+    protected long getPopulation(int index) {
+        int placeIndex = buffer.getInt(namesOffset + index * NAME_RECORD_SIZE + 2 * Integer.BYTES);
+        return buffer.getLong(placesOffset + placeIndex * PLACE_RECORD_SIZE + 2 * Double.BYTES);
+    }
+
+    /**
+     * Читает строку из области строк
+     *
+     * @param offset смещение строки от начала области строк
+     * @return строка
+     */
+    private String readString(int offset) {
+        int position = stringsOffset + offset;
+        int end = position + Short.BYTES + Short.toUnsignedInt(buffer.getShort(position));
+        position += Short.BYTES;
+        StringBuilder builder = new StringBuilder(end - position);
+        while (position < end) {
+            builder.append(charAt(position));
+            position += encodedLength(buffer.get(position));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Декодирует символ строки в формате {@link java.io.DataOutput#writeUTF(String)}
+     *
+     * @param position позиция первого байта символа
+     * @return символ
+     */
+    private char charAt(int position) {
+        int first = buffer.get(position) & 0xFF;
+        return switch (encodedLength(buffer.get(position))) {
+            case 1 -> (char) first;
+            case 2 -> (char) ((first & 0x1F) << 6 | buffer.get(position + 1) & 0x3F);
+            default -> (char) ((first & 0x0F) << 12 | (buffer.get(position + 1) & 0x3F) << 6
+                    | buffer.get(position + 2) & 0x3F);
+        };
+    }
+
+    /**
+     * Возвращает количество байт, которыми закодирован символ строки
+     *
+     * @param first первый байт символа
+     * @return количество байт (от одного до трех)
+     */
+    private static int encodedLength(byte first) {
+        if ((first & 0x80) == 0) {
+            return 1;
+        }
+        return (first & 0xE0) == 0xC0 ? 2 : 3;
+    }
+
+}
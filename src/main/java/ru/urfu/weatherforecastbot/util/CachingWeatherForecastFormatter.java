@@ -0,0 +1,155 @@
+package ru.urfu.weatherforecastbot.util;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Кэширующий форматировщик прогнозов погоды.
+ * <p>Хранит готовый текст прогноза {@link WeatherForecastFormatter другого форматировщика} по месту, временному
+ * периоду и {@link ForecastSeries#version() версии данных} ряда. Когда кэш прогнозов загружает обновленные данные,
+ * у ряда меняется версия, и текст форматируется заново, а записи прежней версии больше не запрашиваются и
+ * вытесняются по времени хранения или размеру кэша. Таким образом, популярное место форматируется один раз на
+ * обновление данных, а не на каждый запрос</p>
+ * <p>Каждый вызов регистрируется как наблюдение {@code forecast.format} с тегом {@code cache} ({@code hit},
+ * {@code miss} или {@code bypass} для пустого ряда)</p>
+ */
+@Component
+public class CachingWeatherForecastFormatter implements WeatherForecastFormatter {
+
+    /**
+     * Форматировщик, к которому выполняются запросы при промахе кэша
+     */
+    private final WeatherForecastFormatter delegate;
+    /**
+     * Кэш отформатированных прогнозов
+     */
+    private final Cache<Key, String> cache;
+    /**
+     * Реестр наблюдений, в котором регистрируется форматирование
+     */
+    private final ObservationRegistry observationRegistry;
+
+    /**
+     * Создает экземпляр CachingWeatherForecastFormatter, используя в качестве форматировщика
+     * {@link WeatherForecastFormatterImpl}
+     *
+     * @param maximumSize         максимальное количество отформатированных прогнозов в кэше
+     * @param ttl                 время хранения отформатированного прогноза (не меньше интервала обновления данных)
+     * @param observationRegistry реестр наблюдений
+     * @param meterRegistry       реестр метрик
+     */
+    @Autowired
+    public CachingWeatherForecastFormatter(
+            @Value("${forecast.render-cache.maximum-size:10000}") long maximumSize,
+            @Value("${forecast.render-cache.ttl:${forecast.cache.update-interval:1h}}") Duration ttl,
+            ObservationRegistry observationRegistry, MeterRegistry meterRegistry) {
+        this(new WeatherForecastFormatterImpl(), maximumSize, ttl, Ticker.systemTicker(), observationRegistry,
+                meterRegistry);
+    }
+
+    /**
+     * Создает экземпляр CachingWeatherForecastFormatter, используя переданные аргументы и глобальный реестр
+     * метрик, без трассировки
+     *
+     * @param delegate    форматировщик прогнозов погоды
+     * @param maximumSize максимальное количество отформатированных прогнозов в кэше
+     * @param ttl         время хранения отформатированного прогноза
+     * @param ticker      источник времени для кэша
+     */
+    public CachingWeatherForecastFormatter(WeatherForecastFormatter delegate, long maximumSize, Duration ttl,
+                                           Ticker ticker) {
+        this(delegate, maximumSize, ttl, ticker, ObservationRegistry.NOOP, Metrics.globalRegistry);
+    }
+
+    /**
+     * Создает экземпляр CachingWeatherForecastFormatter, используя переданные аргументы
+     *
+     * @param delegate            форматировщик прогнозов погоды
+     * @param maximumSize         максимальное количество отформатированных прогнозов в кэше
+     * @param ttl                 время хранения отформатированного прогноза
+     * @param ticker              источник времени для кэша
+     * @param observationRegistry реестр наблюдений
+     * @param meterRegistry       реестр метрик
+     */
+    public CachingWeatherForecastFormatter(WeatherForecastFormatter delegate, long maximumSize, Duration ttl,
+                                           Ticker ticker, ObservationRegistry observationRegistry,
+                                           MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.observationRegistry = observationRegistry;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .ticker(ticker)
+                .executor(Runnable::run)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "forecast_format");
+    }
+
+    @Override
+    public String formatForecasts(ForecastTimePeriod timePeriod, ForecastSeries series)
+            throws IllegalArgumentException {
+        Observation observation = Observation.createNotStarted("forecast.format", observationRegistry)
+                .contextualName("format forecast");
+        return observation.observe(() -> {
+            if (series.isEmpty()) {
+                observation.lowCardinalityKeyValue("cache", "bypass");
+                return delegate.formatForecasts(timePeriod, series);
+            }
+            Key key = Key.of(timePeriod, series);
+            // Проверка без учета в статистике, чтобы каждое форматирование учитывалось в ней один раз
+            boolean cached = cache.policy().getIfPresentQuietly(key) != null;
+            observation.lowCardinalityKeyValue("cache", cached ? "hit" : "miss");
+            return cache.get(key, k -> delegate.formatForecasts(timePeriod, series));
+        });
+    }
+
+    /**
+     * Возвращает статистику кэша (количество попаданий, промахов и вытеснений)
+     *
+     * @return статистика кэша
+     */
+    public CacheStats getStats() {
+        return cache.stats();
+    }
+
+    /**
+     * Ключ кэша. Начало и размер ряда входят в ключ, чтобы разные срезы одних данных не смешивались
+     *
+     * @param place      место прогноза
+     * @param timePeriod временной период
+     * @param version    версия данных ряда
+     * @param start      дата и время первого прогноза
+     * @param size       количество прогнозов
+     */
+    private record Key(Place place, ForecastTimePeriod timePeriod, long version, LocalDateTime start, int size) {
+
+        /**
+         * Создает ключ кэша для ряда
+         *
+         * @param timePeriod временной период
+         * @param series     ряд прогнозов погоды
+         * @return ключ кэша
+         */
+        static Key of(ForecastTimePeriod timePeriod, ForecastSeries series) {
+            return new Key(series.place(), timePeriod, series.version(), series.start(), series.size());
+        }
+
+    }
+
+}
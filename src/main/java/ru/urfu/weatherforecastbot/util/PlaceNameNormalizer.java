@@ -0,0 +1,33 @@
+package ru.urfu.weatherforecastbot.util;
+
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Нормализатор названий мест.
+ * <p>Приводит названия, введенные пользователями, к единому виду, чтобы, например, "Екатеринбург",
+ * " екатеринбург " и "ЕКАТЕРИНБУРГ" считались одним и тем же местом</p>
+ */
+public final class PlaceNameNormalizer {
+
+    /**
+     * Шаблон последовательности пробельных символов
+     */
+    private static final Pattern WHITESPACES = Pattern.compile("\\s+");
+
+    private PlaceNameNormalizer() {
+    }
+
+    /**
+     * Нормализует название места: убирает пробелы по краям, схлопывает повторяющиеся пробелы, приводит к нижнему
+     * регистру и заменяет "ё" на "е"
+     *
+     * @param name название места
+     * @return нормализованное название места
+     */
+    public static String normalize(String name) {
+        String normalized = WHITESPACES.matcher(name.strip()).replaceAll(" ");
+        return normalized.toLowerCase(Locale.ROOT).replace('ё', 'е');
+    }
+
+}
@@ -0,0 +1,45 @@
+package ru.urfu.weatherforecastbot.util;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.contextpropagation.ObservationThreadLocalAccessor;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Supplier;
+
+/**
+ * Наблюдения за обработкой, результат которой приходит в Mono.
+ * <p>{@link Observation#observe(Supplier)} останавливает наблюдение при возврате из метода, то есть до получения
+ * результата. Здесь наблюдение остается открытым до завершения Mono, а в контекст Reactor записывается как
+ * родительское для наблюдений внутри цепочки, например запросов WebClient</p>
+ */
+public final class ReactiveObservations {
+
+    private ReactiveObservations() {
+    }
+
+    /**
+     * Запускает наблюдение, вызывает в его области действия метод, создающий Mono, и останавливает наблюдение при
+     * завершении, ошибке или отмене этого Mono
+     *
+     * @param observation наблюдение (еще не запущенное)
+     * @param supplier    метод, создающий Mono
+     * @param <T>         тип результата
+     * @return Mono с результатом, завершение которого останавливает наблюдение
+     */
+    public static <T> Mono<T> observe(Observation observation, Supplier<Mono<T>> supplier) {
+        observation.start();
+        Mono<T> mono;
+        try (Observation.Scope ignored = observation.openScope()) {
+            mono = supplier.get();
+        } catch (RuntimeException e) {
+            observation.error(e);
+            observation.stop();
+            return Mono.error(e);
+        }
+        return mono.doOnError(observation::error)
+                .doOnTerminate(observation::stop)
+                .doOnCancel(observation::stop)
+                .contextWrite(context -> context.put(ObservationThreadLocalAccessor.KEY, observation));
+    }
+
+}
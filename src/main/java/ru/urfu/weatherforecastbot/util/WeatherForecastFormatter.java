@@ -1,8 +1,6 @@
 package ru.urfu.weatherforecastbot.util;
 
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
-
-import java.util.List;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 
 /**
  * Форматировщик прогноза погоды в удобочитаемый вид
@@ -13,11 +11,11 @@ public interface WeatherForecastFormatter {
      * Форматирует прогнозы погоды на указанный временной период
      *
      * @param timePeriod временной период
-     * @param forecasts  список прогнозов погоды
+     * @param series     ряд прогнозов погоды
      * @return прогнозы погоды в виде строки
-     * @throws IllegalArgumentException если список прогнозов погоды пуст или содержит прогнозы с разными местами
+     * @throws IllegalArgumentException если ряд прогнозов погоды пуст
      */
-    String formatForecasts(ForecastTimePeriod timePeriod, List<WeatherForecast> forecasts)
+    String formatForecasts(ForecastTimePeriod timePeriod, ForecastSeries series)
             throws IllegalArgumentException;
 
 }
@@ -1,25 +1,23 @@
 package ru.urfu.weatherforecastbot.util;
 
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+import java.time.ZoneOffset;
+
+/**
+ * Форматировщик прогнозов погоды.
+ * <p>Ряд прогнозов упорядочен по времени, поэтому текст строится за один проход по ряду в одном
+ * {@link StringBuilder}, размер которого рассчитывается заранее. Время прогноза вычисляется из начала и шага ряда без
+ * создания объектов даты, метки часов подготовлены заранее, а температура выводится с фиксированной точностью без
+ * промежуточных строк</p>
+ */
 public class WeatherForecastFormatterImpl implements WeatherForecastFormatter {
 
     /**
-     * Сообщение исключения при пустом списке прогнозов
+     * Сообщение исключения при пустом ряде прогнозов
      */
     private static final String EMPTY_FORECASTS_EXCEPTION_MESSAGE = "Forecasts are empty!";
-    /**
-     * Сообщение исключения при прогнозах, не относящихся к одному месту
-     */
-    private static final String FORECASTS_WITH_DIFFERENT_PLACES_EXCEPTION_MESSAGE = "Forecasts have different places!";
     /**
      * Интервал (в часах) форматирования на неделю
      */
@@ -33,115 +31,154 @@ public class WeatherForecastFormatterImpl implements WeatherForecastFormatter {
      */
     private static final String CELSIUS_SYMBOL = "°C";
     /**
-     * Форматировщик времени для форматирования по часам
+     * Количество секунд в сутках
+     */
+    private static final int SECONDS_IN_DAY = 24 * 60 * 60;
+    /**
+     * Метки целых часов в формате "HH-mm"
+     */
+    private static final String[] HOUR_LABELS = new String[24];
+    /**
+     * Примерная длина строки одного прогноза, используемая для расчета размера буфера
      */
-    private final DateTimeFormatter timeFormatter = DateTimeFormatter.ofPattern("HH-mm");
+    private static final int ESTIMATED_LINE_LENGTH = 40;
     /**
-     * Форматировщик даты для форматирования на неделю
+     * Примерная длина заголовка и строки даты, используемая для расчета размера буфера
      */
-    private final DateTimeFormatter weekDateFormatter = DateTimeFormatter.ofPattern("dd.MM.yyyy");
+    private static final int ESTIMATED_HEADER_LENGTH = 64;
+
+    static {
+        for (int hour = 0; hour < HOUR_LABELS.length; hour++) {
+            HOUR_LABELS[hour] = (hour < 10 ? "0" : "") + hour + "-00";
+        }
+    }
 
     @Override
-    public String formatForecasts(ForecastTimePeriod timePeriod, List<WeatherForecast> forecasts)
+    public String formatForecasts(ForecastTimePeriod timePeriod, ForecastSeries series)
             throws IllegalArgumentException {
-        validateForecasts(forecasts);
-        String period = null;
-        String formattedForecasts = null;
-        switch (timePeriod) {
-            case WEEK -> {
-                period = "на неделю";
-                formattedForecasts = formatSeveralDaysForecast(forecasts);
-            }
-            case TODAY -> {
-                period = "на сегодня";
-                formattedForecasts = formatWeatherForecasts(forecasts);
-            }
-            case TOMORROW -> {
-                period = "на завтра";
-                formattedForecasts = formatWeatherForecasts(forecasts);
-            }
+        if (series.isEmpty()) {
+            throw new IllegalArgumentException(EMPTY_FORECASTS_EXCEPTION_MESSAGE);
         }
-        String header = THERMOMETER_EMOJI + " Прогноз погоды %s (%s):"
-                .formatted(period, forecasts.get(0).place().name());
-        return header + "\n\n" + formattedForecasts;
+        String period = switch (timePeriod) {
+            case WEEK -> "на неделю";
+            case TODAY -> "на сегодня";
+            case TOMORROW -> "на завтра";
+        };
+        boolean severalDays = timePeriod == ForecastTimePeriod.WEEK;
+        int stepSeconds = (int) series.step().getSeconds();
+        int linesCount = severalDays
+                ? series.size() / Math.max(1, HOUR_INTERVAL * 3600 / stepSeconds) + 1
+                : series.size();
+        int daysCount = severalDays ? series.size() * stepSeconds / SECONDS_IN_DAY + 2 : 0;
+        StringBuilder sb = new StringBuilder(ESTIMATED_HEADER_LENGTH * (daysCount + 1)
+                + ESTIMATED_LINE_LENGTH * linesCount);
+        sb.append(THERMOMETER_EMOJI).append(" Прогноз погоды ").append(period)
+                .append(" (").append(series.place().name()).append("):\n\n");
+        appendForecasts(sb, series, severalDays);
+        return sb.toString();
     }
 
-    private String formatSeveralDaysForecast(List<WeatherForecast> forecasts) {
-        Map<LocalDate, List<WeatherForecast>> forecastsByDate = forecasts.stream()
-                .collect(Collectors.groupingBy(weatherForecast -> weatherForecast.dateTime().toLocalDate()));
-
-        List<LocalDate> sortedDates = new ArrayList<>(forecastsByDate.keySet());
-        Collections.sort(sortedDates);
-
-        StringBuilder sb = new StringBuilder();
-
-        for (int i = 0; i < sortedDates.size(); i++) {
-            LocalDate date = sortedDates.get(i);
-            sb.append(weekDateFormatter.format(date)).append(":\n");
-
-            List<WeatherForecast> dateForecasts = forecastsByDate.get(date);
-            String formattedForecasts = formatWeatherForecasts(dateForecasts.stream()
-                    .filter(weatherForecast -> weatherForecast.dateTime().getHour() % HOUR_INTERVAL == 0)
-                    .toList());
-
-            sb.append(formattedForecasts);
-            if (i < sortedDates.size() - 1) {
-                sb.append("\n\n");
+    /**
+     * Добавляет прогнозы ряда. Прогнозы на несколько дней группируются по датам, при этом выводятся только прогнозы
+     * с интервалом {@link WeatherForecastFormatterImpl#HOUR_INTERVAL} часов
+     *
+     * @param sb          строка, в которую добавляются прогнозы
+     * @param series      ряд прогнозов погоды
+     * @param severalDays true, если прогноз на несколько дней
+     */
+    private void appendForecasts(StringBuilder sb, ForecastSeries series, boolean severalDays) {
+        long startSeconds = series.start().toEpochSecond(ZoneOffset.UTC);
+        long stepSeconds = series.step().getSeconds();
+        long currentDay = Long.MIN_VALUE;
+        boolean firstLine = true;
+        for (int i = 0; i < series.size(); i++) {
+            long seconds = startSeconds + i * stepSeconds;
+            long day = Math.floorDiv(seconds, SECONDS_IN_DAY);
+            int secondOfDay = (int) Math.floorMod(seconds, SECONDS_IN_DAY);
+            int hour = secondOfDay / 3600;
+            if (severalDays) {
+                if (day != currentDay) {
+                    if (currentDay != Long.MIN_VALUE) {
+                        sb.append("\n\n");
+                    }
+                    appendDate(sb, LocalDate.ofEpochDay(day));
+                    currentDay = day;
+                    firstLine = true;
+                }
+                if (hour % HOUR_INTERVAL != 0) {
+                    continue;
+                }
+            }
+            if (!firstLine) {
+                sb.append('\n');
             }
+            firstLine = false;
+            appendTime(sb, hour, secondOfDay / 60 % 60);
+            sb.append(": ");
+            appendTemperature(sb, series.getTemperature(i));
+            sb.append(" (по ощущению ");
+            appendTemperature(sb, series.getFeelsLikeTemperature(i));
+            sb.append(')');
         }
-
-        return sb.toString();
     }
 
     /**
-     * Форматирует один прогноз погоды и возвращает представление в виде строки
+     * Добавляет дату в формате "dd.MM.yyyy:" и перевод строки
      *
-     * @param forecast прогноз погоды
-     * @return прогноз погоды в виде строки
+     * @param sb   строка, в которую добавляется дата
+     * @param date дата
      */
-    private String formatWeatherForecast(WeatherForecast forecast) {
-        return timeFormatter.format(forecast.dateTime()) + ": " +
-                forecast.temperature() + CELSIUS_SYMBOL +
-                " (по ощущению " + forecast.feelsLikeTemperature() + CELSIUS_SYMBOL + ")";
+    private static void appendDate(StringBuilder sb, LocalDate date) {
+        appendTwoDigits(sb, date.getDayOfMonth());
+        sb.append('.');
+        appendTwoDigits(sb, date.getMonthValue());
+        sb.append('.').append(date.getYear()).append(":\n");
     }
 
     /**
-     * Форматирует список прогнозов погоды и возвращает представление в виде строки
+     * Добавляет время в формате "HH-mm"
      *
-     * @param forecasts список прогнозов погоды
-     * @return прогнозы погоды в виде строки
+     * @param sb     строка, в которую добавляется время
+     * @param hour   час
+     * @param minute минута
      */
-    private String formatWeatherForecasts(List<WeatherForecast> forecasts) {
-        return forecasts.stream().map(this::formatWeatherForecast).collect(Collectors.joining("\n"));
+    private static void appendTime(StringBuilder sb, int hour, int minute) {
+        if (minute == 0) {
+            sb.append(HOUR_LABELS[hour]);
+            return;
+        }
+        appendTwoDigits(sb, hour);
+        sb.append('-');
+        appendTwoDigits(sb, minute);
     }
 
     /**
-     * Проверяет корректность списка прогнозов погоды
+     * Добавляет число от 0 до 99 двумя цифрами
      *
-     * @param forecasts список прогнозов погоды
-     * @throws IllegalArgumentException при ошибке валидации
+     * @param sb    строка, в которую добавляется число
+     * @param value число
      */
-    private void validateForecasts(List<WeatherForecast> forecasts) throws IllegalArgumentException {
-        if (forecasts.isEmpty()) {
-            throw new IllegalArgumentException(EMPTY_FORECASTS_EXCEPTION_MESSAGE);
-        }
-        if (hasDifferentPlaces(forecasts)) {
-            throw new IllegalArgumentException(FORECASTS_WITH_DIFFERENT_PLACES_EXCEPTION_MESSAGE);
-        }
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        sb.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
     }
 
     /**
-     * Проверяет, содержит ли список прогнозов погоды прогнозы с разными местами
+     * Добавляет температуру с точностью до десятых и символом градусов Цельсия
      *
-     * @param forecasts список прогнозов погоды
-     * @return true, если в списке прогнозов погоды есть элементы с отличающимися местами, или false, если все прогнозы
-     * погоды относятся к одному месту
+     * @param sb          строка, в которую добавляется температура
+     * @param temperature температура
      */
-    private boolean hasDifferentPlaces(List<WeatherForecast> forecasts) {
-        if (forecasts.isEmpty()) {
-            return false;
+    private static void appendTemperature(StringBuilder sb, double temperature) {
+        if (Double.isNaN(temperature)) {
+            sb.append(temperature).append(CELSIUS_SYMBOL);
+            return;
+        }
+        long tenths = Math.round(temperature * 10);
+        if (tenths < 0) {
+            sb.append('-');
+            tenths = -tenths;
         }
-        return forecasts.stream().anyMatch(forecast -> forecast.place() != forecasts.get(0).place());
+        sb.append(tenths / 10).append('.').append((char) ('0' + tenths % 10)).append(CELSIUS_SYMBOL);
     }
 
 }
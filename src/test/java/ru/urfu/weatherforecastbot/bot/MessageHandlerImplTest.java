@@ -7,6 +7,7 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.telegram.telegrambots.meta.api.objects.Chat;
 import org.telegram.telegrambots.meta.api.objects.Message;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.state.BotState;
 import ru.urfu.weatherforecastbot.database.ChatContextRepository;
 import ru.urfu.weatherforecastbot.database.ChatStateRepository;
@@ -17,10 +18,11 @@ import ru.urfu.weatherforecastbot.util.ReminderFormatterImpl;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatter;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatterImpl;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 
@@ -76,15 +78,12 @@ class MessageHandlerImplTest {
     void givenPlace_whenTodayForecast_thenReturnTodayForecastForThatPlace() {
         LocalDateTime today = LocalDateTime.of(2023, 10, 10, 0, 0);
         int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int hour = 0; hour < hours; hour++) {
-            todayForecast.add(
-                    new WeatherForecast(place, today.withHour(hour), 0, 0));
-        }
-        when(weatherService.getForecast("Екатеринбург", 1)).thenReturn(todayForecast);
+        ForecastSeries todayForecast = new ForecastSeries(place, today, Duration.ofHours(1),
+                new double[hours], new double[hours]);
+        when(weatherService.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.just(todayForecast));
 
-        BotMessage responseMessage = messageHandler.handle(1L, "/info Екатеринбург");
+        BotMessage responseMessage = messageHandler.handle(1L, "/info Екатеринбург").block();
 
         assertEquals("""
                 🌡️ Прогноз погоды на сегодня (Екатеринбург):
@@ -122,13 +121,10 @@ class MessageHandlerImplTest {
         long chatId = 1L;
         LocalDateTime today = LocalDateTime.of(2023, 10, 10, 0, 0);
         int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int hour = 0; hour < hours; hour++) {
-            todayForecast.add(
-                    new WeatherForecast(place, today.withHour(hour), 0, 0));
-        }
-        when(weatherService.getForecast("Екатеринбург", 1)).thenReturn(todayForecast);
+        ForecastSeries todayForecast = new ForecastSeries(place, today, Duration.ofHours(1),
+                new double[hours], new double[hours]);
+        when(weatherService.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.just(todayForecast));
         ChatContext chatContext = new ChatContext();
         chatContext.setChatId(chatId);
         when(chatContextRepository.findById(chatId)).thenReturn(Optional.of(chatContext));
@@ -136,7 +132,7 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        BotMessage forecastTodayMessageResponse = messageHandler.handle(chatId, "/info");
+        BotMessage forecastTodayMessageResponse = messageHandler.handle(chatId, "/info").block();
         assertEquals("Введите название места", forecastTodayMessageResponse.getText());
         assertEquals(BotState.WAITING_FOR_TODAY_FORECAST_PLACE_NAME, chatState.getBotState());
         List<Button> forecastTodayMessageButtons = forecastTodayMessageResponse.getButtons();
@@ -144,7 +140,7 @@ class MessageHandlerImplTest {
         assertEquals("Отмена", forecastTodayMessageButtons.get(0).getText());
         assertEquals("/cancel", forecastTodayMessageButtons.get(0).getCallback());
 
-        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург");
+        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург").block();
         assertEquals("""
                 🌡️ Прогноз погоды на сегодня (Екатеринбург):
                                 
@@ -179,9 +175,9 @@ class MessageHandlerImplTest {
     @DisplayName("Если не удается найти указанное место, то ответное сообщение должно содержать " +
             "предупреждение о том, что место не найдено")
     void givenNotFoundPlace_whenTodayForecast_thenReturnNotFound() {
-        when(weatherService.getForecast("там_где_нас_нет", 1)).thenReturn(List.of());
+        when(weatherService.getForecastAsync("там_где_нас_нет", 1)).thenReturn(Mono.just(ForecastSeries.empty()));
 
-        BotMessage responseMessage = messageHandler.handle(1L, "/info там_где_нас_нет");
+        BotMessage responseMessage = messageHandler.handle(1L, "/info там_где_нас_нет").block();
 
         assertEquals("Извините, данное место не найдено.", responseMessage.getText());
     }
@@ -199,7 +195,7 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        BotMessage responseMessage = messageHandler.handle(chatId, "/some_unknown_command");
+        BotMessage responseMessage = messageHandler.handle(chatId, "/some_unknown_command").block();
 
         assertEquals("Извините, я не знаю такой команды.", responseMessage.getText());
     }
@@ -230,18 +226,20 @@ class MessageHandlerImplTest {
         int hours = 24;
         Place mars = new Place("Марс", 0, 0, "Mars/Mars");
         Place nizhnyNovgorod = new Place("Нижний Новгород", 56.328, 44.002, "Europe/Moscow");
-        List<WeatherForecast> nizhnyNovgorodTodayForecast = new ArrayList<>(hours);
-        List<WeatherForecast> marsTodayForecast = new ArrayList<>(hours);
-        for (int hour = 0; hour < hours; hour++) {
-            marsTodayForecast.add(
-                    new WeatherForecast(mars, today.withHour(hour), -60, -60));
-            nizhnyNovgorodTodayForecast.add(
-                    new WeatherForecast(nizhnyNovgorod, today.withHour(hour), 10, 5));
-        }
-        when(weatherService.getForecast("Марс", 1))
-                .thenReturn(marsTodayForecast);
-        when(weatherService.getForecast("Нижний Новгород", 1))
-                .thenReturn(nizhnyNovgorodTodayForecast);
+        double[] marsTemperatures = new double[hours];
+        Arrays.fill(marsTemperatures, -60);
+        double[] nizhnyNovgorodTemperatures = new double[hours];
+        Arrays.fill(nizhnyNovgorodTemperatures, 10);
+        double[] nizhnyNovgorodFeelsLikeTemperatures = new double[hours];
+        Arrays.fill(nizhnyNovgorodFeelsLikeTemperatures, 5);
+        ForecastSeries marsTodayForecast = new ForecastSeries(mars, today, Duration.ofHours(1),
+                marsTemperatures, marsTemperatures);
+        ForecastSeries nizhnyNovgorodTodayForecast = new ForecastSeries(nizhnyNovgorod, today, Duration.ofHours(1),
+                nizhnyNovgorodTemperatures, nizhnyNovgorodFeelsLikeTemperatures);
+        when(weatherService.getForecastAsync("Марс", 1))
+                .thenReturn(Mono.just(marsTodayForecast));
+        when(weatherService.getForecastAsync("Нижний Новгород", 1))
+                .thenReturn(Mono.just(nizhnyNovgorodTodayForecast));
         ChatContext marsDwellerChatContext = new ChatContext();
         marsDwellerChatContext.setChatId(marsDwellerChatId);
         when(chatContextRepository.findById(marsDwellerChatId))
@@ -268,10 +266,10 @@ class MessageHandlerImplTest {
         typicalUserChatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(typicalUserChatId)).thenReturn(Optional.of(typicalUserChatState));
 
-        BotMessage replyToMarsDweller = messageHandler.handle(marsDwellerChatId, "/info Марс");
+        BotMessage replyToMarsDweller = messageHandler.handle(marsDwellerChatId, "/info Марс").block();
         BotMessage replyToInstructionsBookworm =
-                messageHandler.handle(instructionsBookwormChatId, "/some_unknown_command Москва");
-        BotMessage replyToTypicalUser = messageHandler.handle(typicalUserChatId, "/info Нижний Новгород");
+                messageHandler.handle(instructionsBookwormChatId, "/some_unknown_command Москва").block();
+        BotMessage replyToTypicalUser = messageHandler.handle(typicalUserChatId, "/info Нижний Новгород").block();
 
         assertEquals("""
                 🌡️ Прогноз погоды на сегодня (Марс):
@@ -338,18 +336,14 @@ class MessageHandlerImplTest {
         LocalDateTime now = LocalDateTime.of(2023, 10, 10, 0, 0);
         int days = 7;
         int hourInterval = 4;
-        List<WeatherForecast> weekForecast = new ArrayList<>();
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int day = 0; day < days; day++) {
-            for (int hour = 0; hour < 24; hour += hourInterval) {
-                weekForecast.add(
-                        new WeatherForecast(place, now.plusDays(day).withHour(hour), 0, 0));
-            }
-        }
-        when(weatherService.getForecast("Екатеринбург", 7))
-                .thenReturn(weekForecast);
+        int count = days * 24 / hourInterval;
+        ForecastSeries weekForecast = new ForecastSeries(place, now, Duration.ofHours(hourInterval),
+                new double[count], new double[count]);
+        when(weatherService.getForecastAsync("Екатеринбург", 7))
+                .thenReturn(Mono.just(weekForecast));
 
-        BotMessage responseMessage = messageHandler.handle(1L, "/info_week Екатеринбург");
+        BotMessage responseMessage = messageHandler.handle(1L, "/info_week Екатеринбург").block();
 
         assertEquals("""
                 🌡️ Прогноз погоды на неделю (Екатеринбург):
@@ -415,9 +409,9 @@ class MessageHandlerImplTest {
     @DisplayName("При запросе прогноза погоды на неделю вперед для ненайденного города " +
             "должно возвращаться сообщение об ошибке")
     void givenNonExistentPlace_whenWeekForecast_thenErrorMessage() {
-        when(weatherService.getForecast("там_где_нас_нет", 7)).thenReturn(List.of());
+        when(weatherService.getForecastAsync("там_где_нас_нет", 7)).thenReturn(Mono.just(ForecastSeries.empty()));
 
-        BotMessage responseMessage = messageHandler.handle(1L, "/info_week там_где_нас_нет");
+        BotMessage responseMessage = messageHandler.handle(1L, "/info_week там_где_нас_нет").block();
 
         assertEquals("Извините, данное место не найдено.", responseMessage.getText());
     }
@@ -430,15 +424,11 @@ class MessageHandlerImplTest {
         LocalDateTime now = LocalDateTime.of(2023, 10, 10, 0, 0);
         int days = 7;
         int hourInterval = 4;
-        List<WeatherForecast> weekForecast = new ArrayList<>();
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int day = 0; day < days; day++) {
-            for (int hour = 0; hour < 24; hour += hourInterval) {
-                weekForecast.add(
-                        new WeatherForecast(place, now.plusDays(day).withHour(hour), 0, 0));
-            }
-        }
-        when(weatherService.getForecast("Екатеринбург", 7)).thenReturn(weekForecast);
+        int count = days * 24 / hourInterval;
+        ForecastSeries weekForecast = new ForecastSeries(place, now, Duration.ofHours(hourInterval),
+                new double[count], new double[count]);
+        when(weatherService.getForecastAsync("Екатеринбург", 7)).thenReturn(Mono.just(weekForecast));
         ChatContext chatContext = new ChatContext();
         chatContext.setChatId(chatId);
         when(chatContextRepository.findById(chatId)).thenReturn(Optional.of(chatContext));
@@ -447,7 +437,7 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        BotMessage forecastWeekMessageResponse = messageHandler.handle(chatId, "/info_week");
+        BotMessage forecastWeekMessageResponse = messageHandler.handle(chatId, "/info_week").block();
         assertEquals("Введите название места", forecastWeekMessageResponse.getText());
         assertEquals(BotState.WAITING_FOR_WEEK_FORECAST_PLACE_NAME, chatState.getBotState());
         List<Button> forecastWeekMessageButtons = forecastWeekMessageResponse.getButtons();
@@ -455,7 +445,7 @@ class MessageHandlerImplTest {
         assertEquals("Отмена", forecastWeekMessageButtons.get(0).getText());
         assertEquals("/cancel", forecastWeekMessageButtons.get(0).getCallback());
 
-        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург");
+        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург").block();
         assertEquals("""
                 🌡️ Прогноз погоды на неделю (Екатеринбург):
                                 
@@ -529,7 +519,7 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        BotMessage responseMessage = messageHandler.handle(chatId, "/start");
+        BotMessage responseMessage = messageHandler.handle(chatId, "/start").block();
         List<Button> responseButtons = responseMessage.getButtons();
 
         assertEquals("""
@@ -556,7 +546,7 @@ class MessageHandlerImplTest {
     @Test
     @DisplayName("При вводе команды \"/help\" пользователю должно отобразиться сообщение помощи")
     void givenHelpCommand_thenReturnHelpMessage() {
-        BotMessage responseMessage = messageHandler.handle(1L, "/help");
+        BotMessage responseMessage = messageHandler.handle(1L, "/help").block();
 
         assertEquals("""
                         Вы зашли в меню помощи. Для вас доступны следующие команды:
@@ -579,13 +569,10 @@ class MessageHandlerImplTest {
         long chatId = 1L;
         LocalDateTime today = LocalDateTime.of(2023, 10, 10, 0, 0);
         int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int hour = 0; hour < hours; hour++) {
-            todayForecast.add(
-                    new WeatherForecast(place, today.withHour(hour), 0, 0));
-        }
-        when(weatherService.getForecast("Екатеринбург", 1)).thenReturn(todayForecast);
+        ForecastSeries todayForecast = new ForecastSeries(place, today, Duration.ofHours(1),
+                new double[hours], new double[hours]);
+        when(weatherService.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.just(todayForecast));
         ChatContext chatContext = new ChatContext();
         chatContext.setChatId(chatId);
         when(chatContextRepository.findById(chatId)).thenReturn(Optional.of(chatContext));
@@ -594,7 +581,7 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        BotMessage forecastMessageResponse = messageHandler.handle(chatId, "/forecast");
+        BotMessage forecastMessageResponse = messageHandler.handle(chatId, "/forecast").block();
         assertEquals("Введите название места", forecastMessageResponse.getText());
         assertEquals(BotState.WAITING_FOR_PLACE_NAME, chatState.getBotState());
         List<Button> forecastMessageButtons = forecastMessageResponse.getButtons();
@@ -602,7 +589,7 @@ class MessageHandlerImplTest {
         assertEquals("Отмена", forecastMessageButtons.get(0).getText());
         assertEquals("/cancel", forecastMessageButtons.get(0).getCallback());
 
-        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург");
+        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург").block();
         assertEquals("Выберите временной период для просмотра (сегодня, завтра, неделя)",
                 placeNameMessageResponse.getText());
         List<Button> placeNameMessageButtons = placeNameMessageResponse.getButtons();
@@ -617,7 +604,7 @@ class MessageHandlerImplTest {
         assertEquals("Отмена", placeNameMessageButtons.get(3).getText());
         assertEquals("/cancel", placeNameMessageButtons.get(3).getCallback());
 
-        BotMessage timePeriodMessageResponse = messageHandler.handle(chatId, "Сегодня");
+        BotMessage timePeriodMessageResponse = messageHandler.handle(chatId, "Сегодня").block();
         assertEquals("""
                 🌡️ Прогноз погоды на сегодня (Екатеринбург):
                                 
@@ -661,9 +648,9 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        messageHandler.handle(chatId, "/forecast");
-        messageHandler.handle(chatId, "Екатеринбург");
-        BotMessage wrongTimePeriodMessageResponse = messageHandler.handle(chatId, "привет");
+        messageHandler.handle(chatId, "/forecast").block();
+        messageHandler.handle(chatId, "Екатеринбург").block();
+        BotMessage wrongTimePeriodMessageResponse = messageHandler.handle(chatId, "привет").block();
 
         assertEquals("Введите корректный временной период. Допустимые значения: сегодня, завтра, неделя",
                 wrongTimePeriodMessageResponse.getText());
@@ -692,8 +679,8 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        messageHandler.handle(chatId, "/info");
-        BotMessage responseMessage = messageHandler.handle(chatId, "/cancel");
+        messageHandler.handle(chatId, "/info").block();
+        BotMessage responseMessage = messageHandler.handle(chatId, "/cancel").block();
 
         assertEquals("Вы вернулись в основное меню", responseMessage.getText());
         List<Button> responseButtons = responseMessage.getButtons();
@@ -721,7 +708,7 @@ class MessageHandlerImplTest {
     void testFullSubscribeCommand() {
         long chatId = 1L;
 
-        BotMessage correctTimeMessageResponse = messageHandler.handle(chatId, "/subscribe Екатеринбург 05:00");
+        BotMessage correctTimeMessageResponse = messageHandler.handle(chatId, "/subscribe Екатеринбург 05:00").block();
         assertEquals("Напоминание создано. Буду присылать прогноз погоды в 05:00",
                 correctTimeMessageResponse.getText());
         verify(reminderService).addReminder(chatId, "Екатеринбург", "05:00");
@@ -729,7 +716,7 @@ class MessageHandlerImplTest {
         doThrow(DateTimeParseException.class).when(reminderService)
                 .addReminder(chatId, "Екатеринбург", "abc");
 
-        BotMessage wrongTimeMessageResponse = messageHandler.handle(chatId, "/subscribe Екатеринбург abc");
+        BotMessage wrongTimeMessageResponse = messageHandler.handle(chatId, "/subscribe Екатеринбург abc").block();
         assertEquals("Некорректный формат времени. Введите время в виде 00:00 (часы:минуты)",
                 wrongTimeMessageResponse.getText());
     }
@@ -756,14 +743,14 @@ class MessageHandlerImplTest {
         chatContext.setChatId(chatId);
         when(chatContextRepository.findById(chatId)).thenReturn(Optional.of(chatContext));
 
-        BotMessage subscribeMessageResponse = messageHandler.handle(chatId, "/subscribe");
+        BotMessage subscribeMessageResponse = messageHandler.handle(chatId, "/subscribe").block();
         assertEquals("Введите название места, для которого будут присылаться напоминания",
                 subscribeMessageResponse.getText());
         assertEquals(1, subscribeMessageResponse.getButtons().size());
         assertEquals("Отмена", subscribeMessageResponse.getButtons().get(0).getText());
         assertEquals("/cancel", subscribeMessageResponse.getButtons().get(0).getCallback());
 
-        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург");
+        BotMessage placeNameMessageResponse = messageHandler.handle(chatId, "Екатеринбург").block();
         assertEquals("Введите время (в UTC), когда должно присылаться напоминание прогноза (пример: 08:00)",
                 placeNameMessageResponse.getText());
         assertEquals(1, placeNameMessageResponse.getButtons().size());
@@ -776,11 +763,11 @@ class MessageHandlerImplTest {
                         "Время - очередная иллюзия, чьим рабом я не желаю быть.");
 
         BotMessage wrongTimeMessageResponse =
-                messageHandler.handle(chatId, "Время - очередная иллюзия, чьим рабом я не желаю быть.");
+                messageHandler.handle(chatId, "Время - очередная иллюзия, чьим рабом я не желаю быть.").block();
         assertEquals("Некорректный формат времени. Введите время в виде 00:00 (часы:минуты)",
                 wrongTimeMessageResponse.getText());
 
-        BotMessage timeMessageResponse = messageHandler.handle(chatId, "05:00");
+        BotMessage timeMessageResponse = messageHandler.handle(chatId, "05:00").block();
         assertEquals("Напоминание создано. Буду присылать прогноз погоды в 05:00",
                 timeMessageResponse.getText());
         verify(reminderService).addReminder(chatId, "Екатеринбург", "05:00");
@@ -816,7 +803,7 @@ class MessageHandlerImplTest {
         List<Reminder> reminders = List.of(firstReminder, secondReminder);
         when(reminderService.findAllForChatId(chatId)).thenReturn(reminders);
 
-        BotMessage responseMessage = messageHandler.handle(chatId, "/show_subscriptions");
+        BotMessage responseMessage = messageHandler.handle(chatId, "/show_subscriptions").block();
 
         assertEquals("""
                 1) Екатеринбург, 05:00
@@ -838,7 +825,7 @@ class MessageHandlerImplTest {
     @Test
     void testEditSubscriptionCommand() {
         long chatId = 1L;
-        BotMessage correctMessageResponse = messageHandler.handle(chatId, "/edit_subscription 1 Москва 10:00");
+        BotMessage correctMessageResponse = messageHandler.handle(chatId, "/edit_subscription 1 Москва 10:00").block();
 
         assertEquals("Напоминание изменено. Буду присылать прогноз погоды в 10:00",
                 correctMessageResponse.getText());
@@ -852,7 +839,7 @@ class MessageHandlerImplTest {
         doThrow(DateTimeParseException.class)
                 .when(reminderService)
                 .editReminderByRelativePosition(chatId, 1, "Москва", "111");
-        BotMessage wrongTimeMessageResponse = messageHandler.handle(chatId, "/edit_subscription 1 Москва 111");
+        BotMessage wrongTimeMessageResponse = messageHandler.handle(chatId, "/edit_subscription 1 Москва 111").block();
         assertEquals("Некорректный формат времени. Введите время в виде 00:00 (часы:минуты)",
                 wrongTimeMessageResponse.getText());
 
@@ -860,7 +847,7 @@ class MessageHandlerImplTest {
                 .when(reminderService)
                 .editReminderByRelativePosition(chatId, -1, "Москва", "10:00");
         BotMessage wrongPositionMessageResponse = messageHandler.handle(chatId,
-                "/edit_subscription -1 Москва 10:00");
+                "/edit_subscription -1 Москва 10:00").block();
         assertEquals("Нет напоминания с таким номером.", wrongPositionMessageResponse.getText());
     }
 
@@ -880,7 +867,7 @@ class MessageHandlerImplTest {
     void testFullDeleteSubscriptionCommand() {
         long chatId = 1L;
 
-        BotMessage beforeDeletionMessageResponse = messageHandler.handle(chatId, "/del_subscription 1");
+        BotMessage beforeDeletionMessageResponse = messageHandler.handle(chatId, "/del_subscription 1").block();
         assertEquals("Напоминание удалено. Больше не буду присылать прогноз погоды.",
                 beforeDeletionMessageResponse.getText());
         verify(reminderService).deleteReminderByRelativePosition(chatId, 1);
@@ -888,12 +875,12 @@ class MessageHandlerImplTest {
         doThrow(IllegalArgumentException.class).when(reminderService)
                 .deleteReminderByRelativePosition(chatId, 1);
 
-        BotMessage afterDeletionMessageResponse = messageHandler.handle(chatId, "/del_subscription 1");
+        BotMessage afterDeletionMessageResponse = messageHandler.handle(chatId, "/del_subscription 1").block();
         assertEquals("Нет напоминания с таким номером.",
                 afterDeletionMessageResponse.getText());
         verify(reminderService, times(2)).deleteReminderByRelativePosition(chatId, 1);
 
-        BotMessage notANumberPositionMessageResponse = messageHandler.handle(chatId, "/del_subscription abc");
+        BotMessage notANumberPositionMessageResponse = messageHandler.handle(chatId, "/del_subscription abc").block();
         assertEquals("Некорректный формат номера напоминания. Используйте только числа при вводе."
                 , notANumberPositionMessageResponse.getText());
     }
@@ -917,7 +904,7 @@ class MessageHandlerImplTest {
         chatState.setBotState(BotState.INITIAL);
         when(chatStateRepository.findById(chatId)).thenReturn(Optional.of(chatState));
 
-        BotMessage deleteSubscriptionMessageResponse = messageHandler.handle(chatId, "/del_subscription");
+        BotMessage deleteSubscriptionMessageResponse = messageHandler.handle(chatId, "/del_subscription").block();
         assertEquals("Введите номер напоминания, которое надо удалить",
                 deleteSubscriptionMessageResponse.getText());
         assertEquals(1, deleteSubscriptionMessageResponse.getButtons().size());
@@ -925,7 +912,7 @@ class MessageHandlerImplTest {
         assertEquals("/cancel", deleteSubscriptionMessageResponse.getButtons().get(0).getCallback());
         verify(reminderService, never()).deleteReminderByRelativePosition(eq(chatId), anyInt());
 
-        BotMessage correctPositionMessageResponse = messageHandler.handle(chatId, "1");
+        BotMessage correctPositionMessageResponse = messageHandler.handle(chatId, "1").block();
         assertEquals("Напоминание удалено. Больше не буду присылать прогноз погоды.",
                 correctPositionMessageResponse.getText());
         verify(reminderService).deleteReminderByRelativePosition(chatId, 1);
@@ -933,14 +920,14 @@ class MessageHandlerImplTest {
         doThrow(IllegalArgumentException.class).when(reminderService)
                 .deleteReminderByRelativePosition(chatId, 1000);
 
-        messageHandler.handle(chatId, "/del_subscription");
-        BotMessage notExistentPositionMessageResponse = messageHandler.handle(chatId, "1000");
+        messageHandler.handle(chatId, "/del_subscription").block();
+        BotMessage notExistentPositionMessageResponse = messageHandler.handle(chatId, "1000").block();
         assertEquals("Нет напоминания с таким номером.",
                 notExistentPositionMessageResponse.getText());
         verify(reminderService).deleteReminderByRelativePosition(chatId, 1000);
 
-        messageHandler.handle(chatId, "/del_subscription");
-        BotMessage notANumberPositionMessageResponse = messageHandler.handle(chatId, "abc");
+        messageHandler.handle(chatId, "/del_subscription").block();
+        BotMessage notANumberPositionMessageResponse = messageHandler.handle(chatId, "abc").block();
         assertEquals("Некорректный формат номера напоминания. Используйте только числа при вводе.",
                 notANumberPositionMessageResponse.getText());
     }
@@ -0,0 +1,153 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.telegram.telegrambots.meta.api.objects.ResponseParameters;
+import org.telegram.telegrambots.meta.exceptions.TelegramApiRequestException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Тесты очереди исходящих сообщений
+ */
+class OutboundMessageQueueTest {
+
+    /**
+     * Отправленные сообщения в порядке отправки
+     */
+    private final List<SentMessage> sentMessages = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * Очередь исходящих сообщений
+     */
+    private OutboundMessageQueue outboundMessageQueue;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        outboundMessageQueue.shutdown();
+    }
+
+    @Test
+    @DisplayName("Сообщения в один чат должны отправляться по порядку не чаще ограничения чата, "
+            + "не задерживая другие чаты")
+    void givenMessagesToOneChat_whenSend_thenChatRateRespected() throws InterruptedException {
+        CountDownLatch sent = new CountDownLatch(4);
+        outboundMessageQueue = new OutboundMessageQueue((chatId, message) -> {
+            sentMessages.add(new SentMessage(chatId, message.getText(), System.nanoTime()));
+            sent.countDown();
+        }, 1000, 10, 2);
+
+        for (int i = 0; i < 3; i++) {
+            outboundMessageQueue.enqueue(1, createMessage("message " + i), MessagePriority.BROADCAST);
+        }
+        outboundMessageQueue.enqueue(2, createMessage("other chat"), MessagePriority.BROADCAST);
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        List<SentMessage> chatMessages = sentMessages.stream().filter(message -> message.chatId() == 1).toList();
+        assertEquals(List.of("message 0", "message 1", "message 2"),
+                chatMessages.stream().map(SentMessage::text).toList());
+        long spanNanos = chatMessages.get(2).sentAtNanos() - chatMessages.get(0).sentAtNanos();
+        assertTrue(spanNanos >= TimeUnit.MILLISECONDS.toNanos(150), "span " + spanNanos);
+        int otherChatIndex = sentMessages.indexOf(sentMessages.stream()
+                .filter(message -> message.chatId() == 2).findFirst().orElseThrow());
+        assertTrue(otherChatIndex < 2, "other chat sent at position " + otherChatIndex);
+        assertEquals(4, outboundMessageQueue.getSentMessagesCount());
+    }
+
+    @Test
+    @DisplayName("При ответе 429 сообщение должно отправляться повторно, а ответы - раньше рассылок")
+    void givenTooManyRequests_whenSend_thenMessageRetriedAndInteractiveFirst() throws InterruptedException {
+        TelegramApiRequestException tooManyRequests = mock();
+        when(tooManyRequests.getErrorCode()).thenReturn(429);
+        when(tooManyRequests.getParameters()).thenReturn(new ResponseParameters(null, 1));
+        AtomicBoolean rateLimited = new AtomicBoolean();
+        CountDownLatch sent = new CountDownLatch(3);
+        outboundMessageQueue = new OutboundMessageQueue((chatId, message) -> {
+            if (rateLimited.compareAndSet(false, true)) {
+                throw tooManyRequests;
+            }
+            sentMessages.add(new SentMessage(chatId, message.getText(), System.nanoTime()));
+            sent.countDown();
+        }, 1000, 1000, 1);
+
+        outboundMessageQueue.enqueue(1, createMessage("first"), MessagePriority.BROADCAST);
+        outboundMessageQueue.enqueue(1, createMessage("second"), MessagePriority.BROADCAST);
+        outboundMessageQueue.enqueue(2, createMessage("interactive"), MessagePriority.INTERACTIVE);
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        assertEquals(List.of("interactive", "first", "second"),
+                sentMessages.stream().map(SentMessage::text).toList());
+        assertEquals(1, outboundMessageQueue.getRetriedMessagesCount());
+        assertEquals(0, outboundMessageQueue.getFailedMessagesCount());
+    }
+
+    @Test
+    @DisplayName("Наблюдение отправки должно быть дочерним для наблюдения, в ходе которого сообщение добавлено")
+    void givenCurrentObservation_whenEnqueue_thenSendObservationIsChild() throws InterruptedException {
+        List<Observation.Context> stoppedContexts = Collections.synchronizedList(new ArrayList<>());
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+            @Override
+            public void onStop(Observation.Context context) {
+                stoppedContexts.add(context);
+            }
+
+            @Override
+            public boolean supportsContext(Observation.Context context) {
+                return true;
+            }
+        });
+        CountDownLatch sent = new CountDownLatch(1);
+        outboundMessageQueue = new OutboundMessageQueue((chatId, message) -> sent.countDown(), 1000, 1000, 1,
+                Metrics.globalRegistry, observationRegistry);
+
+        Observation update = Observation.start("bot.updates", observationRegistry);
+        try (Observation.Scope ignored = update.openScope()) {
+            outboundMessageQueue.enqueue(1, createMessage("reply"), MessagePriority.INTERACTIVE);
+        }
+        update.stop();
+
+        assertTrue(sent.await(5, TimeUnit.SECONDS));
+        outboundMessageQueue.shutdown();
+        Observation.Context send = stoppedContexts.stream()
+                .filter(context -> context.getName().equals("telegram.send")).findFirst().orElseThrow();
+        assertSame(update.getContext(), send.getParentObservation().getContextView());
+        assertEquals("success", send.getLowCardinalityKeyValue("outcome").getValue());
+    }
+
+    /**
+     * Создает сообщение
+     *
+     * @param text текст сообщения
+     * @return сообщение
+     */
+    private BotMessage createMessage(String text) {
+        BotMessage message = new BotMessage();
+        message.setText(text);
+        return message;
+    }
+
+    /**
+     * Отправленное сообщение
+     *
+     * @param chatId      ID чата
+     * @param text        текст сообщения
+     * @param sentAtNanos момент отправки в наносекундах
+     */
+    private record SentMessage(long chatId, String text, long sentAtNanos) {
+    }
+
+}
@@ -0,0 +1,64 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.telegram.telegrambots.meta.api.objects.Update;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты конечной точки webhook
+ */
+class TelegramWebhookControllerTest {
+
+    /**
+     * Принятые события
+     */
+    private final List<Update> receivedUpdates = new ArrayList<>();
+    /**
+     * Заполнена ли очередь событий
+     */
+    private final AtomicBoolean queueFull = new AtomicBoolean();
+    /**
+     * Конечная точка webhook
+     */
+    private final TelegramWebhookController controller = new TelegramWebhookController(update -> {
+        if (queueFull.get()) {
+            return false;
+        }
+        receivedUpdates.add(update);
+        return true;
+    }, "secret");
+
+    @Test
+    @DisplayName("Событие с верным токеном должно передаваться получателю")
+    void givenValidSecretToken_whenReceiveUpdate_thenUpdateOffered() {
+        Update update = new Update();
+
+        assertEquals(HttpStatus.OK, controller.receiveUpdate("secret", update).getStatusCode());
+        assertEquals(List.of(update), receivedUpdates);
+    }
+
+    @Test
+    @DisplayName("Запрос без токена или с неверным токеном должен отклоняться")
+    void givenInvalidSecretToken_whenReceiveUpdate_thenUnauthorized() {
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.receiveUpdate(null, new Update()).getStatusCode());
+        assertEquals(HttpStatus.UNAUTHORIZED, controller.receiveUpdate("secrets", new Update()).getStatusCode());
+        assertTrue(receivedUpdates.isEmpty());
+    }
+
+    @Test
+    @DisplayName("При заполненной очереди событий Telegram должен получать ответ 503")
+    void givenFullQueue_whenReceiveUpdate_thenServiceUnavailable() {
+        queueFull.set(true);
+
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, controller.receiveUpdate("secret", new Update()).getStatusCode());
+    }
+
+}
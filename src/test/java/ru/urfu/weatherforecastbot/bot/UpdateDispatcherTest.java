@@ -0,0 +1,138 @@
+package ru.urfu.weatherforecastbot.bot;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Тесты диспетчера событий Telegram
+ */
+class UpdateDispatcherTest {
+
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Диспетчер событий
+     */
+    private final UpdateDispatcher updateDispatcher =
+            new UpdateDispatcher(4, 10, Executors.defaultThreadFactory(), meterRegistry);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        updateDispatcher.shutdown();
+    }
+
+    @Test
+    @DisplayName("События одного чата должны обрабатываться в порядке поступления")
+    void givenUpdatesFromOneChat_whenDispatch_thenHandledInOrder() throws InterruptedException {
+        List<Integer> handledUpdates = Collections.synchronizedList(new ArrayList<>());
+        int updatesCount = 100;
+        CountDownLatch handled = new CountDownLatch(updatesCount);
+
+        for (int i = 0; i < updatesCount; i++) {
+            int update = i;
+            updateDispatcher.dispatch(1, () -> {
+                handledUpdates.add(update);
+                handled.countDown();
+                return CompletableFuture.completedFuture(null);
+            });
+        }
+
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+        assertEquals(IntStream.range(0, updatesCount).boxed().toList(), handledUpdates);
+    }
+
+    @Test
+    @DisplayName("Долгая обработка события одного чата не должна задерживать другие чаты")
+    void givenSlowChat_whenDispatchOtherChat_thenOtherChatNotDelayed() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch otherChatHandled = new CountDownLatch(1);
+
+        updateDispatcher.dispatch(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return CompletableFuture.completedFuture(null);
+        });
+        updateDispatcher.dispatch(2, () -> {
+            otherChatHandled.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertTrue(otherChatHandled.await(5, TimeUnit.SECONDS));
+        release.countDown();
+    }
+
+    @Test
+    @DisplayName("Асинхронная обработка должна занимать место в очереди до своего завершения, но не рабочий поток")
+    void givenPendingAsyncUpdates_whenDispatch_thenWorkersFreeAndQueueSpaceHeld() throws InterruptedException {
+        UpdateDispatcher singleWorkerDispatcher =
+                new UpdateDispatcher(1, 10, Executors.defaultThreadFactory(), new SimpleMeterRegistry());
+        CompletableFuture<Void> pendingReply = new CompletableFuture<>();
+        CountDownLatch otherChatHandled = new CountDownLatch(1);
+        CountDownLatch nextUpdateHandled = new CountDownLatch(1);
+
+        singleWorkerDispatcher.dispatch(1, () -> pendingReply);
+        singleWorkerDispatcher.dispatch(1, () -> {
+            nextUpdateHandled.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+        singleWorkerDispatcher.dispatch(2, () -> {
+            otherChatHandled.countDown();
+            return CompletableFuture.completedFuture(null);
+        });
+
+        assertTrue(otherChatHandled.await(5, TimeUnit.SECONDS));
+        assertFalse(nextUpdateHandled.await(100, TimeUnit.MILLISECONDS));
+        assertEquals(2, singleWorkerDispatcher.getQueuedUpdatesCount());
+        pendingReply.complete(null);
+        assertTrue(nextUpdateHandled.await(5, TimeUnit.SECONDS));
+        singleWorkerDispatcher.shutdown();
+        assertEquals(3, singleWorkerDispatcher.getProcessedUpdatesCount());
+    }
+
+    @Test
+    @DisplayName("При заполненной очереди событие должно отклоняться без ожидания")
+    void givenFullQueue_whenTryDispatch_thenRejected() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch handled = new CountDownLatch(10);
+        for (int i = 0; i < 10; i++) {
+            assertTrue(updateDispatcher.tryDispatch(1, () -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                handled.countDown();
+                return CompletableFuture.completedFuture(null);
+            }));
+        }
+
+        assertFalse(updateDispatcher.tryDispatch(2, () -> CompletableFuture.completedFuture(null)));
+        assertEquals(1, updateDispatcher.getRejectedDispatchesCount());
+        assertEquals(1, meterRegistry.get("bot.dispatcher.rejected").functionCounter().count());
+        assertEquals(10, meterRegistry.get("bot.dispatcher.queued").gauge().value());
+        release.countDown();
+        assertTrue(handled.await(5, TimeUnit.SECONDS));
+    }
+
+}
@@ -1,11 +1,16 @@
 package ru.urfu.weatherforecastbot.bot.command;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
 import ru.urfu.weatherforecastbot.bot.command.handler.CommandHandler;
 import ru.urfu.weatherforecastbot.bot.state.BotStateManager;
@@ -49,7 +54,7 @@ class CommandContainerTest {
         CommandHandler helloCommandHandler = (chatId, text) -> {
             BotMessage message = new BotMessage();
             message.setText("Hello!");
-            return message;
+            return Mono.just(message);
         };
         commandContainer.addCommandHandler("/hello", helloCommandHandler, 0);
         assertTrue(commandContainer.canHandle("/hello"));
@@ -74,7 +79,7 @@ class CommandContainerTest {
         CommandHandler echoCommandHandler = (chatId, text) -> {
             BotMessage message = new BotMessage();
             message.setText(text);
-            return message;
+            return Mono.just(message);
         };
         commandContainer.addCommandHandler("/echo", echoCommandHandler, 1);
 
@@ -99,7 +104,7 @@ class CommandContainerTest {
         CommandHandler helloCommandHandler = (chatId, text) -> {
             BotMessage message = new BotMessage();
             message.setText("Hello!");
-            return message;
+            return Mono.just(message);
         };
         commandContainer.addCommandHandler("/hello", helloCommandHandler, 0);
 
@@ -108,10 +113,34 @@ class CommandContainerTest {
         CommandHandler echoCommandHandler = (chatId, text) -> {
             BotMessage message = new BotMessage();
             message.setText(text);
-            return message;
+            return Mono.just(message);
         };
         commandContainer.addCommandHandler("/echo", echoCommandHandler, 1);
         assertEquals(echoCommandHandler, commandContainer.findCommandHandler("/echo some text"));
         assertNull(commandContainer.findCommandHandler("/abc"));
     }
+    /**
+     * Проверяет, что обработка каждой команды регистрируется как наблюдение, время которого записывается в
+     * отдельный таймер с тегом команды
+     */
+    @Test
+    @DisplayName("Тест на запись времени обработки команды")
+    void testHandleRecordsCommandTimer() {
+        MeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ObservationRegistry observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig().observationHandler(new DefaultMeterObservationHandler(meterRegistry));
+        CommandContainer timedCommandContainer = new CommandContainer(weatherForecastRequestHandler,
+                chatContextRepository, botStateManager, reminderService, reminderFormatter, observationRegistry);
+        timedCommandContainer.addCommandHandler("/echo", (chatId, text) -> {
+            BotMessage message = new BotMessage();
+            message.setText(text);
+            return Mono.just(message);
+        }, 1);
+
+        BotMessage response = timedCommandContainer.handle(1L, "/echo some text").block();
+
+        assertEquals("/echo some text", response.getText());
+        assertEquals(1, meterRegistry.get("bot.commands").tag("command", "/echo").timer().count());
+        assertNull(meterRegistry.find("bot.commands").tag("command", "/help").timer());
+    }
 }
\ No newline at end of file
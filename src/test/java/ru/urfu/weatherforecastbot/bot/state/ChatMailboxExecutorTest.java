@@ -0,0 +1,119 @@
+package ru.urfu.weatherforecastbot.bot.state;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты исполнителя задач чатов
+ */
+class ChatMailboxExecutorTest {
+
+    /**
+     * Пул потоков
+     */
+    private final ExecutorService executor = Executors.newFixedThreadPool(8);
+    /**
+     * Исполнитель задач чатов
+     */
+    private final ChatMailboxExecutor chatMailboxExecutor = new ChatMailboxExecutor(executor);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Задачи одного чата должны выполняться по одной в порядке поступления")
+    void givenTasksFromManyChats_whenExecute_thenTasksOfChatExecutedExclusivelyInOrder()
+            throws InterruptedException {
+        int chatsCount = 10;
+        int tasksCount = 200;
+        List<List<Integer>> executedTasks = new ArrayList<>();
+        List<AtomicInteger> runningTasks = new ArrayList<>();
+        AtomicBoolean overlapped = new AtomicBoolean();
+        CountDownLatch executed = new CountDownLatch(chatsCount * tasksCount);
+        for (int chatId = 0; chatId < chatsCount; chatId++) {
+            executedTasks.add(new ArrayList<>());
+            runningTasks.add(new AtomicInteger());
+        }
+
+        for (int i = 0; i < tasksCount; i++) {
+            for (int chatId = 0; chatId < chatsCount; chatId++) {
+                int task = i;
+                List<Integer> chatExecutedTasks = executedTasks.get(chatId);
+                AtomicInteger chatRunningTasks = runningTasks.get(chatId);
+                chatMailboxExecutor.execute(chatId, () -> {
+                    if (chatRunningTasks.incrementAndGet() > 1) {
+                        overlapped.set(true);
+                    }
+                    chatExecutedTasks.add(task);
+                    chatRunningTasks.decrementAndGet();
+                    executed.countDown();
+                });
+            }
+        }
+
+        assertTrue(executed.await(5, TimeUnit.SECONDS));
+        assertFalse(overlapped.get());
+        List<Integer> expectedTasks = IntStream.range(0, tasksCount).boxed().toList();
+        for (List<Integer> chatExecutedTasks : executedTasks) {
+            assertEquals(expectedTasks, chatExecutedTasks);
+        }
+    }
+
+    @Test
+    @DisplayName("Следующая задача чата должна начинаться только после завершения асинхронной задачи")
+    void givenPendingAsyncTask_whenExecute_thenNextTaskOfChatWaitsAndOtherChatsNot() throws InterruptedException {
+        ExecutorService singleThreadExecutor = Executors.newSingleThreadExecutor();
+        ChatMailboxExecutor singleThreadMailboxExecutor = new ChatMailboxExecutor(singleThreadExecutor);
+        CompletableFuture<Void> pendingTask = new CompletableFuture<>();
+        CountDownLatch nextTaskExecuted = new CountDownLatch(1);
+        CountDownLatch otherChatTaskExecuted = new CountDownLatch(1);
+
+        singleThreadMailboxExecutor.executeAsync(1, () -> pendingTask);
+        singleThreadMailboxExecutor.execute(1, nextTaskExecuted::countDown);
+        singleThreadMailboxExecutor.execute(2, otherChatTaskExecuted::countDown);
+
+        assertTrue(otherChatTaskExecuted.await(5, TimeUnit.SECONDS));
+        assertFalse(nextTaskExecuted.await(100, TimeUnit.MILLISECONDS));
+        pendingTask.complete(null);
+        assertTrue(nextTaskExecuted.await(5, TimeUnit.SECONDS));
+        singleThreadExecutor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Почтовый ящик должен удаляться после выполнения всех задач чата")
+    void givenExecutedTasks_whenMailboxEmpty_thenMailboxEvicted() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        chatMailboxExecutor.execute(1, () -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        chatMailboxExecutor.execute(2, () -> {
+        });
+        assertTrue(chatMailboxExecutor.getActiveChatsCount() >= 1);
+
+        release.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        assertEquals(0, chatMailboxExecutor.getActiveChatsCount());
+    }
+
+}
@@ -0,0 +1,158 @@
+package ru.urfu.weatherforecastbot.config;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationHandler;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.repository.Repository;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты конфигурации трассировки
+ */
+class TracingConfigTest {
+
+    /**
+     * Названия завершенных наблюдений
+     */
+    private static final List<String> observationNames = new CopyOnWriteArrayList<>();
+
+    @Test
+    @DisplayName("Вызов репозитория через обертку должен регистрироваться одним наблюдением внешнего репозитория")
+    void givenWrappedRepository_whenCalled_thenOnlyOuterRepositoryObserved() {
+        observationNames.clear();
+        try (AnnotationConfigApplicationContext context =
+                     new AnnotationConfigApplicationContext(RepositoriesConfig.class)) {
+            context.getBean(TestRepository.class).find();
+            context.getBean(OtherRepository.class).find();
+        }
+
+        assertEquals(List.of("writeBehind.find", "other.find"), observationNames);
+    }
+
+    /**
+     * Интерфейс репозитория с оберткой
+     */
+    interface TestRepository extends Repository<Object, Long> {
+
+        /**
+         * Выполняет запрос
+         */
+        void find();
+
+    }
+
+    /**
+     * Интерфейс репозитория без обертки
+     */
+    interface OtherRepository extends Repository<Object, Long> {
+
+        /**
+         * Выполняет запрос
+         */
+        void find();
+
+    }
+
+    /**
+     * Репозиторий, обертываемый другим репозиторием
+     */
+    static class DelegateRepository implements TestRepository {
+
+        @Override
+        public void find() {
+        }
+
+    }
+
+    /**
+     * Репозиторий, оборачивающий другой репозиторий
+     */
+    static class WrappingRepository implements TestRepository {
+
+        /**
+         * Обернутый репозиторий
+         */
+        private final TestRepository delegate;
+
+        /**
+         * Создает экземпляр WrappingRepository, используя переданный репозиторий
+         *
+         * @param delegate обернутый репозиторий
+         */
+        WrappingRepository(TestRepository delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void find() {
+            delegate.find();
+        }
+
+    }
+
+    /**
+     * Репозиторий без обертки
+     */
+    static class UnwrappedRepository implements OtherRepository {
+
+        @Override
+        public void find() {
+        }
+
+    }
+
+    /**
+     * Конфигурация с репозиторием, его оберткой и необернутым репозиторием
+     */
+    @Configuration
+    @Import(TracingConfig.class)
+    static class RepositoriesConfig {
+
+        @Bean
+        ObservationRegistry observationRegistry() {
+            ObservationRegistry observationRegistry = ObservationRegistry.create();
+            observationRegistry.observationConfig().observationHandler(new ObservationHandler<>() {
+                @Override
+                public void onStop(Observation.Context context) {
+                    observationNames.add(context.getContextualName());
+                }
+
+                @Override
+                public boolean supportsContext(Observation.Context context) {
+                    return true;
+                }
+            });
+            return observationRegistry;
+        }
+
+        @Bean
+        TestRepository delegate() {
+            return new DelegateRepository();
+        }
+
+        @Bean
+        @Primary
+        TestRepository writeBehind(@Qualifier("delegate") TestRepository delegate) {
+            return new WrappingRepository(delegate);
+        }
+
+        @Bean
+        OtherRepository other() {
+            return new UnwrappedRepository();
+        }
+
+    }
+
+}
@@ -0,0 +1,131 @@
+package ru.urfu.weatherforecastbot.database;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.urfu.weatherforecastbot.model.ChatContext;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты репозитория контекстов чатов с отложенной записью
+ */
+@ExtendWith(MockitoExtension.class)
+class WriteBehindChatContextRepositoryTest {
+
+    /**
+     * Репозиторий контекстов чатов в базе данных
+     */
+    private final ChatContextRepository delegate;
+    /**
+     * ExecutorService для планирования сброса
+     */
+    private final ScheduledExecutorService executorService;
+    /**
+     * Репозиторий с отложенной записью
+     */
+    private final WriteBehindChatContextRepository chatContextRepository;
+
+    public WriteBehindChatContextRepositoryTest(@Mock ChatContextRepository delegate,
+                                                @Mock ScheduledExecutorService executorService) {
+        this.delegate = delegate;
+        this.executorService = executorService;
+        chatContextRepository = new WriteBehindChatContextRepository(delegate, 100, Duration.ofSeconds(1),
+                TransactionOperations.withoutTransaction(), executorService);
+    }
+
+    @Test
+    @DisplayName("Изменения должны читаться из памяти, а новый контекст записываться один раз без чтения")
+    void givenSeveralSaves_whenFlush_thenLatestNewContextSavedOnce() {
+        when(delegate.findById(1L)).thenReturn(Optional.empty());
+        ChatContext chatContext = chatContextRepository.findById(1L).orElseGet(() -> {
+            ChatContext newChatContext = new ChatContext();
+            newChatContext.setChatId(1);
+            return newChatContext;
+        });
+        chatContext.setPlaceName("Екатеринбург");
+        chatContextRepository.save(chatContext);
+        chatContext.setPlaceName("Москва");
+        assertEquals("Екатеринбург", chatContextRepository.findById(1L).orElseThrow().getPlaceName());
+        chatContextRepository.save(chatContext);
+        assertEquals("Москва", chatContextRepository.findById(1L).orElseThrow().getPlaceName());
+        verify(delegate, times(1)).findById(1L);
+        verify(delegate, never()).saveAll(any());
+
+        chatContextRepository.flush();
+        chatContextRepository.flush();
+
+        verify(delegate, never()).findAllById(any());
+        verify(delegate, times(1)).saveAll(argThat((Collection<ChatContext> chatContexts) ->
+                chatContexts.size() == 1
+                        && chatContexts.iterator().next().isNew()
+                        && chatContexts.iterator().next().getPlaceName().equals("Москва")));
+        assertEquals(0, chatContextRepository.getDirtyEntitiesCount());
+        assertEquals(1, chatContextRepository.getFlushedEntitiesCount());
+    }
+
+    @Test
+    @DisplayName("Контекст, прочитанный из базы данных, должен записываться как существующий")
+    void givenContextFromDatabase_whenFlush_thenContextLoadedAndSavedAsExisting() {
+        ChatContext storedChatContext = new ChatContext();
+        storedChatContext.setChatId(1);
+        storedChatContext.setPlaceName("Екатеринбург");
+        storedChatContext.markPersisted();
+        when(delegate.findById(1L)).thenReturn(Optional.of(storedChatContext));
+
+        ChatContext chatContext = chatContextRepository.findById(1L).orElseThrow();
+        chatContext.setReminderPosition(2);
+        chatContextRepository.save(chatContext);
+        chatContextRepository.flush();
+
+        verify(delegate).findAllById(List.of(1L));
+        verify(delegate).saveAll(argThat((Collection<ChatContext> chatContexts) -> chatContexts.size() == 1
+                && !chatContexts.iterator().next().isNew()
+                && chatContexts.iterator().next().getReminderPosition() == 2));
+        assertNull(storedChatContext.getReminderPosition());
+    }
+
+    @Test
+    @DisplayName("Удаление должно выполняться сразу, а удаленный контекст не должен записываться при сбросе")
+    void givenSavedContext_whenDelete_thenDeletedImmediatelyAndNotFlushed() {
+        ChatContext chatContext = new ChatContext();
+        chatContext.setChatId(1);
+        chatContext.setPlaceName("Екатеринбург");
+        chatContextRepository.save(chatContext);
+
+        chatContextRepository.delete(chatContext);
+        chatContextRepository.flush();
+
+        verify(delegate).deleteById(1L);
+        verify(delegate, never()).saveAll(any());
+        assertFalse(chatContextRepository.existsById(1L));
+    }
+
+    @Test
+    @DisplayName("При остановке репозиторий должен завершить планировщик сброса и записать оставшиеся изменения")
+    void givenSavedContext_whenShutdown_thenExecutorShutDownAndContextFlushed() {
+        ChatContext chatContext = new ChatContext();
+        chatContext.setChatId(1);
+        chatContext.setPlaceName("Екатеринбург");
+        chatContextRepository.save(chatContext);
+
+        chatContextRepository.shutdown();
+
+        verify(executorService).shutdown();
+        verify(delegate).saveAll(argThat((Collection<ChatContext> chatContexts) -> chatContexts.size() == 1));
+        assertEquals(0, chatContextRepository.getDirtyEntitiesCount());
+    }
+
+}
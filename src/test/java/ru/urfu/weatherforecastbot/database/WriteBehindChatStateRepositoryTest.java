@@ -0,0 +1,115 @@
+package ru.urfu.weatherforecastbot.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+import ru.urfu.weatherforecastbot.bot.state.BotState;
+import ru.urfu.weatherforecastbot.model.ChatState;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты репозитория состояний чатов с отложенной записью
+ */
+@ExtendWith(MockitoExtension.class)
+class WriteBehindChatStateRepositoryTest {
+
+    /**
+     * Репозиторий состояний чатов в базе данных
+     */
+    private final ChatStateRepository delegate;
+    /**
+     * ExecutorService для планирования сброса
+     */
+    private final ScheduledExecutorService executorService;
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Репозиторий с отложенной записью
+     */
+    private final WriteBehindChatStateRepository chatStateRepository;
+
+    public WriteBehindChatStateRepositoryTest(@Mock ChatStateRepository delegate,
+                                              @Mock ScheduledExecutorService executorService) {
+        this.delegate = delegate;
+        this.executorService = executorService;
+        chatStateRepository = new WriteBehindChatStateRepository(delegate, 100, Duration.ofSeconds(1),
+                TransactionOperations.withoutTransaction(), executorService, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Изменения должны читаться из памяти и записываться одним пакетом при сбросе")
+    void givenSeveralSaves_whenFlush_thenLatestStateSavedOnce() {
+        when(delegate.findById(1L)).thenReturn(Optional.empty());
+        ChatState chatState = chatStateRepository.findById(1L).orElseGet(() -> {
+            ChatState newChatState = new ChatState();
+            newChatState.setChatId(1);
+            newChatState.setBotState(BotState.INITIAL);
+            return chatStateRepository.save(newChatState);
+        });
+        chatState.setBotState(BotState.WAITING_FOR_PLACE_NAME);
+        assertEquals(BotState.INITIAL, chatStateRepository.findById(1L).orElseThrow().getBotState());
+        chatStateRepository.save(chatState);
+        assertEquals(BotState.WAITING_FOR_PLACE_NAME, chatStateRepository.findById(1L).orElseThrow().getBotState());
+        verify(delegate, times(1)).findById(1L);
+        verify(delegate, never()).saveAll(any());
+        assertEquals(1, meterRegistry.get("chat.cache.dirty").tag("repository", "chat_state").gauge().value());
+
+        chatStateRepository.flush();
+        chatStateRepository.flush();
+
+        verify(delegate, times(1)).saveAll(argThat((Collection<ChatState> chatStates) -> chatStates.size() == 1
+                && chatStates.iterator().next().getBotState() == BotState.WAITING_FOR_PLACE_NAME));
+        assertEquals(0, chatStateRepository.getDirtyEntitiesCount());
+        assertEquals(1, chatStateRepository.getFlushedEntitiesCount());
+        assertEquals(0, meterRegistry.get("chat.cache.dirty").tag("repository", "chat_state").gauge().value());
+        assertEquals(1, meterRegistry.get("chat.cache.flush").tag("repository", "chat_state").timer().count());
+    }
+
+    @Test
+    @DisplayName("Удаление должно выполняться сразу, а удаленное состояние не должно записываться при сбросе")
+    void givenSavedState_whenDelete_thenDeletedImmediatelyAndNotFlushed() {
+        ChatState chatState = new ChatState();
+        chatState.setChatId(1);
+        chatState.setBotState(BotState.INITIAL);
+        chatStateRepository.save(chatState);
+
+        chatStateRepository.deleteById(1L);
+        chatStateRepository.flush();
+
+        verify(delegate).deleteById(1L);
+        verify(delegate, never()).saveAll(any());
+        assertEquals(Optional.empty(), chatStateRepository.findById(1L));
+    }
+
+    @Test
+    @DisplayName("При остановке репозиторий должен завершить планировщик сброса и записать оставшиеся изменения")
+    void givenSavedState_whenShutdown_thenExecutorShutDownAndStateFlushed() {
+        ChatState chatState = new ChatState();
+        chatState.setChatId(1);
+        chatState.setBotState(BotState.INITIAL);
+        chatStateRepository.save(chatState);
+
+        chatStateRepository.shutdown();
+
+        verify(executorService).shutdown();
+        verify(delegate).saveAll(argThat((Collection<ChatState> chatStates) -> chatStates.size() == 1));
+        assertEquals(0, chatStateRepository.getDirtyEntitiesCount());
+    }
+
+}
@@ -0,0 +1,135 @@
+package ru.urfu.weatherforecastbot.database;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.urfu.weatherforecastbot.bot.state.BotState;
+import ru.urfu.weatherforecastbot.config.JpaBatchingConfig;
+import ru.urfu.weatherforecastbot.config.JpaMetricsConfig;
+import ru.urfu.weatherforecastbot.model.ChatState;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Тесты количества SQL-запросов при сбросе репозитория с отложенной записью
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({StatementCounter.class, JpaMetricsConfig.class, JpaBatchingConfig.class,
+        WriteBehindRepositoryStatementsTest.MetricsConfig.class})
+class WriteBehindRepositoryStatementsTest {
+
+    /**
+     * Количество состояний чатов в тестах
+     */
+    private static final int CHATS_COUNT = 50;
+
+    /**
+     * Репозиторий состояний чатов в базе данных
+     */
+    private final ChatStateRepository delegate;
+    /**
+     * Счетчик SQL-запросов
+     */
+    private final StatementCounter statementCounter;
+    /**
+     * Репозиторий с отложенной записью
+     */
+    private final WriteBehindChatStateRepository chatStateRepository;
+
+    @Autowired
+    public WriteBehindRepositoryStatementsTest(ChatStateRepository delegate, StatementCounter statementCounter,
+                                               PlatformTransactionManager transactionManager) {
+        this.delegate = delegate;
+        this.statementCounter = statementCounter;
+        chatStateRepository = new WriteBehindChatStateRepository(delegate, 1000, Duration.ofHours(1),
+                new TransactionTemplate(transactionManager), mock(ScheduledExecutorService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        delegate.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Новые состояния должны записываться одним пакетом без чтения из базы данных")
+    void givenNewStates_whenFlush_thenSingleInsertBatch() {
+        for (long chatId = 1; chatId <= CHATS_COUNT; chatId++) {
+            saveState(chatId, BotState.INITIAL);
+        }
+
+        assertEquals(1, countFlushStatements());
+        assertEquals(CHATS_COUNT, delegate.count());
+    }
+
+    @Test
+    @DisplayName("Измененные состояния должны записываться одним чтением и одним пакетом обновлений")
+    void givenChangedStates_whenFlush_thenSingleSelectAndUpdateBatch() {
+        for (long chatId = 1; chatId <= CHATS_COUNT; chatId++) {
+            saveState(chatId, BotState.INITIAL);
+        }
+        chatStateRepository.flush();
+        for (long chatId = 1; chatId <= CHATS_COUNT; chatId++) {
+            saveState(chatId, BotState.WAITING_FOR_PLACE_NAME);
+        }
+
+        assertEquals(2, countFlushStatements());
+        delegate.findAll().forEach(chatState -> assertEquals(BotState.WAITING_FOR_PLACE_NAME, chatState.getBotState()));
+    }
+
+    /**
+     * Сохраняет состояние чата так же, как бот: изменяет прочитанное состояние или создает новое
+     *
+     * @param chatId   ID чата
+     * @param botState состояние бота
+     */
+    private void saveState(long chatId, BotState botState) {
+        ChatState chatState = chatStateRepository.findById(chatId).orElseGet(() -> {
+            ChatState newChatState = new ChatState();
+            newChatState.setChatId(chatId);
+            return newChatState;
+        });
+        chatState.setBotState(botState);
+        chatStateRepository.save(chatState);
+    }
+
+    /**
+     * Выполняет сброс и возвращает количество выполненных при этом SQL-запросов
+     *
+     * @return количество SQL-запросов
+     */
+    private long countFlushStatements() {
+        long statementsBefore = statementCounter.getThreadStatementsCount();
+        chatStateRepository.flush();
+        return statementCounter.getThreadStatementsCount() - statementsBefore;
+    }
+
+    /**
+     * Конфигурация реестра метрик для счетчика SQL-запросов
+     */
+    @TestConfiguration
+    static class MetricsConfig {
+
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+
+    }
+
+}
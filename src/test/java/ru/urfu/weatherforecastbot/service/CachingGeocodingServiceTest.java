@@ -0,0 +1,84 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты кэширующего сервиса для поиска мест
+ */
+@ExtendWith(MockitoExtension.class)
+class CachingGeocodingServiceTest {
+
+    /**
+     * Сервис для поиска мест, к которому обращается кэш
+     */
+    private final GeocodingService delegate;
+    /**
+     * Текущее время кэша в наносекундах
+     */
+    private final AtomicLong nanos = new AtomicLong();
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Кэширующий сервис для поиска мест
+     */
+    private final CachingGeocodingService geocodingService;
+
+    public CachingGeocodingServiceTest(@Mock GeocodingService delegate) {
+        this.delegate = delegate;
+        geocodingService = new CachingGeocodingService(delegate, 100, Duration.ofDays(1), Duration.ofMinutes(1),
+                nanos::get, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Повторный запрос того же места (с учетом регистра и пробелов) должен обслуживаться из кэша")
+    void givenCachedPlace_whenFindPlaceByName_thenDelegateNotCalledAgain() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        when(delegate.findPlaceByNameAsync("Екатеринбург")).thenReturn(Mono.just(ekaterinburg));
+
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName("Екатеринбург"));
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName("  екатеринбург "));
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName("ЕКАТЕРИНБУРГ"));
+
+        verify(delegate, times(1)).findPlaceByNameAsync(anyString());
+        assertEquals(2, geocodingService.getStats().hitCount());
+        assertEquals(1, geocodingService.getStats().missCount());
+        assertEquals(2, meterRegistry.get("cache.gets").tags("cache", "geocoding", "result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("Ненайденное место должно храниться в кэше меньше, чем найденное")
+    void givenNotFoundPlace_whenNegativeTtlElapsed_thenDelegateCalledAgain() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        when(delegate.findPlaceByNameAsync("Екатеринбург")).thenReturn(Mono.just(ekaterinburg));
+        when(delegate.findPlaceByNameAsync("beautiful faraway")).thenReturn(Mono.empty());
+        geocodingService.findPlaceByName("Екатеринбург");
+        geocodingService.findPlaceByName("beautiful faraway");
+
+        nanos.addAndGet(Duration.ofMinutes(2).toNanos());
+        geocodingService.findPlaceByName("Екатеринбург");
+        geocodingService.findPlaceByName("beautiful faraway");
+
+        verify(delegate, times(1)).findPlaceByNameAsync("Екатеринбург");
+        verify(delegate, times(2)).findPlaceByNameAsync("beautiful faraway");
+    }
+
+}
@@ -0,0 +1,145 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты сервиса, объединяющего одновременные одинаковые запросы прогнозов погоды
+ */
+@ExtendWith(MockitoExtension.class)
+class CoalescingWeatherForecastServiceTest {
+
+    /**
+     * Сервис для получения прогнозов погоды, к которому выполняются запросы
+     */
+    private final WeatherForecastService delegate;
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Сервис, объединяющий одновременные запросы
+     */
+    private final CoalescingWeatherForecastService weatherForecastService;
+
+    public CoalescingWeatherForecastServiceTest(@Mock WeatherForecastService delegate) {
+        this.delegate = delegate;
+        weatherForecastService = new CoalescingWeatherForecastService(delegate, meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Одновременные запросы одного и того же места должны приводить к одному обращению к сервису")
+    void givenConcurrentRequests_whenGetForecast_thenDelegateCalledOnce() throws Exception {
+        Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        ForecastSeries forecasts = new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 0, 0),
+                Duration.ofHours(1), new double[1], new double[1]);
+        int callersCount = 8;
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.getForecastAsync(anyString(), anyInt())).thenReturn(Mono.fromCallable(() -> {
+            release.await();
+            return forecasts;
+        }).subscribeOn(Schedulers.boundedElastic()));
+        ExecutorService executor = Executors.newFixedThreadPool(callersCount);
+        try {
+            List<Future<ForecastSeries>> results = new ArrayList<>();
+            results.add(executor.submit(() -> weatherForecastService.getForecast("Екатеринбург", 1)));
+            while (weatherForecastService.getInFlightRequestsCount() == 0) {
+                Thread.onSpinWait();
+            }
+            for (int i = 1; i < callersCount; i++) {
+                results.add(executor.submit(() -> weatherForecastService.getForecast(" екатеринбург", 1)));
+            }
+            while (weatherForecastService.getCollapsedRequestsCount() < callersCount - 1) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            for (Future<ForecastSeries> result : results) {
+                assertEquals(forecasts, result.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(delegate, times(1)).getForecastAsync(anyString(), anyInt());
+        assertEquals(callersCount, weatherForecastService.getRequestsCount());
+        assertEquals(0, weatherForecastService.getInFlightRequestsCount());
+        assertEquals(callersCount, meterRegistry.get("forecast.requests").functionCounter().count());
+        assertEquals(callersCount - 1, meterRegistry.get("forecast.requests.collapsed").functionCounter().count());
+        assertEquals(0, meterRegistry.get("forecast.requests.inflight").gauge().value());
+    }
+
+    @Test
+    @DisplayName("Пакетный запрос должен присоединяться к выполняющемуся запросу места и запрашивать остальные места "
+            + "одним пакетом")
+    void givenInFlightRequest_whenGetForecasts_thenOnlyOtherPlacesRequested() {
+        ForecastSeries ekaterinburgForecasts = createForecasts(
+                new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg"));
+        ForecastSeries moscowForecasts = createForecasts(new Place("Москва", 55.752, 37.616, "Europe/Moscow"));
+        CompletableFuture<ForecastSeries> ekaterinburgRequest = new CompletableFuture<>();
+        when(delegate.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.fromFuture(ekaterinburgRequest));
+        when(delegate.getForecastsAsync(List.of("Москва"), 1))
+                .thenReturn(Mono.just(Map.of("Москва", moscowForecasts)));
+
+        CompletableFuture<ForecastSeries> single = weatherForecastService.getForecastAsync("Екатеринбург", 1)
+                .toFuture();
+        CompletableFuture<Map<String, ForecastSeries>> batch = weatherForecastService
+                .getForecastsAsync(List.of(" екатеринбург", "Москва"), 1)
+                .toFuture();
+        assertEquals(1, weatherForecastService.getInFlightRequestsCount());
+        ekaterinburgRequest.complete(ekaterinburgForecasts);
+
+        assertEquals(ekaterinburgForecasts, single.join());
+        assertEquals(Map.of(" екатеринбург", ekaterinburgForecasts, "Москва", moscowForecasts), batch.join());
+        verify(delegate, times(1)).getForecastAsync("Екатеринбург", 1);
+        verify(delegate, times(1)).getForecastsAsync(List.of("Москва"), 1);
+        verifyNoMoreInteractions(delegate);
+        assertEquals(3, weatherForecastService.getRequestsCount());
+        assertEquals(1, weatherForecastService.getCollapsedRequestsCount());
+        assertEquals(0, weatherForecastService.getInFlightRequestsCount());
+    }
+
+    @Test
+    @DisplayName("Исключение сервиса должно пробрасываться, а следующий запрос должен снова обращаться к сервису")
+    void givenFailedRequest_whenGetForecastAgain_thenDelegateCalledAgain() {
+        when(delegate.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.error(new IllegalStateException("unavailable")));
+
+        assertThrows(IllegalStateException.class, () -> weatherForecastService.getForecast("Екатеринбург", 1));
+        assertThrows(IllegalStateException.class, () -> weatherForecastService.getForecast("Екатеринбург", 1));
+
+        verify(delegate, times(2)).getForecastAsync("Екатеринбург", 1);
+    }
+
+    /**
+     * Создает ряд прогнозов погоды для места
+     *
+     * @param place место
+     * @return ряд прогнозов погоды
+     */
+    private static ForecastSeries createForecasts(Place place) {
+        return new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 0, 0), Duration.ofHours(1), new double[1],
+                new double[1]);
+    }
+
+}
@@ -0,0 +1,140 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты кэша прогнозов погоды
+ */
+class ForecastCacheTest {
+
+    /**
+     * Текущий момент времени
+     */
+    private Instant now = Instant.parse("2023-11-05T10:20:00Z");
+    /**
+     * Часы, показывающие {@link ForecastCacheTest#now}
+     */
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    };
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Кэш прогнозов погоды
+     */
+    private final ForecastCache forecastCache = new ForecastCache(100, Duration.ofHours(1), clock,
+            () -> now.toEpochMilli() * 1_000_000, meterRegistry);
+    /**
+     * Количество загрузок прогнозов
+     */
+    private final AtomicInteger loadsCount = new AtomicInteger();
+
+    @Test
+    @DisplayName("Прогноз должен устаревать на границе часа, а близкие координаты должны использовать одну запись")
+    void givenCachedForecast_whenHourBoundaryPassed_thenForecastReloaded() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.8761, 60.6261, "Asia/Yekaterinburg");
+        Place sameEkaterinburg = new Place("Екатеринбург", 56.8759, 60.6259, "Asia/Yekaterinburg");
+
+        forecastCache.get(ekaterinburg, this::load).block();
+        now = now.plus(Duration.ofMinutes(39));
+        forecastCache.get(sameEkaterinburg, this::load).block();
+        assertEquals(1, loadsCount.get());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "forecast", "result", "hit")
+                .functionCounter().count());
+
+        now = now.plus(Duration.ofMinutes(1));
+        forecastCache.get(ekaterinburg, this::load).block();
+        assertEquals(2, loadsCount.get());
+    }
+
+    @Test
+    @DisplayName("Прогноз должен устаревать в местную полночь, даже если она наступает не на границе часа")
+    void givenHalfHourTimezone_whenLocalMidnightPassed_thenForecastReloaded() {
+        now = Instant.parse("2023-11-05T18:10:00Z");
+        Place delhi = new Place("Дели", 28.652, 77.231, "Asia/Kolkata");
+
+        forecastCache.get(delhi, this::load).block();
+        now = Instant.parse("2023-11-05T18:29:00Z");
+        forecastCache.get(delhi, this::load).block();
+        assertEquals(1, loadsCount.get());
+
+        now = Instant.parse("2023-11-05T18:30:00Z");
+        forecastCache.get(delhi, this::load).block();
+        assertEquals(2, loadsCount.get());
+    }
+
+    @Test
+    @DisplayName("Прогнозы, загруженные заранее одним пакетом перед границей часа, должны использоваться после нее "
+            + "без загрузки")
+    void givenPrefetchedForecasts_whenHourBoundaryPassed_thenForecastsNotReloaded() {
+        now = Instant.parse("2023-11-05T09:55:00Z");
+        Place ekaterinburg = new Place("Екатеринбург", 56.8761, 60.6261, "Asia/Yekaterinburg");
+        Place moscow = new Place("Москва", 55.7522, 37.6156, "Europe/Moscow");
+
+        forecastCache.prefetchAll(List.of(ekaterinburg, moscow, ekaterinburg), Instant.parse("2023-11-05T10:00:00Z"),
+                this::loadAll).block();
+        assertEquals(1, loadsCount.get());
+        now = Instant.parse("2023-11-05T10:00:00Z");
+        forecastCache.get(ekaterinburg, this::load).block();
+        forecastCache.get(moscow, this::load).block();
+        assertEquals(1, loadsCount.get());
+
+        forecastCache.prefetchAll(List.of(ekaterinburg, moscow), Instant.parse("2023-11-05T10:30:00Z"),
+                this::loadAll).block();
+        assertEquals(1, loadsCount.get());
+    }
+
+    /**
+     * Загружает прогнозы погоды для места
+     *
+     * @param place место
+     * @return Mono с прогнозами погоды
+     */
+    private Mono<ForecastSeries> load(Place place) {
+        loadsCount.incrementAndGet();
+        return Mono.just(new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 0, 0), Duration.ofHours(1),
+                new double[1], new double[1]));
+    }
+
+    /**
+     * Загружает прогнозы погоды для нескольких мест одной загрузкой
+     *
+     * @param places места
+     * @return Mono с прогнозами погоды в порядке мест
+     */
+    private Mono<List<ForecastSeries>> loadAll(List<Place> places) {
+        loadsCount.incrementAndGet();
+        return Mono.just(places.stream()
+                .map(place -> new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 0, 0), Duration.ofHours(1),
+                        new double[1], new double[1]))
+                .toList());
+    }
+
+}
@@ -0,0 +1,95 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.Place;
+import ru.urfu.weatherforecastbot.service.gazetteer.GazetteerRecord;
+import ru.urfu.weatherforecastbot.service.gazetteer.InMemoryGazetteer;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты сервиса для поиска мест по локальному справочнику
+ */
+@ExtendWith(MockitoExtension.class)
+class GazetteerGeocodingServiceTest {
+
+    /**
+     * Сервис для поиска мест, к которому выполняются запросы при отсутствии места в справочнике
+     */
+    private final GeocodingService delegate;
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Сервис для поиска мест по локальному справочнику
+     */
+    private final GazetteerGeocodingService geocodingService;
+
+    public GazetteerGeocodingServiceTest(@Mock GeocodingService delegate) {
+        this.delegate = delegate;
+        geocodingService = new GazetteerGeocodingService(delegate, InMemoryGazetteer.of(List.of(
+                new GazetteerRecord(List.of("Yekaterinburg", "Екатеринбург"), 56.8519, 60.6122, "Asia/Yekaterinburg",
+                        1349772))), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Место из справочника должно находиться без обращения к другому сервису")
+    void givenPlaceInGazetteer_whenFindPlaceByName_thenDelegateNotCalled() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.8519, 60.6122, "Asia/Yekaterinburg");
+
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName("екатеринбург"));
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName(" ЕКАТЕРИНБУРГ "));
+
+        verify(delegate, never()).findPlaceByNameAsync(anyString());
+        assertEquals(2, geocodingService.getHitsCount());
+        assertEquals(0, geocodingService.getMissesCount());
+    }
+
+    @Test
+    @DisplayName("Название с опечаткой должно искаться другим сервисом, а похожее название из справочника " +
+            "использоваться, только если другой сервис не нашел место или завершился с ошибкой")
+    void givenMisspelledName_whenFindPlaceByName_thenSimilarPlaceUsedOnlyAfterDelegate() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.8519, 60.6122, "Asia/Yekaterinburg");
+        Place ekaterinovka = new Place("Екатериновка", 52.05, 44.35, "Europe/Saratov");
+        when(delegate.findPlaceByNameAsync("Екатериновка")).thenReturn(Mono.just(ekaterinovka));
+        when(delegate.findPlaceByNameAsync("Екатеренбург")).thenReturn(Mono.empty());
+        when(delegate.findPlaceByNameAsync("Екатиринбург")).thenReturn(Mono.error(new IllegalStateException()));
+
+        assertEquals(Optional.of(ekaterinovka), geocodingService.findPlaceByName("Екатериновка"));
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName("Екатеренбург"));
+        assertEquals(Optional.of(ekaterinburg), geocodingService.findPlaceByName("Екатиринбург"));
+
+        assertEquals(0, geocodingService.getHitsCount());
+        assertEquals(3, geocodingService.getMissesCount());
+        assertEquals(2, geocodingService.getSimilarHitsCount());
+    }
+
+    @Test
+    @DisplayName("Место, которого нет в справочнике, должно искаться другим сервисом")
+    void givenPlaceNotInGazetteer_whenFindPlaceByName_thenDelegateCalled() {
+        Place tomsk = new Place("Томск", 56.5, 84.97, "Asia/Tomsk");
+        when(delegate.findPlaceByNameAsync("Томск")).thenReturn(Mono.just(tomsk));
+
+        assertEquals(Optional.of(tomsk), geocodingService.findPlaceByName("Томск"));
+
+        verify(delegate, times(1)).findPlaceByNameAsync("Томск");
+        assertEquals(0, geocodingService.getHitsCount());
+        assertEquals(1, geocodingService.getMissesCount());
+        assertEquals(1, meterRegistry.get("geocoding.gazetteer.lookups").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+}
@@ -7,27 +7,33 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
 import ru.urfu.weatherforecastbot.bot.BotMessage;
+import ru.urfu.weatherforecastbot.bot.MessagePriority;
 import ru.urfu.weatherforecastbot.bot.WeatherForecastBot;
 import ru.urfu.weatherforecastbot.database.ReminderRepository;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
 import ru.urfu.weatherforecastbot.model.Reminder;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatter;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatterImpl;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.ZoneOffset;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.Mockito.*;
 
 /**
@@ -36,6 +42,10 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class ReminderServiceImplTest {
 
+    /**
+     * Время ожидания отправки напоминания (в миллисекундах), так как напоминания отправляются асинхронно
+     */
+    private static final long SEND_TIMEOUT_MILLIS = 1000;
     /**
      * Сервис для получения прогнозов погоды
      */
@@ -102,22 +112,23 @@ class ReminderServiceImplTest {
         when(reminderRepository.save(any(Reminder.class))).thenReturn(ekateringburgReminder, nizhnyNovgorodReminder);
         LocalDateTime today = LocalDateTime.now();
         int hours = 24;
-        List<WeatherForecast> ekateringburgForecast = new ArrayList<>(hours);
-        List<WeatherForecast> nizhnyNovgorodForecast = new ArrayList<>(hours);
         Place ekateringburg =
                 new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
         Place nizhnyNovgorod =
                 new Place("Нижний Новгород", 56.328, 44.002, "Europe/Moscow");
-        for (int hour = 0; hour < hours; hour++) {
-            ekateringburgForecast.add(
-                    new WeatherForecast(
-                            ekateringburg, today.withHour(hour).withMinute(0), 0, 0));
-            nizhnyNovgorodForecast.add(
-                    new WeatherForecast(
-                            nizhnyNovgorod, today.withHour(hour).withMinute(0), 10, 5));
-        }
-        when(weatherService.getForecast("Екатеринбург", 1)).thenReturn(ekateringburgForecast);
-        when(weatherService.getForecast("Нижний Новгород", 1)).thenReturn(nizhnyNovgorodForecast);
+        double[] nizhnyNovgorodTemperatures = new double[hours];
+        Arrays.fill(nizhnyNovgorodTemperatures, 10);
+        double[] nizhnyNovgorodFeelsLikeTemperatures = new double[hours];
+        Arrays.fill(nizhnyNovgorodFeelsLikeTemperatures, 5);
+        ForecastSeries ekateringburgForecast = new ForecastSeries(ekateringburg,
+                today.withHour(0).withMinute(0), Duration.ofHours(1), new double[hours], new double[hours]);
+        ForecastSeries nizhnyNovgorodForecast = new ForecastSeries(nizhnyNovgorod,
+                today.withHour(0).withMinute(0), Duration.ofHours(1), nizhnyNovgorodTemperatures,
+                nizhnyNovgorodFeelsLikeTemperatures);
+        when(weatherService.getForecastsAsync(List.of("Екатеринбург"), 1))
+                .thenReturn(Mono.just(Map.of("Екатеринбург", ekateringburgForecast)));
+        when(weatherService.getForecastsAsync(List.of("Нижний Новгород"), 1))
+                .thenReturn(Mono.just(Map.of("Нижний Новгород", nizhnyNovgorodForecast)));
         String expectedEkateringburgForecast = """
                 🌡️ Прогноз погоды на сегодня (Екатеринбург):
                                 
@@ -188,19 +199,24 @@ class ReminderServiceImplTest {
 
         verify(bot, never()).sendMessage(eq(chatId), argThat((BotMessage message) ->
                 message.getText().equals(expectedEkateringburgForecast)
-                        || message.getText().equals(expectedNizhnyNovgorodForecast)));
+                        || message.getText().equals(expectedNizhnyNovgorodForecast)),
+                eq(MessagePriority.BROADCAST));
 
         executorService.elapse(deltaInMinutes, TimeUnit.MINUTES);
-        verify(bot).sendMessage(eq(chatId), argThat((BotMessage message) ->
-                message.getText().equals(expectedEkateringburgForecast)));
+        verify(bot, timeout(SEND_TIMEOUT_MILLIS)).sendMessage(eq(chatId), argThat((BotMessage message) ->
+                message.getText().equals(expectedEkateringburgForecast)),
+                eq(MessagePriority.BROADCAST));
         verify(bot, never()).sendMessage(eq(chatId), argThat((BotMessage message) ->
-                message.getText().equals(expectedNizhnyNovgorodForecast)));
+                message.getText().equals(expectedNizhnyNovgorodForecast)),
+                eq(MessagePriority.BROADCAST));
 
         executorService.elapse(1, TimeUnit.DAYS);
-        verify(bot, times(2)).sendMessage(eq(chatId), argThat((BotMessage message) ->
-                message.getText().equals(expectedEkateringburgForecast)));
-        verify(bot).sendMessage(eq(chatId), argThat((BotMessage message) ->
-                message.getText().equals(expectedNizhnyNovgorodForecast)));
+        verify(bot, timeout(SEND_TIMEOUT_MILLIS).times(2)).sendMessage(eq(chatId), argThat((BotMessage message) ->
+                message.getText().equals(expectedEkateringburgForecast)),
+                eq(MessagePriority.BROADCAST));
+        verify(bot, timeout(SEND_TIMEOUT_MILLIS)).sendMessage(eq(chatId), argThat((BotMessage message) ->
+                message.getText().equals(expectedNizhnyNovgorodForecast)),
+                eq(MessagePriority.BROADCAST));
 
         Exception exception = assertThrows(DateTimeParseException.class,
                 () -> reminderService.addReminder(chatId, "Прага", "abc"));
@@ -241,10 +257,10 @@ class ReminderServiceImplTest {
         reminderService.deleteReminderByRelativePosition(chatId, 1);
         verify(reminderRepository).deleteById(reminderId);
         executorService.elapse(deltaInMinutes, TimeUnit.MINUTES);
-        verify(bot, never()).sendMessage(eq(chatId), any());
+        verify(bot, never()).sendMessage(eq(chatId), any(), any());
 
         executorService.elapse(1, TimeUnit.DAYS);
-        verify(bot, never()).sendMessage(eq(chatId), any());
+        verify(bot, never()).sendMessage(eq(chatId), any(), any());
 
         Exception exception = assertThrows(IllegalArgumentException.class, () ->
                 reminderService.deleteReminderByRelativePosition(chatId, -1));
@@ -278,4 +294,46 @@ class ReminderServiceImplTest {
         assertEquals("Москва", reminder.getPlaceName());
         assertEquals(LocalTime.of(10, 0), reminder.getTime());
     }
-}
\ No newline at end of file
+
+    /**
+     * Проверяет, что напоминания об одном месте, наступившие в одну минуту, используют один прогноз погоды.<br>
+     * Проверки:
+     * <ul>
+     *     <li>прогноз для места запрашивается один раз, даже если название места записано по-разному</li>
+     *     <li>прогнозы для всех мест запрашиваются одним пакетным запросом</li>
+     *     <li>прогноз отправляется во все чаты, подписанные на это место</li>
+     * </ul>
+     */
+    @Test
+    @DisplayName("Тест группировки напоминаний об одном месте")
+    void testSendRemindersGroupedByPlace() {
+        LocalTime now = LocalTime.now(ZoneOffset.UTC);
+        String time = now.plusMinutes(10).format(DateTimeFormatter.ISO_LOCAL_TIME);
+        List<Reminder> reminders = new ArrayList<>();
+        String[] placeNames = {"Екатеринбург", " екатеринбург", "Москва"};
+        for (int i = 0; i < placeNames.length; i++) {
+            Reminder reminder = new Reminder();
+            reminder.setId(i + 1L);
+            reminder.setChatId(i + 1L);
+            reminder.setPlaceName(placeNames[i]);
+            reminder.setTime(LocalTime.parse(time));
+            reminders.add(reminder);
+        }
+        when(reminderRepository.save(any(Reminder.class))).thenReturn(reminders.get(0), reminders.get(1),
+                reminders.get(2));
+        when(weatherService.getForecastsAsync(anyCollection(), eq(1))).thenReturn(Mono.just(Map.of()));
+        for (Reminder reminder : reminders) {
+            reminderService.addReminder(reminder.getChatId(), reminder.getPlaceName(), time);
+        }
+
+        executorService.elapse(10, TimeUnit.MINUTES);
+
+        for (Reminder reminder : reminders) {
+            verify(bot, timeout(SEND_TIMEOUT_MILLIS)).sendMessage(eq(reminder.getChatId()), any(),
+                    eq(MessagePriority.BROADCAST));
+        }
+        verify(weatherService, times(1)).getForecastsAsync(List.of("Екатеринбург", "Москва"), 1);
+        verifyNoMoreInteractions(weatherService);
+    }
+
+}
@@ -0,0 +1,104 @@
+package ru.urfu.weatherforecastbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.urfu.weatherforecastbot.model.Reminder;
+
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты колеса времени для напоминаний
+ */
+class ReminderTimingWheelTest {
+
+    /**
+     * Планировщик с управляемым временем
+     */
+    private final FakeScheduledExecutorService executorService = new FakeScheduledExecutorService();
+    /**
+     * Пакеты напоминаний, переданные обработчику
+     */
+    private final List<Collection<Reminder>> firedBatches = new ArrayList<>();
+    /**
+     * Колесо времени
+     */
+    private final ReminderTimingWheel timingWheel = new ReminderTimingWheel(executorService, firedBatches::add);
+
+    @Test
+    @DisplayName("Напоминания одной минуты должны срабатывать одним пакетом по одной задаче планировщика")
+    void givenRemindersInSameMinute_whenMinuteComes_thenFiredAsOneBatch() {
+        LocalTime time = LocalTime.now(ZoneOffset.UTC).plusMinutes(10).truncatedTo(ChronoUnit.MINUTES);
+        timingWheel.add(createReminder(1, time));
+        timingWheel.add(createReminder(2, time.plusSeconds(30)));
+        timingWheel.add(createReminder(3, time.plusMinutes(5)));
+        assertEquals(3, timingWheel.getRemindersCount());
+        assertEquals(2, timingWheel.getOccupiedSlotsCount());
+
+        executorService.elapse(11, TimeUnit.MINUTES);
+
+        assertEquals(1, firedBatches.size());
+        assertEquals(List.of(1L, 2L), firedBatches.get(0).stream().map(Reminder::getId).toList());
+    }
+
+    @Test
+    @DisplayName("Отмена последнего напоминания слота должна освобождать слот, а перенос - менять слот")
+    void givenReminders_whenRemoveAndReschedule_thenSlotsUpdated() {
+        LocalTime time = LocalTime.now(ZoneOffset.UTC).plusMinutes(10);
+        timingWheel.add(createReminder(1, time));
+        timingWheel.add(createReminder(2, time.plusMinutes(5)));
+
+        timingWheel.remove(1);
+        timingWheel.add(createReminder(2, time.plusMinutes(20)));
+        assertEquals(1, timingWheel.getRemindersCount());
+        assertEquals(1, timingWheel.getOccupiedSlotsCount());
+
+        executorService.elapse(16, TimeUnit.MINUTES);
+        assertEquals(0, firedBatches.size());
+        executorService.elapse(15, TimeUnit.MINUTES);
+        assertEquals(1, firedBatches.size());
+    }
+
+    @Test
+    @DisplayName("Обработчик предстоящих напоминаний должен вызываться за время упреждения до срабатывания слота")
+    void givenLeadTime_whenLeadTimeBeforeMinuteComes_thenUpcomingRemindersHandled() {
+        List<Collection<Reminder>> upcomingBatches = new ArrayList<>();
+        ReminderTimingWheel prefetchingWheel = new ReminderTimingWheel(executorService, firedBatches::add,
+                Duration.ofMinutes(5), upcomingBatches::add);
+        LocalTime time = LocalTime.now(ZoneOffset.UTC).plusMinutes(10).truncatedTo(ChronoUnit.MINUTES);
+        prefetchingWheel.add(createReminder(1, time));
+
+        executorService.elapse(6, TimeUnit.MINUTES);
+        assertEquals(1, upcomingBatches.size());
+        assertEquals(0, firedBatches.size());
+
+        executorService.elapse(5, TimeUnit.MINUTES);
+        assertEquals(1, upcomingBatches.size());
+        assertEquals(1, firedBatches.size());
+    }
+
+    /**
+     * Создает напоминание
+     *
+     * @param id   ID напоминания
+     * @param time время напоминания
+     * @return напоминание
+     */
+    private Reminder createReminder(long id, LocalTime time) {
+        Reminder reminder = new Reminder();
+        reminder.setId(id);
+        reminder.setChatId(1L);
+        reminder.setPlaceName("Екатеринбург");
+        reminder.setTime(time);
+        return reminder;
+    }
+
+}
@@ -0,0 +1,163 @@
+package ru.urfu.weatherforecastbot.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.*;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Тесты сервиса, защищающего от деградации сервера прогнозов погоды
+ */
+@ExtendWith(MockitoExtension.class)
+class ResilientWeatherForecastServiceTest {
+
+    /**
+     * Место прогноза
+     */
+    private final Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+    /**
+     * Текущее время (в наносекундах)
+     */
+    private final AtomicLong nanoTime = new AtomicLong();
+    /**
+     * Часы, идущие вместе с {@link ResilientWeatherForecastServiceTest#nanoTime} (начальное время - 23:00 по
+     * времени места прогноза)
+     */
+    private final Clock clock = new Clock() {
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.parse("2023-11-05T18:00:00Z").plusNanos(nanoTime.get());
+        }
+    };
+    /**
+     * Сервис для получения прогнозов погоды, к которому выполняются запросы
+     */
+    private final WeatherForecastService delegate;
+    /**
+     * Автоматический выключатель
+     */
+    private final CircuitBreaker circuitBreaker = new CircuitBreaker(2, Duration.ofSeconds(30), nanoTime::get);
+
+    public ResilientWeatherForecastServiceTest(@Mock WeatherForecastService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Test
+    @DisplayName("Временные ошибки должны повторяться, а после нескольких неудачных запросов выключатель - размыкаться")
+    void givenFailingDelegate_whenGetForecast_thenRetriedAndCircuitOpened() {
+        ResilientWeatherForecastService service = createService(1, Duration.ofSeconds(1));
+        when(delegate.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.error(new TimeoutException()));
+
+        assertThrows(RuntimeException.class, () -> service.getForecast("Екатеринбург", 1));
+        assertThrows(RuntimeException.class, () -> service.getForecast("Екатеринбург", 1));
+        verify(delegate, times(4)).getForecastAsync("Екатеринбург", 1);
+        assertEquals(CircuitBreaker.State.OPEN, service.getCircuitBreakerState());
+
+        assertThrows(IllegalStateException.class, () -> service.getForecast("Екатеринбург", 1));
+        verify(delegate, times(4)).getForecastAsync("Екатеринбург", 1);
+
+        nanoTime.addAndGet(Duration.ofSeconds(30).toNanos());
+        ForecastSeries series = createSeries();
+        when(delegate.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.just(series));
+        assertEquals(series, service.getForecast("Екатеринбург", 1));
+        assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitBreakerState());
+    }
+
+    @Test
+    @DisplayName("Запросы, не уложившиеся в срок, должны учитываться как неудачные и размыкать выключатель")
+    void givenHangingDelegate_whenDeadlineExceeded_thenCircuitOpened() {
+        ResilientWeatherForecastService service = createService(0, Duration.ofMillis(50));
+        when(delegate.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.never());
+
+        assertThrows(RuntimeException.class, () -> service.getForecast("Екатеринбург", 1));
+        assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitBreakerState());
+        assertThrows(RuntimeException.class, () -> service.getForecast("Екатеринбург", 1));
+        assertEquals(CircuitBreaker.State.OPEN, service.getCircuitBreakerState());
+
+        assertThrows(IllegalStateException.class, () -> service.getForecast("Екатеринбург", 1));
+        verify(delegate, times(2)).getForecastAsync("Екатеринбург", 1);
+    }
+
+    @Test
+    @DisplayName("Если запрос не уложился в срок, должен вернуться сохраненный прогноз, а запрос - обновить его")
+    void givenSlowDelegate_whenGetForecast_thenStaleForecastServedAndRevalidated() {
+        ResilientWeatherForecastService service = createService(0, Duration.ofMillis(100));
+        ForecastSeries staleSeries = createSeries();
+        ForecastSeries freshSeries = createSeries();
+        Sinks.One<ForecastSeries> slowResponse = Sinks.one();
+        when(delegate.getForecastAsync("Екатеринбург", 1))
+                .thenReturn(Mono.just(staleSeries))
+                .thenReturn(slowResponse.asMono())
+                .thenReturn(Mono.never());
+        service.getForecast("Екатеринбург", 1);
+
+        assertSame(staleSeries, service.getForecast("Екатеринбург", 1));
+        slowResponse.tryEmitValue(freshSeries);
+
+        assertSame(freshSeries, service.getForecast("Екатеринбург", 1));
+        assertEquals(2, service.getStaleResponsesCount());
+    }
+
+    @Test
+    @DisplayName("После местной полуночи сохраненный прогноз не должен возвращаться, так как начинается вчерашним днем")
+    void givenStaleForecastFromYesterday_whenGetForecastFails_thenStaleForecastNotServed() {
+        ResilientWeatherForecastService service = createService(0, Duration.ofSeconds(1));
+        ForecastSeries staleSeries = createSeries();
+        when(delegate.getForecastAsync("Екатеринбург", 1))
+                .thenReturn(Mono.just(staleSeries))
+                .thenReturn(Mono.error(new TimeoutException()));
+        service.getForecast("Екатеринбург", 1);
+
+        nanoTime.addAndGet(Duration.ofMinutes(59).toNanos());
+        assertSame(staleSeries, service.getForecast("Екатеринбург", 1));
+
+        nanoTime.addAndGet(Duration.ofMinutes(1).toNanos());
+        assertThrows(RuntimeException.class, () -> service.getForecast("Екатеринбург", 1));
+        assertEquals(1, service.getStaleResponsesCount());
+    }
+
+    /**
+     * Создает сервис с тайм-аутом попытки в одну секунду
+     *
+     * @param maxRetries максимальное количество повторов
+     * @param deadline   максимальное время ожидания результата
+     * @return сервис
+     */
+    private ResilientWeatherForecastService createService(int maxRetries, Duration deadline) {
+        return new ResilientWeatherForecastService(delegate, circuitBreaker, Duration.ofSeconds(1), maxRetries,
+                Duration.ofMillis(1), deadline, 100, Duration.ofHours(6), clock, nanoTime::get);
+    }
+
+    /**
+     * Создает ряд прогнозов погоды
+     *
+     * @return ряд прогнозов погоды
+     */
+    private ForecastSeries createSeries() {
+        return new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 0, 0), Duration.ofHours(1), new double[1],
+                new double[1]);
+    }
+
+}
@@ -0,0 +1,81 @@
+package ru.urfu.weatherforecastbot.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Тесты метрик запросов к внешнему серверу
+ */
+class UpstreamMetricsTest {
+
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Метрики запросов к методу API
+     */
+    private final UpstreamMetrics upstreamMetrics = new UpstreamMetrics(meterRegistry, "forecast");
+
+    /**
+     * Проверяет, что запросы записываются в таймеры по результату:
+     * <ul>
+     *     <li>успешный ответ - {@code success}</li>
+     *     <li>ответ с ошибкой 4xx - {@code client_error}, 5xx - {@code server_error}</li>
+     *     <li>каждая подписка на запрос записывается отдельно</li>
+     * </ul>
+     */
+    @Test
+    @DisplayName("Тест на запись времени запросов по результату")
+    void testRecordsOutcome() {
+        Mono<String> successful = upstreamMetrics.timed(Mono.just("ok"));
+        assertEquals("ok", successful.block());
+        assertEquals("ok", successful.block());
+        Mono<String> notFound = upstreamMetrics.timed(Mono.error(WebClientResponseException.create(
+                HttpStatus.NOT_FOUND.value(), "Not Found", null, null, null)));
+        assertThrows(WebClientResponseException.class, notFound::block);
+        Mono<String> badGateway = upstreamMetrics.timed(Mono.error(WebClientResponseException.create(
+                HttpStatus.BAD_GATEWAY.value(), "Bad Gateway", null, null, null)));
+        assertThrows(WebClientResponseException.class, badGateway::block);
+
+        assertEquals(2, getCount("success"));
+        assertEquals(1, getCount("client_error"));
+        assertEquals(1, getCount("server_error"));
+    }
+
+    /**
+     * Проверяет, что запрос, отмененный вызывающим по истечении времени ожидания, записывается с результатом
+     * {@code cancelled}
+     */
+    @Test
+    @DisplayName("Тест на запись отмененного запроса")
+    void testRecordsCancelled() {
+        Mono<Object> timedOut = upstreamMetrics.timed(Mono.never()).timeout(Duration.ofMillis(10));
+        assertThrows(RuntimeException.class, timedOut::block);
+
+        assertEquals(1, getCount("cancelled"));
+        assertEquals(0, getCount("timeout"));
+    }
+
+    /**
+     * Возвращает количество запросов с указанным результатом
+     *
+     * @param outcome результат запроса
+     * @return количество запросов
+     */
+    private long getCount(String outcome) {
+        return meterRegistry.get("upstream.requests").tags("endpoint", "forecast", "outcome", outcome).timer()
+                .count();
+    }
+
+}
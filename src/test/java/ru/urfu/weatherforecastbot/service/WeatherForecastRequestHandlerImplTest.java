@@ -5,15 +5,16 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.bot.BotConstants;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 import ru.urfu.weatherforecastbot.util.ForecastTimePeriod;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatter;
 import ru.urfu.weatherforecastbot.util.WeatherForecastFormatterImpl;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.when;
@@ -55,13 +56,10 @@ class WeatherForecastRequestHandlerImplTest {
     void testTodayForecastsHandle() {
         LocalDateTime today = LocalDateTime.of(2023, 10, 10, 0, 0);
         int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int hour = 0; hour < hours; hour++) {
-            todayForecast.add(
-                    new WeatherForecast(place, today.withHour(hour), 0, 0));
-        }
-        when(weatherService.getForecast("Екатеринбург", 1)).thenReturn(todayForecast);
+        ForecastSeries todayForecast = new ForecastSeries(place, today, Duration.ofHours(1),
+                new double[hours], new double[hours]);
+        when(weatherService.getForecastAsync("Екатеринбург", 1)).thenReturn(Mono.just(todayForecast));
 
         assertEquals("""
                         🌡️ Прогноз погоды на сегодня (Екатеринбург):
@@ -90,12 +88,12 @@ class WeatherForecastRequestHandlerImplTest {
                         21-00: 0.0°C (по ощущению 0.0°C)
                         22-00: 0.0°C (по ощущению 0.0°C)
                         23-00: 0.0°C (по ощущению 0.0°C)""",
-                weatherForecastRequestHandler.handleForecasts("Екатеринбург", ForecastTimePeriod.TODAY));
+                weatherForecastRequestHandler.handleForecastsAsync("Екатеринбург", ForecastTimePeriod.TODAY).block());
 
-        when(weatherService.getForecast("random-text", 1)).thenReturn(List.of());
+        when(weatherService.getForecastAsync("random-text", 1)).thenReturn(Mono.just(ForecastSeries.empty()));
 
         assertEquals("Извините, данное место не найдено.",
-                weatherForecastRequestHandler.handleForecasts("random-text", ForecastTimePeriod.TODAY));
+                weatherForecastRequestHandler.handleForecastsAsync("random-text", ForecastTimePeriod.TODAY).block());
     }
 
     /**
@@ -112,15 +110,10 @@ class WeatherForecastRequestHandlerImplTest {
         LocalDateTime today = LocalDateTime.of(2023, 10, 10, 0, 0);
         int days = 2;
         int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int day = 0; day < days; day++) {
-            for (int hour = 0; hour < hours; hour++) {
-                todayForecast.add(
-                        new WeatherForecast(place, today.withHour(hour).plusDays(day), 0, 0));
-            }
-        }
-        when(weatherService.getForecast("Екатеринбург", 2)).thenReturn(todayForecast);
+        ForecastSeries todayForecast = new ForecastSeries(place, today, Duration.ofHours(1),
+                new double[days * hours], new double[days * hours]);
+        when(weatherService.getForecastAsync("Екатеринбург", 2)).thenReturn(Mono.just(todayForecast));
 
         assertEquals("""
                         🌡️ Прогноз погоды на завтра (Екатеринбург):
@@ -149,12 +142,12 @@ class WeatherForecastRequestHandlerImplTest {
                         21-00: 0.0°C (по ощущению 0.0°C)
                         22-00: 0.0°C (по ощущению 0.0°C)
                         23-00: 0.0°C (по ощущению 0.0°C)""",
-                weatherForecastRequestHandler.handleForecasts("Екатеринбург", ForecastTimePeriod.TOMORROW));
+                weatherForecastRequestHandler.handleForecastsAsync("Екатеринбург", ForecastTimePeriod.TOMORROW).block());
 
-        when(weatherService.getForecast("random-text", 2)).thenReturn(List.of());
+        when(weatherService.getForecastAsync("random-text", 2)).thenReturn(Mono.just(ForecastSeries.empty()));
 
         assertEquals("Извините, данное место не найдено.",
-                weatherForecastRequestHandler.handleForecasts("random-text", ForecastTimePeriod.TOMORROW));
+                weatherForecastRequestHandler.handleForecastsAsync("random-text", ForecastTimePeriod.TOMORROW).block());
     }
 
     /**
@@ -171,15 +164,11 @@ class WeatherForecastRequestHandlerImplTest {
         LocalDateTime now = LocalDateTime.of(2023, 10, 10, 0, 0);
         int days = 7;
         int hourInterval = 4;
-        List<WeatherForecast> weekForecast = new ArrayList<>();
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int day = 0; day < days; day++) {
-            for (int hour = 0; hour < 24; hour += hourInterval) {
-                weekForecast.add(
-                        new WeatherForecast(place, now.plusDays(day).withHour(hour), 0, 0));
-            }
-        }
-        when(weatherService.getForecast("Екатеринбург", 7)).thenReturn(weekForecast);
+        int count = days * 24 / hourInterval;
+        ForecastSeries weekForecast = new ForecastSeries(place, now, Duration.ofHours(hourInterval),
+                new double[count], new double[count]);
+        when(weatherService.getForecastAsync("Екатеринбург", 7)).thenReturn(Mono.just(weekForecast));
 
         assertEquals("""
                         🌡️ Прогноз погоды на неделю (Екатеринбург):
@@ -239,11 +228,22 @@ class WeatherForecastRequestHandlerImplTest {
                         12-00: 0.0°C (по ощущению 0.0°C)
                         16-00: 0.0°C (по ощущению 0.0°C)
                         20-00: 0.0°C (по ощущению 0.0°C)""",
-                weatherForecastRequestHandler.handleForecasts("Екатеринбург", ForecastTimePeriod.WEEK));
+                weatherForecastRequestHandler.handleForecastsAsync("Екатеринбург", ForecastTimePeriod.WEEK).block());
 
-        when(weatherService.getForecast("random-text", 7)).thenReturn(List.of());
+        when(weatherService.getForecastAsync("random-text", 7)).thenReturn(Mono.just(ForecastSeries.empty()));
 
         assertEquals("Извините, данное место не найдено.",
-                weatherForecastRequestHandler.handleForecasts("random-text", ForecastTimePeriod.WEEK));
+                weatherForecastRequestHandler.handleForecastsAsync("random-text", ForecastTimePeriod.WEEK).block());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Если прогноз получить не удалось, должно вернуться сообщение о недоступности сервиса")
+    void givenFailingService_whenHandleForecasts_thenReturnUnavailableMessage() {
+        when(weatherService.getForecastAsync("Екатеринбург", 1))
+                .thenReturn(Mono.error(new IllegalStateException("Weather forecast service is unavailable")));
+
+        assertEquals(BotConstants.FORECAST_UNAVAILABLE,
+                weatherForecastRequestHandler.handleForecastsAsync("Екатеринбург", ForecastTimePeriod.TODAY).block());
+    }
+
+}
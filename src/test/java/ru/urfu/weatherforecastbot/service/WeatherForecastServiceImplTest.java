@@ -8,15 +8,21 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
 import reactor.core.publisher.Mono;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 
+import java.time.Duration;
+import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.when;
 
 /**
@@ -27,6 +33,10 @@ class WeatherForecastServiceImplTest {
 
     private final GeocodingService geocodingService;
     private final WeatherForecastService weatherForecastService;
+    /**
+     * Количество запросов к серверу прогнозов
+     */
+    private final AtomicInteger requestsCount = new AtomicInteger();
 
     public WeatherForecastServiceImplTest(@Mock GeocodingService geocodingService) {
         String forecast = """
@@ -74,30 +84,90 @@ class WeatherForecastServiceImplTest {
                   }
                 }""";
         WebClient fakeWebClient = WebClient.builder()
-                .exchangeFunction(clientRequest -> Mono.just(ClientResponse.create(HttpStatus.OK)
-                        .header("content-type", "application/json")
-                        .body(forecast)
-                        .build()))
+                .exchangeFunction(clientRequest -> {
+                    requestsCount.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header("content-type", "application/json")
+                            .body(forecast)
+                            .build());
+                })
                 .build();
         this.geocodingService = geocodingService;
         weatherForecastService = new WeatherForecastServiceImpl(geocodingService, fakeWebClient);
     }
 
     @Test
-    @DisplayName("Если место не найдено, должен вернуться пустой список")
-    void givenNotFoundPlace_whenGetForecast_thenReturnEmptyList() {
-        when(geocodingService.findPlaceByName("beautiful faraway")).thenReturn(Optional.empty());
+    @DisplayName("Если место не найдено, должен вернуться пустой ряд")
+    void givenNotFoundPlace_whenGetForecast_thenReturnEmptySeries() {
+        when(geocodingService.findPlaceByNameAsync("beautiful faraway")).thenReturn(Mono.empty());
 
-        assertEquals(List.of(), weatherForecastService.getForecast("beautiful faraway", 1));
+        assertTrue(weatherForecastService.getForecast("beautiful faraway", 1).isEmpty());
     }
 
     @Test
-    @DisplayName("Если место найдено, должен вернуться не пустой список")
-    void givenPlace_whenGetForecast_thenReturnNotEmptyList() {
+    @DisplayName("Если место найдено, должен вернуться не пустой ряд")
+    void givenPlace_whenGetForecast_thenReturnNotEmptySeries() {
         Place ekaterinburg = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        when(geocodingService.findPlaceByName("Екатеринбург")).thenReturn(Optional.of(ekaterinburg));
+        when(geocodingService.findPlaceByNameAsync("Екатеринбург")).thenReturn(Mono.just(ekaterinburg));
 
-        List<WeatherForecast> forecasts = weatherForecastService.getForecast("Екатеринбург", 1);
+        ForecastSeries forecasts = weatherForecastService.getForecast("Екатеринбург", 1);
         assertFalse(forecasts.isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("Повторные запросы прогноза для того же места должны обслуживаться из кэша без запроса к серверу")
+    void givenCachedForecast_whenGetForecast_thenServerRequestedOnce() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        when(geocodingService.findPlaceByNameAsync("Екатеринбург")).thenReturn(Mono.just(ekaterinburg));
+
+        ForecastSeries weekForecasts = weatherForecastService.getForecast("Екатеринбург", 7);
+        ForecastSeries todayForecasts = weatherForecastService.getForecast("Екатеринбург", 1);
+
+        assertEquals(weekForecasts, todayForecasts);
+        assertEquals(1, requestsCount.get());
+    }
+
+    @Test
+    @DisplayName("Прогнозы для нескольких мест должны запрашиваться пакетами, а найденные в кэше - не запрашиваться")
+    void givenSeveralPlaces_whenGetForecasts_thenServerRequestedInBatches() {
+        List<String> requestedLatitudes = new CopyOnWriteArrayList<>();
+        WebClient batchWebClient = WebClient.builder()
+                .exchangeFunction(clientRequest -> {
+                    String latitudes = UriComponentsBuilder.fromUri(clientRequest.url()).build()
+                            .getQueryParams().getFirst("latitude");
+                    requestedLatitudes.add(latitudes);
+                    String forecast = """
+                            {"hourly":{"time":["2023-11-05T00:00"],"temperature_2m":[-3.6],\
+                            "apparent_temperature":[-7.5]}}""";
+                    int placesCount = latitudes.split(",").length;
+                    String body = placesCount == 1
+                            ? forecast
+                            : "[" + String.join(",", Collections.nCopies(placesCount, forecast)) + "]";
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header("content-type", "application/json")
+                            .body(body)
+                            .build());
+                })
+                .build();
+        WeatherForecastService batchService = new WeatherForecastServiceImpl(geocodingService, batchWebClient,
+                new ForecastCache(100, Duration.ofHours(1)), 2);
+        Place ekaterinburg = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        Place moscow = new Place("Москва", 55.75, 37.625, "Europe/Moscow");
+        Place omsk = new Place("Омск", 54.98, 73.37, "Asia/Omsk");
+        when(geocodingService.findPlaceByNameAsync("Екатеринбург")).thenReturn(Mono.just(ekaterinburg));
+        when(geocodingService.findPlaceByNameAsync("Москва")).thenReturn(Mono.just(moscow));
+        when(geocodingService.findPlaceByNameAsync("Омск")).thenReturn(Mono.just(omsk));
+        when(geocodingService.findPlaceByNameAsync("beautiful faraway")).thenReturn(Mono.empty());
+        batchService.getForecast("Москва", 1);
+
+        Map<String, ForecastSeries> forecasts = batchService.getForecasts(
+                List.of("Екатеринбург", "Москва", "Омск", "beautiful faraway"), 1);
+
+        assertEquals(List.of("Екатеринбург", "Москва", "Омск", "beautiful faraway"),
+                List.copyOf(forecasts.keySet()));
+        assertEquals(ekaterinburg, forecasts.get("Екатеринбург").place());
+        assertEquals(omsk, forecasts.get("Омск").place());
+        assertTrue(forecasts.get("beautiful faraway").isEmpty());
+        assertEquals(List.of("55.75", "56.875,54.98"), requestedLatitudes);
+    }
+}
@@ -1,13 +1,12 @@
 package ru.urfu.weatherforecastbot.service;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -19,10 +18,6 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
  */
 class WeatherForecastsDeserializerTest {
 
-    /**
-     * JSON маппер
-     */
-    private final ObjectMapper mapper = new ObjectMapper();
     /**
      * Десериализатор ответа сервера прогнозов погоды
      */
@@ -30,7 +25,7 @@ class WeatherForecastsDeserializerTest {
 
     @Test
     @DisplayName("При валидном json десериализация должна проходить успешно")
-    void givenValidJson_whenDeserialize_thenReturnForecasts() throws JsonProcessingException {
+    void givenValidJson_whenDeserialize_thenReturnForecasts() {
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
         String json = """
                 {
@@ -76,44 +71,31 @@ class WeatherForecastsDeserializerTest {
                     ]
                   }
                 }""";
-        JsonNode jsonNode = mapper.readTree(json);
-        List<WeatherForecast> expected = List.of(
-                new WeatherForecast(
-                        place,
-                        LocalDateTime.of(2023, 11, 5, 0, 0),
-                        -3.6,
-                        -7.5
-                ),
-                new WeatherForecast(
-                        place,
-                        LocalDateTime.of(2023, 11, 5, 1, 0),
-                        -3.8,
-                        -7.7
-                ),
-                new WeatherForecast(
-                        place,
-                        LocalDateTime.of(2023, 11, 5, 2, 0),
-                        -3.8,
-                        -7.7
-                )
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        ForecastSeries expected = new ForecastSeries(
+                place,
+                LocalDateTime.of(2023, 11, 5, 0, 0),
+                Duration.ofHours(1),
+                new double[]{-3.6, -3.8, -3.8},
+                new double[]{-7.5, -7.7, -7.7}
         );
-        assertEquals(expected, deserializer.parseJsonResponseToWeatherForecasts(place, jsonNode));
+        assertEquals(expected, deserializer.parseJsonResponseToForecastSeries(place, response));
     }
 
     @Test
     @DisplayName("При отсутствии необходимых полей должно быть выброшено исключение")
-    void givenMalformedJson_whenDeserialize_thenExceptionThrown() throws JsonProcessingException {
+    void givenMalformedJson_whenDeserialize_thenExceptionThrown() {
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
         String json = "{\"field\":\"value\"}";
-        JsonNode jsonNode = mapper.readTree(json);
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
         String actualExceptionMessage = assertThrows(IllegalArgumentException.class,
-                () -> deserializer.parseJsonResponseToWeatherForecasts(place, jsonNode)).getMessage();
-        assertEquals("Wrong json provided: " + jsonNode, actualExceptionMessage);
+                () -> deserializer.parseJsonResponseToForecastSeries(place, response)).getMessage();
+        assertEquals("Wrong json provided: " + json, actualExceptionMessage);
     }
 
     @Test
     @DisplayName("При недостаточном количестве значений данных должно быть выброшено исключение")
-    void givenNotEnoughData_whenDeserialize_thenExceptionThrown() throws JsonProcessingException {
+    void givenNotEnoughData_whenDeserialize_thenExceptionThrown() {
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
         String json = """
                 {
@@ -157,9 +139,49 @@ class WeatherForecastsDeserializerTest {
                     ]
                   }
                 }""";
-        JsonNode jsonNode = mapper.readTree(json);
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
         String actualExceptionMessage = assertThrows(IllegalArgumentException.class,
-                () -> deserializer.parseJsonResponseToWeatherForecasts(place, jsonNode)).getMessage();
-        assertEquals("Wrong json provided: " + jsonNode, actualExceptionMessage);
+                () -> deserializer.parseJsonResponseToForecastSeries(place, response)).getMessage();
+        assertEquals("Wrong json provided: " + json, actualExceptionMessage);
+    }
+
+    @Test
+    @DisplayName("Ответ для нескольких мест должен разбираться в ряды в порядке мест")
+    void givenMultiLocationJson_whenDeserialize_thenReturnSeriesInPlacesOrder() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        Place moscow = new Place("Москва", 55.75, 37.625, "Europe/Moscow");
+        String json = """
+                [
+                  {
+                    "latitude": 56.875,
+                    "longitude": 60.625,
+                    "hourly": {
+                      "time": ["2023-11-05T00:00", "2023-11-05T01:00"],
+                      "temperature_2m": [-3.6, -3.8],
+                      "apparent_temperature": [-7.5, -7.7]
+                    }
+                  },
+                  {
+                    "latitude": 55.75,
+                    "longitude": 37.625,
+                    "hourly": {
+                      "time": ["2023-11-05T00:00", "2023-11-05T01:00"],
+                      "temperature_2m": [1.2, 1.0],
+                      "apparent_temperature": [-1.5, -1.9]
+                    }
+                  }
+                ]""";
+        byte[] response = json.getBytes(StandardCharsets.UTF_8);
+        LocalDateTime start = LocalDateTime.of(2023, 11, 5, 0, 0);
+        List<ForecastSeries> expected = List.of(
+                new ForecastSeries(ekaterinburg, start, Duration.ofHours(1), new double[]{-3.6, -3.8},
+                        new double[]{-7.5, -7.7}),
+                new ForecastSeries(moscow, start, Duration.ofHours(1), new double[]{1.2, 1.0},
+                        new double[]{-1.5, -1.9})
+        );
+        assertEquals(expected,
+                deserializer.parseJsonResponseToForecastSeriesList(List.of(ekaterinburg, moscow), response));
+        assertThrows(IllegalArgumentException.class,
+                () -> deserializer.parseJsonResponseToForecastSeriesList(List.of(ekaterinburg), response));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,80 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты справочника мест, хранящегося в памяти
+ */
+class InMemoryGazetteerTest {
+
+    /**
+     * Справочник мест, загруженный из тестовой выгрузки GeoNames
+     */
+    private static InMemoryGazetteer gazetteer;
+
+    @BeforeAll
+    static void loadGazetteer() throws Exception {
+        gazetteer = InMemoryGazetteer.load(Path.of(InMemoryGazetteerTest.class.getResource("/gazetteer/cities.txt")
+                .toURI()));
+    }
+
+    @Test
+    @DisplayName("Место должно находиться по любому своему названию без учета регистра, пробелов и буквы \"ё\"")
+    void givenDifferentNameForms_whenFind_thenPlaceFound() {
+        Place ekaterinburg = new Place("Екатеринбург", 56.8519, 60.6122, "Asia/Yekaterinburg");
+
+        assertEquals(Optional.of(ekaterinburg), gazetteer.find("  екатеринбург "));
+        assertEquals(Optional.of(new Place("Sverdlovsk", 56.8519, 60.6122, "Asia/Yekaterinburg")),
+                gazetteer.find("SVERDLOVSK"));
+        assertEquals(Optional.of(new Place("Орёл", 52.96508, 36.07849, "Europe/Moscow")), gazetteer.find("Орел"));
+        assertEquals(Optional.empty(), gazetteer.find("Екатеринбур"));
+    }
+
+    @Test
+    @DisplayName("Из мест с одинаковым названием должно находиться место с наибольшим населением")
+    void givenAmbiguousName_whenFind_thenMostPopulousPlaceFound() {
+        assertEquals(Optional.of(new Place("Санкт-Петербург", 59.93863, 30.31413, "Europe/Moscow")),
+                gazetteer.find("санкт-петербург"));
+    }
+
+    @Test
+    @DisplayName("Места по префиксу должны возвращаться в порядке убывания населения")
+    void givenPrefix_whenFindByPrefix_thenPlacesOrderedByPopulation() {
+        assertEquals(List.of(new Place("Санкт-Петербург", 59.93863, 30.31413, "Europe/Moscow"),
+                        new Place("Свердловск", 56.8519, 60.6122, "Asia/Yekaterinburg")),
+                gazetteer.findByPrefix("С", 5));
+        assertEquals(List.of(new Place("Омск", 54.99244, 73.36859, "Asia/Omsk")), gazetteer.findByPrefix("о", 1));
+        assertEquals(List.of(), gazetteer.findByPrefix("Ы", 5));
+    }
+
+    @Test
+    @DisplayName("Место должно находиться по названию с опечатками, но не по слишком короткому или далекому")
+    void givenMisspelledName_whenFindSimilar_thenPlaceFound() {
+        assertEquals(Optional.of(new Place("Екатеринбург", 56.8519, 60.6122, "Asia/Yekaterinburg")),
+                gazetteer.findSimilar("Екатеренбурк"));
+        assertEquals(Optional.of(new Place("Челябинск", 55.15402, 61.42915, "Asia/Yekaterinburg")),
+                gazetteer.findSimilar("челябинкс"));
+        assertEquals(Optional.of(new Place("Омск", 54.99244, 73.36859, "Asia/Omsk")), gazetteer.findSimilar("Омкс"));
+        assertEquals(Optional.empty(), gazetteer.findSimilar("Омс"));
+        assertEquals(Optional.empty(), gazetteer.findSimilar("Москвабург"));
+    }
+
+    @Test
+    @DisplayName("Расстояние Дамерау-Левенштейна должно учитывать перестановки и ограничиваться максимальным")
+    void givenStrings_whenDistance_thenDamerauLevenshteinDistanceReturned() {
+        assertEquals(0, Gazetteer.distance("омск", "омск", 2));
+        assertEquals(1, Gazetteer.distance("омск", "омкс", 2));
+        assertEquals(1, Gazetteer.distance("москва", "моска", 2));
+        assertEquals(3, Gazetteer.distance("абвгде", "еджзий", 2));
+    }
+
+}
@@ -0,0 +1,61 @@
+package ru.urfu.weatherforecastbot.service.gazetteer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Тесты справочника мест, отображенного в память из снимка
+ */
+class MappedGazetteerTest {
+
+    /**
+     * Временный каталог для файлов снимков
+     */
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Справочник из снимка должен находить те же места, что и справочник в памяти")
+    void givenSnapshot_whenFind_thenSamePlacesAsInMemoryGazetteerFound() throws Exception {
+        List<GazetteerRecord> records = GeoNamesReader.read(Path.of(getClass().getResource("/gazetteer/cities.txt")
+                .toURI()));
+        Path snapshot = directory.resolve("gazetteer.bin");
+        GazetteerSnapshot.write(records, snapshot);
+        InMemoryGazetteer inMemoryGazetteer = InMemoryGazetteer.of(records);
+
+        assertTrue(GazetteerSnapshot.isSnapshot(snapshot));
+        MappedGazetteer gazetteer = MappedGazetteer.open(snapshot);
+
+        assertEquals(inMemoryGazetteer.size(), gazetteer.size());
+        for (int i = 0; i < gazetteer.size(); i++) {
+            assertEquals(inMemoryGazetteer.getName(i), gazetteer.getName(i));
+            assertEquals(inMemoryGazetteer.getPlace(i), gazetteer.getPlace(i));
+            assertEquals(Optional.of(inMemoryGazetteer.getPlace(i)), gazetteer.find(gazetteer.getName(i)));
+        }
+        assertEquals(Optional.of(new Place("Орёл", 52.96508, 36.07849, "Europe/Moscow")), gazetteer.find("ОРЕЛ"));
+        assertEquals(Optional.empty(), gazetteer.find("Екатеринбур"));
+        assertEquals(inMemoryGazetteer.findByPrefix("с", 5), gazetteer.findByPrefix("с", 5));
+        assertEquals(inMemoryGazetteer.findSimilar("Екатеренбурк"), gazetteer.findSimilar("Екатеренбурк"));
+    }
+
+    @Test
+    @DisplayName("Файл, не являющийся снимком, не должен открываться как снимок")
+    void givenDump_whenOpen_thenExceptionThrown() throws Exception {
+        Path dump = Path.of(getClass().getResource("/gazetteer/cities.txt").toURI());
+        Path empty = Files.createFile(directory.resolve("empty.bin"));
+
+        assertFalse(GazetteerSnapshot.isSnapshot(dump));
+        assertFalse(GazetteerSnapshot.isSnapshot(empty));
+        assertThrows(IllegalArgumentException.class, () -> MappedGazetteer.open(dump));
+    }
+
+}
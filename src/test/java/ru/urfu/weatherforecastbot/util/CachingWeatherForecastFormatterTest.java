@@ -0,0 +1,91 @@
+package ru.urfu.weatherforecastbot.util;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
+import ru.urfu.weatherforecastbot.model.Place;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Тесты кэширующего форматировщика прогнозов погоды
+ */
+class CachingWeatherForecastFormatterTest {
+
+    /**
+     * Количество обращений к форматировщику
+     */
+    private final AtomicInteger rendersCount = new AtomicInteger();
+    /**
+     * Текущее время кэша в наносекундах
+     */
+    private final AtomicLong nanos = new AtomicLong();
+    /**
+     * Реестр метрик
+     */
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+    /**
+     * Кэширующий форматировщик
+     */
+    private final CachingWeatherForecastFormatter formatter = new CachingWeatherForecastFormatter(
+            (timePeriod, series) -> {
+                rendersCount.incrementAndGet();
+                return timePeriod + " " + series.place().name() + " " + series.getTemperature(0);
+            }, 100, Duration.ofHours(1), nanos::get, ObservationRegistry.NOOP, meterRegistry);
+    /**
+     * Место прогноза
+     */
+    private final Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+
+    @Test
+    @DisplayName("Повторное форматирование тех же данных (в том числе другого среза того же ряда) для того же " +
+            "периода должно обслуживаться из кэша")
+    void givenSameSeriesVersion_whenFormatForecasts_thenRenderedOncePerPeriod() {
+        ForecastSeries week = createSeries(-5);
+
+        assertEquals("TODAY Екатеринбург -5.0", formatter.formatForecasts(ForecastTimePeriod.TODAY, week.slice(0, 24)));
+        assertEquals("TODAY Екатеринбург -5.0", formatter.formatForecasts(ForecastTimePeriod.TODAY, week.slice(0, 24)));
+        assertEquals("WEEK Екатеринбург -5.0", formatter.formatForecasts(ForecastTimePeriod.WEEK, week));
+
+        assertEquals(2, rendersCount.get());
+        assertEquals(1, formatter.getStats().hitCount());
+        assertEquals(2, meterRegistry.get("cache.gets").tags("cache", "forecast_format", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    @DisplayName("После обновления данных и по истечении времени хранения прогноз должен форматироваться заново")
+    void givenRefreshedSeriesOrExpiredEntry_whenFormatForecasts_thenRenderedAgain() {
+        assertEquals("TODAY Екатеринбург -5.0", formatter.formatForecasts(ForecastTimePeriod.TODAY, createSeries(-5)));
+        assertEquals("TODAY Екатеринбург 3.0", formatter.formatForecasts(ForecastTimePeriod.TODAY, createSeries(3)));
+        assertEquals(2, rendersCount.get());
+
+        ForecastSeries series = createSeries(1);
+        formatter.formatForecasts(ForecastTimePeriod.TODAY, series);
+        nanos.addAndGet(Duration.ofHours(1).toNanos());
+        formatter.formatForecasts(ForecastTimePeriod.TODAY, series);
+        assertEquals(4, rendersCount.get());
+    }
+
+    /**
+     * Создает почасовой ряд прогнозов на неделю (как при загрузке с сервера, с новой версией данных)
+     *
+     * @param temperature температура первого часа
+     * @return ряд прогнозов
+     */
+    private ForecastSeries createSeries(double temperature) {
+        double[] temperatures = new double[7 * 24];
+        temperatures[0] = temperature;
+        return new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 0, 0), Duration.ofHours(1), temperatures,
+                new double[7 * 24]);
+    }
+
+}
@@ -2,12 +2,11 @@ package ru.urfu.weatherforecastbot.util;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import ru.urfu.weatherforecastbot.model.ForecastSeries;
 import ru.urfu.weatherforecastbot.model.Place;
-import ru.urfu.weatherforecastbot.model.WeatherForecast;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -27,12 +26,9 @@ class WeatherForecastFormatterImplTest {
     void givenTodayNotEmptyForecast_whenFormatForecast_thenReturnFormattedTodayForecast() {
         LocalDateTime today = LocalDateTime.of(2023, 11, 5, 0, 0);
         int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int hour = 0; hour < hours; hour++) {
-            todayForecast.add(
-                    new WeatherForecast(place, today.withHour(hour), 0, 0));
-        }
+        ForecastSeries todayForecast = new ForecastSeries(place, today, Duration.ofHours(1),
+                new double[hours], new double[hours]);
         String expected = """
                 \uD83C\uDF21️ Прогноз погоды на сегодня (Екатеринбург):
 
@@ -70,7 +66,7 @@ class WeatherForecastFormatterImplTest {
     @DisplayName("При пустом прогнозе погоды должен выбрасывать исключение с сообщением о том, что список " +
             "прогнозов пуст")
     void givenEmptyForecast_whenFormatForecast_thenThrowException() {
-        List<WeatherForecast> todayForecast = List.of();
+        ForecastSeries todayForecast = ForecastSeries.empty();
 
         Exception exception = assertThrows(IllegalArgumentException.class,
                 () -> formatter.formatForecasts(ForecastTimePeriod.TODAY, todayForecast));
@@ -79,28 +75,50 @@ class WeatherForecastFormatterImplTest {
     }
 
     @Test
-    @DisplayName("При прогнозе погоды с различными местами должен выбрасывать исключение с сообщением о том, " +
-            "что прогнозы относятся не к одному месту")
-    void givenForecastWithDifferentPlaces_whenFormatForecast_thenThrowException() {
-        LocalDateTime today = LocalDateTime.of(2023, 11, 5, 0, 0);
-        int hours = 24;
-        List<WeatherForecast> todayForecast = new ArrayList<>(hours);
-        Place ekaterinburg =
-                new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        Place moscow = new Place("Москва", 55.752, 37.615, "Europe/Moscow");
-        for (int hour = 0; hour < hours; hour++) {
-            todayForecast.add(
-                    new WeatherForecast(
-                            hour % 2 == 0 ? ekaterinburg : moscow,
-                            today.withHour(hour),
-                            0,
-                            0)
-            );
+    @DisplayName("При почасовом прогнозе погоды на неделю должны выводиться прогнозы с интервалом в 4 часа, " +
+            "начиная с первого прогноза, кратного интервалу")
+    void givenHourlyWeekForecast_whenFormatForecast_thenEveryFourthHourFormatted() {
+        LocalDateTime start = LocalDateTime.of(2023, 11, 5, 18, 0);
+        int hours = 12;
+        double[] temperatures = new double[hours];
+        double[] feelsLikeTemperatures = new double[hours];
+        for (int i = 0; i < hours; i++) {
+            temperatures[i] = i;
+            feelsLikeTemperatures[i] = -i;
         }
-        Exception exception = assertThrows(IllegalArgumentException.class,
-                () -> formatter.formatForecasts(ForecastTimePeriod.TODAY, todayForecast));
+        Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        ForecastSeries weekForecast = new ForecastSeries(place, start, Duration.ofHours(1), temperatures,
+                feelsLikeTemperatures);
+        String expected = """
+                \uD83C\uDF21️ Прогноз погоды на неделю (Екатеринбург):
+
+                05.11.2023:
+                20-00: 2.0°C (по ощущению -2.0°C)
+
+                06.11.2023:
+                00-00: 6.0°C (по ощущению -6.0°C)
+                04-00: 10.0°C (по ощущению -10.0°C)""";
+
+        String actual = formatter.formatForecasts(ForecastTimePeriod.WEEK, weekForecast);
+
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    @DisplayName("Температура должна выводиться с точностью до десятых")
+    void givenTemperaturesWithManyDigits_whenFormatForecast_thenRoundedToTenths() {
+        Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
+        ForecastSeries todayForecast = new ForecastSeries(place, LocalDateTime.of(2023, 11, 5, 9, 30),
+                Duration.ofHours(1), new double[]{12.34, -0.06}, new double[]{-15.25, 0.04});
+        String expected = """
+                \uD83C\uDF21️ Прогноз погоды на сегодня (Екатеринбург):
 
-        assertEquals("Forecasts have different places!", exception.getMessage());
+                09-30: 12.3°C (по ощущению -15.2°C)
+                10-30: -0.1°C (по ощущению 0.0°C)""";
+
+        String actual = formatter.formatForecasts(ForecastTimePeriod.TODAY, todayForecast);
+
+        assertEquals(expected, actual);
     }
 
     @Test
@@ -108,12 +126,9 @@ class WeatherForecastFormatterImplTest {
     void givenTomorrowNotEmptyForecast_whenFormatForecast_thenReturnFormattedTomorrowForecast() {
         LocalDateTime tomorrow = LocalDateTime.of(2023, 11, 5, 0, 0);
         int hours = 24;
-        List<WeatherForecast> tomorrowForecast = new ArrayList<>(hours);
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int hour = 0; hour < hours; hour++) {
-            tomorrowForecast.add(
-                    new WeatherForecast(place, tomorrow.withHour(hour), 0, 0));
-        }
+        ForecastSeries tomorrowForecast = new ForecastSeries(place, tomorrow, Duration.ofHours(1),
+                new double[hours], new double[hours]);
         String expected = """
                 \uD83C\uDF21️ Прогноз погоды на завтра (Екатеринбург):
 
@@ -153,14 +168,10 @@ class WeatherForecastFormatterImplTest {
         LocalDateTime today = LocalDateTime.of(2023, 11, 12, 0, 0);
         int days = 7;
         int hourInterval = 4;
-        List<WeatherForecast> weekForecast = new ArrayList<>();
         Place place = new Place("Екатеринбург", 56.875, 60.625, "Asia/Yekaterinburg");
-        for (int day = 0; day < days; day++) {
-            for (int hour = 0; hour < 24; hour += hourInterval) {
-                weekForecast.add(
-                        new WeatherForecast(place, today.plusDays(day).withHour(hour), 0, 0));
-            }
-        }
+        int count = days * 24 / hourInterval;
+        ForecastSeries weekForecast = new ForecastSeries(place, today, Duration.ofHours(hourInterval),
+                new double[count], new double[count]);
         String expected = """
                 \uD83C\uDF21️ Прогноз погоды на неделю (Екатеринбург):
 